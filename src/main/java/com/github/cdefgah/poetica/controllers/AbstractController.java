@@ -5,12 +5,26 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.github.cdefgah.poetica.emails.EmailsCountRegistry;
+import com.github.cdefgah.poetica.events.GradingEventsHub;
+import com.github.cdefgah.poetica.grading.AutoGradingIndexManager;
+import com.github.cdefgah.poetica.listings.ListingPage;
+import com.github.cdefgah.poetica.listings.ListingQuery;
+import com.github.cdefgah.poetica.listings.PageCursor;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndexHolder;
+import com.github.cdefgah.poetica.reports.ReportsCache;
+import com.github.cdefgah.poetica.reports.restable.live.LiveResultsTableManager;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 
 import javax.persistence.EntityManager;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Прототип для всех REST-контроллеров.
@@ -29,6 +43,42 @@ abstract class AbstractController {
     @Autowired
     EntityManager entityManager;
 
+    /**
+     * Таблица результатов в памяти, обновляется при изменении оценок ответов.
+     */
+    @Autowired
+    LiveResultsTableManager liveResultsTableManager;
+
+    /**
+     * Кэш сформированных отчётов, при изменении данных нужно увеличивать номер версии данных.
+     */
+    @Autowired
+    ReportsCache reportsCache;
+
+    /**
+     * Индекс для поиска задания по номеру, при изменении заданий его нужно сбрасывать.
+     */
+    @Autowired
+    QuestionNumberIndexHolder questionNumberIndexHolder;
+
+    /**
+     * Индекс оценённых ответов в памяти, обновляется при изменении оценок и сбрасывается при удалении ответов.
+     */
+    @Autowired
+    AutoGradingIndexManager autoGradingIndexManager;
+
+    /**
+     * Количество писем каждой команды в памяти, обновляется при импорте и удалении писем.
+     */
+    @Autowired
+    EmailsCountRegistry emailsCountRegistry;
+
+    /**
+     * Рассылка событий проверки ответов подключенным клиентам.
+     */
+    @Autowired
+    GradingEventsHub gradingEventsHub;
+
     /**
      * Проверяет, если строка пустая, возвращает true.
      * @param string строка для проверки.
@@ -49,6 +99,41 @@ abstract class AbstractController {
         return "Внимание: " + rawErrorMessage;
     }
 
+    /**
+     * Отдаёт страницу постраничного списка вместе с ETag, вычисленным по её содержимому.
+     * Если клиент прислал тот-же ETag в заголовке If-None-Match, Spring отвечает HTTP.NOT_MODIFIED
+     * и страница в JSON не сериализуется.
+     * @param listingQuery постраничный список.
+     * @param filter условие отбора записей на JPQL с именованными параметрами.
+     * @param filterParameters значения параметров условия отбора.
+     * @param after позиция последней записи предыдущей страницы, либо null для первой страницы.
+     * @param pageSize количество записей на странице.
+     * @param fieldsSelector имена нужных полей через запятую, либо null, если нужны все поля.
+     * @return страница списка, либо HTTP.BAD_REQUEST, если параметры заданы неверно.
+     */
+    protected ResponseEntity<ListingPage> getListingPage(ListingQuery listingQuery, String filter,
+                                                         Map<String, Object> filterParameters, String after,
+                                                         int pageSize, String fieldsSelector) {
+
+        if (pageSize <= 0 || pageSize > ListingQuery.MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        final List<String> fields;
+        final PageCursor afterCursor;
+        try {
+            fields = listingQuery.parseFields(fieldsSelector);
+            afterCursor = isStringEmpty(after) ? null : PageCursor.parse(after);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        final ListingPage listingPage = listingQuery.loadPage(entityManager, filter, filterParameters, fields,
+                                                                                            afterCursor, pageSize);
+
+        return ResponseEntity.status(HttpStatus.OK).eTag(listingPage.composeETag()).body(listingPage);
+    }
+
     /**
      * Формирует HTTP заголовки для выгрузки файла.
      * @param fileNameWithExtension имя файла с расширением, которое будет выгружаться.
@@ -5,10 +5,16 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.github.cdefgah.poetica.events.GradingEvent;
 import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.model.Email;
 import com.github.cdefgah.poetica.model.Grade;
-import com.github.cdefgah.poetica.model.Question;
+import com.github.cdefgah.poetica.imports.AnswersImporter;
+import com.github.cdefgah.poetica.listings.ListingPage;
+import com.github.cdefgah.poetica.listings.ListingQuery;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,9 +25,9 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import javax.persistence.NoResultException;
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,11 +40,43 @@ import java.util.Optional;
 @Transactional
 public class AnswersController extends AbstractController {
 
+    /**
+     * Количество первых символов тела ответа, которые отдаются в постраничном списке.
+     */
+    private static final int LISTING_BODY_PREVIEW_LENGTH = 100;
+
+    /**
+     * Количество первых символов hash-кода тела ответа, которые отдаются в постраничном списке.
+     */
+    private static final int LISTING_HASH_PREFIX_LENGTH = 16;
+
+    /**
+     * Постраничный список ответов команды в порядке отправки писем.
+     * Вместо тела ответа отдаются его начало и длина, комментарии не отдаются.
+     */
+    private static final ListingQuery ANSWERS_LISTING = new ListingQuery("Answer", "answer", "emailSentOn")
+            .addColumn("id", "answer.id")
+            .addColumn("emailId", "answer.emailId")
+            .addColumn("emailSentOn", "answer.emailSentOn")
+            .addColumn("roundNumber", "answer.roundNumber")
+            .addColumn("questionNumber", "answer.questionNumber")
+            .addColumn("grade", "answer.grade")
+            .addColumn("hashPrefix", "substr(answer.answerBodyHash, 1, " + LISTING_HASH_PREFIX_LENGTH + ")")
+            .addColumn("body", "substr(answer.body, 1, " + LISTING_BODY_PREVIEW_LENGTH + ")")
+            .addColumn("bodyLength", "length(answer.body)");
+
+    /**
+     * Пакетный импорт ответов.
+     */
+    @Autowired
+    AnswersImporter answersImporter;
+
     /**
      * Отдаёт по запросу таблицу с максимальными размерами полей в модели данных.
      * @return таблица с максимальными размерами полей в модели данных.
      */
     @RequestMapping(path = "/answers/model-constraints", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, String>> getModelConstraints() {
         return new ResponseEntity<>(Answer.getModelConstraintsMap(), HttpStatus.OK);
     }
@@ -46,6 +84,8 @@ public class AnswersController extends AbstractController {
 
     /**
      * Импортирует ответы в базу данных.
+     * Если хотя-бы для одного ответа не найдено задание, либо тело ответа или комментарий длиннее
+     * допустимого, ни один ответ не импортируется.
      * @param answersToImport массив с ответами.
      * @return Если всё прошло нормально, возвращает пустую строку и HTTP.OK. В случае ошибки возвращает
      * строку с текстом ошибки и HTTP.BAD_REQUEST.
@@ -54,110 +94,16 @@ public class AnswersController extends AbstractController {
             consumes = "application/json",
             produces = "application/json")
     public ResponseEntity<String> importAnswers(@RequestBody Answer[] answersToImport) {
+        reportsCache.bumpDataVersion();
 
-        for(Answer oneAnswer: answersToImport) {
-            Optional<Long> questionIdInfo = getQuestionIdByQuestionNumber(oneAnswer.getQuestionNumber());
-            if (questionIdInfo.isPresent()) {
-                oneAnswer.setQuestionId(questionIdInfo.get());
-                assignGradeAutomaticallyIfPossible(oneAnswer);
-
-                entityManager.persist(oneAnswer);
-            } else {
-                return new ResponseEntity<>(composeErrorMessage("В базе данных не удалось найти вопрос с номером: " +
-                                                            oneAnswer.getQuestionNumber()), HttpStatus.BAD_REQUEST);
-            }
+        final Optional<String> importError = answersImporter.importAnswers(answersToImport);
+        if (importError.isPresent()) {
+            return new ResponseEntity<>(composeErrorMessage(importError.get()), HttpStatus.BAD_REQUEST);
         }
 
         return new ResponseEntity<>("", HttpStatus.OK);
     }
 
-    /**
-     * Пытается проставить оценку импортируемому ответу автоматически.
-     * Сперва проверяем на совпадение с авторским ответом в соответствующем ответу задании.
-     * Если совпадение есть, то ответу засчитывается зачёт (+), если нет, идёт поиск среди ответов,
-     * уже получивших оценку. Если найден ответ с оценкой, то обрабатываемому ответу даём ту-же оценку,
-     * что и в найденном ответе.
-     * @param answer Объект ответа, для которого надо попробовать дать автоматическую оценку.
-     */
-    private void assignGradeAutomaticallyIfPossible(Answer answer) {
-        long questionId = answer.getQuestionId();
-        Question question = getQuestionById(questionId);
-        rebuildAnswerHashWhenNecessary(question, answer);
-
-        if (answer.getAnswerBodyHash().equals(question.getAuthorsAnswerHash())) {
-            // если ответ совпадает с авторским ответом, засчитываем ответ и выходим
-            answer.setGrade(Grade.Accepted);
-            return;
-        }
-
-        attemptToGradeViaCheckingOtherGradedAnswers(answer);
-    }
-
-    /**
-     * Отдаёт объект вопроса по id.
-     * @param questionId id вопроса.
-     * @return объект вопроса.
-     */
-    private Question getQuestionById(long questionId) {
-        Question question = entityManager.find(Question.class, questionId);
-        if (question == null) {
-            // этого не может произойти, но если вдруг, мы бросаем RuntimeException().
-            throw new RuntimeException("Unable to find question by id: " + questionId);
-        }
-
-        return question;
-    }
-
-    /**
-     * Перестраивает hash-коды вопроса и ответа, если есть необходимость.
-     * @param question объект вопроса.
-     * @param answer объект ответа.
-     */
-    private void rebuildAnswerHashWhenNecessary(Question question, Answer answer) {
-        if (!answer.IsAnswerBodyHashPresent()) {
-            answer.buildAndSetAnswerBodyHash();
-        }
-
-        if (!question.IsAuthorsAnswerHashPresent()) {
-            question.buildAndSetAuthorsAnswerHash();
-        }
-    }
-
-    /**
-     * Проверяет все оцененные ответы на тот-же вопрос, на который дан ответ в объекте, переданном в параметре.
-     * Если найдётся совпадение, то переданный в параметре ответ получает ту-же оценку, что и в найденном ответе.
-     * @param answer объект ответа.
-     */
-    private void attemptToGradeViaCheckingOtherGradedAnswers(Answer answer) {
-
-        // ищем id оцененных ответов на этот-же вопрос, у которых совпадает hash-код ответа
-        TypedQuery<Long> query = entityManager.createQuery("select answer.id from " +
-                                                            "Answer answer where answer.grade<>:grade " +
-                                                            "and answer.questionId=:questionId " +
-                                                            "and answer.answerBodyHash=:answerBodyHash", Long.class);
-
-        query.setParameter("grade", Grade.None);
-        query.setParameter("questionId", answer.getQuestionId());
-        query.setParameter("answerBodyHash", answer.getAnswerBodyHash());
-
-        List<Long> resultList = query.getResultList();
-        if (resultList.size() == 0) {
-            // если ничего не нашли, просто выходим
-            return;
-        }
-
-        // если наши, то берем первый id ответа
-        long foundGradedAnswerId = resultList.get(0);
-        Answer foundGradedAnswer = entityManager.find(Answer.class, foundGradedAnswerId);
-        if (foundGradedAnswer == null) {
-            // этого не может произойти, но если вдруг, мы бросаем RuntimeException().
-            throw new RuntimeException("Unable to find answer by id: " + foundGradedAnswerId);
-        }
-
-        // выставляем ту-же оценку, что и у найденного ответа
-        answer.setGrade(foundGradedAnswer.getGrade());
-    }
-
     /**
      * Отдаёт все ответы для указанной команды и раунда.
      * @param teamId идентификатор команды.
@@ -165,24 +111,51 @@ public class AnswersController extends AbstractController {
      * @return список ответов.
      */
     @RequestMapping(path = "/answers/{teamId}/{roundOption}", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Answer>> getAnswers(@PathVariable long teamId, @PathVariable int roundOption) {
         TypedQuery<Answer> query;
 
         if (roundOption == 0) {
             // нужны все ответы
-            query = entityManager.createQuery("select answer from Answer answer where answer.teamId=:teamId",
-                    Answer.class);
+            query = entityManager.createNamedQuery(Answer.FIND_BY_TEAM_QUERY, Answer.class);
             query.setParameter("teamId", teamId);
         } else {
             // нужны ответы на определенный тур (раунд)
-            query = entityManager.createQuery("select answer from Answer answer where " +
-                                                            "answer.teamId=:teamId and answer.roundNumber=:roundNumber",
-                    Answer.class);
+            query = entityManager.createNamedQuery(Answer.FIND_BY_TEAM_AND_ROUND_QUERY, Answer.class);
             query.setParameter("teamId", teamId);
             query.setParameter("roundNumber", roundOption);
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(query.getResultList());
+        return ResponseEntity.status(HttpStatus.OK).body(ReadOnlyQueries.readOnly(query).getResultList());
+    }
+
+    /**
+     * Отдаёт страницу списка ответов для указанной команды и раунда.
+     * @param teamId идентификатор команды.
+     * @param roundOption номер раунда. Если передан 0 - то забираем всё.
+     * @param after позиция последнего ответа предыдущей страницы (nextCursor), для первой страницы не передаётся.
+     * @param limit количество ответов на странице.
+     * @param fields имена нужных полей через запятую, если не переданы, отдаются все поля.
+     * @return страница списка ответов, либо HTTP.BAD_REQUEST, если параметры заданы неверно.
+     */
+    @RequestMapping(path = "/answers/page/{teamId}/{roundOption}", method = RequestMethod.GET,
+                                                                                    produces = "application/json")
+    @Transactional(readOnly = true)
+    public ResponseEntity<ListingPage> getAnswersPage(@PathVariable long teamId, @PathVariable int roundOption,
+                                                  @RequestParam(value = "after", required = false) String after,
+                                                  @RequestParam(value = "limit", required = false,
+                                                          defaultValue = "" + ListingQuery.DEFAULT_PAGE_SIZE) int limit,
+                                                  @RequestParam(value = "fields", required = false) String fields) {
+
+        final Map<String, Object> filterParameters = new HashMap<>();
+        filterParameters.put("teamId", teamId);
+        String filter = "answer.teamId=:teamId";
+        if (roundOption != 0) {
+            filter += " and answer.roundNumber=:roundNumber";
+            filterParameters.put("roundNumber", roundOption);
+        }
+
+        return getListingPage(ANSWERS_LISTING, filter, filterParameters, after, limit, fields);
     }
 
     /**
@@ -190,8 +163,9 @@ public class AnswersController extends AbstractController {
      * @return true, если есть, false - в противном случае.
      */
     @RequestMapping(path = "/answers/present", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Boolean> areAnswersPresent() {
-        TypedQuery<Long> query = entityManager.createQuery("select count(*) FROM Email email", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Email.COUNT_ALL_QUERY, Long.class);
         return ResponseEntity.status(HttpStatus.OK).body(query.getSingleResult() > 0);
     }
 
@@ -201,6 +175,7 @@ public class AnswersController extends AbstractController {
      * @return объект ответа, если найден вместе с HTTP.OK. Если не найден, то возвращается HTTP.NOT_FOUND.
      */
     @RequestMapping(path = "/answers/{answerId}", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Answer> getAnswerById(@PathVariable long answerId) {
         Answer answer = entityManager.find(Answer.class, answerId);
         if (answer != null) {
@@ -218,6 +193,7 @@ public class AnswersController extends AbstractController {
      */
     @RequestMapping(path = "/answers/accept", method = RequestMethod.PUT, produces = "application/json")
     public ResponseEntity<String> acceptAnswer(@RequestParam("answerId") long answerId) {
+        reportsCache.bumpDataVersion();
         Answer answer = entityManager.find(Answer.class, answerId);
         if (answer == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).
@@ -225,8 +201,13 @@ public class AnswersController extends AbstractController {
                             "с указанным идентификатором:  " + answerId));
         }
 
+        final Grade previousGrade = answer.getGrade();
         answer.setGrade(Grade.Accepted);
         entityManager.persist(answer);
+        liveResultsTableManager.publishGradeChange(answer.getTeamId(), answer.getQuestionNumber(),
+                                                                answer.getRoundNumber(), previousGrade, answer.getGrade());
+        gradingEventsHub.publish(GradingEvent.answerGraded(answer.getId(), answer.getTeamId(), answer.getQuestionId(),
+                                                                    answer.getRoundNumber(), answer.getGrade()));
 
         setTheSameGradeToAnswers(answer);
         return ResponseEntity.ok().build();
@@ -240,6 +221,7 @@ public class AnswersController extends AbstractController {
      */
     @RequestMapping(path = "/answers/decline", method = RequestMethod.PUT, produces = "application/json")
     public ResponseEntity<String> declineAnswer(@RequestParam("answerId") long answerId) {
+        reportsCache.bumpDataVersion();
         Answer answer = entityManager.find(Answer.class, answerId);
         if (answer == null) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).
@@ -247,8 +229,13 @@ public class AnswersController extends AbstractController {
                             "с указанным идентификатором:  " + answerId));
         }
 
+        final Grade previousGrade = answer.getGrade();
         answer.setGrade(Grade.NotAccepted);
         entityManager.persist(answer);
+        liveResultsTableManager.publishGradeChange(answer.getTeamId(), answer.getQuestionNumber(),
+                                                                answer.getRoundNumber(), previousGrade, answer.getGrade());
+        gradingEventsHub.publish(GradingEvent.answerGraded(answer.getId(), answer.getTeamId(), answer.getQuestionId(),
+                                                                    answer.getRoundNumber(), answer.getGrade()));
 
         setTheSameGradeToAnswers(answer);
         return ResponseEntity.ok().build();
@@ -260,9 +247,9 @@ public class AnswersController extends AbstractController {
      * Если нет ответов без оценок, возвращается пустая строка.
      */
     @RequestMapping(path = "/answers/not-graded-presence", method = RequestMethod.GET)
+    @Transactional(readOnly = true)
     public ResponseEntity<String> notGradedAnswersPresent() {
-        TypedQuery<Long> query = entityManager.createQuery("select distinct answer.teamId from " +
-                                                                "Answer answer where answer.grade=:grade", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Answer.FIND_TEAM_IDS_BY_GRADE_QUERY, Long.class);
         query.setParameter("grade", Grade.None);
         List<Long> resultList = query.getResultList();
         String foundTeamId = "";
@@ -279,9 +266,9 @@ public class AnswersController extends AbstractController {
      * Если нет ответов без оценок, возвращается пустая строка.
      */
     @RequestMapping(path = "/answers/not-graded-presence/{teamId}", method = RequestMethod.GET)
+    @Transactional(readOnly = true)
     public ResponseEntity<String> notGradedAnswersPresentForTeam(@PathVariable long teamId) {
-        TypedQuery<Long> query = entityManager.createQuery("select count(*) from " +
-                                     "Answer answer where answer.teamId=:teamId and answer.grade=:grade", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Answer.COUNT_BY_TEAM_AND_GRADE_QUERY, Long.class);
         query.setParameter("teamId", teamId);
         query.setParameter("grade", Grade.None);
         final long answersFound = query.getSingleResult();
@@ -289,44 +276,38 @@ public class AnswersController extends AbstractController {
         return ResponseEntity.status(HttpStatus.OK).body(resultValue);
     }
 
-    /**
-     * Получает уникальный идентификатор вопроса (задания) по его номеру.
-     * @param questionNumber номер задания.
-     * @return Если найден, то возвращает уникальный идентификатор задания, обёрнутый в Optional.
-     * Если не найден, то возвращает Optional.empty().
-     */
-    private Optional<Long> getQuestionIdByQuestionNumber(int questionNumber) {
-        TypedQuery<Long> query =
-                entityManager.createQuery("select id FROM Question question WHERE " +
-                        "question.lowestInternalNumber<=:requestedQuestionNumber AND " +
-                        "question.highestInternalNumber>=:requestedQuestionNumber", Long.class);
-
-        query.setParameter("requestedQuestionNumber", questionNumber);
-
-        try {
-            return Optional.of(query.getSingleResult());
-
-        } catch(NoResultException noResultException) {
-            // сюда управление в принципе не может быть передано, но мы обрабатываем всё равно
-            return Optional.empty();
-        }
-    }
-
     /**
      * Выставляет ту-же оценку, что и в ответе всем другим ответам на то-же задание.
      * @param answer объект ответа.
      */
     private void setTheSameGradeToAnswers(Answer answer) {
-        Query updateAnswersQuery = entityManager.
-                                        createQuery("update Answer answer " +
-                                                            "set answer.grade=:gradeToSet where " +
-                                                            "answer.questionId=:questionId and " +
-                                                            "answer.answerBodyHash=:answerBodyHash");
+        // до обновления сообщаем таблице результатов в памяти об ответах, оценка которых изменится
+        TypedQuery<Object[]> changedAnswersQuery =
+                                        entityManager.createNamedQuery(Answer.FIND_GRADE_CHANGES_QUERY, Object[].class);
+
+        changedAnswersQuery.setParameter("questionId", answer.getQuestionId());
+        changedAnswersQuery.setParameter("answerBodyHash", answer.getAnswerBodyHash());
+        changedAnswersQuery.setParameter("answerId", answer.getId());
+        changedAnswersQuery.setParameter("gradeToSet", answer.getGrade());
+
+        final List<Object[]> changedAnswers = changedAnswersQuery.getResultList();
+        for (Object[] row : changedAnswers) {
+            liveResultsTableManager.publishGradeChange((Long) row[0], (Integer) row[1], (Integer) row[2],
+                                                                                    (Grade) row[3], answer.getGrade());
+        }
+
+        if (!changedAnswers.isEmpty()) {
+            gradingEventsHub.publish(GradingEvent.sameGradeApplied(answer.getId(), answer.getQuestionId(),
+                                                                        answer.getGrade(), changedAnswers.size()));
+        }
+
+        Query updateAnswersQuery = entityManager.createNamedQuery(Answer.UPDATE_GRADE_BY_BODY_HASH_QUERY);
 
         updateAnswersQuery.setParameter("gradeToSet", answer.getGrade());
         updateAnswersQuery.setParameter("questionId", answer.getQuestionId());
         updateAnswersQuery.setParameter("answerBodyHash", answer.getAnswerBodyHash());
 
         updateAnswersQuery.executeUpdate();
+        autoGradingIndexManager.publishGrade(answer.getQuestionId(), answer.getAnswerBodyHash(), answer.getGrade());
     }
 }
@@ -43,6 +43,7 @@ public class ConfigurationController extends AbstractController {
      */
     @RequestMapping(path = "/configuration/supported-report-encodings",
             method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<CharsetEncodingEntity[]> getSupportedReportEncodings() {
         return new ResponseEntity<>(Configuration.SUPPORTED_ENCODINGS, HttpStatus.OK);
     }
@@ -67,6 +68,7 @@ public class ConfigurationController extends AbstractController {
      */
     @RequestMapping(path = "/configuration/colors-for-questions",
             method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String,String >> getColorsForQuestionsTable() {
         ConfigurationRecord gradedQuestionBackgroundColor = entityManager.find(ConfigurationRecord.class,
                                                             Configuration.CONFIG_KEY_GRADED_QUESTION_BACKGROUND_COLOR);
@@ -85,6 +87,7 @@ public class ConfigurationController extends AbstractController {
      */
     @RequestMapping(path = "/configuration/colors-for-answers",
             method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String,String >> getColorsForAnswersTable() {
 
         ConfigurationRecord acceptedAnswerBackgroundColor = entityManager.find(ConfigurationRecord.class,
@@ -166,12 +169,16 @@ public class ConfigurationController extends AbstractController {
     @RequestMapping(path = "/configuration/reset-database-state",
             method = RequestMethod.POST, produces = "text/plain")
     public ResponseEntity<String> resetDatabaseStateForTheNextRound() {
+        reportsCache.bumpDataVersion();
         System.out.println("Resetting database state ...");
         Query answersDeletionQuery = entityManager.createQuery("delete from Answer answer");
         Query emailsDeletionQuery = entityManager.createQuery("delete from Email email");
 
         answersDeletionQuery.executeUpdate();
         emailsDeletionQuery.executeUpdate();
+        liveResultsTableManager.invalidate();
+        autoGradingIndexManager.invalidate();
+        emailsCountRegistry.invalidate();
 
         System.out.println("Resetting database state ... done");
 
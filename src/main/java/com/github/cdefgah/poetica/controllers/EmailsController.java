@@ -5,8 +5,13 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.github.cdefgah.poetica.events.GradingEvent;
 import com.github.cdefgah.poetica.model.Email;
 import com.github.cdefgah.poetica.model.EmailsCountDigest;
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.listings.ListingPage;
+import com.github.cdefgah.poetica.listings.ListingQuery;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -15,10 +20,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,12 +36,30 @@ import java.util.Map;
 @Transactional
 public class EmailsController extends AbstractController {
 
+    /**
+     * Количество первых символов тела письма, которые отдаются в постраничном списке.
+     */
+    private static final int LISTING_BODY_PREVIEW_LENGTH = 100;
+
+    /**
+     * Постраничный список писем команды в порядке отправки.
+     * Вместо тела письма отдаются его начало и длина.
+     */
+    private static final ListingQuery EMAILS_LISTING = new ListingQuery("Email", "email", "sentOn")
+            .addColumn("id", "email.id")
+            .addColumn("sentOn", "email.sentOn")
+            .addColumn("importedOn", "email.importedOn")
+            .addColumn("roundNumber", "email.roundNumber")
+            .addColumn("questionNumbersSequence", "email.questionNumbersSequence")
+            .addColumn("body", "substr(email.body, 1, " + LISTING_BODY_PREVIEW_LENGTH + ")")
+            .addColumn("bodyLength", "length(email.body)");
 
     /**
      * Отдаёт по запросу таблицу с максимальными размерами полей в модели данных.
      * @return таблица с максимальными размерами полей в модели данных.
      */
     @RequestMapping(path = "/emails/model-constraints", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, String>> getModelConstraints() {
         return new ResponseEntity<>(Email.getModelConstraintsMap(), HttpStatus.OK);
     }
@@ -48,7 +73,16 @@ public class EmailsController extends AbstractController {
             consumes = "application/json",
             produces = "application/json")
     public ResponseEntity<String> importAnswers(@RequestBody Email email2Import) {
+        reportsCache.bumpDataVersion();
+        if (!liveResultsTableManager.isTeamParticipating(email2Import.getTeamId())) {
+            // первое письмо от команды меняет состав участников, таблицу результатов надо строить заново
+            liveResultsTableManager.invalidate();
+        }
+
         entityManager.persist(email2Import);
+        emailsCountRegistry.registerImportedEmail(email2Import.getTeamId(), email2Import.getRoundNumber());
+        gradingEventsHub.publish(GradingEvent.emailImported(email2Import.getId(), email2Import.getTeamId(),
+                                                                                    email2Import.getRoundNumber()));
         return new ResponseEntity<>(String.valueOf(email2Import.getId()), HttpStatus.OK);
     }
 
@@ -60,24 +94,52 @@ public class EmailsController extends AbstractController {
      * @return список электронных писем.
      */
     @RequestMapping(path = "/emails/{teamId}/{roundOption}", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Email>> getEmails(@PathVariable long teamId, @PathVariable int roundOption) {
         TypedQuery<Email> query;
 
         if (roundOption == 0) {
             // нужны все письма
-            query = entityManager.createQuery("select email from Email email where email.teamId=:teamId",
-                                                                                                           Email.class);
+            query = entityManager.createNamedQuery(Email.FIND_BY_TEAM_QUERY, Email.class);
             query.setParameter("teamId", teamId);
 
         } else {
             // нужны письма с ответами на определенный тур (раунд)
-            query = entityManager.createQuery("select email from Email email where email.teamId=:teamId and email.roundNumber=:roundNumber",
-                    Email.class);
+            query = entityManager.createNamedQuery(Email.FIND_BY_TEAM_AND_ROUND_QUERY, Email.class);
             query.setParameter("teamId", teamId);
             query.setParameter("roundNumber", roundOption);
         }
 
-        return ResponseEntity.status(HttpStatus.OK).body(query.getResultList());
+        return ResponseEntity.status(HttpStatus.OK).body(ReadOnlyQueries.readOnly(query).getResultList());
+    }
+
+    /**
+     * Отдаёт страницу списка электронных писем от конкретной команды по всем либо по указанному раунду.
+     * @param teamId идентификатор команды.
+     * @param roundOption номер раунда, если нужно по всем, передаём 0.
+     * @param after позиция последнего письма предыдущей страницы (nextCursor), для первой страницы не передаётся.
+     * @param limit количество писем на странице.
+     * @param fields имена нужных полей через запятую, если не переданы, отдаются все поля.
+     * @return страница списка писем, либо HTTP.BAD_REQUEST, если параметры заданы неверно.
+     */
+    @RequestMapping(path = "/emails/page/{teamId}/{roundOption}", method = RequestMethod.GET,
+                                                                                    produces = "application/json")
+    @Transactional(readOnly = true)
+    public ResponseEntity<ListingPage> getEmailsPage(@PathVariable long teamId, @PathVariable int roundOption,
+                                                 @RequestParam(value = "after", required = false) String after,
+                                                 @RequestParam(value = "limit", required = false,
+                                                         defaultValue = "" + ListingQuery.DEFAULT_PAGE_SIZE) int limit,
+                                                 @RequestParam(value = "fields", required = false) String fields) {
+
+        final Map<String, Object> filterParameters = new HashMap<>();
+        filterParameters.put("teamId", teamId);
+        String filter = "email.teamId=:teamId";
+        if (roundOption != 0) {
+            filter += " and email.roundNumber=:roundNumber";
+            filterParameters.put("roundNumber", roundOption);
+        }
+
+        return getListingPage(EMAILS_LISTING, filter, filterParameters, after, limit, fields);
     }
 
     /**
@@ -86,28 +148,21 @@ public class EmailsController extends AbstractController {
      * @return HTTP.OK вместе с объектом, внутри которого находится запрошенная информация.
      */
     @RequestMapping(path = "/emails/digest/{teamId}", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<EmailsCountDigest> getEmailsDigestForTeam(@PathVariable long teamId) {
-        TypedQuery<Long> totalEmailsQuery =
-                entityManager.createQuery("select count(*) FROM Email email where email.teamId=:teamId",
-                        Long.class);
-
-        totalEmailsQuery.setParameter("teamId", teamId);
-        long totalEmailsCount = totalEmailsQuery.getSingleResult();
-
-        TypedQuery<Long> firstRoundEmailsQuery =
-                entityManager.createQuery("select count(*) FROM Email email " +
-                                "where email.teamId=:teamId and email.roundNumber=:roundNumber",
-                                                                                Long.class);
-
-        firstRoundEmailsQuery.setParameter("teamId", teamId);
-        firstRoundEmailsQuery.setParameter("roundNumber", 1);
-
-        long firstRoundEmailsCount = firstRoundEmailsQuery.getSingleResult();
-        long secondRoundEmailsCount = totalEmailsCount - firstRoundEmailsCount;
-
-        EmailsCountDigest emailsCountDigest = new EmailsCountDigest(firstRoundEmailsCount, secondRoundEmailsCount);
+        return new ResponseEntity<>(emailsCountRegistry.getDigest(teamId), HttpStatus.OK);
+    }
 
-        return new ResponseEntity<>(emailsCountDigest, HttpStatus.OK);
+    /**
+     * Возвращает информацию о количестве зарегистрированных на каждый тур писем от всех команд,
+     * чтобы при выводе списка команд не запрашивать сводку для каждой команды отдельно.
+     * @return HTTP.OK вместе с таблицей, ключ которой - уникальный идентификатор команды, а значение - сводка
+     * по её письмам. Команд, не приславших ни одного письма, в таблице нет.
+     */
+    @RequestMapping(path = "/emails/digest/all", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<Long, EmailsCountDigest>> getEmailsDigestForAllTeams() {
+        return new ResponseEntity<>(emailsCountRegistry.getDigests(), HttpStatus.OK);
     }
 
     /**
@@ -119,19 +174,19 @@ public class EmailsController extends AbstractController {
      */
     @RequestMapping(path = "/emails/is-unique/{teamId}/{roundNumber}/{emailSentOn}",
                                                             method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<String> checkEmailUniqueness(@PathVariable long teamId,
                                                        @PathVariable int roundNumber,
                                                        @PathVariable long emailSentOn) {
 
-        TypedQuery<Email> query = entityManager.createQuery("select email from Email email " +
-                        "where email.teamId=:teamId and email.roundNumber=:roundNumber and email.sentOn=:emailSentOn",
-                        Email.class);
+        TypedQuery<Long> query =
+                            entityManager.createNamedQuery(Email.COUNT_BY_TEAM_ROUND_AND_SENT_ON_QUERY, Long.class);
 
         query.setParameter("teamId", teamId);
         query.setParameter("roundNumber", roundNumber);
         query.setParameter("emailSentOn", emailSentOn);
 
-        boolean isEmailUnique = query.getResultList().isEmpty();
+        boolean isEmailUnique = query.getSingleResult() == 0;
         final String emailIsUniqueFlag = "1";
         final String emailIsNotUniqueFlag = "-1";
 
@@ -146,6 +201,7 @@ public class EmailsController extends AbstractController {
      * иначе возвращает HTTP.NOT_FOUND.
      */
     @RequestMapping(path = "/emails/{emailId}", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Email> getEmailById(@PathVariable long emailId) {
         Email email = entityManager.find(Email.class, emailId);
         if (email != null) {
@@ -163,6 +219,9 @@ public class EmailsController extends AbstractController {
     @RequestMapping(path = "/emails/delete/{emailId}", method = RequestMethod.DELETE, produces = "application/json")
     @Transactional(rollbackFor = Exception.class)
     public ResponseEntity<String> deleteEmailAndAnswers(@PathVariable  long emailId) {
+        reportsCache.bumpDataVersion();
+        publishDeletedEmail(emailId);
+        autoGradingIndexManager.invalidate();
 
         Query answersDeletionQuery = entityManager.createQuery("delete from Answer answer " +
                                                                                        "where answer.emailId=:emailId");
@@ -178,4 +237,41 @@ public class EmailsController extends AbstractController {
                         HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Сообщает счётчикам писем об удалении письма, а таблице результатов в памяти - о зачтённых ответах,
+     * которые будут удалены вместе с письмом.
+     * Если это последнее письмо команды, команда выбывает из числа участников и таблица строится заново.
+     * @param emailId уникальный идентификатор письма.
+     */
+    private void publishDeletedEmail(long emailId) {
+        TypedQuery<Object[]> teamAndRoundQuery =
+                                entityManager.createNamedQuery(Email.FIND_TEAM_AND_ROUND_BY_ID_QUERY, Object[].class);
+        List<Object[]> teamsAndRounds = teamAndRoundQuery.setParameter("emailId", emailId).getResultList();
+        if (teamsAndRounds.isEmpty()) {
+            return;
+        }
+
+        final long teamId = (Long) teamsAndRounds.get(0)[0];
+        final int roundNumber = (Integer) teamsAndRounds.get(0)[1];
+        emailsCountRegistry.registerDeletedEmail(teamId, roundNumber);
+        gradingEventsHub.publish(GradingEvent.emailDeleted(emailId, teamId, roundNumber));
+
+        TypedQuery<Long> emailsCountQuery = entityManager.createNamedQuery(Email.COUNT_BY_TEAM_QUERY, Long.class);
+        if (emailsCountQuery.setParameter("teamId", teamId).getSingleResult() <= 1) {
+            liveResultsTableManager.invalidate();
+            return;
+        }
+
+        TypedQuery<Object[]> acceptedAnswersQuery = entityManager.createQuery("select answer.questionNumber, " +
+                "answer.roundNumber from Answer answer where answer.emailId=:emailId and answer.grade=:grade",
+                                                                                                    Object[].class);
+        acceptedAnswersQuery.setParameter("emailId", emailId);
+        acceptedAnswersQuery.setParameter("grade", Grade.Accepted);
+
+        for (Object[] row : acceptedAnswersQuery.getResultList()) {
+            liveResultsTableManager.publishGradeChange(teamId, (Integer) row[0], (Integer) row[1],
+                                                                                            Grade.Accepted, null);
+        }
+    }
+}
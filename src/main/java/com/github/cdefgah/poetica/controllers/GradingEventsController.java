@@ -0,0 +1,62 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.controllers;
+
+import com.github.cdefgah.poetica.events.GradingEvent;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Контроллер для рассылки событий проверки ответов.
+ * Заменяет периодические запросы клиентов о наличии ответов без оценок и изменениях в списках ответов.
+ */
+@RestController
+public class GradingEventsController extends AbstractController {
+
+    /**
+     * Подключает клиента к потоку событий проверки ответов (server-sent events).
+     * Браузер при переподключении сам передаёт номер последнего полученного события в заголовке Last-Event-ID.
+     * @param lastEventIdHeader номер последнего полученного клиентом события из заголовка Last-Event-ID.
+     * @param lastEventIdParameter номер последнего полученного клиентом события из параметра запроса,
+     *                             используется, если заголовка нет.
+     * @return поток событий.
+     */
+    @RequestMapping(path = "/events/grading", method = RequestMethod.GET, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToGradingEvents(
+                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                    @RequestParam(value = "lastEventId", required = false) String lastEventIdParameter) {
+
+        return gradingEventsHub.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParameter);
+    }
+
+    /**
+     * Отдаёт события проверки ответов, следующие после указанного, для клиентов без поддержки server-sent events.
+     * @param lastEventId номер последнего полученного клиентом события.
+     * @return события в порядке возрастания номеров, либо HTTP.GONE, если часть событий уже вытеснена из буфера
+     * или номер относится к другому запуску сервера, и клиенту нужно заново загрузить данные.
+     */
+    @RequestMapping(path = "/events/grading/after/{lastEventId}", method = RequestMethod.GET,
+                                                                                produces = "application/json")
+    public ResponseEntity<List<GradingEvent>> getGradingEventsAfter(@PathVariable String lastEventId) {
+        final List<GradingEvent> events = gradingEventsHub.getEventsAfter(lastEventId);
+        if (events == null) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        }
+
+        return ResponseEntity.ok(events);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.controllers;
+
+import com.github.cdefgah.poetica.metrics.MetricsSnapshot;
+import com.github.cdefgah.poetica.metrics.RequestMetricsRegistry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Контроллер, отдаёт статистику запросов к контроллерам: время выполнения, количество SQL-запросов
+ * и загруженных сущностей, время этапов формирования отчётов.
+ * Статистика рассчитывается только при обращении к ней, запросы к этому контроллеру в неё не попадают.
+ */
+@RestController
+public class MetricsController extends AbstractController {
+
+    /**
+     * Статистика запросов.
+     */
+    @Autowired
+    RequestMetricsRegistry requestMetricsRegistry;
+
+    /**
+     * Отдаёт статистику запросов по адресам контроллеров и статистику Hibernate.
+     * @return статистика на текущий момент.
+     */
+    @RequestMapping(path = "/metrics", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<MetricsSnapshot> getMetrics() {
+        return ResponseEntity.ok().body(requestMetricsRegistry.getSnapshot());
+    }
+
+    /**
+     * Сбрасывает всю накопленную статистику, например перед замером под нагрузкой.
+     * @return HTTP.OK.
+     */
+    @RequestMapping(path = "/metrics", method = RequestMethod.DELETE, produces = "application/json")
+    public ResponseEntity<String> resetMetrics() {
+        requestMetricsRegistry.reset();
+        return ResponseEntity.ok().build();
+    }
+}
@@ -5,8 +5,10 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.github.cdefgah.poetica.events.GradingEvent;
 import com.github.cdefgah.poetica.model.Answer;
 import com.github.cdefgah.poetica.model.Question;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
 
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
@@ -35,8 +37,9 @@ public class QuestionsController extends AbstractController {
      * @return общее число заданий (вопросов).
      */
     @RequestMapping(path = "/questions/total-amount", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Long> getQuestionsTotalAmount() {
-        TypedQuery<Long> query = entityManager.createQuery("select count(*) FROM Question question", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Question.COUNT_ALL_QUERY, Long.class);
         return new ResponseEntity<>(query.getSingleResult(), HttpStatus.OK);
     }
 
@@ -45,6 +48,7 @@ public class QuestionsController extends AbstractController {
      * @return таблица с максимальными размерами полей в модели данных.
      */
     @RequestMapping(path = "/questions/model-constraints", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, String>> getModelConstraints() {
         return new ResponseEntity<>(Question.getModelConstraintsMap(), HttpStatus.OK);
     }
@@ -54,10 +58,9 @@ public class QuestionsController extends AbstractController {
      * @return максимальный номер зарегистрированного в системе задания.
      */
     @RequestMapping(path = "/questions/max-number", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Integer> getMaxQuestionNumber() {
-        TypedQuery<Integer> query =
-                entityManager.createQuery("select max(highestInternalNumber) " +
-                                                                            "FROM Question question", Integer.class);
+        TypedQuery<Integer> query = entityManager.createNamedQuery(Question.FIND_MAX_NUMBER_QUERY, Integer.class);
 
         return new ResponseEntity<>(query.getSingleResult(), HttpStatus.OK);
     }
@@ -66,10 +69,14 @@ public class QuestionsController extends AbstractController {
             consumes = "application/json",
             produces = "application/json")
      public ResponseEntity<String> importQuestions(@RequestBody Question[] allQuestions) {
+        reportsCache.bumpDataVersion();
 
         for(Question question: allQuestions) {
             entityManager.persist(question);
         }
+
+        questionNumberIndexHolder.invalidate();
+        liveResultsTableManager.invalidate();
         
         return new ResponseEntity<>("", HttpStatus.OK);
     }
@@ -102,6 +109,7 @@ public class QuestionsController extends AbstractController {
                                                  @RequestParam("updateComment") boolean updateComment,
                                                  @RequestParam("newQuestionComment") String newQuestionComment,
                                                  @RequestParam("newAuthorsInfo") String newAuthorsInfo) {
+        reportsCache.bumpDataVersion();
 
         final boolean updateBody = !isStringEmpty(newQuestionBody);
         final boolean updateSource = !isStringEmpty(newQuestionSource);
@@ -124,12 +132,16 @@ public class QuestionsController extends AbstractController {
                             "с указанным идентификатором:  " + questionId));
         }
 
+        questionNumberIndexHolder.invalidate();
+
         if (updateQuestionTitle) {
             question.setTitle(newQuestionTitle);
         }
 
         if (updateGradedState) {
             question.setGraded(newGradedState);
+            liveResultsTableManager.invalidate();
+            gradingEventsHub.publish(GradingEvent.questionGradedStateChanged(questionId, newGradedState));
         }
 
         if (updateBody) {
@@ -161,10 +173,9 @@ public class QuestionsController extends AbstractController {
      * @return возвращает true, если зачётные задания в системе представлены.
      */
     @RequestMapping(path = "/questions/graded-present", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Boolean> getGradedQuestionsPresent() {
-        TypedQuery<Long> query =
-                entityManager.createQuery("select count(*) from Question " +
-                                                                "question where question.graded=:graded", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Question.COUNT_BY_GRADED_QUERY, Long.class);
         query.setParameter("graded", true);
         return ResponseEntity.status(HttpStatus.OK).body(query.getSingleResult() > 0);
     }
@@ -174,11 +185,11 @@ public class QuestionsController extends AbstractController {
      * @return HTTP OK и список всех вопросов.
      */
     @RequestMapping(path = "/questions/all", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Question>> getAllQuestions() {
-        TypedQuery<Question> query =
-                entityManager.createQuery("select question from Question question", Question.class);
+        TypedQuery<Question> query = entityManager.createNamedQuery(Question.FIND_ALL_QUERY, Question.class);
 
-        return ResponseEntity.status(HttpStatus.OK).body(query.getResultList());
+        return ResponseEntity.status(HttpStatus.OK).body(ReadOnlyQueries.readOnly(query).getResultList());
     }
 
     /**
@@ -186,6 +197,7 @@ public class QuestionsController extends AbstractController {
      * @return HTTP OK и список зачётных вопросов.
      */
     @RequestMapping(path = "/questions/credited", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Question>> getCreditedQuestions() {
         return ResponseEntity.status(HttpStatus.OK).body(getQuestionsList(true));
     }
@@ -195,6 +207,7 @@ public class QuestionsController extends AbstractController {
      * @return HTTP OK и список внезачётных вопросов.
      */
     @RequestMapping(path = "/questions/not-credited", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Question>> getNotCreditedQuestions() {
         return ResponseEntity.status(HttpStatus.OK).body(getQuestionsList(false));
     }
@@ -205,6 +218,7 @@ public class QuestionsController extends AbstractController {
      * @return HTTP OK и данные по вопросу, либо HTTP NOT FOUND если вопрос не найден.
      */
     @RequestMapping(path = "/questions/{questionId}", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Question> getQuestionById(@PathVariable long questionId) {
         Question question = entityManager.find(Question.class, questionId);
         if (question != null) {
@@ -221,6 +235,7 @@ public class QuestionsController extends AbstractController {
      */
     @RequestMapping(path = "/questions/all", method = RequestMethod.DELETE, produces = "application/json")
     public ResponseEntity<String> deleteAllQuestions() {
+        reportsCache.bumpDataVersion();
         ResponseEntity<List<Question>> allQuestionsResponseObject = getAllQuestions();
         List<Question> questionsList = allQuestionsResponseObject.getBody();
         if (questionsList != null && !questionsList.isEmpty()) {
@@ -233,6 +248,8 @@ public class QuestionsController extends AbstractController {
                 }
             }
 
+            questionNumberIndexHolder.invalidate();
+            liveResultsTableManager.invalidate();
             Query deletionQuery = entityManager.createQuery("delete from Question q");
             deletionQuery.executeUpdate();
         }
@@ -245,12 +262,12 @@ public class QuestionsController extends AbstractController {
      * @return текстовый файл с эскпортируемыми заданиями в формате импортера заданий.
      */
     @RequestMapping(path = "/questions/export", method = RequestMethod.GET)
+    @Transactional(readOnly = true)
     public ResponseEntity<Resource> exportQuestions() {
 
-        TypedQuery<Question> query = entityManager.
-                                        createQuery("select question from Question question", Question.class);
+        TypedQuery<Question> query = entityManager.createNamedQuery(Question.FIND_ALL_QUERY, Question.class);
 
-        List<Question> allQuestions = query.getResultList();
+        List<Question> allQuestions = ReadOnlyQueries.readOnly(query).getResultList();
 
         StringBuilder payload = new StringBuilder();
         for (Question question: allQuestions) {
@@ -275,9 +292,9 @@ public class QuestionsController extends AbstractController {
      * @return true, если на вопрос дан ответ в системе.
      */
     private boolean thisQuestionIsAnswered(long questionId) {
-        Query query = entityManager.createQuery("from Answer a where a.questionId=:questionId", Answer.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Answer.COUNT_BY_QUESTION_QUERY, Long.class);
         query.setParameter("questionId", questionId);
-        return !query.getResultList().isEmpty();
+        return query.getSingleResult() > 0;
     }
 
     /**
@@ -287,10 +304,8 @@ public class QuestionsController extends AbstractController {
      * @return список запрошенных вопросов (бескрылок).
      */
     private List<Question> getQuestionsList(boolean onlyGradedQuestions) {
-        TypedQuery<Question> query =
-                entityManager.createQuery("select question from Question " +
-                        "question where question.graded=:graded", Question.class);
+        TypedQuery<Question> query = entityManager.createNamedQuery(Question.FIND_BY_GRADED_QUERY, Question.class);
         query.setParameter("graded", onlyGradedQuestions);
-        return query.getResultList();
+        return ReadOnlyQueries.readOnly(query).getResultList();
     }
 }
\ No newline at end of file
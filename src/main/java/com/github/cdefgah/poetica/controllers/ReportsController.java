@@ -5,19 +5,29 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.github.cdefgah.poetica.metrics.RequestMetricsContext;
+import com.github.cdefgah.poetica.metrics.TimedTextOutput;
 import com.github.cdefgah.poetica.model.Question;
+import com.github.cdefgah.poetica.reports.AbstractReportView;
+import com.github.cdefgah.poetica.reports.ReportRenderer;
+import com.github.cdefgah.poetica.reports.ReportsCache;
+import com.github.cdefgah.poetica.reports.ReportsCacheStatistics;
 import com.github.cdefgah.poetica.reports.collection.CollectionReportView;
+import com.github.cdefgah.poetica.reports.jobs.ReportJob;
+import com.github.cdefgah.poetica.reports.jobs.ReportJobsManager;
 import com.github.cdefgah.poetica.reports.collection.model.CollectionReportModel;
 import com.github.cdefgah.poetica.reports.restable.FullResultTableReportView;
 import com.github.cdefgah.poetica.reports.restable.MediumResultTableReportView;
 import com.github.cdefgah.poetica.reports.restable.ShortResultTableReportView;
+import com.github.cdefgah.poetica.reports.restable.live.LiveStandings;
 import com.github.cdefgah.poetica.reports.restable.model.ResultTableReportModel;
 import com.github.cdefgah.poetica.reports.summary.SummaryReportView;
 import com.github.cdefgah.poetica.reports.summary.model.SummaryReportModel;
 import com.github.cdefgah.poetica.utils.AppVersion;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -26,19 +36,75 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.persistence.TypedQuery;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
  * Контроллер, отвечает за генерацию отчётов.
  */
 @RestController
-@Transactional
+@Transactional(readOnly = true)
 public class ReportsController extends  AbstractController {
 
+    /**
+     * Выполняет задачи формирования отчётов в фоновых потоках.
+     */
+    @Autowired
+    ReportJobsManager reportJobsManager;
+
+    /**
+     * Полный формат отчёта "Таблица результатов".
+     */
+    private static final String FULL_RESULT_TABLE_FORMAT = "Full";
+
+    /**
+     * Средний формат отчёта "Таблица результатов".
+     */
+    private static final String MEDIUM_RESULT_TABLE_FORMAT = "Medium";
+
+    /**
+     * Краткий формат отчёта "Таблица результатов".
+     */
+    private static final String SHORT_RESULT_TABLE_FORMAT = "Short";
+
+    /**
+     * Тип отчёта "Таблица результатов".
+     */
+    private static final String RESULTS_TABLE_REPORT = "results-table";
+
+    /**
+     * Тип отчёта с заданиями без авторских ответов.
+     */
+    private static final String QUESTIONS_WITHOUT_ANSWERS_REPORT = "questions-without-answers";
+
+    /**
+     * Тип отчёта с заданиями с авторскими ответами.
+     */
+    private static final String QUESTIONS_WITH_ANSWERS_REPORT = "questions-with-answers";
+
+    /**
+     * Тип отчёта "Собрание сочинений".
+     */
+    private static final String COLLECTION_REPORT = "collection";
+
+    /**
+     * Тип отчёта "Сводка".
+     */
+    private static final String SUMMARY_REPORT = "summary";
+
     /**
      * Отдаёт текстовый файл с отчётом "Таблица результатов".
      * @param reportFormat формат отчёта.
@@ -46,45 +112,30 @@ public class ReportsController extends  AbstractController {
      * @return текстовый файл с отчётом "Таблица результатов".
      */
     @RequestMapping(path = "/reports/results-table/{reportFormat}/{encodingName}", method = RequestMethod.GET)
-    public ResponseEntity<Resource> getResultsTableReport(@PathVariable String reportFormat,
+    public ResponseEntity<StreamingResponseBody> getResultsTableReport(@PathVariable String reportFormat,
                                                                                     @PathVariable String encodingName) {
-        final String fullFormat = "Full";
-        final String mediumFormat ="Medium";
-        final String shortFormat = "Short";
-
-        final String reportText;
-        final ResultTableReportModel reportModel = new ResultTableReportModel(this.entityManager);
-        reportModel.generateReport();
-
-        switch (reportFormat) {
-            case fullFormat:
-                reportText = (new FullResultTableReportView(reportModel)).getReportText();
-                break;
-
-            case mediumFormat:
-                reportText = (new MediumResultTableReportView(reportModel)).getReportText();
-                break;
-
-            case shortFormat:
-                reportText = (new ShortResultTableReportView(reportModel)).getReportText();
-                break;
-
-            default:
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        if (!isResultsTableFormatSupported(reportFormat)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
-        String fileName = "resultsTable_" + reportFormat + "_" +
-                                                       encodingName + "_" + this.getTimeStampPartForFileName() +".txt";
-
-        HttpHeaders header = this.getHttpHeaderForGeneratedFile(fileName);
+        return getStreamingResponse(RESULTS_TABLE_REPORT, reportFormat, 0, encodingName);
+    }
 
-        ByteArrayResource resource = new ByteArrayResource(reportText.getBytes(Charset.forName(encodingName)));
+    /**
+     * Отдаёт отсортированную турнирную таблицу за тур (раунд) из таблицы результатов в памяти.
+     * Таблица обновляется по мере выставления оценок, так что обращение к базе данных нужно только после
+     * изменений в составе команд, заданий или писем.
+     * @param roundNumber номер тура (раунда), 1 - предварительный, 2 - основной.
+     * @return турнирная таблица за тур (раунд), либо HTTP.BAD_REQUEST, если передан неверный номер тура.
+     */
+    @RequestMapping(path = "/reports/results-table/live/{roundNumber}", method = RequestMethod.GET,
+                                                                                    produces = "application/json")
+    public ResponseEntity<LiveStandings> getLiveStandings(@PathVariable int roundNumber) {
+        if (roundNumber != 1 && roundNumber != 2) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
 
-        return ResponseEntity.ok()
-                .headers(header)
-                .contentLength(resource.contentLength())
-                .contentType(MediaType.parseMediaType("application/octet-stream"))
-                .body(resource);
+        return ResponseEntity.ok().body(liveResultsTableManager.getStandings(roundNumber));
     }
 
     /**
@@ -93,27 +144,8 @@ public class ReportsController extends  AbstractController {
      * @return текстовый файл с содержимым отчёта.
      */
     @RequestMapping(path = "/reports/questions-without-answers/{encodingName}", method = RequestMethod.GET)
-    public ResponseEntity<Resource> exportQuestionsWithoutAnswersReport(@PathVariable String encodingName) {
-
-        List<Question> allQuestions = getAllQuestionObjects();
-
-        StringBuilder payload = new StringBuilder();
-        for (Question question: allQuestions) {
-            payload.append(question.getQuestionBodyOnly()).append('\n');
-        }
-
-        final String reportText = payload.toString();
-        String fileName = "questionsWithoutAnswers_" + "_" + encodingName + "_" +
-                                                                            this.getTimeStampPartForFileName() +".txt";
-        HttpHeaders header = this.getHttpHeaderForGeneratedFile(fileName);
-
-        ByteArrayResource resource = new ByteArrayResource(reportText.getBytes(Charset.forName(encodingName)));
-
-        return ResponseEntity.ok()
-                .headers(header)
-                .contentLength(resource.contentLength())
-                .contentType(MediaType.parseMediaType("application/octet-stream"))
-                .body(resource);
+    public ResponseEntity<StreamingResponseBody> exportQuestionsWithoutAnswersReport(@PathVariable String encodingName) {
+        return getStreamingResponse(QUESTIONS_WITHOUT_ANSWERS_REPORT, "", 0, encodingName);
     }
 
     /**
@@ -122,27 +154,8 @@ public class ReportsController extends  AbstractController {
      * @return текстовый файл с содержимым отчёта.
      */
     @RequestMapping(path = "/reports/questions-with-answers/{encodingName}", method = RequestMethod.GET)
-    public ResponseEntity<Resource> exportQuestionsWithAnswersReport(@PathVariable String encodingName) {
-
-        List<Question> allQuestions = getAllQuestionObjects();
-
-        StringBuilder payload = new StringBuilder();
-        for (Question question: allQuestions) {
-            payload.append(question.getQuestionWithAllProperties()).append('\n');
-        }
-
-        final String reportText = payload.toString();
-        String fileName = "questionsWithAnswers_" + "_" + encodingName + "_" +
-                this.getTimeStampPartForFileName() +".txt";
-        HttpHeaders header = this.getHttpHeaderForGeneratedFile(fileName);
-
-        ByteArrayResource resource = new ByteArrayResource(reportText.getBytes(Charset.forName(encodingName)));
-
-        return ResponseEntity.ok()
-                .headers(header)
-                .contentLength(resource.contentLength())
-                .contentType(MediaType.parseMediaType("application/octet-stream"))
-                .body(resource);
+    public ResponseEntity<StreamingResponseBody> exportQuestionsWithAnswersReport(@PathVariable String encodingName) {
+        return getStreamingResponse(QUESTIONS_WITH_ANSWERS_REPORT, "", 0, encodingName);
     }
 
     /**
@@ -160,25 +173,8 @@ public class ReportsController extends  AbstractController {
      * @return текстовый файл с содержимым отчёта.
      */
     @RequestMapping(path = "/reports/collection/{encodingName}", method = RequestMethod.GET)
-    public ResponseEntity<Resource> exportCollectionReport(@PathVariable String encodingName) {
-
-        final CollectionReportModel reportModel = new CollectionReportModel(entityManager);
-        reportModel.generateReport();
-
-        final CollectionReportView report = new CollectionReportView(reportModel);
-
-        final String reportText = report.getReportText();
-        String fileName = "collection_" + "_" + encodingName + "_" +
-                this.getTimeStampPartForFileName() +".txt";
-        HttpHeaders header = this.getHttpHeaderForGeneratedFile(fileName);
-
-        ByteArrayResource resource = new ByteArrayResource(reportText.getBytes(Charset.forName(encodingName)));
-
-        return ResponseEntity.ok()
-                .headers(header)
-                .contentLength(resource.contentLength())
-                .contentType(MediaType.parseMediaType("application/octet-stream"))
-                .body(resource);
+    public ResponseEntity<StreamingResponseBody> exportCollectionReport(@PathVariable String encodingName) {
+        return getStreamingResponse(COLLECTION_REPORT, "", 0, encodingName);
     }
 
     /**
@@ -187,27 +183,356 @@ public class ReportsController extends  AbstractController {
      * @return текстовый файл с отчётом "Сводка".
      */
     @RequestMapping(path = "/reports/summary/{roundNumber}/{encodingName}", method = RequestMethod.GET)
-    public ResponseEntity<Resource> exportSummaryReport(@PathVariable int roundNumber,
+    public ResponseEntity<StreamingResponseBody> exportSummaryReport(@PathVariable int roundNumber,
                                                         @PathVariable String encodingName) {
+        return getStreamingResponse(SUMMARY_REPORT, "", roundNumber, encodingName);
+    }
 
-        final SummaryReportModel reportModel = new SummaryReportModel(entityManager, roundNumber);
-        final SummaryReportView report = new SummaryReportView(reportModel);
+    /**
+     * Отдаёт статистику работы кэша отчётов.
+     * @return статистика работы кэша отчётов.
+     */
+    @RequestMapping(path = "/reports/cache-statistics", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<ReportsCacheStatistics> getReportsCacheStatistics() {
+        return ResponseEntity.ok().body(reportsCache.getStatistics());
+    }
 
-        final String reportText = report.getReportText();
+    /**
+     * Ставит в очередь задачу формирования отчёта, отчёт формируется в фоновом потоке.
+     * Если такой-же отчёт уже формируется или сформирован для текущих данных, отдаёт существующую задачу.
+     * @param reportType тип отчёта: results-table, questions-without-answers, questions-with-answers,
+     *                   collection или summary.
+     * @param reportFormat формат отчёта "Таблица результатов": Full, Medium или Short.
+     * @param roundNumber номер тура (раунда) для отчёта "Сводка", 1 - предварительный, 2 - основной.
+     * @param encodingName системное имя кодировки символов, которая должна использоваться при генерации файла.
+     * @return HTTP.ACCEPTED с состоянием задачи, HTTP.BAD_REQUEST, если параметры отчёта неверны,
+     * либо HTTP.SERVICE_UNAVAILABLE, если очередь задач заполнена.
+     */
+    @RequestMapping(path = "/reports/jobs", method = RequestMethod.POST,
+            consumes = "application/x-www-form-urlencoded",
+            produces = "application/json")
+    public ResponseEntity<?> submitReportJob(@RequestParam("reportType") String reportType,
+                                @RequestParam(value = "reportFormat", required = false, defaultValue = "")
+                                                                                            String reportFormat,
+                                @RequestParam(value = "roundNumber", required = false, defaultValue = "0")
+                                                                                            int roundNumber,
+                                @RequestParam("encodingName") String encodingName) {
+
+        final String validationError = validateReportParameters(reportType, reportFormat, roundNumber, encodingName);
+        if (validationError != null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(composeErrorMessage(validationError));
+        }
 
-        String roundName = roundNumber == 1 ? "Preliminary_Round" : "Main_Round";
-        String fileName = "summary_" + roundName + "_" + encodingName + "_" +
-                                                                        this.getTimeStampPartForFileName() +".txt";
+        final ReportJob reportJob;
+        try {
+            reportJob = reportJobsManager.submit(
+                                ReportsCache.composeKey(reportType, reportFormat, roundNumber, encodingName),
+                                composeReportFileName(reportType, reportFormat, roundNumber, encodingName),
+                                getReportPreparer(reportType, reportFormat, roundNumber, encodingName));
+        } catch (RejectedExecutionException exception) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(composeErrorMessage("Слишком много отчётов в очереди на формирование, " +
+                                                                                    "повторите запрос позже"));
+        }
 
-        HttpHeaders header = this.getHttpHeaderForGeneratedFile(fileName);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/reports/jobs/" + reportJob.getJobId()))
+                .body(reportJob);
+    }
+
+    /**
+     * Отдаёт состояние задачи формирования отчёта: этап выполнения и количество уже сформированных байт.
+     * @param jobId уникальный идентификатор задачи.
+     * @return состояние задачи, либо HTTP.NOT_FOUND, если задачи нет.
+     */
+    @RequestMapping(path = "/reports/jobs/{jobId}", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<ReportJob> getReportJob(@PathVariable long jobId) {
+        final ReportJob reportJob = reportJobsManager.getJob(jobId);
+        if (reportJob == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok().body(reportJob);
+    }
+
+    /**
+     * Отдаёт файл с отчётом, сформированным задачей.
+     * @param jobId уникальный идентификатор задачи.
+     * @return файл с отчётом, HTTP.NOT_FOUND, если задачи нет, HTTP.CONFLICT, если отчёт ещё формируется,
+     * либо HTTP.INTERNAL_SERVER_ERROR, если формирование отчёта завершилось ошибкой.
+     */
+    @RequestMapping(path = "/reports/jobs/{jobId}/result", method = RequestMethod.GET)
+    public ResponseEntity<?> getReportJobResult(@PathVariable long jobId) {
+        final ReportJob reportJob = reportJobsManager.getJob(jobId);
+        if (reportJob == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        switch (reportJob.getPhase()) {
+            case Completed:
+                final ByteArrayResource resource = new ByteArrayResource(reportJob.getResult());
+                return ResponseEntity.ok()
+                        .headers(this.getHttpHeaderForGeneratedFile(reportJob.getFileName()))
+                        .contentLength(resource.contentLength())
+                        .contentType(MediaType.parseMediaType("application/octet-stream"))
+                        .body(resource);
+
+            case Failed:
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(composeErrorMessage("Не удалось сформировать отчёт: " + reportJob.getErrorMessage()));
+
+            default:
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(composeErrorMessage("Отчёт ещё формируется"));
+        }
+    }
+
+    /**
+     * Формирует ответ с файлом отчёта, содержимое которого выводится клиенту по мере формирования.
+     * Отчёт берётся из кэша отчётов, либо формируется, если в кэше его нет.
+     * @param reportType тип отчёта.
+     * @param reportFormat формат отчёта, либо пустая строка, если у отчёта один формат.
+     * @param roundNumber номер тура (раунда), либо 0, если отчёт не зависит от тура.
+     * @param encodingName системное имя кодировки символов.
+     * @return ответ с файлом отчёта.
+     */
+    private ResponseEntity<StreamingResponseBody> getStreamingResponse(String reportType, String reportFormat,
+                                                                       int roundNumber, String encodingName) {
+        final ReportRenderer reportRenderer = reportsCache.getReport(
+                                    ReportsCache.composeKey(reportType, reportFormat, roundNumber, encodingName),
+                                    getReportPreparer(reportType, reportFormat, roundNumber, encodingName));
+
+        return getStreamingResponse(composeReportFileName(reportType, reportFormat, roundNumber, encodingName),
+                                                                                                    reportRenderer);
+    }
+
+    /**
+     * Проверяет параметры отчёта.
+     * @param reportType тип отчёта.
+     * @param reportFormat формат отчёта.
+     * @param roundNumber номер тура (раунда).
+     * @param encodingName системное имя кодировки символов.
+     * @return сообщение об ошибке, либо null, если параметры верны.
+     */
+    private static String validateReportParameters(String reportType, String reportFormat, int roundNumber,
+                                                                                            String encodingName) {
+        switch (reportType) {
+            case RESULTS_TABLE_REPORT:
+                if (!isResultsTableFormatSupported(reportFormat)) {
+                    return "Неизвестный формат отчёта: " + reportFormat;
+                }
+                break;
+
+            case SUMMARY_REPORT:
+                if (roundNumber != 1 && roundNumber != 2) {
+                    return "Неверный номер тура: " + roundNumber;
+                }
+                break;
 
-        ByteArrayResource resource = new ByteArrayResource(reportText.getBytes(Charset.forName(encodingName)));
+            case QUESTIONS_WITHOUT_ANSWERS_REPORT:
+            case QUESTIONS_WITH_ANSWERS_REPORT:
+            case COLLECTION_REPORT:
+                break;
+
+            default:
+                return "Неизвестный тип отчёта: " + reportType;
+        }
+
+        try {
+            if (!Charset.isSupported(encodingName)) {
+                return "Неизвестная кодировка: " + encodingName;
+            }
+        } catch (IllegalCharsetNameException exception) {
+            return "Неизвестная кодировка: " + encodingName;
+        }
+
+        return null;
+    }
+
+    /**
+     * Проверяет, поддерживается-ли формат отчёта "Таблица результатов".
+     * @param reportFormat формат отчёта.
+     * @return true, если формат поддерживается.
+     */
+    private static boolean isResultsTableFormatSupported(String reportFormat) {
+        return FULL_RESULT_TABLE_FORMAT.equals(reportFormat) || MEDIUM_RESULT_TABLE_FORMAT.equals(reportFormat) ||
+                                                                    SHORT_RESULT_TABLE_FORMAT.equals(reportFormat);
+    }
+
+    /**
+     * Формирует имя файла с отчётом.
+     * @param reportType тип отчёта.
+     * @param reportFormat формат отчёта.
+     * @param roundNumber номер тура (раунда).
+     * @param encodingName системное имя кодировки символов.
+     * @return имя файла с отчётом.
+     */
+    private String composeReportFileName(String reportType, String reportFormat, int roundNumber,
+                                                                                            String encodingName) {
+        final String fileNamePrefix;
+        switch (reportType) {
+            case RESULTS_TABLE_REPORT:
+                fileNamePrefix = "resultsTable_" + reportFormat;
+                break;
+
+            case QUESTIONS_WITHOUT_ANSWERS_REPORT:
+                fileNamePrefix = "questionsWithoutAnswers_";
+                break;
+
+            case QUESTIONS_WITH_ANSWERS_REPORT:
+                fileNamePrefix = "questionsWithAnswers_";
+                break;
+
+            case COLLECTION_REPORT:
+                fileNamePrefix = "collection_";
+                break;
+
+            case SUMMARY_REPORT:
+                fileNamePrefix = "summary_" + (roundNumber == 1 ? "Preliminary_Round" : "Main_Round");
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unsupported report type: " + reportType);
+        }
+
+        return fileNamePrefix + "_" + encodingName + "_" + this.getTimeStampPartForFileName() + ".txt";
+    }
+
+    /**
+     * Отдаёт объект, который загружает данные отчёта и отдаёт объект, формирующий отчёт.
+     * Данные загружаются через менеджер сущностей, так что объект нужно вызывать в транзакции.
+     * @param reportType тип отчёта.
+     * @param reportFormat формат отчёта.
+     * @param roundNumber номер тура (раунда).
+     * @param encodingName системное имя кодировки символов.
+     * @return объект, который загружает данные отчёта.
+     */
+    private Supplier<ReportRenderer> getReportPreparer(String reportType, String reportFormat, int roundNumber,
+                                                                                            String encodingName) {
+        switch (reportType) {
+            case RESULTS_TABLE_REPORT:
+                return () -> getViewRenderer(getResultsTableReportView(reportFormat), encodingName);
+
+            case QUESTIONS_WITHOUT_ANSWERS_REPORT:
+                return () -> {
+                    final List<Question> allQuestions = getAllQuestionObjects();
+
+                    return getTextRenderer(out -> {
+                        for (Question question: allQuestions) {
+                            out.append(question.getQuestionBodyOnly()).append('\n');
+                        }
+                    }, encodingName);
+                };
+
+            case QUESTIONS_WITH_ANSWERS_REPORT:
+                return () -> {
+                    final List<Question> allQuestions = getAllQuestionObjects();
+
+                    return getTextRenderer(out -> {
+                        for (Question question: allQuestions) {
+                            out.append(question.getQuestionWithAllProperties()).append('\n');
+                        }
+                    }, encodingName);
+                };
+
+            case COLLECTION_REPORT:
+                return () -> {
+                    final CollectionReportModel reportModel = new CollectionReportModel(entityManager,
+                                                                            questionNumberIndexHolder.getIndex());
+                    reportModel.generateReport();
+
+                    return getViewRenderer(new CollectionReportView(reportModel), encodingName);
+                };
+
+            case SUMMARY_REPORT:
+                return () -> {
+                    final SummaryReportModel reportModel = new SummaryReportModel(entityManager,
+                                                            questionNumberIndexHolder.getIndex(), roundNumber);
+                    return getViewRenderer(new SummaryReportView(reportModel), encodingName);
+                };
+
+            default:
+                throw new IllegalArgumentException("Unsupported report type: " + reportType);
+        }
+    }
+
+    /**
+     * Формирует ответ с файлом отчёта, содержимое которого выводится клиенту по мере формирования.
+     * Размер файла заранее неизвестен, поэтому файл передаётся частями (chunked).
+     * @param fileName имя файла с отчётом.
+     * @param reportRenderer объект, выводящий содержимое отчёта.
+     * @return ответ с файлом отчёта.
+     */
+    private ResponseEntity<StreamingResponseBody> getStreamingResponse(String fileName,
+                                                                       ReportRenderer reportRenderer) {
+        HttpHeaders header = this.getHttpHeaderForGeneratedFile(fileName);
 
         return ResponseEntity.ok()
                 .headers(header)
-                .contentLength(resource.contentLength())
                 .contentType(MediaType.parseMediaType("application/octet-stream"))
-                .body(resource);
+                .body(reportRenderer::render);
+    }
+
+    /**
+     * Отдаёт объект, который выводит текст представления отчёта в заданной кодировке.
+     * @param reportView представление отчёта.
+     * @param encodingName системное имя кодировки символов.
+     * @return объект, который выводит закодированный текст отчёта.
+     */
+    private static ReportRenderer getViewRenderer(AbstractReportView reportView, String encodingName) {
+        return getTextRenderer(reportView::renderReport, encodingName);
+    }
+
+    /**
+     * Отдаёт объект, который кодирует выводимый текст в заданной кодировке.
+     * Кодировка проверяется сразу, так что неизвестная кодировка приводит к ошибке ещё до начала вывода.
+     * Если отчёт формируется по запросу к контроллеру, время формирования, кодирования и вывода текста
+     * записывается в статистику этого запроса, даже если текст выводится клиенту в другом потоке.
+     * @param textRenderer объект, выводящий текст.
+     * @param encodingName системное имя кодировки символов.
+     * @return объект, который выводит закодированный текст.
+     */
+    private static ReportRenderer getTextRenderer(TextRenderer textRenderer, String encodingName) {
+        final Charset charset = Charset.forName(encodingName);
+        final RequestMetricsContext metricsContext = RequestMetricsContext.current();
+        if (metricsContext != null) {
+            return out -> {
+                final TimedTextOutput timedTextOutput = new TimedTextOutput(out, charset);
+                textRenderer.render(timedTextOutput.getWriter());
+                timedTextOutput.finish(metricsContext);
+            };
+        }
+
+        return out -> {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(out, charset));
+            textRenderer.render(writer);
+            writer.flush();
+        };
+    }
+
+    /**
+     * Формирует представление отчёта "Таблица результатов".
+     * @param reportFormat формат отчёта.
+     * @return представление отчёта "Таблица результатов".
+     */
+    private AbstractReportView getResultsTableReportView(String reportFormat) {
+        final ResultTableReportModel reportModel = new ResultTableReportModel(this.entityManager,
+                                                                            questionNumberIndexHolder.getIndex());
+        reportModel.generateReport();
+
+        switch (reportFormat) {
+            case FULL_RESULT_TABLE_FORMAT:
+                return new FullResultTableReportView(reportModel);
+
+            case MEDIUM_RESULT_TABLE_FORMAT:
+                return new MediumResultTableReportView(reportModel);
+
+            case SHORT_RESULT_TABLE_FORMAT:
+                return new ShortResultTableReportView(reportModel);
+
+            default:
+                throw new IllegalArgumentException("Unsupported results table report format: " + reportFormat);
+        }
     }
 
     /**
@@ -215,9 +540,24 @@ public class ReportsController extends  AbstractController {
      * @return список со всем заданиями из базы данных.
      */
     private List<Question> getAllQuestionObjects() {
-        TypedQuery<Question> query = entityManager.
-                createQuery("select question from Question question", Question.class);
+        TypedQuery<Question> query = entityManager.createNamedQuery(Question.FIND_ALL_QUERY, Question.class);
 
-        return query.getResultList();
+        return ReadOnlyQueries.readOnly(query).getResultList();
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Выводит текст отчёта.
+     */
+    @FunctionalInterface
+    private interface TextRenderer {
+
+        /**
+         * Выводит текст отчёта.
+         * @param out куда выводить текст отчёта.
+         * @throws IOException если вывод текста завершился ошибкой.
+         */
+        void render(Appendable out) throws IOException;
     }
 }
@@ -6,8 +6,11 @@
 package com.github.cdefgah.poetica.controllers;
 
 import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.model.EmailsCountDigest;
 import com.github.cdefgah.poetica.model.Grade;
 import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.model.TeamStatistics;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
 
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
@@ -24,6 +27,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 
 /**
@@ -38,6 +42,7 @@ public class TeamsController extends AbstractController {
      * @return таблица с максимальными размерами полей в модели данных.
      */
     @RequestMapping(path = "/teams/model-constraints", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, String>> getModelConstraints() {
         return new ResponseEntity<>(Team.getModelConstraintsMap(), HttpStatus.OK);
     }
@@ -53,6 +58,7 @@ public class TeamsController extends AbstractController {
             produces = "application/json")
     public ResponseEntity<String> addNewTeam(@RequestParam("teamNumber") int teamNumber,
                                              @RequestParam("teamTitle") String teamTitle) {
+        reportsCache.bumpDataVersion();
 
         if (teamNumber < 0) {
             return new ResponseEntity<>(composeErrorMessage("Номер команды не может быть отрицательным"),
@@ -97,6 +103,7 @@ public class TeamsController extends AbstractController {
     public ResponseEntity<String> updateTeam(@PathVariable long teamId,
                                              @RequestParam("newTeamNumber") int newTeamNumber,
                                              @RequestParam("newTeamTitle") String newTeamTitle) {
+        reportsCache.bumpDataVersion();
 
         boolean updateNumber = newTeamNumber >= 0;
         boolean updateTitle = !isStringEmpty(newTeamTitle);
@@ -115,6 +122,8 @@ public class TeamsController extends AbstractController {
                             "с указанным идентификатором:  " + teamId));
         }
 
+        liveResultsTableManager.invalidate();
+
         if (updateNumber) {
             if (isNumberUnique(newTeamNumber, teamId)) {
                 team.setNumber(newTeamNumber);
@@ -147,11 +156,11 @@ public class TeamsController extends AbstractController {
      * @return список команд.
      */
     @RequestMapping(path = "/teams/all", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Team>> getAllTeams() {
-        TypedQuery<Team> query =
-                entityManager.createQuery("select team from Team team", Team.class);
+        TypedQuery<Team> query = entityManager.createNamedQuery(Team.FIND_ALL_QUERY, Team.class);
 
-        return ResponseEntity.status(HttpStatus.OK).body(query.getResultList());
+        return ResponseEntity.status(HttpStatus.OK).body(ReadOnlyQueries.readOnly(query).getResultList());
     }
 
     /**
@@ -160,6 +169,7 @@ public class TeamsController extends AbstractController {
      * @return объект команды.
      */
     @RequestMapping(path = "/teams/{teamId}", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Team> getTeamById(@PathVariable long teamId) {
         Team team = entityManager.find(Team.class, teamId);
         if (team != null) {
@@ -175,9 +185,9 @@ public class TeamsController extends AbstractController {
      * @return если найдено, отдаёт HTTP.OK с объектом команды, иначе отдаёт HTTP.NOT_FOUND.
      */
     @RequestMapping(path = "/teams/numbers/{teamNumber}", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Team> getTeamByNumber(@PathVariable int teamNumber) {
-        TypedQuery<Team> query = entityManager.createQuery("select team from Team " +
-                "team where team.number=:teamNumber", Team.class);
+        TypedQuery<Team> query = entityManager.createNamedQuery(Team.FIND_BY_NUMBER_QUERY, Team.class);
         query.setParameter("teamNumber", teamNumber);
         final List<Team> foundTeamInfo = query.getResultList();
         if (foundTeamInfo.size() > 0) {
@@ -220,6 +230,7 @@ public class TeamsController extends AbstractController {
             consumes = "application/json",
             produces = "application/json")
     public ResponseEntity<String> importTeams(@RequestBody Team[] teamsToImport) {
+        reportsCache.bumpDataVersion();
        for (Team team: teamsToImport) {
            team.setTitleInLowerCase(team.getTitle().toLowerCase());
            entityManager.persist(team);
@@ -235,7 +246,9 @@ public class TeamsController extends AbstractController {
      */
     @RequestMapping(path = "/teams/{teamId}", method = RequestMethod.DELETE, produces = "application/json")
     public ResponseEntity<String> deleteTeam(@PathVariable long teamId) {
+        reportsCache.bumpDataVersion();
         if (thisTeamHasNoAnswers(teamId)) {
+            liveResultsTableManager.invalidate();
             Query deletionQuery = entityManager.createQuery("delete from Team t where t.id=:teamId");
             final int deletedCount = deletionQuery.setParameter("teamId", teamId).executeUpdate();
             if (deletedCount > 0) {
@@ -257,9 +270,9 @@ public class TeamsController extends AbstractController {
      * @return количество команд, зарегистрированных в системе.
      */
     @RequestMapping(path = "/teams/total-number", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Long> getTotalNumberOfTeams() {
-        TypedQuery<Long> query =
-                entityManager.createQuery("select count(*) FROM Team team", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Team.COUNT_ALL_QUERY, Long.class);
 
         return new ResponseEntity<>(query.getSingleResult(), HttpStatus.OK);
     }
@@ -269,9 +282,10 @@ public class TeamsController extends AbstractController {
      * @return текстовый файл со списком команд.
      */
     @RequestMapping(path = "/teams/export", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
     public ResponseEntity<Resource> exportTeams() {
-        TypedQuery<Team> query = entityManager.createQuery("select team from Team team", Team.class);
-        List<Team> allTeams = query.getResultList();
+        TypedQuery<Team> query = entityManager.createNamedQuery(Team.FIND_ALL_QUERY, Team.class);
+        List<Team> allTeams = ReadOnlyQueries.readOnly(query).getResultList();
 
         StringBuilder payload = new StringBuilder();
         for (Team team : allTeams) {
@@ -295,12 +309,44 @@ public class TeamsController extends AbstractController {
      * @return список команд, у которых есть ответы без оценок.
      */
     @RequestMapping(path = "/teams/only-with-not-graded-answers", method = RequestMethod.GET)
+    @Transactional(readOnly = true)
     public ResponseEntity<List<Team>> getOnlyTeamsWithNotGradedAnswers() {
-        TypedQuery<Team> query = entityManager.createQuery("select distinct team from Team team, " +
-                "Answer answer where team.id=answer.teamId and answer.grade=:grade", Team.class);
+        TypedQuery<Team> query = entityManager.createNamedQuery(Team.FIND_WITH_ANSWERS_GRADED_AS_QUERY, Team.class);
         query.setParameter("grade", Grade.None);
 
-        return ResponseEntity.status(HttpStatus.OK).body(query.getResultList());
+        return ResponseEntity.status(HttpStatus.OK).body(ReadOnlyQueries.readOnly(query).getResultList());
+    }
+
+    /**
+     * Отдаёт сводку по всем командам: количество писем и ответов в разрезе оценок на каждый тур,
+     * а также признак наличия ответов без оценки.
+     * Заменяет запросы количества писем и ответов по каждой команде в отдельности,
+     * ответы считаются одним запросом с группировкой, письма берутся из счётчиков в памяти.
+     * @return сводка по командам с ключом по уникальному идентификатору команды, в порядке возрастания ключа.
+     */
+    @RequestMapping(path = "/teams/stats", method = RequestMethod.GET, produces = "application/json")
+    @Transactional(readOnly = true)
+    public ResponseEntity<Map<Long, TeamStatistics>> getTeamsStatistics() {
+        final Map<Long, EmailsCountDigest> emailsCountDigests = emailsCountRegistry.getDigests();
+        final EmailsCountDigest noEmailsDigest = new EmailsCountDigest(0, 0);
+
+        final Map<Long, TeamStatistics> teamsStatistics = new TreeMap<>();
+        TypedQuery<Long> teamIdsQuery = entityManager.createNamedQuery(Team.FIND_ALL_IDS_QUERY, Long.class);
+        for (Long teamId : teamIdsQuery.getResultList()) {
+            teamsStatistics.put(teamId,
+                                    new TeamStatistics(emailsCountDigests.getOrDefault(teamId, noEmailsDigest)));
+        }
+
+        TypedQuery<Object[]> answersCountQuery =
+                entityManager.createNamedQuery(Answer.COUNT_GROUPED_BY_TEAM_ROUND_AND_GRADE_QUERY, Object[].class);
+        for (Object[] row : ReadOnlyQueries.readOnly(answersCountQuery).getResultList()) {
+            final TeamStatistics teamStatistics = teamsStatistics.get((Long) row[0]);
+            if (teamStatistics != null) {
+                teamStatistics.addAnswers((Integer) row[1], (Grade) row[2], (Long) row[3]);
+            }
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(teamsStatistics);
     }
 
     /**
@@ -309,8 +355,7 @@ public class TeamsController extends AbstractController {
      * @return true, если указанный номер команды в базе представлен.
      */
     private boolean isTeamNumberPresent(int teamNumber) {
-        TypedQuery<Long> query = entityManager.createQuery("select count(*) from Team " +
-                                                                    "team where team.number=:teamNumber", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Team.COUNT_BY_NUMBER_QUERY, Long.class);
         query.setParameter("teamNumber", teamNumber);
         return query.getSingleResult() > 0;
     }
@@ -322,8 +367,7 @@ public class TeamsController extends AbstractController {
      * @return true, если номер команды уникальный.
      */
     private boolean isNumberUnique(int teamNumber, long processingTeamId) {
-        TypedQuery<Long> query = entityManager.createQuery("select count(*) from Team " +
-                "team where team.number=:teamNumber and team.id<>:processingTeamId", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Team.COUNT_BY_NUMBER_EXCEPT_TEAM_QUERY, Long.class);
 
         query.setParameter("teamNumber", teamNumber);
         query.setParameter("processingTeamId", processingTeamId);
@@ -336,8 +380,7 @@ public class TeamsController extends AbstractController {
      * @return true, если название команды есть в базе данных.
      */
     private boolean isTeamTitlePresent(String teamTitle) {
-        TypedQuery<Long> query = entityManager.createQuery("select count(*) from Team " +
-                                                    "team where team.titleInLowerCase=:titleInLowerCase", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Team.COUNT_BY_TITLE_QUERY, Long.class);
 
         query.setParameter("titleInLowerCase", teamTitle.toLowerCase());
         return query.getSingleResult() > 0;
@@ -350,8 +393,7 @@ public class TeamsController extends AbstractController {
      * @return true, если название команды уникально.
      */
     private boolean isTitleUnique(String teamTitle, long processingTeamId) {
-        TypedQuery<Long> query = entityManager.createQuery("select count(*) from Team " +
-                "team where team.titleInLowerCase=:titleInLowerCase and team.id<>:processingTeamId", Long.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Team.COUNT_BY_TITLE_EXCEPT_TEAM_QUERY, Long.class);
 
         query.setParameter("titleInLowerCase", teamTitle.toLowerCase());
         query.setParameter("processingTeamId", processingTeamId);
@@ -364,8 +406,8 @@ public class TeamsController extends AbstractController {
      * @return true, если у команды нет зарегистрированных ответов на задания.
      */
     private boolean thisTeamHasNoAnswers(long teamId) {
-        Query query = entityManager.createQuery("from Answer a where a.teamId=:teamId", Answer.class);
+        TypedQuery<Long> query = entityManager.createNamedQuery(Answer.COUNT_BY_TEAM_QUERY, Long.class);
         query.setParameter("teamId", teamId);
-        return query.getResultList().isEmpty();
+        return query.getSingleResult() == 0;
     }
 }
\ No newline at end of file
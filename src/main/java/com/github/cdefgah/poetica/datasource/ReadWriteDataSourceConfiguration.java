@@ -0,0 +1,128 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Разделяет соединения с базой SQLite на одно соединение для записи и небольшой пул читающих соединений.
+ * База работает в режиме WAL, поэтому долгие транзакции только для чтения (формирование отчётов)
+ * не блокируют запись оценок, а запись не блокирует чтение.
+ * Включается настройкой poetica.datasource.read-write-split=true, иначе используется обычный пул Spring Boot.
+ */
+@Configuration
+@ConditionalOnProperty(name = "poetica.datasource.read-write-split", havingValue = "true")
+public class ReadWriteDataSourceConfiguration implements DisposableBean {
+
+    /**
+     * Режим журнала SQLite.
+     */
+    @Value("${poetica.datasource.sqlite.journal-mode:WAL}")
+    String journalMode;
+
+    /**
+     * Режим синхронизации SQLite, в режиме WAL NORMAL безопасен и заметно быстрее FULL.
+     */
+    @Value("${poetica.datasource.sqlite.synchronous:NORMAL}")
+    String synchronousMode;
+
+    /**
+     * Размер кэша страниц SQLite, отрицательное значение задаёт размер в килобайтах.
+     */
+    @Value("${poetica.datasource.sqlite.cache-size:-16000}")
+    int cacheSize;
+
+    /**
+     * Размер отображаемой в память части файла базы в байтах.
+     */
+    @Value("${poetica.datasource.sqlite.mmap-size:268435456}")
+    long mmapSize;
+
+    /**
+     * Время ожидания снятия блокировки в миллисекундах.
+     */
+    @Value("${poetica.datasource.sqlite.busy-timeout:5000}")
+    int busyTimeout;
+
+    /**
+     * Количество соединений в пуле читающих соединений.
+     */
+    @Value("${poetica.datasource.read-pool-size:3}")
+    int readPoolSize;
+
+    /**
+     * Соединение для записи, SQLite допускает только одного пишущего в каждый момент времени.
+     */
+    private HikariDataSource writerDataSource;
+
+    /**
+     * Пул читающих соединений для транзакций только для чтения.
+     */
+    private HikariDataSource readerDataSource;
+
+    /**
+     * Основной источник данных, выбирает соединение по признаку "только для чтения" текущей транзакции.
+     * Пулы соединений не регистрируются как отдельные бины, чтобы Spring Boot видел единственный источник данных.
+     * @param dataSourceProperties настройки источника данных из spring.datasource.
+     * @return основной источник данных.
+     */
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties) {
+        writerDataSource = createHikariDataSource(dataSourceProperties, "poetica-writer");
+        writerDataSource.setMaximumPoolSize(1);
+
+        // запись через читающие соединения запрещена на уровне SQLite
+        readerDataSource = createHikariDataSource(dataSourceProperties, "poetica-reader");
+        readerDataSource.setMaximumPoolSize(readPoolSize);
+        readerDataSource.setConnectionInitSql("pragma query_only = 1");
+
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(writerDataSource, readerDataSource));
+    }
+
+    /**
+     * Закрывает пулы соединений при остановке приложения.
+     */
+    @Override
+    public void destroy() {
+        if (readerDataSource != null) {
+            readerDataSource.close();
+        }
+
+        if (writerDataSource != null) {
+            writerDataSource.close();
+        }
+    }
+
+    /**
+     * Создаёт пул соединений с настройками SQLite.
+     * @param dataSourceProperties настройки источника данных из spring.datasource.
+     * @param poolName имя пула.
+     * @return пул соединений.
+     */
+    private HikariDataSource createHikariDataSource(DataSourceProperties dataSourceProperties, String poolName) {
+        final HikariDataSource hikariDataSource = dataSourceProperties.initializeDataSourceBuilder().
+                                                                        type(HikariDataSource.class).build();
+        hikariDataSource.setPoolName(poolName);
+
+        // драйвер SQLite применяет эти настройки как pragma при открытии каждого соединения
+        hikariDataSource.addDataSourceProperty("journal_mode", journalMode);
+        hikariDataSource.addDataSourceProperty("synchronous", synchronousMode);
+        hikariDataSource.addDataSourceProperty("cache_size", String.valueOf(cacheSize));
+        hikariDataSource.addDataSourceProperty("mmap_size", String.valueOf(mmapSize));
+        hikariDataSource.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeout));
+        return hikariDataSource;
+    }
+}
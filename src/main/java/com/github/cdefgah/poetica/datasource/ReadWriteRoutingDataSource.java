@@ -0,0 +1,56 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Направляет соединения транзакций только для чтения в пул читающих соединений,
+ * а все остальные - в соединение для записи.
+ * Должен использоваться через LazyConnectionDataSourceProxy, иначе соединение будет получено
+ * до того, как станет известно, что транзакция только для чтения.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Ключ соединения для записи.
+     */
+    static final String WRITER_KEY = "writer";
+
+    /**
+     * Ключ пула читающих соединений.
+     */
+    static final String READER_KEY = "reader";
+
+    /**
+     * Конструктор класса.
+     * @param writerDataSource соединение для записи.
+     * @param readerDataSource пул читающих соединений.
+     */
+    public ReadWriteRoutingDataSource(DataSource writerDataSource, DataSource readerDataSource) {
+        final Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(WRITER_KEY, writerDataSource);
+        targetDataSources.put(READER_KEY, readerDataSource);
+
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(writerDataSource);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Определяет, какой источник соединений использовать для текущей транзакции.
+     * @return ключ источника соединений.
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? READER_KEY : WRITER_KEY;
+    }
+}
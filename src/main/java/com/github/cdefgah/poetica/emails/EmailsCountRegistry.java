@@ -0,0 +1,247 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.emails;
+
+import com.github.cdefgah.poetica.model.Email;
+import com.github.cdefgah.poetica.model.EmailsCountDigest;
+import com.github.cdefgah.poetica.utils.AfterCommitBuffer;
+import com.github.cdefgah.poetica.utils.StaleGuard;
+
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Хранит в памяти количество писем каждой команды на предварительный и основной туры.
+ * Контроллеры сообщают об импорте и удалении писем, изменения применяются к счётчикам после фиксации транзакции.
+ * Массовое удаление писем помечает счётчики как устаревшие, в этом случае они заново загружаются
+ * из базы данных одним запросом с группировкой при следующем обращении.
+ */
+@Component
+public class EmailsCountRegistry {
+
+    /**
+     * Номер предварительного тура (раунда), письма на остальные туры считаются письмами на основной тур.
+     */
+    private static final int FIRST_ROUND_NUMBER = 1;
+
+    /**
+     * Для связи с базой данных.
+     */
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Количество писем команд: уникальный идентификатор команды и количество писем на предварительный
+     * и основной туры. Команд без писем в таблице нет. Доступ только внутри synchronized блоков.
+     */
+    private Map<Long, long[]> emailsCounts;
+
+    /**
+     * true, если счётчики нужно заново загрузить из базы данных.
+     */
+    private boolean isStale = true;
+
+    /**
+     * Определяет, не разошлись-ли загруженные из базы данные с параллельно фиксируемыми изменениями.
+     */
+    private final StaleGuard staleGuard = new StaleGuard();
+
+    /**
+     * Накапливает изменения в рамках транзакции и применяет их к счётчикам после её фиксации.
+     */
+    private final AfterCommitBuffer<PendingChanges> pendingChangesBuffer =
+                            new AfterCommitBuffer<>(PendingChanges::new, this::applyCommittedChanges, staleGuard);
+
+    /**
+     * Отдаёт сводку по письмам всех команд, приславших хотя-бы одно письмо.
+     * Если счётчики устарели, они загружаются заново из базы данных.
+     * @return сводка по письмам с ключом по уникальному идентификатору команды, в порядке возрастания ключа.
+     */
+    public synchronized Map<Long, EmailsCountDigest> getDigests() {
+        loadIfStale();
+
+        final Map<Long, EmailsCountDigest> digests = new TreeMap<>();
+        emailsCounts.forEach((teamId, counts) -> digests.put(teamId, new EmailsCountDigest(counts[0], counts[1])));
+        return digests;
+    }
+
+    /**
+     * Отдаёт сводку по письмам команды.
+     * Если счётчики устарели, они загружаются заново из базы данных.
+     * @param teamId уникальный идентификатор команды.
+     * @return сводка по письмам команды.
+     */
+    public synchronized EmailsCountDigest getDigest(long teamId) {
+        loadIfStale();
+
+        final long[] counts = emailsCounts.get(teamId);
+        return counts != null ? new EmailsCountDigest(counts[0], counts[1]) : new EmailsCountDigest(0, 0);
+    }
+
+    /**
+     * Сообщает об импорте письма.
+     * Изменение будет применено к счётчикам после фиксации текущей транзакции.
+     * @param teamId уникальный идентификатор команды, приславшей письмо.
+     * @param roundNumber номер тура (раунда), на который прислано письмо.
+     */
+    public void registerImportedEmail(long teamId, int roundNumber) {
+        registerDelta(teamId, roundNumber, 1);
+    }
+
+    /**
+     * Сообщает об удалении письма.
+     * Изменение будет применено к счётчикам после фиксации текущей транзакции.
+     * @param teamId уникальный идентификатор команды, приславшей письмо.
+     * @param roundNumber номер тура (раунда), на который было прислано письмо.
+     */
+    public void registerDeletedEmail(long teamId, int roundNumber) {
+        registerDelta(teamId, roundNumber, -1);
+    }
+
+    /**
+     * Помечает счётчики как устаревшие после фиксации текущей транзакции.
+     * Используется при массовом удалении писем.
+     */
+    public void invalidate() {
+        pendingChangesBuffer.record(pendingChanges -> pendingChanges.invalidate = true);
+    }
+
+    /**
+     * Сообщает об изменении количества писем команды.
+     * @param teamId уникальный идентификатор команды.
+     * @param roundNumber номер тура (раунда).
+     * @param delta изменение количества писем.
+     */
+    private void registerDelta(long teamId, int roundNumber, int delta) {
+        pendingChangesBuffer.record(pendingChanges ->
+                                        pendingChanges.deltas.add(new EmailsCountDelta(teamId, roundNumber, delta)));
+    }
+
+    /**
+     * Загружает счётчики из базы данных, если они устарели.
+     */
+    private void loadIfStale() {
+        if (!isStale && emailsCounts != null) {
+            return;
+        }
+
+        final long loadStamp = staleGuard.beginLoad();
+
+        emailsCounts = loadEmailsCounts();
+
+        // если во время чтения данных какая-то транзакция фиксировала изменения, неизвестно,
+        // попали ли они в прочитанные данные, поэтому счётчики остаются помеченными как устаревшие
+        isStale = staleGuard.isStale(loadStamp);
+    }
+
+    /**
+     * Загружает количество писем команд из базы данных одним запросом с группировкой по командам и турам.
+     * @return количество писем команд.
+     */
+    private Map<Long, long[]> loadEmailsCounts() {
+        final TypedQuery<Object[]> query =
+                    entityManager.createNamedQuery(Email.COUNT_GROUPED_BY_TEAM_AND_ROUND_QUERY, Object[].class);
+
+        final Map<Long, long[]> loadedEmailsCounts = new HashMap<>();
+        for (Object[] row : query.getResultList()) {
+            final long[] counts = loadedEmailsCounts.computeIfAbsent((Long) row[0], teamId -> new long[2]);
+            counts[getRoundIndex((Integer) row[1])] += (Long) row[2];
+        }
+
+        return loadedEmailsCounts;
+    }
+
+    /**
+     * Отдаёт индекс счётчика писем для тура (раунда).
+     * @param roundNumber номер тура (раунда).
+     * @return 0 для предварительного тура, 1 для основного.
+     */
+    private static int getRoundIndex(int roundNumber) {
+        return roundNumber == FIRST_ROUND_NUMBER ? 0 : 1;
+    }
+
+    /**
+     * Применяет зафиксированные изменения к счётчикам.
+     * @param pendingChanges изменения из зафиксированной транзакции.
+     */
+    private synchronized void applyCommittedChanges(PendingChanges pendingChanges) {
+        if (pendingChanges.invalidate) {
+            isStale = true;
+        }
+
+        if (isStale || emailsCounts == null) {
+            // счётчики будут загружены заново при следующем обращении
+            return;
+        }
+
+        for (EmailsCountDelta delta : pendingChanges.deltas) {
+            final long[] counts = emailsCounts.computeIfAbsent(delta.teamId, teamId -> new long[2]);
+            counts[getRoundIndex(delta.roundNumber)] += delta.delta;
+            if (counts[0] <= 0 && counts[1] <= 0) {
+                emailsCounts.remove(delta.teamId);
+            }
+        }
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Изменение количества писем команды на тур (раунд).
+     */
+    private static final class EmailsCountDelta {
+
+        /**
+         * Уникальный идентификатор команды.
+         */
+        private final long teamId;
+
+        /**
+         * Номер тура (раунда).
+         */
+        private final int roundNumber;
+
+        /**
+         * Изменение количества писем.
+         */
+        private final int delta;
+
+        /**
+         * Конструктор класса.
+         * @param teamId уникальный идентификатор команды.
+         * @param roundNumber номер тура (раунда).
+         * @param delta изменение количества писем.
+         */
+        EmailsCountDelta(long teamId, int roundNumber, int delta) {
+            this.teamId = teamId;
+            this.roundNumber = roundNumber;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * Изменения одной транзакции, применяются к счётчикам после её фиксации.
+     */
+    private static final class PendingChanges {
+
+        /**
+         * Изменения количества писем.
+         */
+        final List<EmailsCountDelta> deltas = new ArrayList<>();
+
+        /**
+         * true, если счётчики нужно пометить как устаревшие.
+         */
+        boolean invalidate;
+    }
+}
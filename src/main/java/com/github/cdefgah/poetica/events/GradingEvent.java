@@ -0,0 +1,265 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.events;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.cdefgah.poetica.model.Grade;
+
+/**
+ * Событие проверки ответов, рассылаемое подключенным клиентам.
+ * Содержит только идентификаторы и изменённые значения, незаполненные поля клиенту не отдаются.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class GradingEvent {
+
+    /**
+     * Номер события вида "запуск-порядковый номер", назначается при рассылке.
+     * Запуск - время запуска сервера, так что номера событий разных запусков не совпадают,
+     * порядковый номер в пределах запуска возрастает без пропусков.
+     */
+    private String eventId;
+
+    /**
+     * Тип события.
+     */
+    private final GradingEventType type;
+
+    /**
+     * Уникальный идентификатор ответа.
+     */
+    private Long answerId;
+
+    /**
+     * Уникальный идентификатор письма.
+     */
+    private Long emailId;
+
+    /**
+     * Уникальный идентификатор задания.
+     */
+    private Long questionId;
+
+    /**
+     * Уникальный идентификатор команды.
+     */
+    private Long teamId;
+
+    /**
+     * Номер тура (раунда).
+     */
+    private Integer roundNumber;
+
+    /**
+     * Выставленная оценка.
+     */
+    private Grade grade;
+
+    /**
+     * Новое значение признака "Зачётный/Внезачётный" задания.
+     */
+    private Boolean graded;
+
+    /**
+     * Количество ответов, оценка которых изменилась.
+     */
+    private Integer affectedAnswersQty;
+
+    /**
+     * Конструктор класса.
+     * @param type тип события.
+     */
+    private GradingEvent(GradingEventType type) {
+        this.type = type;
+    }
+
+    /**
+     * Формирует событие о выставлении оценки ответу.
+     * @param answerId уникальный идентификатор ответа.
+     * @param teamId уникальный идентификатор команды.
+     * @param questionId уникальный идентификатор задания.
+     * @param roundNumber номер тура (раунда).
+     * @param grade выставленная оценка.
+     * @return событие.
+     */
+    public static GradingEvent answerGraded(long answerId, long teamId, long questionId, int roundNumber,
+                                            Grade grade) {
+        final GradingEvent event = new GradingEvent(GradingEventType.AnswerGraded);
+        event.answerId = answerId;
+        event.teamId = teamId;
+        event.questionId = questionId;
+        event.roundNumber = roundNumber;
+        event.grade = grade;
+        return event;
+    }
+
+    /**
+     * Формирует событие о выставлении той-же оценки другим ответам с тем-же телом на то-же задание.
+     * @param answerId уникальный идентификатор ответа, оценка которого распространена на другие ответы.
+     * @param questionId уникальный идентификатор задания.
+     * @param grade выставленная оценка.
+     * @param affectedAnswersQty количество других ответов, оценка которых изменилась.
+     * @return событие.
+     */
+    public static GradingEvent sameGradeApplied(long answerId, long questionId, Grade grade,
+                                                int affectedAnswersQty) {
+        final GradingEvent event = new GradingEvent(GradingEventType.SameGradeApplied);
+        event.answerId = answerId;
+        event.questionId = questionId;
+        event.grade = grade;
+        event.affectedAnswersQty = affectedAnswersQty;
+        return event;
+    }
+
+    /**
+     * Формирует событие об импорте письма.
+     * @param emailId уникальный идентификатор письма.
+     * @param teamId уникальный идентификатор команды.
+     * @param roundNumber номер тура (раунда).
+     * @return событие.
+     */
+    public static GradingEvent emailImported(long emailId, long teamId, int roundNumber) {
+        return emailEvent(GradingEventType.EmailImported, emailId, teamId, roundNumber);
+    }
+
+    /**
+     * Формирует событие об удалении письма вместе с ответами.
+     * @param emailId уникальный идентификатор письма.
+     * @param teamId уникальный идентификатор команды.
+     * @param roundNumber номер тура (раунда).
+     * @return событие.
+     */
+    public static GradingEvent emailDeleted(long emailId, long teamId, int roundNumber) {
+        return emailEvent(GradingEventType.EmailDeleted, emailId, teamId, roundNumber);
+    }
+
+    /**
+     * Формирует событие об изменении признака "Зачётный/Внезачётный" задания.
+     * @param questionId уникальный идентификатор задания.
+     * @param graded новое значение признака.
+     * @return событие.
+     */
+    public static GradingEvent questionGradedStateChanged(long questionId, boolean graded) {
+        final GradingEvent event = new GradingEvent(GradingEventType.QuestionGradedStateChanged);
+        event.questionId = questionId;
+        event.graded = graded;
+        return event;
+    }
+
+    /**
+     * Формирует событие о том, что клиенту нужно заново загрузить данные.
+     * @param lastEventId номер последнего события на момент формирования.
+     * @return событие.
+     */
+    static GradingEvent resyncRequired(String lastEventId) {
+        final GradingEvent event = new GradingEvent(GradingEventType.ResyncRequired);
+        event.eventId = lastEventId;
+        return event;
+    }
+
+    /**
+     * Формирует событие о письме.
+     * @param type тип события.
+     * @param emailId уникальный идентификатор письма.
+     * @param teamId уникальный идентификатор команды.
+     * @param roundNumber номер тура (раунда).
+     * @return событие.
+     */
+    private static GradingEvent emailEvent(GradingEventType type, long emailId, long teamId, int roundNumber) {
+        final GradingEvent event = new GradingEvent(type);
+        event.emailId = emailId;
+        event.teamId = teamId;
+        event.roundNumber = roundNumber;
+        return event;
+    }
+
+    /**
+     * Назначает номер события при рассылке.
+     * @param eventId номер события.
+     */
+    void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    /**
+     * Отдаёт номер события.
+     * @return номер события.
+     */
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Отдаёт тип события.
+     * @return тип события.
+     */
+    public GradingEventType getType() {
+        return type;
+    }
+
+    /**
+     * Отдаёт уникальный идентификатор ответа.
+     * @return уникальный идентификатор ответа, либо null.
+     */
+    public Long getAnswerId() {
+        return answerId;
+    }
+
+    /**
+     * Отдаёт уникальный идентификатор письма.
+     * @return уникальный идентификатор письма, либо null.
+     */
+    public Long getEmailId() {
+        return emailId;
+    }
+
+    /**
+     * Отдаёт уникальный идентификатор задания.
+     * @return уникальный идентификатор задания, либо null.
+     */
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    /**
+     * Отдаёт уникальный идентификатор команды.
+     * @return уникальный идентификатор команды, либо null.
+     */
+    public Long getTeamId() {
+        return teamId;
+    }
+
+    /**
+     * Отдаёт номер тура (раунда).
+     * @return номер тура (раунда), либо null.
+     */
+    public Integer getRoundNumber() {
+        return roundNumber;
+    }
+
+    /**
+     * Отдаёт выставленная оценка.
+     * @return выставленная оценка, либо null.
+     */
+    public Grade getGrade() {
+        return grade;
+    }
+
+    /**
+     * Отдаёт новое значение признака "Зачётный/Внезачётный" задания.
+     * @return новое значение признака "Зачётный/Внезачётный" задания, либо null.
+     */
+    public Boolean getGraded() {
+        return graded;
+    }
+
+    /**
+     * Отдаёт количество ответов, оценка которых изменилась.
+     * @return количество ответов, оценка которых изменилась, либо null.
+     */
+    public Integer getAffectedAnswersQty() {
+        return affectedAnswersQty;
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.events;
+
+/**
+ * Тип события проверки ответов.
+ */
+public enum GradingEventType {
+    AnswerGraded, // ответу выставлена оценка
+    SameGradeApplied, // та-же оценка выставлена другим ответам с тем-же телом на то-же задание
+    EmailImported, // импортировано письмо
+    EmailDeleted, // удалено письмо вместе с ответами
+    QuestionGradedStateChanged, // изменён признак "Зачётный/Внезачётный" задания
+    ResyncRequired // пропущенные клиентом события вытеснены из буфера или были до перезапуска сервера
+}
@@ -0,0 +1,287 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.events;
+
+import com.github.cdefgah.poetica.utils.AfterCommitBuffer;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Рассылает события проверки ответов подключенным клиентам (server-sent events).
+ * Контроллеры сообщают о событиях, события рассылаются после фиксации транзакции.
+ * Последние события хранятся в кольцевом буфере, так что переподключившийся клиент
+ * получает пропущенные события, начиная с номера последнего полученного.
+ * Номер события начинается с времени запуска сервера, так что клиент, получивший события до перезапуска,
+ * не примет события нового запуска с теми-же порядковыми номерами за уже полученные, а получит ResyncRequired.
+ */
+@Component
+public class GradingEventsHub {
+
+    /**
+     * Количество последних событий, хранимых для переподключающихся клиентов.
+     */
+    public static final int EVENTS_BUFFER_CAPACITY = 1024;
+
+    /**
+     * Время жизни подключения клиента в миллисекундах, после него клиент переподключается сам.
+     */
+    private static final long SUBSCRIPTION_TIMEOUT_MILLIS = 10 * 60 * 1000L;
+
+    /**
+     * Пауза перед переподключением клиента в миллисекундах, передаётся клиенту при подключении.
+     */
+    private static final long RECONNECT_DELAY_MILLIS = 2000L;
+
+    /**
+     * Начало номеров событий этого запуска сервера: время запуска и разделитель.
+     */
+    private final String eventIdPrefix;
+
+    /**
+     * Кольцевой буфер последних событий, событие с порядковым номером n хранится
+     * в ячейке (n - 1) % EVENTS_BUFFER_CAPACITY. Доступ только внутри synchronized блоков.
+     */
+    private final GradingEvent[] eventsBuffer = new GradingEvent[EVENTS_BUFFER_CAPACITY];
+
+    /**
+     * Порядковый номер последнего разосланного события в этом запуске сервера, 0 если событий ещё не было.
+     */
+    private long lastSequenceNumber;
+
+    /**
+     * Подключенные клиенты. Доступ только внутри synchronized блоков.
+     */
+    private final List<SseEmitter> subscribers = new ArrayList<>();
+
+    /**
+     * Отправляет события клиентам в порядке их номеров.
+     * Отправка ждёт медленных клиентов, поэтому выполняется в отдельном потоке, а не под блокировкой
+     * и не в потоке, который фиксирует транзакцию и ещё держит соединение с базой.
+     */
+    private final ExecutorService sendingExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "grading-events-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Накапливает события в рамках транзакции и рассылает их после её фиксации.
+     * События отменённой транзакции не рассылаются.
+     */
+    private final AfterCommitBuffer<List<GradingEvent>> pendingEventsBuffer =
+                                                            new AfterCommitBuffer<>(ArrayList::new, this::broadcast);
+
+    /**
+     * Конструктор класса, номера событий начинаются с текущего времени.
+     */
+    public GradingEventsHub() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Конструктор класса.
+     * @param bootEpoch время запуска сервера, с которого начинаются номера событий.
+     */
+    GradingEventsHub(long bootEpoch) {
+        this.eventIdPrefix = bootEpoch + "-";
+    }
+
+    /**
+     * Сообщает о событии.
+     * Событие будет разослано после фиксации текущей транзакции, если транзакции нет - сразу.
+     * @param event событие.
+     */
+    public void publish(GradingEvent event) {
+        pendingEventsBuffer.record(pendingEvents -> pendingEvents.add(event));
+    }
+
+    /**
+     * Подключает клиента к рассылке событий.
+     * Если указан номер последнего полученного клиентом события, сначала отдаются все события после него.
+     * Если часть этих событий уже вытеснена из буфера или номер относится к другому запуску сервера,
+     * отдаётся событие ResyncRequired.
+     * @param lastReceivedEventId номер последнего полученного клиентом события, либо null для нового клиента.
+     * @return поток событий для клиента.
+     */
+    public synchronized SseEmitter subscribe(String lastReceivedEventId) {
+        final SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MILLIS);
+        emitter.onCompletion(() -> unsubscribe(emitter));
+        emitter.onTimeout(() -> unsubscribe(emitter));
+        emitter.onError(ex -> unsubscribe(emitter));
+
+        // пока поток событий не возвращён из контроллера, отправка только запоминает событие и не ждёт клиента,
+        // а первая отправка сразу отдаёт клиенту заголовки ответа, иначе он ждёт их до первого события
+        try {
+            emitter.send(SseEmitter.event().reconnectTime(RECONNECT_DELAY_MILLIS));
+        } catch (IOException ex) {
+            emitter.completeWithError(ex);
+            return emitter;
+        }
+
+        if (lastReceivedEventId != null) {
+            for (GradingEvent event : getEventsToReplay(lastReceivedEventId)) {
+                if (!send(emitter, event)) {
+                    return emitter;
+                }
+            }
+        }
+
+        subscribers.add(emitter);
+        return emitter;
+    }
+
+    /**
+     * Отдаёт события, которые нужно отправить переподключившемуся клиенту.
+     * @param lastReceivedEventId номер последнего полученного клиентом события.
+     * @return события после указанного, либо одно событие ResyncRequired, если их нельзя восстановить.
+     */
+    synchronized List<GradingEvent> getEventsToReplay(String lastReceivedEventId) {
+        final List<GradingEvent> missedEvents = getEventsAfter(lastReceivedEventId);
+        return missedEvents != null ? missedEvents
+                                    : Collections.singletonList(GradingEvent.resyncRequired(getLastEventId()));
+    }
+
+    /**
+     * Отдаёт события из буфера, следующие после указанного.
+     * @param lastReceivedEventId номер последнего полученного клиентом события.
+     * @return события после указанного в порядке возрастания номеров, либо null, если часть этих событий
+     * уже вытеснена из буфера, номер неизвестен или относится к другому запуску сервера.
+     */
+    public synchronized List<GradingEvent> getEventsAfter(String lastReceivedEventId) {
+        final long lastReceivedSequenceNumber = getSequenceNumber(lastReceivedEventId);
+        if (lastReceivedSequenceNumber < 0 || lastReceivedSequenceNumber > lastSequenceNumber
+                                        || lastSequenceNumber - lastReceivedSequenceNumber > EVENTS_BUFFER_CAPACITY) {
+            return null;
+        }
+
+        final List<GradingEvent> events = new ArrayList<>((int) (lastSequenceNumber - lastReceivedSequenceNumber));
+        for (long sequenceNumber = lastReceivedSequenceNumber + 1; sequenceNumber <= lastSequenceNumber;
+                                                                                                sequenceNumber++) {
+            events.add(eventsBuffer[getBufferIndex(sequenceNumber)]);
+        }
+
+        return events;
+    }
+
+    /**
+     * Отдаёт номер последнего разосланного события.
+     * @return номер последнего разосланного события, с порядковым номером 0, если событий ещё не было.
+     */
+    public synchronized String getLastEventId() {
+        return eventIdPrefix + lastSequenceNumber;
+    }
+
+    /**
+     * Останавливает поток отправки событий.
+     */
+    @PreDestroy
+    public void shutdown() {
+        sendingExecutor.shutdownNow();
+    }
+
+    /**
+     * Назначает событиям номера, сохраняет их в буфере и ставит в очередь на отправку подключенным клиентам.
+     * @param events события в порядке их возникновения.
+     */
+    private synchronized void broadcast(List<GradingEvent> events) {
+        for (GradingEvent event : events) {
+            lastSequenceNumber++;
+            event.setEventId(eventIdPrefix + lastSequenceNumber);
+            eventsBuffer[getBufferIndex(lastSequenceNumber)] = event;
+        }
+
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        // клиенты, подключившиеся позже, получат эти события из буфера при подключении,
+        // а в очередь задача ставится под блокировкой, чтобы события отправлялись в порядке номеров
+        final List<SseEmitter> recipients = new ArrayList<>(subscribers);
+        try {
+            sendingExecutor.execute(() -> sendToAll(recipients, events));
+        } catch (RejectedExecutionException ex) {
+            // сервер останавливается, клиенты всё равно будут отключены
+        }
+    }
+
+    /**
+     * Отправляет события клиентам, отключившихся клиентов убирает из рассылки.
+     * @param recipients клиенты.
+     * @param events события в порядке возрастания номеров.
+     */
+    private void sendToAll(List<SseEmitter> recipients, List<GradingEvent> events) {
+        for (SseEmitter emitter : recipients) {
+            for (GradingEvent event : events) {
+                if (!send(emitter, event)) {
+                    unsubscribe(emitter);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Отправляет событие клиенту.
+     * @param emitter поток событий клиента.
+     * @param event событие.
+     * @return true, если событие отправлено, false - если клиент отключился.
+     */
+    private static boolean send(SseEmitter emitter, GradingEvent event) {
+        try {
+            emitter.send(SseEmitter.event().id(event.getEventId()).data(event, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            emitter.completeWithError(ex);
+            return false;
+        }
+    }
+
+    /**
+     * Отключает клиента от рассылки.
+     * @param emitter поток событий клиента.
+     */
+    private synchronized void unsubscribe(SseEmitter emitter) {
+        subscribers.remove(emitter);
+    }
+
+    /**
+     * Отдаёт порядковый номер события этого запуска сервера.
+     * @param eventId номер события.
+     * @return порядковый номер события, либо -1, если номер относится к другому запуску сервера или некорректен.
+     */
+    private long getSequenceNumber(String eventId) {
+        if (eventId == null || !eventId.startsWith(eventIdPrefix)) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(eventId.substring(eventIdPrefix.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Отдаёт индекс ячейки буфера для события.
+     * @param sequenceNumber порядковый номер события.
+     * @return индекс ячейки буфера.
+     */
+    private static int getBufferIndex(long sequenceNumber) {
+        return (int) ((sequenceNumber - 1) % EVENTS_BUFFER_CAPACITY);
+    }
+
+}
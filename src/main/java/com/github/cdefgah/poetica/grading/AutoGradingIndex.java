@@ -0,0 +1,195 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.grading;
+
+import com.github.cdefgah.poetica.model.Grade;
+
+/**
+ * Индекс оценок ответов: (задание, hash-код тела ответа) - оценка.
+ * Вместо hash-кода целиком хранятся его первые 64 бита, ключи и значения лежат в массивах примитивов
+ * (открытая адресация с линейным пробированием), так что даже сотни тысяч ответов занимают немного памяти.
+ * Класс не потокобезопасный.
+ */
+final class AutoGradingIndex {
+
+    /**
+     * Начальная ёмкость таблицы, степень двойки.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Все значения оценок, порядковый номер оценки + 1 хранится в таблице, 0 означает пустую ячейку.
+     */
+    private static final Grade[] GRADES = Grade.values();
+
+    /**
+     * Уникальные идентификаторы заданий.
+     */
+    private long[] questionIds;
+
+    /**
+     * Первые 64 бита hash-кодов тел ответов.
+     */
+    private long[] hashPrefixes;
+
+    /**
+     * Порядковые номера оценок + 1, 0 для пустых ячеек.
+     */
+    private byte[] gradeCodes;
+
+    /**
+     * Количество занятых ячеек.
+     */
+    private int size;
+
+    /**
+     * Конструктор класса.
+     */
+    AutoGradingIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Отдаёт количество записей в индексе.
+     * @return количество записей в индексе.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Отдаёт оценку ответа.
+     * @param questionId уникальный идентификатор задания.
+     * @param answerBodyHash hash-код тела ответа.
+     * @return оценка ответа, либо null, если оценённых ответов с таким телом на это задание нет.
+     */
+    Grade get(long questionId, String answerBodyHash) {
+        final long hashPrefix = getHashPrefix(answerBodyHash);
+        final int slot = findSlot(questionId, hashPrefix);
+        return gradeCodes[slot] != 0 ? GRADES[gradeCodes[slot] - 1] : null;
+    }
+
+    /**
+     * Задаёт оценку ответа.
+     * @param questionId уникальный идентификатор задания.
+     * @param answerBodyHash hash-код тела ответа.
+     * @param grade оценка ответа.
+     * @param replaceExisting true, если уже заданную оценку нужно заменить.
+     */
+    void put(long questionId, String answerBodyHash, Grade grade, boolean replaceExisting) {
+        final long hashPrefix = getHashPrefix(answerBodyHash);
+        int slot = findSlot(questionId, hashPrefix);
+        if (gradeCodes[slot] != 0) {
+            if (replaceExisting) {
+                gradeCodes[slot] = (byte) (grade.ordinal() + 1);
+            }
+            return;
+        }
+
+        // заполненность таблицы держим не выше половины, чтобы цепочки пробирования оставались короткими
+        if ((size + 1) * 2 > gradeCodes.length) {
+            resize(gradeCodes.length * 2);
+            slot = findSlot(questionId, hashPrefix);
+        }
+
+        questionIds[slot] = questionId;
+        hashPrefixes[slot] = hashPrefix;
+        gradeCodes[slot] = (byte) (grade.ordinal() + 1);
+        size++;
+    }
+
+    /**
+     * Отдаёт первые 64 бита hash-кода тела ответа.
+     * Hash-код хранится в виде шестнадцатеричной строки, если строка в этот формат не укладывается,
+     * используется 64-битный FNV-1a хэш от строки.
+     * @param answerBodyHash hash-код тела ответа.
+     * @return первые 64 бита hash-кода.
+     */
+    static long getHashPrefix(String answerBodyHash) {
+        final int hexDigitsAmount = Long.SIZE / 4;
+        if (answerBodyHash.length() >= hexDigitsAmount) {
+            long hashPrefix = 0;
+            boolean isHexString = true;
+            for (int i = 0; i < hexDigitsAmount && isHexString; i++) {
+                final int digit = Character.digit(answerBodyHash.charAt(i), 16);
+                isHexString = digit >= 0;
+                hashPrefix = (hashPrefix << 4) | digit;
+            }
+
+            if (isHexString) {
+                return hashPrefix;
+            }
+        }
+
+        long fnvHash = 0xcbf29ce484222325L;
+        for (int i = 0; i < answerBodyHash.length(); i++) {
+            fnvHash ^= answerBodyHash.charAt(i);
+            fnvHash *= 0x100000001b3L;
+        }
+
+        return fnvHash;
+    }
+
+    /**
+     * Ищет ячейку с ключом, либо первую пустую ячейку в цепочке пробирования.
+     * @param questionId уникальный идентификатор задания.
+     * @param hashPrefix первые 64 бита hash-кода тела ответа.
+     * @return индекс ячейки.
+     */
+    private int findSlot(long questionId, long hashPrefix) {
+        final int mask = gradeCodes.length - 1;
+        int slot = mix(questionId, hashPrefix) & mask;
+        while (gradeCodes[slot] != 0 && (questionIds[slot] != questionId || hashPrefixes[slot] != hashPrefix)) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Перемешивает биты ключа для выбора ячейки.
+     * @param questionId уникальный идентификатор задания.
+     * @param hashPrefix первые 64 бита hash-кода тела ответа.
+     * @return перемешанное значение ключа.
+     */
+    private static int mix(long questionId, long hashPrefix) {
+        long mixed = hashPrefix ^ (questionId * 0x9e3779b97f4a7c15L);
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        return (int) mixed;
+    }
+
+    /**
+     * Выделяет пустые массивы таблицы.
+     * @param capacity ёмкость таблицы, степень двойки.
+     */
+    private void allocate(int capacity) {
+        questionIds = new long[capacity];
+        hashPrefixes = new long[capacity];
+        gradeCodes = new byte[capacity];
+    }
+
+    /**
+     * Увеличивает ёмкость таблицы и заново раскладывает записи.
+     * @param newCapacity новая ёмкость таблицы, степень двойки.
+     */
+    private void resize(int newCapacity) {
+        final long[] oldQuestionIds = questionIds;
+        final long[] oldHashPrefixes = hashPrefixes;
+        final byte[] oldGradeCodes = gradeCodes;
+
+        allocate(newCapacity);
+        for (int i = 0; i < oldGradeCodes.length; i++) {
+            if (oldGradeCodes[i] != 0) {
+                final int slot = findSlot(oldQuestionIds[i], oldHashPrefixes[i]);
+                questionIds[slot] = oldQuestionIds[i];
+                hashPrefixes[slot] = oldHashPrefixes[i];
+                gradeCodes[slot] = oldGradeCodes[i];
+            }
+        }
+    }
+}
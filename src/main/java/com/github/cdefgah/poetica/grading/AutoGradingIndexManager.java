@@ -0,0 +1,231 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.grading;
+
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.utils.AfterCommitBuffer;
+import com.github.cdefgah.poetica.utils.StaleGuard;
+
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Хранит в памяти индекс оценённых ответов для автоматического выставления оценок при импорте.
+ * Контроллеры сообщают об оценках ответов, оценки попадают в индекс после фиксации транзакции.
+ * Удаление ответов помечает индекс как устаревший, в этом случае он заново строится из базы данных
+ * при следующем обращении.
+ */
+@Component
+public class AutoGradingIndexManager {
+
+    /**
+     * Для связи с базой данных.
+     */
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Индекс оценённых ответов, доступ только внутри synchronized блоков.
+     */
+    private AutoGradingIndex autoGradingIndex;
+
+    /**
+     * true, если индекс нужно заново построить из базы данных.
+     */
+    private boolean isStale = true;
+
+    /**
+     * Определяет, не разошлись-ли загруженные из базы данные с параллельно фиксируемыми изменениями.
+     */
+    private final StaleGuard staleGuard = new StaleGuard();
+
+    /**
+     * Накапливает изменения в рамках транзакции и применяет их к индексу после её фиксации.
+     */
+    private final AfterCommitBuffer<PendingChanges> pendingChangesBuffer =
+                            new AfterCommitBuffer<>(PendingChanges::new, this::applyCommittedChanges, staleGuard);
+
+    /**
+     * Строит индекс заранее, чтобы первый импорт ответов не тратил на это время.
+     */
+    public synchronized void warmUp() {
+        if (isStale || autoGradingIndex == null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Отдаёт оценку, выставленную ответам с таким-же телом на то-же задание.
+     * Если индекс устарел, он строится заново из базы данных.
+     * @param questionId уникальный идентификатор задания.
+     * @param answerBodyHash hash-код тела ответа.
+     * @return оценка, либо null, если оценённых ответов с таким телом на это задание нет.
+     */
+    public synchronized Grade getGrade(long questionId, String answerBodyHash) {
+        warmUp();
+        return autoGradingIndex.get(questionId, answerBodyHash);
+    }
+
+    /**
+     * Сообщает об оценке, выставленной всем ответам с таким телом на задание.
+     * Оценка попадёт в индекс после фиксации текущей транзакции и заменит ранее известную.
+     * @param questionId уникальный идентификатор задания.
+     * @param answerBodyHash hash-код тела ответа.
+     * @param grade оценка ответов.
+     */
+    public void publishGrade(long questionId, String answerBodyHash, Grade grade) {
+        publishGrade(questionId, answerBodyHash, grade, true);
+    }
+
+    /**
+     * Сообщает об оценке нового ответа.
+     * Оценка попадёт в индекс после фиксации текущей транзакции, если для таких ответов оценка ещё не известна.
+     * @param questionId уникальный идентификатор задания.
+     * @param answerBodyHash hash-код тела ответа.
+     * @param grade оценка ответа.
+     */
+    public void publishGradeIfAbsent(long questionId, String answerBodyHash, Grade grade) {
+        publishGrade(questionId, answerBodyHash, grade, false);
+    }
+
+    /**
+     * Помечает индекс как устаревший после фиксации текущей транзакции.
+     * Используется при удалении ответов.
+     */
+    public void invalidate() {
+        pendingChangesBuffer.record(pendingChanges -> pendingChanges.invalidate = true);
+    }
+
+    /**
+     * Сообщает об оценке ответов.
+     * @param questionId уникальный идентификатор задания.
+     * @param answerBodyHash hash-код тела ответа.
+     * @param grade оценка ответов.
+     * @param replaceExisting true, если ранее известную оценку нужно заменить.
+     */
+    private void publishGrade(long questionId, String answerBodyHash, Grade grade, boolean replaceExisting) {
+        if (grade == Grade.None || answerBodyHash == null) {
+            return;
+        }
+
+        pendingChangesBuffer.record(pendingChanges ->
+                pendingChanges.grades.add(new PublishedGrade(questionId, answerBodyHash, grade, replaceExisting)));
+    }
+
+    /**
+     * Строит индекс заново из базы данных.
+     */
+    private void rebuild() {
+        final long loadStamp = staleGuard.beginLoad();
+
+        autoGradingIndex = loadAutoGradingIndex();
+
+        // если во время чтения данных какая-то транзакция фиксировала изменения, неизвестно,
+        // попали ли они в прочитанные данные, поэтому индекс остаётся помеченным как устаревший
+        isStale = staleGuard.isStale(loadStamp);
+    }
+
+    /**
+     * Загружает индекс оценённых ответов из базы данных.
+     * @return заполненный индекс.
+     */
+    private AutoGradingIndex loadAutoGradingIndex() {
+        final TypedQuery<Object[]> query = entityManager.createQuery("select answer.questionId, " +
+                "answer.answerBodyHash, answer.grade from Answer answer where answer.grade<>:grade " +
+                "and answer.answerBodyHash is not null", Object[].class);
+        query.setParameter("grade", Grade.None);
+
+        final AutoGradingIndex index = new AutoGradingIndex();
+        for (Object[] row : query.getResultList()) {
+            index.put((Long) row[0], (String) row[1], (Grade) row[2], false);
+        }
+
+        return index;
+    }
+
+    /**
+     * Применяет зафиксированные изменения к индексу.
+     * @param pendingChanges изменения из зафиксированной транзакции.
+     */
+    private synchronized void applyCommittedChanges(PendingChanges pendingChanges) {
+        if (pendingChanges.invalidate) {
+            isStale = true;
+        }
+
+        if (isStale || autoGradingIndex == null) {
+            // индекс будет построен заново при следующем обращении
+            return;
+        }
+
+        for (PublishedGrade publishedGrade : pendingChanges.grades) {
+            autoGradingIndex.put(publishedGrade.questionId, publishedGrade.answerBodyHash,
+                                                            publishedGrade.grade, publishedGrade.replaceExisting);
+        }
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Оценка ответов с одинаковым телом на задание.
+     */
+    private static final class PublishedGrade {
+
+        /**
+         * Уникальный идентификатор задания.
+         */
+        private final long questionId;
+
+        /**
+         * Hash-код тела ответа.
+         */
+        private final String answerBodyHash;
+
+        /**
+         * Оценка ответов.
+         */
+        private final Grade grade;
+
+        /**
+         * true, если ранее известную оценку нужно заменить.
+         */
+        private final boolean replaceExisting;
+
+        /**
+         * Конструктор класса.
+         * @param questionId уникальный идентификатор задания.
+         * @param answerBodyHash hash-код тела ответа.
+         * @param grade оценка ответов.
+         * @param replaceExisting true, если ранее известную оценку нужно заменить.
+         */
+        PublishedGrade(long questionId, String answerBodyHash, Grade grade, boolean replaceExisting) {
+            this.questionId = questionId;
+            this.answerBodyHash = answerBodyHash;
+            this.grade = grade;
+            this.replaceExisting = replaceExisting;
+        }
+    }
+
+    /**
+     * Изменения одной транзакции, применяются к индексу после её фиксации.
+     */
+    private static final class PendingChanges {
+
+        /**
+         * Оценки ответов.
+         */
+        final List<PublishedGrade> grades = new ArrayList<>();
+
+        /**
+         * true, если индекс нужно пометить как устаревший.
+         */
+        boolean invalidate;
+    }
+}
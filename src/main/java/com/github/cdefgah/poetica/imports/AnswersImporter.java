@@ -0,0 +1,257 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.imports;
+
+import com.github.cdefgah.poetica.grading.AutoGradingIndexManager;
+import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndexHolder;
+import com.github.cdefgah.poetica.reports.restable.live.LiveResultsTableManager;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Импортирует ответы в базу данных пакетами.
+ * Номера заданий определяются по общему индексу заданий,
+ * автоматические оценки - по индексу оценённых ответов в памяти,
+ * а сами ответы вставляются пакетными JDBC запросами.
+ * Должен вызываться внутри транзакции.
+ */
+@Component
+public class AnswersImporter {
+
+    /**
+     * Запрос для вставки ответа.
+     */
+    private static final String INSERT_ANSWER_SQL = "insert into answers (answer_body_hash, body, comment, " +
+            "email_id, email_sent_on, grade, question_id, question_number, round_number, team_id) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Для связи с базой данных.
+     */
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Для пакетной вставки ответов, использует то-же соединение, что и текущая транзакция.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Индекс для поиска задания по номеру.
+     */
+    private final QuestionNumberIndexHolder questionNumberIndexHolder;
+
+    /**
+     * Таблица результатов в памяти, ей сообщаются оценки импортированных ответов.
+     */
+    private final LiveResultsTableManager liveResultsTableManager;
+
+    /**
+     * Индекс оценённых ответов в памяти, ему сообщаются оценки импортированных ответов.
+     */
+    private final AutoGradingIndexManager autoGradingIndexManager;
+
+    /**
+     * Количество ответов в одном пакете.
+     */
+    private final int batchSize;
+
+    /**
+     * Конструктор класса.
+     * @param jdbcTemplate для пакетной вставки ответов.
+     * @param questionNumberIndexHolder индекс для поиска задания по номеру.
+     * @param liveResultsTableManager таблица результатов в памяти.
+     * @param autoGradingIndexManager индекс оценённых ответов в памяти.
+     * @param batchSize количество ответов в одном пакете.
+     */
+    public AnswersImporter(JdbcTemplate jdbcTemplate, QuestionNumberIndexHolder questionNumberIndexHolder,
+                           LiveResultsTableManager liveResultsTableManager,
+                           AutoGradingIndexManager autoGradingIndexManager,
+                           @Value("${poetica.answers.import.batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Answers import batch size must be positive: " + batchSize);
+        }
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.questionNumberIndexHolder = questionNumberIndexHolder;
+        this.liveResultsTableManager = liveResultsTableManager;
+        this.autoGradingIndexManager = autoGradingIndexManager;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Импортирует ответы в базу данных.
+     * Если хотя-бы для одного ответа не найдено задание, либо тело ответа или комментарий длиннее
+     * допустимого, ни один ответ не импортируется.
+     * Ответы вставляются в обход JPA, поэтому длина полей проверяется здесь, а не при сохранении сущности.
+     * @param answersToImport массив с ответами.
+     * @return текст ошибки, либо пустое значение, если все ответы импортированы.
+     */
+    public Optional<String> importAnswers(Answer[] answersToImport) {
+        final QuestionNumberIndex questionNumberIndex = questionNumberIndexHolder.getIndex();
+
+        for (Answer answer : answersToImport) {
+            final long questionId = questionNumberIndex.getQuestionId(answer.getQuestionNumber());
+            if (questionId < 0) {
+                return Optional.of("В базе данных не удалось найти вопрос с номером: " + answer.getQuestionNumber());
+            }
+
+            final String fieldLengthError = getFieldLengthError(answer);
+            if (fieldLengthError != null) {
+                return Optional.of(fieldLengthError);
+            }
+
+            answer.setQuestionId(questionId);
+        }
+
+        // индекс строим до вставки первого пакета, чтобы в него не попали ещё не зафиксированные ответы
+        autoGradingIndexManager.warmUp();
+
+        // несохранённые изменения должны попасть в базу до пакетной вставки и очистки контекста персистентности
+        entityManager.flush();
+
+        // hash-код тела ответа обычно рассчитан ещё при разборе запроса, досчитываем только недостающие
+        Arrays.stream(answersToImport).parallel().filter(answer -> !answer.IsAnswerBodyHashPresent()).
+                                                                    forEach(Answer::buildAndSetAnswerBodyHash);
+
+        // оценки уже импортированных ответов этой транзакции, индекс в памяти увидит их только после фиксации
+        final Map<String, Grade> importedGrades = new HashMap<>();
+
+        for (int batchStart = 0; batchStart < answersToImport.length; batchStart += batchSize) {
+            final List<Answer> batch = Arrays.asList(answersToImport).
+                            subList(batchStart, Math.min(batchStart + batchSize, answersToImport.length));
+
+            assignGradesAutomatically(batch, questionNumberIndex, importedGrades);
+            insertAnswers(batch);
+
+            for (Answer answer : batch) {
+                liveResultsTableManager.publishGradeChange(answer.getTeamId(), answer.getQuestionNumber(),
+                                                                    answer.getRoundNumber(), null, answer.getGrade());
+                autoGradingIndexManager.publishGradeIfAbsent(answer.getQuestionId(), answer.getAnswerBodyHash(),
+                                                                                                answer.getGrade());
+            }
+
+            // вставленные ответы в контекст персистентности не попадали
+            entityManager.clear();
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Проверяет длину тела ответа и комментария к нему.
+     * @param answer ответ.
+     * @return текст ошибки, либо null, если длина полей допустима.
+     */
+    private static String getFieldLengthError(Answer answer) {
+        if (answer.getBody().length() > Answer.getMaxBodyLength()) {
+            return "Ответ на задание с номером " + answer.getQuestionNumber() + " длиннее " +
+                                                                        Answer.getMaxBodyLength() + " символов";
+        }
+
+        if (answer.getComment() != null && answer.getComment().length() > Answer.getMaxCommentLength()) {
+            return "Комментарий к ответу на задание с номером " + answer.getQuestionNumber() + " длиннее " +
+                                                                        Answer.getMaxCommentLength() + " символов";
+        }
+
+        return null;
+    }
+
+    /**
+     * Пытается проставить оценки ответам пакета автоматически.
+     * Ответ, совпадающий с авторским, засчитывается, иначе ответ получает ту-же оценку,
+     * что и уже оценённый ответ с тем-же телом на то-же задание, если такой есть.
+     * @param batch пакет ответов.
+     * @param questionNumberIndex индекс для поиска задания по номеру.
+     * @param importedGrades оценки уже импортированных ответов этой транзакции,
+     *                       ключ - задание и hash-код тела ответа, значение - оценка.
+     */
+    private void assignGradesAutomatically(List<Answer> batch, QuestionNumberIndex questionNumberIndex,
+                                                                                Map<String, Grade> importedGrades) {
+        for (Answer answer : batch) {
+            final String authorsAnswerHash = questionNumberIndex.getAuthorsAnswerHash(answer.getQuestionNumber());
+            final String gradedAnswerKey = getGradedAnswerKey(answer.getQuestionId(), answer.getAnswerBodyHash());
+
+            if (answer.getAnswerBodyHash().equals(authorsAnswerHash)) {
+                answer.setGrade(Grade.Accepted);
+            } else {
+                Grade foundGrade = autoGradingIndexManager.getGrade(answer.getQuestionId(),
+                                                                                        answer.getAnswerBodyHash());
+                if (foundGrade == null) {
+                    foundGrade = importedGrades.get(gradedAnswerKey);
+                }
+
+                if (foundGrade != null) {
+                    answer.setGrade(foundGrade);
+                }
+            }
+
+            // последующие ответы должны видеть оценку этого ответа, как если бы он уже был в базе
+            if (answer.getGrade() != Grade.None) {
+                importedGrades.putIfAbsent(gradedAnswerKey, answer.getGrade());
+            }
+        }
+    }
+
+    /**
+     * Вставляет ответы пакета в базу данных одним пакетным запросом.
+     * @param batch пакет ответов.
+     */
+    private void insertAnswers(List<Answer> batch) {
+        jdbcTemplate.batchUpdate(INSERT_ANSWER_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                final Answer answer = batch.get(i);
+                ps.setString(1, answer.getAnswerBodyHash());
+                ps.setString(2, answer.getBody());
+                if (answer.getComment() != null) {
+                    ps.setString(3, answer.getComment());
+                } else {
+                    ps.setNull(3, Types.VARCHAR);
+                }
+                ps.setLong(4, answer.getEmailId());
+                ps.setLong(5, answer.getEmailSentOn());
+                ps.setString(6, answer.getGrade().name());
+                ps.setLong(7, answer.getQuestionId());
+                ps.setInt(8, answer.getQuestionNumber());
+                ps.setInt(9, answer.getRoundNumber());
+                ps.setLong(10, answer.getTeamId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+    }
+
+    /**
+     * Формирует ключ для индекса оценённых ответов.
+     * @param questionId уникальный идентификатор задания.
+     * @param answerBodyHash hash-код тела ответа.
+     * @return ключ для индекса оценённых ответов.
+     */
+    private static String getGradedAnswerKey(long questionId, String answerBodyHash) {
+        return questionId + ":" + answerBodyHash;
+    }
+}
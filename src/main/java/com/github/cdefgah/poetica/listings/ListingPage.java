@@ -0,0 +1,98 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.listings;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Страница постраничного списка: записи с выбранными полями и позиция для запроса следующей страницы.
+ */
+public final class ListingPage {
+
+    /**
+     * Начальное значение hash-кода FNV-1a.
+     */
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /**
+     * Множитель hash-кода FNV-1a.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Записи страницы, в каждой только выбранные поля в порядке их объявления в списке.
+     */
+    private final List<Map<String, Object>> rows;
+
+    /**
+     * Позиция для запроса следующей страницы, либо null, если это последняя страница.
+     */
+    private final String nextCursor;
+
+    /**
+     * Конструктор класса.
+     * @param rows записи страницы.
+     * @param nextCursor позиция для запроса следующей страницы, либо null, если это последняя страница.
+     */
+    public ListingPage(List<Map<String, Object>> rows, String nextCursor) {
+        this.rows = rows;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Отдаёт записи страницы.
+     * @return записи страницы.
+     */
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+
+    /**
+     * Отдаёт позицию для запроса следующей страницы.
+     * @return позиция для запроса следующей страницы, либо null, если это последняя страница.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Формирует ETag страницы из её содержимого, без сериализации в JSON.
+     * Страница с теми-же записями и полями получает тот-же ETag, так что клиент может не загружать её повторно.
+     * @return значение ETag в кавычках.
+     */
+    public String composeETag() {
+        long hash = FNV_OFFSET_BASIS;
+        for (Map<String, Object> row : rows) {
+            for (Map.Entry<String, Object> field : row.entrySet()) {
+                hash = updateHash(hash, field.getKey());
+                hash = updateHash(hash, String.valueOf(field.getValue()));
+            }
+            hash = updateHash(hash, "\n");
+        }
+        hash = updateHash(hash, String.valueOf(nextCursor));
+
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Добавляет к hash-коду FNV-1a символы строки и разделитель.
+     * @param hash текущий hash-код.
+     * @param text строка.
+     * @return обновлённый hash-код.
+     */
+    private static long updateHash(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        // разделитель, чтобы значения "ab", "c" и "a", "bc" давали разные hash-коды
+        hash ^= 0xffff;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
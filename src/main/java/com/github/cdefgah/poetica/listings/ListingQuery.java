@@ -0,0 +1,169 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.listings;
+
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Постраничный список записей сущности, отдающий только выбранные поля.
+ * Записи читаются проекцией, а не сущностями, и упорядочены по полю сортировки и уникальному идентификатору,
+ * страница начинается сразу после позиции последней записи предыдущей страницы (keyset pagination),
+ * так что ни смещение, ни размер списка не влияют на время чтения страницы.
+ */
+public final class ListingQuery {
+
+    /**
+     * Количество записей на странице по умолчанию.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Максимальное количество записей на странице.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Имя сущности в JPQL запросе.
+     */
+    private final String entityName;
+
+    /**
+     * Псевдоним сущности в JPQL запросе.
+     */
+    private final String alias;
+
+    /**
+     * Имя поля сортировки, поле должно иметь тип long.
+     */
+    private final String sortPropertyName;
+
+    /**
+     * Поля списка: имя поля в ответе и JPQL выражение для него, в порядке объявления.
+     */
+    private final Map<String, String> columns = new LinkedHashMap<>();
+
+    /**
+     * Конструктор класса.
+     * @param entityName имя сущности в JPQL запросе.
+     * @param alias псевдоним сущности в JPQL запросе.
+     * @param sortPropertyName имя поля сортировки, поле должно иметь тип long.
+     */
+    public ListingQuery(String entityName, String alias, String sortPropertyName) {
+        this.entityName = entityName;
+        this.alias = alias;
+        this.sortPropertyName = sortPropertyName;
+    }
+
+    /**
+     * Добавляет поле в список.
+     * @param fieldName имя поля в ответе.
+     * @param expression JPQL выражение для значения поля.
+     * @return этот-же объект.
+     */
+    public ListingQuery addColumn(String fieldName, String expression) {
+        columns.put(fieldName, expression);
+        return this;
+    }
+
+    /**
+     * Разбирает перечень полей, которые нужно отдать.
+     * @param fieldsSelector имена полей через запятую, либо null или пустая строка, если нужны все поля.
+     * @return имена полей в порядке их объявления в списке.
+     * @throws IllegalArgumentException если в перечне есть неизвестное поле.
+     */
+    public List<String> parseFields(String fieldsSelector) {
+        if (fieldsSelector == null || fieldsSelector.trim().isEmpty()) {
+            return new ArrayList<>(columns.keySet());
+        }
+
+        final List<String> requestedFields = new ArrayList<>();
+        for (String fieldName : fieldsSelector.split(",")) {
+            final String trimmedFieldName = fieldName.trim();
+            if (!columns.containsKey(trimmedFieldName)) {
+                throw new IllegalArgumentException("Unknown listing field: " + trimmedFieldName);
+            }
+            requestedFields.add(trimmedFieldName);
+        }
+
+        final List<String> selectedFields = new ArrayList<>();
+        for (String fieldName : columns.keySet()) {
+            if (requestedFields.contains(fieldName)) {
+                selectedFields.add(fieldName);
+            }
+        }
+
+        return selectedFields;
+    }
+
+    /**
+     * Загружает страницу списка.
+     * @param entityManager менеджер сущностей.
+     * @param filter условие отбора записей на JPQL с именованными параметрами.
+     * @param filterParameters значения параметров условия отбора.
+     * @param fields имена полей, которые нужно отдать, результат parseFields().
+     * @param after позиция последней записи предыдущей страницы, либо null для первой страницы.
+     * @param pageSize количество записей на странице.
+     * @return страница списка.
+     */
+    public ListingPage loadPage(EntityManager entityManager, String filter, Map<String, Object> filterParameters,
+                                List<String> fields, PageCursor after, int pageSize) {
+
+        final String sortExpression = alias + '.' + sortPropertyName;
+        final String idExpression = alias + ".id";
+
+        // поле сортировки и идентификатор нужны для позиции следующей страницы и выбираются всегда
+        final StringBuilder queryText = new StringBuilder("select ").append(sortExpression).append(", ")
+                                                                                        .append(idExpression);
+        for (String fieldName : fields) {
+            queryText.append(", ").append(columns.get(fieldName));
+        }
+
+        queryText.append(" from ").append(entityName).append(' ').append(alias).append(" where ").append(filter);
+        if (after != null) {
+            queryText.append(" and (").append(sortExpression).append(">:afterSortValue or (")
+                    .append(sortExpression).append("=:afterSortValue and ").append(idExpression).append(">:afterId))");
+        }
+        queryText.append(" order by ").append(sortExpression).append(", ").append(idExpression);
+
+        final TypedQuery<Object[]> query = ReadOnlyQueries.readOnly(
+                                                    entityManager.createQuery(queryText.toString(), Object[].class));
+        filterParameters.forEach(query::setParameter);
+        if (after != null) {
+            query.setParameter("afterSortValue", after.getSortValue());
+            query.setParameter("afterId", after.getId());
+        }
+
+        // одна лишняя запись показывает, есть-ли следующая страница
+        query.setMaxResults(pageSize + 1);
+        final List<Object[]> resultList = query.getResultList();
+
+        final int rowsCount = Math.min(resultList.size(), pageSize);
+        final List<Map<String, Object>> rows = new ArrayList<>(rowsCount);
+        for (int i = 0; i < rowsCount; i++) {
+            final Object[] resultRow = resultList.get(i);
+            final Map<String, Object> row = new LinkedHashMap<>();
+            for (int j = 0; j < fields.size(); j++) {
+                row.put(fields.get(j), resultRow[j + 2]);
+            }
+            rows.add(row);
+        }
+
+        String nextCursor = null;
+        if (resultList.size() > pageSize) {
+            final Object[] lastRow = resultList.get(pageSize - 1);
+            nextCursor = new PageCursor((Long) lastRow[0], (Long) lastRow[1]).toString();
+        }
+
+        return new ListingPage(rows, nextCursor);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.listings;
+
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.StandardSQLFunction;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Регистрирует в Hibernate функции, которые используются в запросах постраничных списков.
+ * Функция substr есть и в SQLite, и в H2, но в диалекте H2 для Hibernate она не зарегистрирована,
+ * а без этого Hibernate не знает тип результата и не может выбрать её значение в запросе.
+ * Стандартная функция substring не подходит, так как в SQLite её нет.
+ */
+@Configuration
+public class ListingsConfiguration {
+
+    /**
+     * Регистрирует функцию substr с результатом строкового типа.
+     * Метод статический, так как фабрика менеджеров сущностей создаётся раньше этой конфигурации.
+     * @return объект, дополняющий настройки Hibernate.
+     */
+    @Bean
+    public static HibernatePropertiesCustomizer listingsHibernatePropertiesCustomizer() {
+        final MetadataBuilderContributor functionsContributor = metadataBuilder -> metadataBuilder.applySqlFunction(
+                                            "substr", new StandardSQLFunction("substr", StandardBasicTypes.STRING));
+        return hibernateProperties -> hibernateProperties.put(
+                                    EntityManagerFactoryBuilderImpl.METADATA_BUILDER_CONTRIBUTOR, functionsContributor);
+    }
+}
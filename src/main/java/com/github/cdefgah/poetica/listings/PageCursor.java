@@ -0,0 +1,79 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.listings;
+
+/**
+ * Позиция в постраничном списке: значение поля сортировки и уникальный идентификатор последней отданной записи.
+ * Следующая страница начинается с записей, которые идут в порядке сортировки строго после этой позиции.
+ */
+public final class PageCursor {
+
+    /**
+     * Разделитель значений в строковом представлении позиции.
+     */
+    private static final char SEPARATOR = '_';
+
+    /**
+     * Значение поля сортировки последней отданной записи.
+     */
+    private final long sortValue;
+
+    /**
+     * Уникальный идентификатор последней отданной записи.
+     */
+    private final long id;
+
+    /**
+     * Конструктор класса.
+     * @param sortValue значение поля сортировки последней отданной записи.
+     * @param id уникальный идентификатор последней отданной записи.
+     */
+    public PageCursor(long sortValue, long id) {
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * Разбирает строковое представление позиции.
+     * @param cursorString строковое представление позиции, сформированное методом toString().
+     * @return позиция в списке.
+     * @throws IllegalArgumentException если строка не является представлением позиции.
+     */
+    public static PageCursor parse(String cursorString) {
+        final int separatorIndex = cursorString.indexOf(SEPARATOR);
+        if (separatorIndex < 0) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursorString);
+        }
+
+        try {
+            return new PageCursor(Long.parseLong(cursorString.substring(0, separatorIndex)),
+                                                        Long.parseLong(cursorString.substring(separatorIndex + 1)));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursorString, ex);
+        }
+    }
+
+    /**
+     * Отдаёт значение поля сортировки последней отданной записи.
+     * @return значение поля сортировки последней отданной записи.
+     */
+    public long getSortValue() {
+        return sortValue;
+    }
+
+    /**
+     * Отдаёт уникальный идентификатор последней отданной записи.
+     * @return уникальный идентификатор последней отданной записи.
+     */
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(sortValue) + SEPARATOR + id;
+    }
+}
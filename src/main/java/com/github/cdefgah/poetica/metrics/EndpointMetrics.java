@@ -0,0 +1,114 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Накопленные счётчики запросов к одному адресу контроллера. Потокобезопасен.
+ */
+final class EndpointMetrics {
+
+    /**
+     * Время выполнения запросов.
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Количество запросов, завершившихся ошибкой.
+     */
+    private final LongAdder errorsCount = new LongAdder();
+
+    /**
+     * Общее количество SQL-запросов к базе данных.
+     */
+    private final LongAdder statementsCount = new LongAdder();
+
+    /**
+     * Наибольшее количество SQL-запросов к базе данных за один запрос.
+     */
+    private final AtomicLong maxStatementsCount = new AtomicLong();
+
+    /**
+     * Общее количество загруженных сущностей.
+     */
+    private final LongAdder loadedEntitiesCount = new LongAdder();
+
+    /**
+     * Наибольшее количество загруженных сущностей за один запрос.
+     */
+    private final AtomicLong maxLoadedEntitiesCount = new AtomicLong();
+
+    /**
+     * Время этапов формирования отчёта, индекс - порядковый номер этапа.
+     */
+    private final LatencyHistogram[] reportPhases = new LatencyHistogram[ReportPhase.values().length];
+
+    /**
+     * Конструктор класса.
+     */
+    EndpointMetrics() {
+        for (int i = 0; i < reportPhases.length; i++) {
+            reportPhases[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Учитывает выполненный запрос.
+     * @param nanos время выполнения запроса в наносекундах.
+     * @param isFailed true, если запрос завершился ошибкой.
+     * @param context счётчики запроса.
+     */
+    void record(long nanos, boolean isFailed, RequestMetricsContext context) {
+        latency.record(nanos);
+        if (isFailed) {
+            errorsCount.increment();
+        }
+
+        statementsCount.add(context.getStatementsCount());
+        updateMax(maxStatementsCount, context.getStatementsCount());
+        loadedEntitiesCount.add(context.getLoadedEntitiesCount());
+        updateMax(maxLoadedEntitiesCount, context.getLoadedEntitiesCount());
+
+        for (ReportPhase reportPhase : ReportPhase.values()) {
+            if (context.isReportPhaseRecorded(reportPhase)) {
+                reportPhases[reportPhase.ordinal()].record(context.getReportPhaseNanos(reportPhase));
+            }
+        }
+    }
+
+    /**
+     * Формирует статистику запросов.
+     * @param endpoint адрес контроллера.
+     * @return статистика запросов.
+     */
+    EndpointStatistics getStatistics(String endpoint) {
+        final EndpointStatistics statistics = new EndpointStatistics(endpoint, latency.getStatistics(),
+                errorsCount.sum(), statementsCount.sum(), maxStatementsCount.get(), loadedEntitiesCount.sum(),
+                maxLoadedEntitiesCount.get());
+
+        for (ReportPhase reportPhase : ReportPhase.values()) {
+            final LatencyStatistics reportPhaseStatistics = reportPhases[reportPhase.ordinal()].getStatistics();
+            if (reportPhaseStatistics.getCount() > 0) {
+                statistics.addReportPhase(reportPhase, reportPhaseStatistics);
+            }
+        }
+
+        return statistics;
+    }
+
+    /**
+     * Обновляет максимальное значение.
+     * @param max максимальное значение.
+     * @param value новое значение.
+     */
+    private static void updateMax(AtomicLong max, long value) {
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Статистика запросов к одному адресу контроллера.
+ */
+public final class EndpointStatistics {
+
+    /**
+     * Адрес контроллера: HTTP-метод и шаблон пути, например "GET /answers/{teamId}/{roundOption}".
+     */
+    private final String endpoint;
+
+    /**
+     * Время выполнения запросов.
+     */
+    private final LatencyStatistics latency;
+
+    /**
+     * Количество запросов, завершившихся ошибкой.
+     */
+    private final long errorsCount;
+
+    /**
+     * Общее количество SQL-запросов к базе данных.
+     */
+    private final long statementsCount;
+
+    /**
+     * Наибольшее количество SQL-запросов к базе данных за один запрос.
+     */
+    private final long maxStatementsCount;
+
+    /**
+     * Общее количество загруженных сущностей.
+     */
+    private final long loadedEntitiesCount;
+
+    /**
+     * Наибольшее количество загруженных сущностей за один запрос.
+     */
+    private final long maxLoadedEntitiesCount;
+
+    /**
+     * Время этапов формирования отчёта, только для этапов, которые выполнялись.
+     */
+    private final Map<ReportPhase, LatencyStatistics> reportPhases = new LinkedHashMap<>();
+
+    /**
+     * Конструктор класса.
+     * @param endpoint адрес контроллера.
+     * @param latency время выполнения запросов.
+     * @param errorsCount количество запросов, завершившихся ошибкой.
+     * @param statementsCount общее количество SQL-запросов к базе данных.
+     * @param maxStatementsCount наибольшее количество SQL-запросов к базе данных за один запрос.
+     * @param loadedEntitiesCount общее количество загруженных сущностей.
+     * @param maxLoadedEntitiesCount наибольшее количество загруженных сущностей за один запрос.
+     */
+    EndpointStatistics(String endpoint, LatencyStatistics latency, long errorsCount, long statementsCount,
+                                        long maxStatementsCount, long loadedEntitiesCount, long maxLoadedEntitiesCount) {
+        this.endpoint = endpoint;
+        this.latency = latency;
+        this.errorsCount = errorsCount;
+        this.statementsCount = statementsCount;
+        this.maxStatementsCount = maxStatementsCount;
+        this.loadedEntitiesCount = loadedEntitiesCount;
+        this.maxLoadedEntitiesCount = maxLoadedEntitiesCount;
+    }
+
+    /**
+     * Добавляет время этапа формирования отчёта.
+     * @param reportPhase этап формирования отчёта.
+     * @param reportPhaseStatistics время этапа.
+     */
+    void addReportPhase(ReportPhase reportPhase, LatencyStatistics reportPhaseStatistics) {
+        reportPhases.put(reportPhase, reportPhaseStatistics);
+    }
+
+    /**
+     * Отдаёт адрес контроллера.
+     * @return адрес контроллера.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Отдаёт количество запросов.
+     * @return количество запросов.
+     */
+    public long getRequestsCount() {
+        return latency.getCount();
+    }
+
+    /**
+     * Отдаёт количество запросов, завершившихся ошибкой.
+     * @return количество запросов, завершившихся ошибкой.
+     */
+    public long getErrorsCount() {
+        return errorsCount;
+    }
+
+    /**
+     * Отдаёт время выполнения запросов.
+     * @return время выполнения запросов.
+     */
+    public LatencyStatistics getLatency() {
+        return latency;
+    }
+
+    /**
+     * Отдаёт общее количество SQL-запросов к базе данных.
+     * @return общее количество SQL-запросов к базе данных.
+     */
+    public long getStatementsCount() {
+        return statementsCount;
+    }
+
+    /**
+     * Отдаёт наибольшее количество SQL-запросов к базе данных за один запрос.
+     * @return наибольшее количество SQL-запросов к базе данных за один запрос.
+     */
+    public long getMaxStatementsCount() {
+        return maxStatementsCount;
+    }
+
+    /**
+     * Отдаёт общее количество загруженных сущностей.
+     * @return общее количество загруженных сущностей.
+     */
+    public long getLoadedEntitiesCount() {
+        return loadedEntitiesCount;
+    }
+
+    /**
+     * Отдаёт наибольшее количество загруженных сущностей за один запрос.
+     * @return наибольшее количество загруженных сущностей за один запрос.
+     */
+    public long getMaxLoadedEntitiesCount() {
+        return maxLoadedEntitiesCount;
+    }
+
+    /**
+     * Отдаёт время этапов формирования отчёта.
+     * @return время этапов формирования отчёта, только для этапов, которые выполнялись.
+     */
+    public Map<ReportPhase, LatencyStatistics> getReportPhases() {
+        return reportPhases;
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Считает сущности, которые Hibernate загружает из базы данных в потоке запроса к контроллеру.
+ * Один объект используется всеми сессиями, состояния у него нет.
+ */
+public final class EntityLoadCountingInterceptor extends EmptyInterceptor {
+
+    /**
+     * Учитывает загруженную сущность в счётчиках запроса к контроллеру.
+     * @param entity загруженная сущность.
+     * @param id идентификатор сущности.
+     * @param state значения свойств сущности.
+     * @param propertyNames имена свойств сущности.
+     * @param types типы свойств сущности.
+     * @return false, значения свойств не меняются.
+     */
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestMetricsContext.countLoadedEntity();
+        return false;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import org.hibernate.stat.Statistics;
+
+/**
+ * Статистика Hibernate по всем запросам с момента включения или последнего сброса.
+ * Hibernate собирает её только при включенной настройке poetica.metrics.hibernate-statistics,
+ * иначе все значения нулевые.
+ */
+public final class HibernateStatistics {
+
+    /**
+     * true, если Hibernate собирает статистику.
+     */
+    private final boolean enabled;
+
+    /**
+     * Количество выполненных JPQL и SQL-запросов.
+     */
+    private final long queryExecutionCount;
+
+    /**
+     * Количество строк, загруженных JPQL и SQL-запросами.
+     */
+    private final long loadedRowsCount;
+
+    /**
+     * Количество сущностей, загруженных из базы данных.
+     */
+    private final long entityLoadCount;
+
+    /**
+     * Количество сущностей, загруженных по идентификатору отдельными запросами.
+     */
+    private final long entityFetchCount;
+
+    /**
+     * Количество подготовленных JDBC-запросов.
+     */
+    private final long preparedStatementCount;
+
+    /**
+     * Самый долгий запрос, либо null, если запросов не было.
+     */
+    private final String slowestQuery;
+
+    /**
+     * Время выполнения самого долгого запроса в миллисекундах.
+     */
+    private final long slowestQueryMillis;
+
+    /**
+     * Конструктор класса.
+     * @param statistics статистика Hibernate.
+     */
+    HibernateStatistics(Statistics statistics) {
+        this.enabled = statistics.isStatisticsEnabled();
+        this.queryExecutionCount = statistics.getQueryExecutionCount();
+        this.entityLoadCount = statistics.getEntityLoadCount();
+        this.entityFetchCount = statistics.getEntityFetchCount();
+        this.preparedStatementCount = statistics.getPrepareStatementCount();
+        this.slowestQuery = statistics.getQueryExecutionMaxTimeQueryString();
+        this.slowestQueryMillis = statistics.getQueryExecutionMaxTime();
+
+        long rowsCount = 0;
+        for (String query : statistics.getQueries()) {
+            rowsCount += statistics.getQueryStatistics(query).getExecutionRowCount();
+        }
+        this.loadedRowsCount = rowsCount;
+    }
+
+    /**
+     * Отдаёт признак сбора статистики.
+     * @return true, если Hibernate собирает статистику.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Отдаёт количество выполненных JPQL и SQL-запросов.
+     * @return количество выполненных JPQL и SQL-запросов.
+     */
+    public long getQueryExecutionCount() {
+        return queryExecutionCount;
+    }
+
+    /**
+     * Отдаёт количество строк, загруженных JPQL и SQL-запросами.
+     * @return количество строк, загруженных JPQL и SQL-запросами.
+     */
+    public long getLoadedRowsCount() {
+        return loadedRowsCount;
+    }
+
+    /**
+     * Отдаёт количество сущностей, загруженных из базы данных.
+     * @return количество сущностей, загруженных из базы данных.
+     */
+    public long getEntityLoadCount() {
+        return entityLoadCount;
+    }
+
+    /**
+     * Отдаёт количество сущностей, загруженных по идентификатору отдельными запросами.
+     * @return количество сущностей, загруженных по идентификатору отдельными запросами.
+     */
+    public long getEntityFetchCount() {
+        return entityFetchCount;
+    }
+
+    /**
+     * Отдаёт количество подготовленных JDBC-запросов.
+     * @return количество подготовленных JDBC-запросов.
+     */
+    public long getPreparedStatementCount() {
+        return preparedStatementCount;
+    }
+
+    /**
+     * Отдаёт самый долгий запрос.
+     * @return самый долгий запрос, либо null, если запросов не было.
+     */
+    public String getSlowestQuery() {
+        return slowestQuery;
+    }
+
+    /**
+     * Отдаёт время выполнения самого долгого запроса.
+     * @return время выполнения самого долгого запроса в миллисекундах.
+     */
+    public long getSlowestQueryMillis() {
+        return slowestQueryMillis;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма времени выполнения с интервалами, границы которых растут вдвое: до 1 мкс, до 2 мкс, до 4 мкс и так
+ * далее, последний интервал не ограничен сверху. Запись значения стоит одного атомарного увеличения счётчика,
+ * перцентили рассчитываются только при формировании статистики, с точностью до границы интервала.
+ * Потокобезопасна.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Количество интервалов, верхняя граница предпоследнего - 2^22 мкс, около 4 секунд.
+     */
+    static final int BUCKETS_COUNT = 24;
+
+    /**
+     * Количество значений в каждом интервале.
+     */
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKETS_COUNT);
+
+    /**
+     * Сумма всех значений в наносекундах.
+     */
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * Максимальное значение в наносекундах.
+     */
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Запоминает значение.
+     * @param nanos время выполнения в наносекундах.
+     */
+    public void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+        bucketCounts.incrementAndGet(getBucketIndex(value));
+        totalNanos.add(value);
+        if (value > maxNanos.get()) {
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Формирует статистику по всем запомненным значениям.
+     * Значения, которые записываются одновременно с формированием статистики, могут учитываться не полностью.
+     * @return статистика по запомненным значениям.
+     */
+    public LatencyStatistics getStatistics() {
+        final long[] counts = new long[BUCKETS_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            counts[i] = bucketCounts.get(i);
+            count += counts[i];
+        }
+
+        return new LatencyStatistics(counts, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    /**
+     * Отдаёт номер интервала для значения.
+     * @param nanos значение в наносекундах.
+     * @return номер интервала.
+     */
+    static int getBucketIndex(long nanos) {
+        final long micros = (nanos + 999) / 1000;
+        if (micros <= 1) {
+            return 0;
+        }
+
+        // номер старшего бита (micros - 1) плюс один, то есть наименьшее i, для которого micros <= 2^i
+        return Math.min(64 - Long.numberOfLeadingZeros(micros - 1), BUCKETS_COUNT - 1);
+    }
+
+    /**
+     * Отдаёт верхнюю границу интервала.
+     * @param bucketIndex номер интервала.
+     * @return верхняя граница интервала в миллисекундах, либо бесконечность для последнего интервала.
+     */
+    static double getBucketUpperBoundMillis(int bucketIndex) {
+        return bucketIndex == BUCKETS_COUNT - 1 ? Double.POSITIVE_INFINITY : (1L << bucketIndex) / 1000.0;
+    }
+}
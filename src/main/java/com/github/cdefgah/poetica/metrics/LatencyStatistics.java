@@ -0,0 +1,159 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Статистика времени выполнения, рассчитанная по гистограмме.
+ * Перцентили оцениваются сверху, по верхней границе интервала гистограммы, но не больше максимального значения.
+ */
+public final class LatencyStatistics {
+
+    /**
+     * Количество значений.
+     */
+    private final long count;
+
+    /**
+     * Сумма всех значений в миллисекундах.
+     */
+    private final double totalMillis;
+
+    /**
+     * 50-й перцентиль в миллисекундах.
+     */
+    private final double p50Millis;
+
+    /**
+     * 90-й перцентиль в миллисекундах.
+     */
+    private final double p90Millis;
+
+    /**
+     * 99-й перцентиль в миллисекундах.
+     */
+    private final double p99Millis;
+
+    /**
+     * Максимальное значение в миллисекундах.
+     */
+    private final double maxMillis;
+
+    /**
+     * Количество значений в непустых интервалах гистограммы, ключ - верхняя граница интервала в миллисекундах.
+     */
+    private final Map<String, Long> histogram = new LinkedHashMap<>();
+
+    /**
+     * Конструктор класса.
+     * @param bucketCounts количество значений в каждом интервале гистограммы.
+     * @param count количество значений.
+     * @param totalNanos сумма всех значений в наносекундах.
+     * @param maxNanos максимальное значение в наносекундах.
+     */
+    LatencyStatistics(long[] bucketCounts, long count, long totalNanos, long maxNanos) {
+        this.count = count;
+        this.totalMillis = totalNanos / 1e6;
+        this.maxMillis = maxNanos / 1e6;
+        this.p50Millis = getPercentileMillis(bucketCounts, count, 50);
+        this.p90Millis = getPercentileMillis(bucketCounts, count, 90);
+        this.p99Millis = getPercentileMillis(bucketCounts, count, 99);
+
+        for (int i = 0; i < bucketCounts.length; i++) {
+            if (bucketCounts[i] > 0) {
+                final double upperBound = LatencyHistogram.getBucketUpperBoundMillis(i);
+                histogram.put(Double.isInfinite(upperBound) ? "+Inf" : String.valueOf(upperBound), bucketCounts[i]);
+            }
+        }
+    }
+
+    /**
+     * Оценивает перцентиль по гистограмме.
+     * @param bucketCounts количество значений в каждом интервале гистограммы.
+     * @param count количество значений.
+     * @param percent перцентиль, от 1 до 100.
+     * @return верхняя граница интервала, в который попадает перцентиль, но не больше максимального значения,
+     * либо 0, если значений нет.
+     */
+    private double getPercentileMillis(long[] bucketCounts, long count, int percent) {
+        final long rank = (long) Math.ceil(count * percent / 100.0);
+        long accumulatedCount = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            accumulatedCount += bucketCounts[i];
+            if (accumulatedCount >= rank && accumulatedCount > 0) {
+                return Math.min(LatencyHistogram.getBucketUpperBoundMillis(i), maxMillis);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Отдаёт количество значений.
+     * @return количество значений.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Отдаёт сумму всех значений в миллисекундах.
+     * @return сумма всех значений в миллисекундах.
+     */
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * Отдаёт среднее значение в миллисекундах.
+     * @return среднее значение в миллисекундах, либо 0, если значений нет.
+     */
+    public double getMeanMillis() {
+        return count == 0 ? 0 : totalMillis / count;
+    }
+
+    /**
+     * Отдаёт 50-й перцентиль в миллисекундах.
+     * @return 50-й перцентиль в миллисекундах.
+     */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    /**
+     * Отдаёт 90-й перцентиль в миллисекундах.
+     * @return 90-й перцентиль в миллисекундах.
+     */
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    /**
+     * Отдаёт 99-й перцентиль в миллисекундах.
+     * @return 99-й перцентиль в миллисекундах.
+     */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /**
+     * Отдаёт максимальное значение в миллисекундах.
+     * @return максимальное значение в миллисекундах.
+     */
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * Отдаёт количество значений в непустых интервалах гистограммы.
+     * @return количество значений, ключ - верхняя граница интервала в миллисекундах, либо +Inf для последнего.
+     */
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Подключает сбор статистики запросов к контроллерам: замер времени выполнения запросов и подсчёт
+ * SQL-запросов и загруженных сущностей средствами Hibernate, а также SQL-запросов, выполненных через JdbcTemplate.
+ * Отключается настройкой poetica.metrics.enabled=false, тогда статистика запросов остаётся пустой.
+ */
+@Configuration
+@ConditionalOnProperty(name = "poetica.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    /**
+     * Статистика запросов.
+     */
+    @Autowired
+    RequestMetricsRegistry requestMetricsRegistry;
+
+    /**
+     * Регистрирует в Hibernate объекты, которые считают SQL-запросы и загруженные сущности.
+     * Метод статический, так как фабрика менеджеров сущностей создаётся раньше этой конфигурации.
+     * @return объект, дополняющий настройки Hibernate.
+     */
+    @Bean
+    public static HibernatePropertiesCustomizer metricsHibernatePropertiesCustomizer() {
+        return hibernateProperties -> {
+            hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCountingInspector());
+            hibernateProperties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCountingInterceptor());
+        };
+    }
+
+    /**
+     * Заменяет JdbcTemplate, который создаёт Spring Boot, на JdbcTemplate, считающий SQL-запросы.
+     * Настройки spring.jdbc.template.* применяются так-же, как в Spring Boot.
+     * @param dataSource источник соединений с базой данных.
+     * @param jdbcProperties настройки JdbcTemplate.
+     * @return JdbcTemplate, считающий SQL-запросы.
+     */
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource, JdbcProperties jdbcProperties) {
+        final JdbcTemplate jdbcTemplate = new StatementCountingJdbcTemplate(dataSource);
+        final JdbcProperties.Template template = jdbcProperties.getTemplate();
+        jdbcTemplate.setFetchSize(template.getFetchSize());
+        jdbcTemplate.setMaxRows(template.getMaxRows());
+        if (template.getQueryTimeout() != null) {
+            jdbcTemplate.setQueryTimeout((int) template.getQueryTimeout().getSeconds());
+        }
+
+        return jdbcTemplate;
+    }
+
+    /**
+     * Регистрирует замер времени выполнения запросов ко всем контроллерам, кроме самой статистики.
+     * @param registry список обработчиков запросов.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(requestMetricsRegistry))
+                .excludePathPatterns("/metrics", "/metrics/**");
+    }
+}
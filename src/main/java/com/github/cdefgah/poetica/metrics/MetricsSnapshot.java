@@ -0,0 +1,81 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import java.util.List;
+
+/**
+ * Статистика запросов к контроллерам и статистика Hibernate на момент обращения.
+ */
+public final class MetricsSnapshot {
+
+    /**
+     * Время формирования статистики в миллисекундах от начала эпохи.
+     */
+    private final long collectedOn;
+
+    /**
+     * Время сбора статистики в миллисекундах, с момента запуска приложения или последнего сброса.
+     */
+    private final long collectionPeriodMillis;
+
+    /**
+     * Статистика запросов по адресам контроллеров, в алфавитном порядке адресов.
+     */
+    private final List<EndpointStatistics> endpoints;
+
+    /**
+     * Статистика Hibernate.
+     */
+    private final HibernateStatistics hibernate;
+
+    /**
+     * Конструктор класса.
+     * @param collectedOn время формирования статистики в миллисекундах от начала эпохи.
+     * @param collectionPeriodMillis время сбора статистики в миллисекундах.
+     * @param endpoints статистика запросов по адресам контроллеров.
+     * @param hibernate статистика Hibernate.
+     */
+    MetricsSnapshot(long collectedOn, long collectionPeriodMillis, List<EndpointStatistics> endpoints,
+                                                                                    HibernateStatistics hibernate) {
+        this.collectedOn = collectedOn;
+        this.collectionPeriodMillis = collectionPeriodMillis;
+        this.endpoints = endpoints;
+        this.hibernate = hibernate;
+    }
+
+    /**
+     * Отдаёт время формирования статистики.
+     * @return время формирования статистики в миллисекундах от начала эпохи.
+     */
+    public long getCollectedOn() {
+        return collectedOn;
+    }
+
+    /**
+     * Отдаёт время сбора статистики.
+     * @return время сбора статистики в миллисекундах.
+     */
+    public long getCollectionPeriodMillis() {
+        return collectionPeriodMillis;
+    }
+
+    /**
+     * Отдаёт статистику запросов по адресам контроллеров.
+     * @return статистика запросов по адресам контроллеров, в алфавитном порядке адресов.
+     */
+    public List<EndpointStatistics> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Отдаёт статистику Hibernate.
+     * @return статистика Hibernate.
+     */
+    public HibernateStatistics getHibernate() {
+        return hibernate;
+    }
+}
@@ -0,0 +1,18 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+/**
+ * Этап формирования отчёта, время которого замеряется отдельно.
+ */
+public enum ReportPhase {
+    LoadingData, // загружаются команды и ответы
+    ConsistencyCheck, // проверяется непротиворечивость оценок
+    MainReport, // строится основная часть модели отчёта
+    Rendering, // формируется текст отчёта
+    Encoding, // текст кодируется в заданную кодировку
+    Writing // закодированный текст выводится клиенту и в кэш отчётов
+}
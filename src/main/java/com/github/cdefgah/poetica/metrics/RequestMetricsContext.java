@@ -0,0 +1,185 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+/**
+ * Счётчики одного запроса к контроллеру или задачи формирования отчёта: количество SQL-запросов к базе данных,
+ * загруженных сущностей и время этапов формирования отчёта. Объект привязывается к потоку, который обрабатывает
+ * запрос, так что счётчики увеличиваются без синхронизации. Если к потоку ничего не привязано (тесты, бенчмарки,
+ * запуск приложения), статические методы ничего не делают.
+ * Когда количество SQL-запросов превышает порог, запоминается стек вызовов, из которого выполнен первый запрос
+ * сверх порога: обычно это цикл, в котором на каждый элемент выполняется отдельный запрос.
+ * Ответ, который выводится клиенту в отдельном потоке, записывает время этапов в объект, полученный заранее
+ * через {@link #current()}: вывод начинается после того, как поток запроса отдал ответ, и заканчивается
+ * до того, как по запросу сохраняется статистика.
+ */
+public final class RequestMetricsContext {
+
+    /**
+     * Счётчики запроса, который обрабатывает текущий поток.
+     */
+    private static final ThreadLocal<RequestMetricsContext> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Количество SQL-запросов, после которого запоминается место в коде, откуда выполнен следующий запрос,
+     * 0 - не запоминать.
+     */
+    private final int statementsWarningThreshold;
+
+    /**
+     * Количество SQL-запросов к базе данных.
+     */
+    private int statementsCount;
+
+    /**
+     * Стек вызовов, из которого выполнен первый SQL-запрос сверх порога, либо null, если порог не превышен.
+     */
+    private StackTraceElement[] thresholdExceedingCallStack;
+
+    /**
+     * Количество сущностей, загруженных из базы данных.
+     */
+    private int loadedEntitiesCount;
+
+    /**
+     * Время этапов формирования отчёта в наносекундах, индекс - порядковый номер этапа.
+     */
+    private final long[] reportPhaseNanos = new long[ReportPhase.values().length];
+
+    /**
+     * Этапы формирования отчёта, время которых записано, бит - порядковый номер этапа.
+     */
+    private int recordedReportPhases;
+
+    /**
+     * Конструктор класса.
+     * @param statementsWarningThreshold количество SQL-запросов, после которого запоминается место в коде,
+     *                                   откуда выполнен следующий запрос, 0 - не запоминать.
+     */
+    RequestMetricsContext(int statementsWarningThreshold) {
+        this.statementsWarningThreshold = statementsWarningThreshold;
+    }
+
+    /**
+     * Отдаёт счётчики запроса, который обрабатывает текущий поток.
+     * @return счётчики запроса, либо null, если поток не обрабатывает запрос.
+     */
+    public static RequestMetricsContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Привязывает счётчики запроса к текущему потоку.
+     * @param context счётчики запроса.
+     */
+    public static void bind(RequestMetricsContext context) {
+        CURRENT.set(context);
+    }
+
+    /**
+     * Отвязывает счётчики запроса от текущего потока.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Учитывает SQL-запрос к базе данных в счётчиках запроса текущего потока.
+     */
+    public static void countStatement() {
+        final RequestMetricsContext context = CURRENT.get();
+        if (context != null) {
+            context.statementsCount++;
+            if (context.statementsCount == context.statementsWarningThreshold + 1 &&
+                                                                        context.statementsWarningThreshold > 0) {
+                // стек запоминается один раз за запрос, только при превышении порога
+                context.thresholdExceedingCallStack = new Throwable().getStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Учитывает загруженную из базы данных сущность в счётчиках запроса текущего потока.
+     */
+    public static void countLoadedEntity() {
+        final RequestMetricsContext context = CURRENT.get();
+        if (context != null) {
+            context.loadedEntitiesCount++;
+        }
+    }
+
+    /**
+     * Записывает время этапа формирования отчёта в счётчики запроса текущего потока.
+     * @param reportPhase этап формирования отчёта.
+     * @param startTime время начала этапа, полученное через System.nanoTime().
+     */
+    public static void recordReportPhase(ReportPhase reportPhase, long startTime) {
+        final RequestMetricsContext context = CURRENT.get();
+        if (context != null) {
+            context.addReportPhaseTime(reportPhase, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Добавляет время к этапу формирования отчёта.
+     * @param reportPhase этап формирования отчёта.
+     * @param nanos время в наносекундах.
+     */
+    public void addReportPhaseTime(ReportPhase reportPhase, long nanos) {
+        reportPhaseNanos[reportPhase.ordinal()] += nanos;
+        recordedReportPhases |= 1 << reportPhase.ordinal();
+    }
+
+    /**
+     * Отдаёт количество SQL-запросов к базе данных.
+     * @return количество SQL-запросов к базе данных.
+     */
+    int getStatementsCount() {
+        return statementsCount;
+    }
+
+    /**
+     * Отдаёт стек вызовов, из которого выполнен первый SQL-запрос сверх порога.
+     * @return стек вызовов, либо null, если порог не превышен.
+     */
+    StackTraceElement[] getThresholdExceedingCallStack() {
+        return thresholdExceedingCallStack;
+    }
+
+    /**
+     * Отдаёт количество SQL-запросов, после которого запоминается место в коде, откуда выполнен следующий запрос.
+     * @return порог количества SQL-запросов, 0 - место в коде не запоминается.
+     */
+    int getStatementsWarningThreshold() {
+        return statementsWarningThreshold;
+    }
+
+    /**
+     * Отдаёт количество сущностей, загруженных из базы данных.
+     * @return количество сущностей, загруженных из базы данных.
+     */
+    int getLoadedEntitiesCount() {
+        return loadedEntitiesCount;
+    }
+
+    /**
+     * Проверяет, записано-ли время этапа формирования отчёта.
+     * @param reportPhase этап формирования отчёта.
+     * @return true, если время этапа записано.
+     */
+    boolean isReportPhaseRecorded(ReportPhase reportPhase) {
+        return (recordedReportPhases & (1 << reportPhase.ordinal())) != 0;
+    }
+
+    /**
+     * Отдаёт время этапа формирования отчёта.
+     * @param reportPhase этап формирования отчёта.
+     * @return время этапа в наносекундах.
+     */
+    long getReportPhaseNanos(ReportPhase reportPhase) {
+        return reportPhaseNanos[reportPhase.ordinal()];
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Замеряет время выполнения запросов к контроллерам и передаёт их счётчики в {@link RequestMetricsRegistry}.
+ * Ответы, которые выводятся клиенту в отдельном потоке (отчёты, поток событий), учитываются целиком:
+ * статистика сохраняется после повторной обработки запроса, когда вывод ответа завершён.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    /**
+     * Атрибут запроса со счётчиками запроса.
+     */
+    private static final String CONTEXT_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".context";
+
+    /**
+     * Атрибут запроса со временем начала обработки, полученным через System.nanoTime().
+     */
+    private static final String START_TIME_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".startTime";
+
+    /**
+     * Статистика запросов.
+     */
+    private final RequestMetricsRegistry requestMetricsRegistry;
+
+    /**
+     * Конструктор класса.
+     * @param requestMetricsRegistry статистика запросов.
+     */
+    public RequestMetricsInterceptor(RequestMetricsRegistry requestMetricsRegistry) {
+        this.requestMetricsRegistry = requestMetricsRegistry;
+    }
+
+    /**
+     * Привязывает счётчики запроса к потоку. При повторной обработке запроса после вывода ответа в отдельном
+     * потоке привязывает те-же счётчики, что и в первый раз.
+     * @param request запрос.
+     * @param response ответ.
+     * @param handler обработчик запроса.
+     * @return true, обработка запроса продолжается.
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            // статические файлы клиентской части не учитываем
+            return true;
+        }
+
+        RequestMetricsContext context = (RequestMetricsContext) request.getAttribute(CONTEXT_ATTRIBUTE);
+        if (context == null) {
+            context = requestMetricsRegistry.createContext();
+            request.setAttribute(CONTEXT_ATTRIBUTE, context);
+            request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
+        }
+
+        RequestMetricsContext.bind(context);
+        return true;
+    }
+
+    /**
+     * Отвязывает счётчики запроса от потока, ответ будет выводиться в другом потоке.
+     * @param request запрос.
+     * @param response ответ.
+     * @param handler обработчик запроса.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                                                                Object handler) {
+        RequestMetricsContext.unbind();
+    }
+
+    /**
+     * Сохраняет статистику запроса и отвязывает его счётчики от потока.
+     * @param request запрос.
+     * @param response ответ.
+     * @param handler обработчик запроса.
+     * @param exception исключение, которым завершилась обработка запроса, либо null.
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                                                                        Exception exception) {
+        RequestMetricsContext.unbind();
+
+        final RequestMetricsContext context = (RequestMetricsContext) request.getAttribute(CONTEXT_ATTRIBUTE);
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (context == null || pattern == null) {
+            return;
+        }
+
+        final long nanos = System.nanoTime() - (Long) request.getAttribute(START_TIME_ATTRIBUTE);
+        final boolean isFailed = exception != null || response.getStatus() >= 500;
+        requestMetricsRegistry.record(request.getMethod() + " " + pattern, nanos, isFailed, context);
+    }
+}
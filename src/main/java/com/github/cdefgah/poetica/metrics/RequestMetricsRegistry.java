@@ -0,0 +1,169 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Накапливает статистику запросов по адресам контроллеров.
+ * Запись запроса стоит нескольких атомарных увеличений счётчиков, перцентили и прочая статистика
+ * рассчитываются только при обращении к ней, так что пока статистику никто не запрашивает,
+ * её сбор почти ничего не стоит.
+ * Статистика Hibernate включается отдельно настройкой poetica.metrics.hibernate-statistics, так как Hibernate
+ * собирает её с синхронизацией на каждом запросе к базе данных.
+ * Запрос, выполнивший больше SQL-запросов, чем задано настройкой poetica.metrics.statements-warning-threshold,
+ * записывается в журнал с предупреждением и местом в коде, откуда выполнен первый SQL-запрос сверх порога.
+ */
+@Component
+public class RequestMetricsRegistry {
+
+    /**
+     * Журнал, в который записываются запросы с превышением порога количества SQL-запросов.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RequestMetricsRegistry.class);
+
+    /**
+     * Пакет приложения, в стеке вызовов показываются только его классы.
+     */
+    private static final String APPLICATION_PACKAGE = "com.github.cdefgah.poetica.";
+
+    /**
+     * Сколько вызовов из кода приложения показывать в журнале.
+     */
+    private static final int MAX_LOGGED_CALL_STACK_DEPTH = 8;
+
+    /**
+     * Количество SQL-запросов за один запрос, после превышения которого запрос записывается в журнал,
+     * 0 - не записывать.
+     */
+    private final int statementsWarningThreshold;
+
+    /**
+     * Счётчики запросов по адресам контроллеров.
+     */
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Статистика Hibernate.
+     */
+    private final Statistics hibernateStatistics;
+
+    /**
+     * Время начала сбора статистики в миллисекундах от начала эпохи.
+     */
+    private volatile long collectionStartedOn = System.currentTimeMillis();
+
+    /**
+     * Конструктор класса.
+     * @param entityManagerFactory фабрика менеджеров сущностей, через неё доступна статистика Hibernate.
+     * @param isHibernateStatisticsEnabled true, если Hibernate должен собирать статистику.
+     * @param statementsWarningThreshold количество SQL-запросов за один запрос, после превышения которого
+     *                                   запрос записывается в журнал, 0 - не записывать.
+     */
+    public RequestMetricsRegistry(EntityManagerFactory entityManagerFactory,
+                          @Value("${poetica.metrics.hibernate-statistics:false}") boolean isHibernateStatisticsEnabled,
+                          @Value("${poetica.metrics.statements-warning-threshold:50}") int statementsWarningThreshold) {
+        this.statementsWarningThreshold = Math.max(statementsWarningThreshold, 0);
+        this.hibernateStatistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (isHibernateStatisticsEnabled) {
+            hibernateStatistics.setStatisticsEnabled(true);
+        }
+    }
+
+    /**
+     * Создаёт счётчики для нового запроса.
+     * @return счётчики запроса.
+     */
+    public RequestMetricsContext createContext() {
+        return new RequestMetricsContext(statementsWarningThreshold);
+    }
+
+    /**
+     * Учитывает выполненный запрос.
+     * @param endpoint адрес контроллера: HTTP-метод и шаблон пути.
+     * @param nanos время выполнения запроса в наносекундах.
+     * @param isFailed true, если запрос завершился ошибкой.
+     * @param context счётчики запроса.
+     */
+    public void record(String endpoint, long nanos, boolean isFailed, RequestMetricsContext context) {
+        EndpointMetrics endpointMetrics = endpoints.get(endpoint);
+        if (endpointMetrics == null) {
+            endpointMetrics = endpoints.computeIfAbsent(endpoint, key -> new EndpointMetrics());
+        }
+
+        endpointMetrics.record(nanos, isFailed, context);
+
+        final StackTraceElement[] callStack = context.getThresholdExceedingCallStack();
+        if (callStack != null) {
+            logger.warn("{} issued {} SQL statements, more than {}, statement {} issued from:{}", endpoint,
+                    context.getStatementsCount(), context.getStatementsWarningThreshold(),
+                    context.getStatementsWarningThreshold() + 1, formatCallStack(callStack));
+        }
+    }
+
+    /**
+     * Формирует статистику запросов по всем адресам контроллеров и статистику Hibernate.
+     * @return статистика на текущий момент.
+     */
+    public MetricsSnapshot getSnapshot() {
+        final List<EndpointStatistics> endpointStatisticsList = new ArrayList<>();
+        for (Map.Entry<String, EndpointMetrics> entry : endpoints.entrySet()) {
+            endpointStatisticsList.add(entry.getValue().getStatistics(entry.getKey()));
+        }
+        endpointStatisticsList.sort(Comparator.comparing(EndpointStatistics::getEndpoint));
+
+        final long now = System.currentTimeMillis();
+        return new MetricsSnapshot(now, now - collectionStartedOn, endpointStatisticsList,
+                                                                        new HibernateStatistics(hibernateStatistics));
+    }
+
+    /**
+     * Формирует стек вызовов для журнала: только вызовы из кода приложения, без сбора статистики
+     * и без классов, которые Spring создаёт для транзакций.
+     * @param callStack стек вызовов.
+     * @return стек вызовов, по вызову в строке.
+     */
+    static String formatCallStack(StackTraceElement[] callStack) {
+        final StringBuilder sb = new StringBuilder();
+        int depth = 0;
+        for (StackTraceElement element : callStack) {
+            final String className = element.getClassName();
+            if (!className.startsWith(APPLICATION_PACKAGE) ||
+                        className.startsWith(RequestMetricsRegistry.class.getPackage().getName()) ||
+                                                                                        className.contains("$$")) {
+                continue;
+            }
+
+            sb.append("\n\tat ").append(element);
+            if (++depth == MAX_LOGGED_CALL_STACK_DEPTH) {
+                break;
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Сбрасывает всю накопленную статистику.
+     */
+    public void reset() {
+        endpoints.clear();
+        hibernateStatistics.clear();
+        collectionStartedOn = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL-запросы, которые Hibernate готовит к выполнению в потоке запроса к контроллеру.
+ * Текст запроса не меняется.
+ */
+public final class StatementCountingInspector implements StatementInspector {
+
+    /**
+     * Учитывает SQL-запрос в счётчиках запроса к контроллеру.
+     * @param sql текст SQL-запроса.
+     * @return тот-же текст SQL-запроса.
+     */
+    @Override
+    public String inspect(String sql) {
+        RequestMetricsContext.countStatement();
+        return sql;
+    }
+}
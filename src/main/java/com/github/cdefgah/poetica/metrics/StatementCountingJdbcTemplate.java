@@ -0,0 +1,52 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.CallableStatementCallback;
+import org.springframework.jdbc.core.CallableStatementCreator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.StatementCallback;
+
+import javax.sql.DataSource;
+
+/**
+ * Считает SQL-запросы, которые выполняются через JdbcTemplate в обход Hibernate в потоке запроса к контроллеру.
+ * Все методы выполнения запросов JdbcTemplate сводятся к методам execute, переопределённым здесь,
+ * пакетный запрос считается одним SQL-запросом, так-же, как его считает Hibernate.
+ */
+public final class StatementCountingJdbcTemplate extends JdbcTemplate {
+
+    /**
+     * Конструктор класса.
+     * @param dataSource источник соединений с базой данных.
+     */
+    public StatementCountingJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+        RequestMetricsContext.countStatement();
+        return super.execute(action);
+    }
+
+    @Override
+    public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
+                                                                                        throws DataAccessException {
+        RequestMetricsContext.countStatement();
+        return super.execute(psc, action);
+    }
+
+    @Override
+    public <T> T execute(CallableStatementCreator csc, CallableStatementCallback<T> action)
+                                                                                        throws DataAccessException {
+        RequestMetricsContext.countStatement();
+        return super.execute(csc, action);
+    }
+}
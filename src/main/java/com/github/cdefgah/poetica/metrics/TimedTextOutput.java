@@ -0,0 +1,183 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * Вывод текста отчёта в заданной кодировке, который разделяет время вывода на этапы формирования текста,
+ * кодирования и вывода закодированного текста.
+ * Время замеряется только на границах буферов, раз в несколько тысяч символов, а не на каждом выводе текста:
+ * время кодирования - это время внутри OutputStreamWriter за вычетом времени вывода закодированного текста,
+ * а всё остальное время - формирование текста.
+ */
+public final class TimedTextOutput {
+
+    /**
+     * Вывод закодированного текста с замером времени.
+     */
+    private final TimedOutputStream timedOutputStream;
+
+    /**
+     * Кодирование текста с замером времени.
+     */
+    private final TimedWriter timedEncodingWriter;
+
+    /**
+     * Буферизованный вывод текста.
+     */
+    private final Writer writer;
+
+    /**
+     * Время начала вывода, полученное через System.nanoTime().
+     */
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Конструктор класса.
+     * @param out поток, в который выводится закодированный текст.
+     * @param charset кодировка.
+     */
+    public TimedTextOutput(OutputStream out, Charset charset) {
+        this.timedOutputStream = new TimedOutputStream(out);
+        this.timedEncodingWriter = new TimedWriter(new OutputStreamWriter(timedOutputStream, charset));
+        this.writer = new BufferedWriter(timedEncodingWriter);
+    }
+
+    /**
+     * Отдаёт объект для вывода текста.
+     * @return объект для вывода текста.
+     */
+    public Writer getWriter() {
+        return writer;
+    }
+
+    /**
+     * Выводит остаток текста и записывает время этапов в счётчики запроса.
+     * @param context счётчики запроса.
+     * @throws IOException если вывод текста завершился ошибкой.
+     */
+    public void finish(RequestMetricsContext context) throws IOException {
+        writer.flush();
+
+        final long totalNanos = System.nanoTime() - startTime;
+        final long writingNanos = timedOutputStream.elapsedNanos;
+        final long encodingNanos = timedEncodingWriter.elapsedNanos - writingNanos;
+        context.addReportPhaseTime(ReportPhase.Rendering, totalNanos - encodingNanos - writingNanos);
+        context.addReportPhaseTime(ReportPhase.Encoding, encodingNanos);
+        context.addReportPhaseTime(ReportPhase.Writing, writingNanos);
+    }
+
+    // ===============================================================================================================
+
+    /**
+     * Передаёт текст дальше и замеряет время, которое на это ушло.
+     */
+    private static final class TimedWriter extends Writer {
+
+        /**
+         * Куда передаётся текст.
+         */
+        private final Writer delegate;
+
+        /**
+         * Время передачи текста в наносекундах.
+         */
+        private long elapsedNanos;
+
+        /**
+         * Конструктор класса.
+         * @param delegate куда передаётся текст.
+         */
+        TimedWriter(Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            final long start = System.nanoTime();
+            try {
+                delegate.write(buffer, offset, length);
+            } finally {
+                elapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            final long start = System.nanoTime();
+            try {
+                delegate.flush();
+            } finally {
+                elapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Передаёт байты дальше и замеряет время, которое на это ушло.
+     */
+    private static final class TimedOutputStream extends OutputStream {
+
+        /**
+         * Куда передаются байты.
+         */
+        private final OutputStream delegate;
+
+        /**
+         * Время передачи байт в наносекундах.
+         */
+        private long elapsedNanos;
+
+        /**
+         * Конструктор класса.
+         * @param delegate куда передаются байты.
+         */
+        TimedOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            final long start = System.nanoTime();
+            try {
+                delegate.write(b, off, len);
+            } finally {
+                elapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            final long start = System.nanoTime();
+            try {
+                delegate.flush();
+            } finally {
+                elapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -14,10 +14,88 @@ import java.util.Map;
 /**
  * Класс ответа на задание.
  */
+@NamedQueries({
+        @NamedQuery(name = Answer.FIND_BY_TEAM_QUERY,
+                query = "select answer from Answer answer where answer.teamId=:teamId"),
+        @NamedQuery(name = Answer.FIND_BY_TEAM_AND_ROUND_QUERY,
+                query = "select answer from Answer answer " +
+                        "where answer.teamId=:teamId and answer.roundNumber=:roundNumber"),
+        @NamedQuery(name = Answer.FIND_TEAM_IDS_BY_GRADE_QUERY,
+                query = "select distinct answer.teamId from Answer answer where answer.grade=:grade"),
+        @NamedQuery(name = Answer.FIND_GRADE_CHANGES_QUERY,
+                query = "select answer.teamId, answer.questionNumber, answer.roundNumber, answer.grade " +
+                        "from Answer answer where answer.questionId=:questionId " +
+                        "and answer.answerBodyHash=:answerBodyHash and answer.id<>:answerId " +
+                        "and answer.grade<>:gradeToSet"),
+        @NamedQuery(name = Answer.UPDATE_GRADE_BY_BODY_HASH_QUERY,
+                query = "update Answer answer set answer.grade=:gradeToSet " +
+                        "where answer.questionId=:questionId and answer.answerBodyHash=:answerBodyHash"),
+        @NamedQuery(name = Answer.COUNT_BY_TEAM_QUERY,
+                query = "select count(*) from Answer answer where answer.teamId=:teamId"),
+        @NamedQuery(name = Answer.COUNT_BY_QUESTION_QUERY,
+                query = "select count(*) from Answer answer where answer.questionId=:questionId"),
+        @NamedQuery(name = Answer.COUNT_BY_TEAM_AND_GRADE_QUERY,
+                query = "select count(*) from Answer answer where answer.teamId=:teamId and answer.grade=:grade"),
+        @NamedQuery(name = Answer.COUNT_GROUPED_BY_TEAM_ROUND_AND_GRADE_QUERY,
+                query = "select answer.teamId, answer.roundNumber, answer.grade, count(answer.id) " +
+                        "from Answer answer group by answer.teamId, answer.roundNumber, answer.grade")
+})
 @Entity
-@Table(name = "Answers")
+@Table(name = "Answers", indexes = {
+        @Index(name = "idx_answers_team_question_sent_on", columnList = "teamId, questionNumber, emailSentOn"),
+        @Index(name = "idx_answers_team_question_round_grade",
+                                                    columnList = "teamId, questionNumber, roundNumber, grade"),
+        @Index(name = "idx_answers_question_body_hash", columnList = "questionId, answerBodyHash"),
+        @Index(name = "idx_answers_team_sent_on", columnList = "teamId, emailSentOn")
+})
 public final class Answer extends QuestionAnswerPrototype {
 
+    /**
+     * Имя запроса: ответы команды teamId.
+     */
+    public static final String FIND_BY_TEAM_QUERY = "Answer.findByTeam";
+
+    /**
+     * Имя запроса: ответы команды teamId на тур roundNumber.
+     */
+    public static final String FIND_BY_TEAM_AND_ROUND_QUERY = "Answer.findByTeamAndRound";
+
+    /**
+     * Имя запроса: уникальные идентификаторы команд, у которых есть ответы с оценкой grade.
+     */
+    public static final String FIND_TEAM_IDS_BY_GRADE_QUERY = "Answer.findTeamIdsByGrade";
+
+    /**
+     * Имя запроса: команда, номер задания, тур и оценка ответов с тем-же телом на задание questionId,
+     * оценка которых изменится на gradeToSet, кроме ответа answerId.
+     */
+    public static final String FIND_GRADE_CHANGES_QUERY = "Answer.findGradeChanges";
+
+    /**
+     * Имя запроса: выставление оценки gradeToSet всем ответам с телом answerBodyHash на задание questionId.
+     */
+    public static final String UPDATE_GRADE_BY_BODY_HASH_QUERY = "Answer.updateGradeByBodyHash";
+
+    /**
+     * Имя запроса: количество ответов команды teamId.
+     */
+    public static final String COUNT_BY_TEAM_QUERY = "Answer.countByTeam";
+
+    /**
+     * Имя запроса: количество ответов на задание questionId.
+     */
+    public static final String COUNT_BY_QUESTION_QUERY = "Answer.countByQuestion";
+
+    /**
+     * Имя запроса: количество ответов команды teamId с оценкой grade.
+     */
+    public static final String COUNT_BY_TEAM_AND_GRADE_QUERY = "Answer.countByTeamAndGrade";
+
+    /**
+     * Имя запроса: количество ответов каждой команды на каждый тур с каждой оценкой.
+     */
+    public static final String COUNT_GROUPED_BY_TEAM_ROUND_AND_GRADE_QUERY = "Answer.countGroupedByTeamRoundAndGrade";
+
     /**
      * Ограничения на размер полей.
      */
@@ -47,6 +125,22 @@ public final class Answer extends QuestionAnswerPrototype {
         return modelConstraintsMap;
     }
 
+    /**
+     * Отдаёт максимальную длину тела ответа в символах.
+     * @return максимальная длина тела ответа в символах.
+     */
+    public static int getMaxBodyLength() {
+        return ModelConstraints.MAX_BODY_LENGTH;
+    }
+
+    /**
+     * Отдаёт максимальную длину комментария к ответу в символах.
+     * @return максимальная длина комментария к ответу в символах.
+     */
+    public static int getMaxCommentLength() {
+        return ModelConstraints.MAX_COMMENT_LENGTH;
+    }
+
     /**
      * Уникальный идентификатор ответа, для связи между таблицами.
      */
@@ -116,6 +210,43 @@ public final class Answer extends QuestionAnswerPrototype {
      */
     private long emailSentOn;
 
+    /**
+     * Конструктор по умолчанию, используется JPA и при разборе JSON.
+     */
+    public Answer() {
+    }
+
+    /**
+     * Конструктор для запросов-проекций (select new ...), ответ создаётся вне контекста персистентности,
+     * поэтому Hibernate не хранит для него снимок состояния. Hash-код тела ответа берётся из базы.
+     *
+     * @param id уникальный идентификатор ответа.
+     * @param teamId уникальный идентификатор команды.
+     * @param questionId уникальный идентификатор задания.
+     * @param questionNumber номер задания.
+     * @param emailId уникальный идентификатор письма.
+     * @param roundNumber номер тура (раунда).
+     * @param body содержимое ответа.
+     * @param comment комментарий к ответу.
+     * @param grade оценка ответа.
+     * @param answerBodyHash hash-код тела ответа.
+     * @param emailSentOn время отправки письма с этим ответом.
+     */
+    public Answer(Long id, Long teamId, Long questionId, int questionNumber, Long emailId, int roundNumber,
+                  String body, String comment, Grade grade, String answerBodyHash, long emailSentOn) {
+        this.id = id;
+        this.teamId = teamId;
+        this.questionId = questionId;
+        this.questionNumber = questionNumber;
+        this.emailId = emailId;
+        this.roundNumber = roundNumber;
+        this.body = body;
+        this.comment = comment;
+        this.grade = grade;
+        this.answerBodyHash = answerBodyHash;
+        this.emailSentOn = emailSentOn;
+    }
+
     /**
      * Отдаёт уникальный идентификатор ответа.
      *
@@ -0,0 +1,70 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.model;
+
+/**
+ * Используется для получения сводки по ответам команды на тур (раунд) в разрезе оценок.
+ */
+public final class AnswersCountDigest {
+
+    /**
+     * Количество принятых ответов.
+     */
+    private long acceptedAnswersQty;
+
+    /**
+     * Количество не принятых ответов.
+     */
+    private long notAcceptedAnswersQty;
+
+    /**
+     * Количество ответов без оценки.
+     */
+    private long notGradedAnswersQty;
+
+    /**
+     * Добавляет к сводке ответы с указанной оценкой.
+     * @param grade оценка ответов.
+     * @param answersQty количество ответов.
+     */
+    public void addAnswers(Grade grade, long answersQty) {
+        switch (grade) {
+            case Accepted:
+                acceptedAnswersQty += answersQty;
+                break;
+            case NotAccepted:
+                notAcceptedAnswersQty += answersQty;
+                break;
+            default:
+                notGradedAnswersQty += answersQty;
+                break;
+        }
+    }
+
+    /**
+     * Отдаёт количество принятых ответов.
+     * @return количество принятых ответов.
+     */
+    public long getAcceptedAnswersQty() {
+        return acceptedAnswersQty;
+    }
+
+    /**
+     * Отдаёт количество не принятых ответов.
+     * @return количество не принятых ответов.
+     */
+    public long getNotAcceptedAnswersQty() {
+        return notAcceptedAnswersQty;
+    }
+
+    /**
+     * Отдаёт количество ответов без оценки.
+     * @return количество ответов без оценки.
+     */
+    public long getNotGradedAnswersQty() {
+        return notGradedAnswersQty;
+    }
+}
@@ -10,6 +10,9 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import javax.validation.constraints.Size;
 import java.util.Collections;
@@ -19,10 +22,67 @@ import java.util.Map;
 /**
  * Представляет письмо с ответами.
  */
+@NamedQueries({
+        @NamedQuery(name = Email.FIND_BY_TEAM_QUERY,
+                query = "select email from Email email where email.teamId=:teamId"),
+        @NamedQuery(name = Email.FIND_BY_TEAM_AND_ROUND_QUERY,
+                query = "select email from Email email " +
+                        "where email.teamId=:teamId and email.roundNumber=:roundNumber"),
+        @NamedQuery(name = Email.FIND_TEAM_AND_ROUND_BY_ID_QUERY,
+                query = "select email.teamId, email.roundNumber from Email email where email.id=:emailId"),
+        @NamedQuery(name = Email.COUNT_ALL_QUERY,
+                query = "select count(*) from Email email"),
+        @NamedQuery(name = Email.COUNT_BY_TEAM_QUERY,
+                query = "select count(*) from Email email where email.teamId=:teamId"),
+        @NamedQuery(name = Email.COUNT_GROUPED_BY_TEAM_AND_ROUND_QUERY,
+                query = "select email.teamId, email.roundNumber, count(email.id) from Email email " +
+                        "group by email.teamId, email.roundNumber"),
+        @NamedQuery(name = Email.COUNT_BY_TEAM_ROUND_AND_SENT_ON_QUERY,
+                query = "select count(*) from Email email where email.teamId=:teamId " +
+                        "and email.roundNumber=:roundNumber and email.sentOn=:emailSentOn")
+})
 @Entity
-@Table(name = "Emails")
+@Table(name = "Emails", indexes = {
+        @Index(name = "idx_emails_team_round", columnList = "teamId, roundNumber"),
+        @Index(name = "idx_emails_team_sent_on", columnList = "teamId, sentOn")
+})
 public final class Email {
 
+    /**
+     * Имя запроса: письма команды teamId.
+     */
+    public static final String FIND_BY_TEAM_QUERY = "Email.findByTeam";
+
+    /**
+     * Имя запроса: письма команды teamId на тур roundNumber.
+     */
+    public static final String FIND_BY_TEAM_AND_ROUND_QUERY = "Email.findByTeamAndRound";
+
+    /**
+     * Имя запроса: уникальный идентификатор команды, приславшей письмо emailId, и номер тура письма.
+     */
+    public static final String FIND_TEAM_AND_ROUND_BY_ID_QUERY = "Email.findTeamAndRoundById";
+
+    /**
+     * Имя запроса: количество писем.
+     */
+    public static final String COUNT_ALL_QUERY = "Email.countAll";
+
+    /**
+     * Имя запроса: количество писем команды teamId.
+     */
+    public static final String COUNT_BY_TEAM_QUERY = "Email.countByTeam";
+
+    /**
+     * Имя запроса: количество писем каждой команды на каждый тур.
+     */
+    public static final String COUNT_GROUPED_BY_TEAM_AND_ROUND_QUERY = "Email.countGroupedByTeamAndRound";
+
+    /**
+     * Имя запроса: количество писем команды teamId на тур roundNumber, отправленных в момент emailSentOn.
+     */
+    public static final String COUNT_BY_TEAM_ROUND_AND_SENT_ON_QUERY = "Email.countByTeamRoundAndSentOn";
+
     /**
      * Информация об ограничениях на длину полей.
      */
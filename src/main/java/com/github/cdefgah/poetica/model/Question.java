@@ -10,6 +10,8 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import javax.validation.constraints.Size;
 import java.util.Collections;
@@ -21,10 +23,47 @@ import java.util.Objects;
 /**
  * Класс вопроса (бескрылки).
  */
+@NamedQueries({
+        @NamedQuery(name = Question.FIND_ALL_QUERY,
+                query = "select question from Question question"),
+        @NamedQuery(name = Question.FIND_BY_GRADED_QUERY,
+                query = "select question from Question question where question.graded=:graded"),
+        @NamedQuery(name = Question.COUNT_ALL_QUERY,
+                query = "select count(*) from Question question"),
+        @NamedQuery(name = Question.COUNT_BY_GRADED_QUERY,
+                query = "select count(*) from Question question where question.graded=:graded"),
+        @NamedQuery(name = Question.FIND_MAX_NUMBER_QUERY,
+                query = "select max(question.highestInternalNumber) from Question question")
+})
 @Entity
 @Table(name = "Questions")
 public final class Question extends QuestionAnswerPrototype {
 
+    /**
+     * Имя запроса: все задания.
+     */
+    public static final String FIND_ALL_QUERY = "Question.findAll";
+
+    /**
+     * Имя запроса: зачётные либо внезачётные задания, в зависимости от graded.
+     */
+    public static final String FIND_BY_GRADED_QUERY = "Question.findByGraded";
+
+    /**
+     * Имя запроса: количество заданий.
+     */
+    public static final String COUNT_ALL_QUERY = "Question.countAll";
+
+    /**
+     * Имя запроса: количество зачётных либо внезачётных заданий, в зависимости от graded.
+     */
+    public static final String COUNT_BY_GRADED_QUERY = "Question.countByGraded";
+
+    /**
+     * Имя запроса: максимальный номер задания.
+     */
+    public static final String FIND_MAX_NUMBER_QUERY = "Question.findMaxNumber";
+
     /**
      * Информация об ограничениях на длину полей.
      */
@@ -12,6 +12,8 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import java.util.Collections;
 import java.util.HashMap;
@@ -23,8 +25,83 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "Teams")
+@NamedQueries({
+        @NamedQuery(name = Team.FIND_ALL_QUERY,
+                query = "select team from Team team"),
+        @NamedQuery(name = Team.FIND_ALL_IDS_QUERY,
+                query = "select team.id from Team team"),
+        @NamedQuery(name = Team.FIND_BY_NUMBER_QUERY,
+                query = "select team from Team team where team.number=:teamNumber"),
+        @NamedQuery(name = Team.FIND_PARTICIPATED_QUERY,
+                query = "select distinct team from Team team, Email email where team.id=email.teamId"),
+        @NamedQuery(name = Team.FIND_WITH_ANSWERS_GRADED_AS_QUERY,
+                query = "select distinct team from Team team, Answer answer " +
+                        "where team.id=answer.teamId and answer.grade=:grade"),
+        @NamedQuery(name = Team.COUNT_ALL_QUERY,
+                query = "select count(*) from Team team"),
+        @NamedQuery(name = Team.COUNT_BY_NUMBER_QUERY,
+                query = "select count(*) from Team team where team.number=:teamNumber"),
+        @NamedQuery(name = Team.COUNT_BY_NUMBER_EXCEPT_TEAM_QUERY,
+                query = "select count(*) from Team team " +
+                        "where team.number=:teamNumber and team.id<>:processingTeamId"),
+        @NamedQuery(name = Team.COUNT_BY_TITLE_QUERY,
+                query = "select count(*) from Team team where team.titleInLowerCase=:titleInLowerCase"),
+        @NamedQuery(name = Team.COUNT_BY_TITLE_EXCEPT_TEAM_QUERY,
+                query = "select count(*) from Team team " +
+                        "where team.titleInLowerCase=:titleInLowerCase and team.id<>:processingTeamId")
+})
 public final class Team {
 
+    /**
+     * Имя запроса: все команды.
+     */
+    public static final String FIND_ALL_QUERY = "Team.findAll";
+
+    /**
+     * Имя запроса: уникальные идентификаторы всех команд.
+     */
+    public static final String FIND_ALL_IDS_QUERY = "Team.findAllIds";
+
+    /**
+     * Имя запроса: команда с номером teamNumber.
+     */
+    public static final String FIND_BY_NUMBER_QUERY = "Team.findByNumber";
+
+    /**
+     * Имя запроса: команды, приславшие письма с ответами.
+     */
+    public static final String FIND_PARTICIPATED_QUERY = "Team.findParticipated";
+
+    /**
+     * Имя запроса: команды, у которых есть ответы с оценкой grade.
+     */
+    public static final String FIND_WITH_ANSWERS_GRADED_AS_QUERY = "Team.findWithAnswersGradedAs";
+
+    /**
+     * Имя запроса: количество команд.
+     */
+    public static final String COUNT_ALL_QUERY = "Team.countAll";
+
+    /**
+     * Имя запроса: количество команд с номером teamNumber.
+     */
+    public static final String COUNT_BY_NUMBER_QUERY = "Team.countByNumber";
+
+    /**
+     * Имя запроса: количество команд с номером teamNumber, кроме команды processingTeamId.
+     */
+    public static final String COUNT_BY_NUMBER_EXCEPT_TEAM_QUERY = "Team.countByNumberExceptTeam";
+
+    /**
+     * Имя запроса: количество команд с названием titleInLowerCase.
+     */
+    public static final String COUNT_BY_TITLE_QUERY = "Team.countByTitle";
+
+    /**
+     * Имя запроса: количество команд с названием titleInLowerCase, кроме команды processingTeamId.
+     */
+    public static final String COUNT_BY_TITLE_EXCEPT_TEAM_QUERY = "Team.countByTitleExceptTeam";
+
     /**
      * Информация об ограничениях на длину полей.
      */
@@ -0,0 +1,87 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.model;
+
+/**
+ * Сводка по команде для списка команд: количество писем и ответов на предварительный и основной туры (раунды).
+ */
+public final class TeamStatistics {
+
+    /**
+     * Номер предварительного тура (раунда), ответы на остальные туры считаются ответами на основной тур.
+     */
+    private static final int FIRST_ROUND_NUMBER = 1;
+
+    /**
+     * Сводка по письмам команды.
+     */
+    private final EmailsCountDigest emailsCountDigest;
+
+    /**
+     * Сводка по ответам команды на предварительный тур (раунд).
+     */
+    private final AnswersCountDigest answersForTheFirstRound = new AnswersCountDigest();
+
+    /**
+     * Сводка по ответам команды на основной тур (раунд).
+     */
+    private final AnswersCountDigest answersForTheSecondRound = new AnswersCountDigest();
+
+    /**
+     * Конструктор класса.
+     * @param emailsCountDigest сводка по письмам команды.
+     */
+    public TeamStatistics(EmailsCountDigest emailsCountDigest) {
+        this.emailsCountDigest = emailsCountDigest;
+    }
+
+    /**
+     * Добавляет к сводке ответы команды.
+     * @param roundNumber номер тура (раунда), на который даны ответы.
+     * @param grade оценка ответов.
+     * @param answersQty количество ответов.
+     */
+    public void addAnswers(int roundNumber, Grade grade, long answersQty) {
+        if (roundNumber == FIRST_ROUND_NUMBER) {
+            answersForTheFirstRound.addAnswers(grade, answersQty);
+        } else {
+            answersForTheSecondRound.addAnswers(grade, answersQty);
+        }
+    }
+
+    /**
+     * Отдаёт сводку по письмам команды.
+     * @return сводка по письмам команды.
+     */
+    public EmailsCountDigest getEmailsCountDigest() {
+        return emailsCountDigest;
+    }
+
+    /**
+     * Отдаёт сводку по ответам команды на предварительный тур (раунд).
+     * @return сводка по ответам команды на предварительный тур (раунд).
+     */
+    public AnswersCountDigest getAnswersForTheFirstRound() {
+        return answersForTheFirstRound;
+    }
+
+    /**
+     * Отдаёт сводку по ответам команды на основной тур (раунд).
+     * @return сводка по ответам команды на основной тур (раунд).
+     */
+    public AnswersCountDigest getAnswersForTheSecondRound() {
+        return answersForTheSecondRound;
+    }
+
+    /**
+     * Проверяет, есть-ли у команды ответы без оценки.
+     * @return true, если у команды есть ответы без оценки.
+     */
+    public boolean isNotGradedAnswersPresent() {
+        return answersForTheFirstRound.getNotGradedAnswersQty() > 0
+                                                    || answersForTheSecondRound.getNotGradedAnswersQty() > 0;
+    }
+}
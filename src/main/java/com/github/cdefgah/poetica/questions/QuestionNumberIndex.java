@@ -0,0 +1,269 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.questions;
+
+import com.github.cdefgah.poetica.model.Question;
+import com.github.cdefgah.poetica.utils.TextHasher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Неизменяемый индекс для поиска задания по номеру.
+ * Каждое задание занимает интервал номеров (от нижнего внутреннего номера до верхнего),
+ * интервалы хранятся отсортированными по нижней границе, поиск выполняется двоичным поиском.
+ * Если диапазон номеров компактный, дополнительно строится таблица номер - интервал для поиска за O(1).
+ */
+public final class QuestionNumberIndex {
+
+    /**
+     * Максимальный размер диапазона номеров, для которого строится таблица номер - интервал.
+     */
+    private static final int MAX_DENSE_RANGE_SIZE = 1 << 16;
+
+    /**
+     * Пустой индекс, когда заданий нет.
+     */
+    private static final QuestionNumberIndex EMPTY = new QuestionNumberIndex(Collections.emptyList());
+
+    /**
+     * Нижние границы интервалов номеров.
+     */
+    private final int[] lowestNumbers;
+
+    /**
+     * Верхние границы интервалов номеров.
+     */
+    private final int[] highestNumbers;
+
+    /**
+     * Уникальные идентификаторы заданий.
+     */
+    private final long[] questionIds;
+
+    /**
+     * Признаки "зачётное задание".
+     */
+    private final boolean[] gradedFlags;
+
+    /**
+     * Hash-коды авторских ответов.
+     */
+    private final String[] authorsAnswerHashes;
+
+    /**
+     * Максимальная верхняя граница интервалов номеров.
+     */
+    private final int highestQuestionNumber;
+
+    /**
+     * Индекс интервала для каждого номера из диапазона, со смещением на минимальный номер,
+     * -1 для номеров, которые не попадают ни в один интервал. null, если диапазон слишком большой.
+     */
+    private final int[] denseIntervalIndexes;
+
+    /**
+     * Конструктор класса.
+     * @param questions все задания.
+     */
+    private QuestionNumberIndex(List<Question> questions) {
+        final Question[] sortedQuestions = questions.toArray(new Question[0]);
+        Arrays.sort(sortedQuestions, Comparator.comparingInt(Question::getLowestInternalNumber));
+
+        lowestNumbers = new int[sortedQuestions.length];
+        highestNumbers = new int[sortedQuestions.length];
+        questionIds = new long[sortedQuestions.length];
+        gradedFlags = new boolean[sortedQuestions.length];
+        authorsAnswerHashes = new String[sortedQuestions.length];
+
+        int highestNumber = 0;
+        for (int i = 0; i < sortedQuestions.length; i++) {
+            lowestNumbers[i] = sortedQuestions[i].getLowestInternalNumber();
+            highestNumbers[i] = sortedQuestions[i].getHighestInternalNumber();
+            questionIds[i] = sortedQuestions[i].getId();
+            gradedFlags[i] = sortedQuestions[i].isGraded();
+            authorsAnswerHashes[i] = getAuthorsAnswerHash(sortedQuestions[i]);
+            highestNumber = Math.max(highestNumber, highestNumbers[i]);
+        }
+
+        highestQuestionNumber = highestNumber;
+        denseIntervalIndexes = buildDenseIntervalIndexes();
+    }
+
+    /**
+     * Отдаёт hash-код авторского ответа задания. Если hash-код не рассчитан или рассчитан другим алгоритмом,
+     * он вычисляется только для индекса, само задание не меняется: в базе hash-коды пересчитывает
+     * HashBackfiller при запуске приложения.
+     * @param question задание.
+     * @return hash-код авторского ответа.
+     */
+    private static String getAuthorsAnswerHash(Question question) {
+        final String authorsAnswerHash = question.getAuthorsAnswerHash();
+        if (authorsAnswerHash != null && authorsAnswerHash.length() == TextHasher.getAlgorithm().getHashLength()) {
+            return authorsAnswerHash;
+        }
+
+        final String authorsAnswer = question.getAuthorsAnswer();
+        return TextHasher.getHashForRawText(authorsAnswer != null ? authorsAnswer : "");
+    }
+
+    /**
+     * Строит индекс по списку заданий.
+     * @param questions все задания.
+     * @return индекс для поиска задания по номеру.
+     */
+    public static QuestionNumberIndex of(List<Question> questions) {
+        return questions.isEmpty() ? EMPTY : new QuestionNumberIndex(questions);
+    }
+
+    /**
+     * Возвращает true, если заданий нет.
+     * @return true, если заданий нет.
+     */
+    public boolean isEmpty() {
+        return lowestNumbers.length == 0;
+    }
+
+    /**
+     * Отдаёт минимальный номер задания.
+     * @return минимальный номер задания, либо 0, если заданий нет.
+     */
+    public int getMinQuestionNumber() {
+        return isEmpty() ? 0 : lowestNumbers[0];
+    }
+
+    /**
+     * Отдаёт максимальный номер задания (максимальную нижнюю границу интервала номеров).
+     * @return максимальный номер задания, либо 0, если заданий нет.
+     */
+    public int getMaxQuestionNumber() {
+        return isEmpty() ? 0 : lowestNumbers[lowestNumbers.length - 1];
+    }
+
+    /**
+     * Отдаёт максимальный внутренний номер задания (максимальную верхнюю границу интервала номеров).
+     * @return максимальный внутренний номер задания, либо 0, если заданий нет.
+     */
+    public int getHighestQuestionNumber() {
+        return highestQuestionNumber;
+    }
+
+    /**
+     * Возвращает true, если номер попадает в интервал номеров одного из заданий.
+     * @param questionNumber номер задания.
+     * @return true, если задание с таким номером есть.
+     */
+    public boolean contains(int questionNumber) {
+        return findIntervalIndex(questionNumber) >= 0;
+    }
+
+    /**
+     * Отдаёт уникальный идентификатор задания по номеру.
+     * @param questionNumber номер задания.
+     * @return уникальный идентификатор задания, либо -1, если задание не найдено.
+     */
+    public long getQuestionId(int questionNumber) {
+        final int intervalIndex = findIntervalIndex(questionNumber);
+        return intervalIndex >= 0 ? questionIds[intervalIndex] : -1;
+    }
+
+    /**
+     * Возвращает true, если задание с этим номером зачётное.
+     * @param questionNumber номер задания.
+     * @return true, если задание с этим номером есть и оно зачётное.
+     */
+    public boolean isGraded(int questionNumber) {
+        final int intervalIndex = findIntervalIndex(questionNumber);
+        return intervalIndex >= 0 && gradedFlags[intervalIndex];
+    }
+
+    /**
+     * Отдаёт hash-код авторского ответа на задание по номеру.
+     * @param questionNumber номер задания.
+     * @return hash-код авторского ответа, либо null, если задание не найдено.
+     */
+    public String getAuthorsAnswerHash(int questionNumber) {
+        final int intervalIndex = findIntervalIndex(questionNumber);
+        return intervalIndex >= 0 ? authorsAnswerHashes[intervalIndex] : null;
+    }
+
+    /**
+     * Отдаёт отсортированный список номеров внезачётных заданий, со всеми номерами из их интервалов.
+     * @return список номеров внезачётных заданий.
+     */
+    public List<Integer> getNotGradedQuestionNumbers() {
+        final List<Integer> questionNumbersList = new ArrayList<>();
+        for (int i = 0; i < lowestNumbers.length; i++) {
+            if (!gradedFlags[i]) {
+                for (int questionNumber = lowestNumbers[i]; questionNumber <= highestNumbers[i]; questionNumber++) {
+                    questionNumbersList.add(questionNumber);
+                }
+            }
+        }
+
+        return questionNumbersList;
+    }
+
+    /**
+     * Ищет интервал, в который попадает номер задания.
+     * @param questionNumber номер задания.
+     * @return индекс интервала, либо -1, если номер не попадает ни в один интервал.
+     */
+    private int findIntervalIndex(int questionNumber) {
+        if (isEmpty()) {
+            return -1;
+        }
+
+        if (denseIntervalIndexes != null) {
+            final int offset = questionNumber - lowestNumbers[0];
+            return offset >= 0 && offset < denseIntervalIndexes.length ? denseIntervalIndexes[offset] : -1;
+        }
+
+        // ищем последний интервал, нижняя граница которого не больше номера
+        int low = 0;
+        int high = lowestNumbers.length - 1;
+        int foundIndex = -1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (lowestNumbers[middle] <= questionNumber) {
+                foundIndex = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return foundIndex >= 0 && highestNumbers[foundIndex] >= questionNumber ? foundIndex : -1;
+    }
+
+    /**
+     * Строит таблицу номер - интервал, если диапазон номеров компактный.
+     * @return таблица номер - интервал, либо null, если заданий нет или диапазон номеров слишком большой.
+     */
+    private int[] buildDenseIntervalIndexes() {
+        if (isEmpty()) {
+            return null;
+        }
+
+        final long rangeSize = (long) highestQuestionNumber - lowestNumbers[0] + 1;
+        if (rangeSize > MAX_DENSE_RANGE_SIZE) {
+            return null;
+        }
+
+        final int[] intervalIndexes = new int[(int) rangeSize];
+        Arrays.fill(intervalIndexes, -1);
+        for (int i = 0; i < lowestNumbers.length; i++) {
+            for (int questionNumber = lowestNumbers[i]; questionNumber <= highestNumbers[i]; questionNumber++) {
+                intervalIndexes[questionNumber - lowestNumbers[0]] = i;
+            }
+        }
+
+        return intervalIndexes;
+    }
+}
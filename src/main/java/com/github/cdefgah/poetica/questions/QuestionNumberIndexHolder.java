@@ -0,0 +1,96 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.questions;
+
+import com.github.cdefgah.poetica.model.Question;
+import com.github.cdefgah.poetica.utils.AfterCommitBuffer;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
+
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Хранит общий индекс для поиска задания по номеру.
+ * При изменении заданий индекс сбрасывается после фиксации транзакции
+ * и заново строится из базы данных при следующем обращении, уже построенный индекс не изменяется.
+ */
+@Component
+public class QuestionNumberIndexHolder {
+
+    /**
+     * Для связи с базой данных.
+     */
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Текущий индекс, либо null, если его нужно построить заново.
+     */
+    private volatile QuestionNumberIndex questionNumberIndex;
+
+    /**
+     * Количество сбросов индекса, чтобы не сохранить индекс, построенный по устаревшим данным.
+     */
+    private final AtomicLong invalidationsCount = new AtomicLong();
+
+    /**
+     * Отмечает транзакции, изменяющие задания, индекс сбрасывается после их фиксации.
+     */
+    private final AfterCommitBuffer<Void> changesBuffer = new AfterCommitBuffer<>(() -> null, changes -> resetIndex());
+
+    /**
+     * Отдаёт индекс для поиска задания по номеру, при необходимости строит его из базы данных.
+     * @return индекс для поиска задания по номеру.
+     */
+    public QuestionNumberIndex getIndex() {
+        final QuestionNumberIndex currentIndex = questionNumberIndex;
+        if (currentIndex != null) {
+            return currentIndex;
+        }
+
+        final long invalidationsBeforeRebuild = invalidationsCount.get();
+        final QuestionNumberIndex rebuiltIndex = QuestionNumberIndex.of(loadQuestions());
+
+        synchronized (this) {
+            // если во время чтения заданий индекс был сброшен, прочитанные данные могли устареть
+            if (invalidationsCount.get() == invalidationsBeforeRebuild) {
+                questionNumberIndex = rebuiltIndex;
+            }
+        }
+
+        return rebuiltIndex;
+    }
+
+    /**
+     * Сбрасывает индекс после фиксации текущей транзакции, либо сразу, если транзакции нет.
+     * Вызывается при импорте, изменении и удалении заданий.
+     */
+    public void invalidate() {
+        changesBuffer.record();
+    }
+
+    /**
+     * Загружает все задания из базы данных без отслеживания изменений.
+     * Задания не меняются: недостающие hash-коды авторских ответов вычисляет сам индекс.
+     * @return список всех заданий.
+     */
+    private List<Question> loadQuestions() {
+        return ReadOnlyQueries.readOnly(entityManager.createNamedQuery(Question.FIND_ALL_QUERY,
+                                                                                    Question.class)).getResultList();
+    }
+
+    /**
+     * Сбрасывает индекс, он будет построен заново при следующем обращении.
+     */
+    private synchronized void resetIndex() {
+        invalidationsCount.incrementAndGet();
+        questionNumberIndex = null;
+    }
+}
@@ -5,8 +5,9 @@
 
 package com.github.cdefgah.poetica.reports;
 
-import com.github.cdefgah.poetica.model.Question;
 import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -15,7 +16,6 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
@@ -30,6 +30,11 @@ public abstract class AbstractReportModel {
      */
     protected final EntityManager entityManager;
 
+    /**
+     * Индекс для поиска задания по номеру.
+     */
+    protected final QuestionNumberIndex questionNumberIndex;
+
     /**
      * Строка с временем генерации отчёта (Московское время).
      */
@@ -48,12 +53,14 @@ public abstract class AbstractReportModel {
     /**
      * Конструктор класса.
      * @param entityManager менеджер сущностей для работы с базой данных.
+     * @param questionNumberIndex индекс для поиска задания по номеру.
      */
-    public AbstractReportModel(EntityManager entityManager) {
+    public AbstractReportModel(EntityManager entityManager, QuestionNumberIndex questionNumberIndex) {
         this.entityManager = entityManager;
+        this.questionNumberIndex = questionNumberIndex;
 
-        minQuestionNumber = calculateMinQuestionNumber();
-        maxQuestionNumber = calculateMaxQuestionNumber();
+        minQuestionNumber = questionNumberIndex.getMinQuestionNumber();
+        maxQuestionNumber = questionNumberIndex.getMaxQuestionNumber();
 
         reportGeneratedOnMSKTime = getReportTimeString();
     }
@@ -79,6 +86,14 @@ public abstract class AbstractReportModel {
         return this.entityManager;
     }
 
+    /**
+     * Возвращает индекс для поиска задания по номеру.
+     * @return индекс для поиска задания по номеру.
+     */
+    public QuestionNumberIndex getQuestionNumberIndex() {
+        return this.questionNumberIndex;
+    }
+
     /**
      * Возвращает строку с временем генерации отчёта.
      * @return строка с временем генерации отчёта.
@@ -108,9 +123,8 @@ public abstract class AbstractReportModel {
      * @return список команд, которые принимали участие в игре (присылали письма с ответами).
      */
     protected List<Team> getParticipatedTeams() {
-        TypedQuery<Team> query = entityManager.createQuery("select distinct team from Team team, " +
-                "Email email where team.id=email.teamId", Team.class);
-        return query.getResultList();
+        TypedQuery<Team> query = entityManager.createNamedQuery(Team.FIND_PARTICIPATED_QUERY, Team.class);
+        return ReadOnlyQueries.readOnly(query).getResultList();
     }
 
     /**
@@ -118,53 +132,6 @@ public abstract class AbstractReportModel {
      * @return список номеров внезачётных заданий.
      */
     protected List<Integer> getNotGradedQuestionsList() {
-        final TypedQuery<Question> query =
-                entityManager.createQuery("select question from Question " +
-                        "question where question.graded=:graded order by question.lowestInternalNumber",
-                                                                                                       Question.class);
-        query.setParameter("graded", false);
-        final List<Question> notGradedQuestionsList = query.getResultList();
-        final List<Integer> questionNumbersList = new ArrayList<>();
-
-        for (Question question: notGradedQuestionsList) {
-            if (question.isSingleNumberQuestion()) {
-                // если у задания один номер, просто фиксируем его
-                questionNumbersList.add(question.getLowestInternalNumber());
-
-            } else {
-                // если нет - то заполняем список номерами
-                // строго говоря можно было бы оставить только этот цикл, без проверки на isSingleNumberQuestion
-                // но код бы стал менее читабельным.
-                for (int i = question.getLowestInternalNumber(); i <= question.getHighestInternalNumber(); i++) {
-                    questionNumbersList.add(i);
-                }
-            }
-        }
-
-        return questionNumbersList;
-    }
-
-    /**
-     * Рассчитывает и возвращает максимальный номер задания.
-     * @return максимальный номер задания.
-     */
-    private int calculateMaxQuestionNumber() {
-        TypedQuery<Integer> query = entityManager.createQuery("select max(question.lowestInternalNumber) " +
-                        "FROM Question question",
-                Integer.class);
-        final Integer resultValue = query.getSingleResult();
-        return resultValue != null ? resultValue : 0;
-    }
-
-    /**
-     * Рассчитывает и возвращает минимальный номер задания.
-     * @return минимальный номер задания.
-     */
-    private int calculateMinQuestionNumber() {
-        TypedQuery<Integer> query = entityManager.createQuery("select min(question.lowestInternalNumber) " +
-                        "FROM Question question",
-                Integer.class);
-        final Integer resultValue = query.getSingleResult();
-        return resultValue != null ? resultValue : 0;
+        return questionNumberIndex.getNotGradedQuestionNumbers();
     }
 }
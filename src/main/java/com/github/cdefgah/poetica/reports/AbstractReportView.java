@@ -6,13 +6,17 @@
 package com.github.cdefgah.poetica.reports;
 
 import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Прототип для всех классов-представлений отчётов.
+ * Все обращения к базе данных выполняются при создании представления,
+ * так что вывод текста отчёта может выполняться и после завершения транзакции.
  */
-public class AbstractReportView {
+public abstract class AbstractReportView {
 
     /**
      * Менеджер сущностей для взаимодействия с базой данных.
@@ -24,6 +28,11 @@ public class AbstractReportView {
      */
     protected final AbstractReportModel reportModel;
 
+    /**
+     * Строка с номерами внезачётных вопросов для отображения в отчёте.
+     */
+    private final String notGradedQuestionsMessage;
+
     /**
      * Конструктор класса.
      * @param reportModel модель данных отчёта.
@@ -31,6 +40,30 @@ public class AbstractReportView {
     public AbstractReportView(AbstractReportModel reportModel) {
         this.reportModel = reportModel;
         this.entityManager = reportModel.getEntityManager();
+        this.notGradedQuestionsMessage = composeNotGradedQuestionsMessage();
+    }
+
+    /**
+     * Выводит текст отчёта.
+     * @param out куда выводить текст отчёта.
+     * @throws IOException если вывод текста завершился ошибкой.
+     */
+    public abstract void renderReport(Appendable out) throws IOException;
+
+    /**
+     * Формирует и отдаёт текст отчёта целиком.
+     * @return текст отчёта.
+     */
+    public String getReportText() {
+        final StringBuilder sb = new StringBuilder();
+        try {
+            renderReport(sb);
+        } catch (IOException ioException) {
+            // при выводе в StringBuilder исключение не возникает
+            throw new UncheckedIOException(ioException);
+        }
+
+        return sb.toString();
     }
 
     /**
@@ -38,6 +71,14 @@ public class AbstractReportView {
      * @return строка с номерами внезачётных вопросов для отображения в отчёте.
      */
     protected String getNotGradedQuestionsMessage() {
+        return notGradedQuestionsMessage;
+    }
+
+    /**
+     * Формирует строку с номерами внезачётных вопросов для отображения в отчёте.
+     * @return строка с номерами внезачётных вопросов для отображения в отчёте.
+     */
+    private String composeNotGradedQuestionsMessage() {
         // вопросы номер {номера вопросов через запятую} игрались вне зачёта
         final StringBuilder sb = new StringBuilder();
         final List<Integer> notGradedQuestionNumbersList = reportModel.getNotGradedQuestionsList();
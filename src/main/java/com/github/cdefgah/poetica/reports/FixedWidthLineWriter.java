@@ -0,0 +1,262 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Формирует строки текстовых отчётов с колонками фиксированной ширины.
+ * Строка собирается в переиспользуемом массиве символов: числа и выравнивание пишутся прямо в него,
+ * без промежуточных строк, а готовая строка целиком передаётся в вывод отчёта.
+ * Ширина колонок рассчитывается заранее, один раз на отчёт, например через {@link #getDecimalLength(long)}.
+ * Значение длиннее колонки выводится целиком, так-же, как при выравнивании строк.
+ * Не потокобезопасен, для каждого вывода отчёта создаётся свой объект.
+ */
+public final class FixedWidthLineWriter {
+
+    /**
+     * Начальный размер массива для строки, в символах.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Максимальная длина числа типа long в символах, со знаком минус.
+     */
+    private static final int MAX_LONG_LENGTH = 20;
+
+    /**
+     * Куда выводится текст отчёта.
+     */
+    private final Appendable out;
+
+    /**
+     * Тот-же вывод, если это Writer, либо null.
+     */
+    private final Writer writer;
+
+    /**
+     * Тот-же вывод, если это StringBuilder, либо null.
+     */
+    private final StringBuilder stringBuilder;
+
+    /**
+     * Символы текущей строки.
+     */
+    private char[] buffer = new char[INITIAL_CAPACITY];
+
+    /**
+     * Представление массива символов строки для вывода в произвольный Appendable, либо null,
+     * если оно ещё не понадобилось.
+     */
+    private CharBuffer bufferView;
+
+    /**
+     * Количество символов в текущей строке.
+     */
+    private int length;
+
+    /**
+     * Конструктор класса.
+     * @param out куда выводить текст отчёта.
+     */
+    public FixedWidthLineWriter(Appendable out) {
+        this.out = out;
+        this.writer = out instanceof Writer ? (Writer) out : null;
+        this.stringBuilder = out instanceof StringBuilder ? (StringBuilder) out : null;
+    }
+
+    /**
+     * Рассчитывает длину числа в символах, вместе со знаком минус.
+     * @param number число.
+     * @return длина числа в символах.
+     */
+    public static int getDecimalLength(long number) {
+        int numberLength = number < 0 ? 2 : 1;
+        // делим отрицательное число, так как -Long.MIN_VALUE в long не помещается
+        long value = number < 0 ? number : -number;
+        while (value <= -10) {
+            value /= 10;
+            numberLength++;
+        }
+
+        return numberLength;
+    }
+
+    /**
+     * Добавляет символ к текущей строке.
+     * @param symbol символ.
+     * @return этот-же объект.
+     */
+    public FixedWidthLineWriter append(char symbol) {
+        ensureCapacity(1);
+        buffer[length++] = symbol;
+        return this;
+    }
+
+    /**
+     * Добавляет текст к текущей строке. Вместо null добавляется "null", так-же, как в Appendable.
+     * @param text текст.
+     * @return этот-же объект.
+     */
+    public FixedWidthLineWriter append(CharSequence text) {
+        if (text == null) {
+            return append("null");
+        }
+
+        final int textLength = text.length();
+        ensureCapacity(textLength);
+        if (text instanceof String) {
+            ((String) text).getChars(0, textLength, buffer, length);
+        } else {
+            for (int i = 0; i < textLength; i++) {
+                buffer[length + i] = text.charAt(i);
+            }
+        }
+
+        length += textLength;
+        return this;
+    }
+
+    /**
+     * Добавляет число к текущей строке.
+     * @param number число.
+     * @return этот-же объект.
+     */
+    public FixedWidthLineWriter append(long number) {
+        return appendRightAligned(number, 0, ' ');
+    }
+
+    /**
+     * Добавляет символ к текущей строке несколько раз подряд.
+     * @param symbol символ.
+     * @param count сколько раз добавить символ.
+     * @return этот-же объект.
+     */
+    public FixedWidthLineWriter appendRepeated(char symbol, int count) {
+        if (count > 0) {
+            ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                buffer[length++] = symbol;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Добавляет к текущей строке текст, выровненный пробелами по правому краю колонки.
+     * @param text текст.
+     * @param columnWidth ширина колонки в символах.
+     * @return этот-же объект.
+     */
+    public FixedWidthLineWriter appendRightAligned(CharSequence text, int columnWidth) {
+        return appendRepeated(' ', columnWidth - text.length()).append(text);
+    }
+
+    /**
+     * Добавляет к текущей строке число, выровненное пробелами по правому краю колонки.
+     * @param number число.
+     * @param columnWidth ширина колонки в символах.
+     * @return этот-же объект.
+     */
+    public FixedWidthLineWriter appendRightAligned(long number, int columnWidth) {
+        return appendRightAligned(number, columnWidth, ' ');
+    }
+
+    /**
+     * Добавляет к текущей строке число, дополненное слева нулями до ширины колонки.
+     * Знак минус отрицательного числа ставится перед нулями.
+     * @param number число.
+     * @param columnWidth ширина колонки в символах.
+     * @return этот-же объект.
+     */
+    public FixedWidthLineWriter appendZeroPadded(long number, int columnWidth) {
+        return appendRightAligned(number, columnWidth, '0');
+    }
+
+    /**
+     * Завершает текущую строку переводом строки и выводит её.
+     * @throws IOException если вывод текста завершился ошибкой.
+     */
+    public void endLine() throws IOException {
+        append('\n');
+        flush();
+    }
+
+    /**
+     * Выводит текущую, возможно незавершённую, строку и начинает новую.
+     * @throws IOException если вывод текста завершился ошибкой.
+     */
+    public void flush() throws IOException {
+        if (length == 0) {
+            return;
+        }
+
+        if (writer != null) {
+            writer.write(buffer, 0, length);
+        } else if (stringBuilder != null) {
+            stringBuilder.append(buffer, 0, length);
+        } else {
+            if (bufferView == null || bufferView.array() != buffer) {
+                bufferView = CharBuffer.wrap(buffer);
+            }
+            out.append(bufferView, 0, length);
+        }
+
+        length = 0;
+    }
+
+    /**
+     * Добавляет к текущей строке число, выровненное по правому краю колонки.
+     * @param number число.
+     * @param columnWidth ширина колонки в символах.
+     * @param spacerSymbol символ для заполнения пустого пространства слева от числа.
+     * @return этот-же объект.
+     */
+    private FixedWidthLineWriter appendRightAligned(long number, int columnWidth, char spacerSymbol) {
+        final int numberLength = getDecimalLength(number);
+
+        // при заполнении нулями знак минус ставится перед ними, как в String.format("%05d", number)
+        final boolean isSignBeforeSpacer = number < 0 && spacerSymbol == '0';
+        if (isSignBeforeSpacer) {
+            append('-');
+        }
+
+        appendRepeated(spacerSymbol, columnWidth - numberLength);
+        ensureCapacity(MAX_LONG_LENGTH);
+
+        // цифры пишем с конца, отрицательное число делим, так как -Long.MIN_VALUE в long не помещается
+        final int restLength = isSignBeforeSpacer ? numberLength - 1 : numberLength;
+        long value = number < 0 ? number : -number;
+        int position = length + restLength;
+        do {
+            buffer[--position] = (char) ('0' - value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        if (number < 0 && !isSignBeforeSpacer) {
+            buffer[--position] = '-';
+        }
+
+        length += restLength;
+        return this;
+    }
+
+    /**
+     * Увеличивает массив символов строки, если в нём не хватает места.
+     * @param extraLength сколько символов нужно добавить к строке.
+     */
+    private void ensureCapacity(int extraLength) {
+        final int requiredLength = length + extraLength;
+        if (requiredLength > buffer.length) {
+            final char[] newBuffer = new char[Math.max(requiredLength, buffer.length * 2)];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports;
+
+import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблица самых последних ответов команд на задания.
+ * Заполняется за один проход по ответам из базы данных, ячейки таблицы адресуются как
+ * (индекс команды * количество заданий + смещение номера задания относительно минимального номера).
+ */
+public final class MostRecentAnswersTable {
+
+    /**
+     * Минимальный номер задания.
+     */
+    private final int minQuestionNumber;
+
+    /**
+     * Количество номеров заданий в диапазоне от минимального до максимального.
+     */
+    private final int questionsAmount;
+
+    /**
+     * Уникальный идентификатор команды - индекс строки таблицы.
+     */
+    private final Map<Long, Integer> teamIndexes = new HashMap<>();
+
+    /**
+     * Ячейки таблицы с самыми последними ответами.
+     */
+    private final Answer[] cells;
+
+    /**
+     * Количество заполненных ячеек.
+     */
+    private int answersCount;
+
+    /**
+     * Конструктор класса.
+     * @param teamIds уникальные идентификаторы команд, для которых строится таблица.
+     * @param minQuestionNumber минимальный номер задания.
+     * @param maxQuestionNumber максимальный номер задания.
+     */
+    private MostRecentAnswersTable(Collection<Long> teamIds, int minQuestionNumber, int maxQuestionNumber) {
+        this.minQuestionNumber = minQuestionNumber;
+        this.questionsAmount = Math.max(maxQuestionNumber - minQuestionNumber + 1, 0);
+
+        for (Long teamId : teamIds) {
+            teamIndexes.put(teamId, teamIndexes.size());
+        }
+
+        this.cells = new Answer[teamIndexes.size() * questionsAmount];
+    }
+
+    /**
+     * Загружает самые последние ответы команд на задания одним запросом.
+     * @param entityManager менеджер сущностей для работы с базой данных.
+     * @param teamIds уникальные идентификаторы команд, для которых нужны ответы.
+     * @param minQuestionNumber минимальный номер задания.
+     * @param maxQuestionNumber максимальный номер задания.
+     * @return заполненная таблица самых последних ответов.
+     */
+    public static MostRecentAnswersTable load(EntityManager entityManager, Collection<Long> teamIds,
+                                              int minQuestionNumber, int maxQuestionNumber) {
+
+        final MostRecentAnswersTable table = new MostRecentAnswersTable(teamIds, minQuestionNumber,
+                                                                                             maxQuestionNumber);
+        if (table.cells.length == 0) {
+            return table;
+        }
+
+        // ответы отсортированы от самых поздних к самым ранним,
+        // поэтому в ячейке остаётся первый встреченный ответ
+        // ответы читаются проекцией, а не управляемыми сущностями, контекст персистентности их не хранит
+        final TypedQuery<Answer> query = ReadOnlyQueries.readOnly(
+                entityManager.createQuery("select new com.github.cdefgah.poetica.model.Answer(answer.id," +
+                        " answer.teamId, answer.questionId, answer.questionNumber, answer.emailId," +
+                        " answer.roundNumber, answer.body, answer.comment, answer.grade, answer.answerBodyHash," +
+                        " answer.emailSentOn) from Answer answer where" +
+                        " answer.questionNumber>=:minQuestionNumber and" +
+                        " answer.questionNumber<=:maxQuestionNumber" +
+                        " order by answer.emailSentOn desc", Answer.class));
+
+        query.setParameter("minQuestionNumber", minQuestionNumber);
+        query.setParameter("maxQuestionNumber", maxQuestionNumber);
+
+        for (Answer answer : query.getResultList()) {
+            table.registerAnswer(answer);
+        }
+
+        return table;
+    }
+
+    /**
+     * Заносит ответ в таблицу, если ячейка для него ещё не занята.
+     * @param answer ответ.
+     */
+    private void registerAnswer(Answer answer) {
+        final Integer teamIndex = teamIndexes.get(answer.getTeamId());
+        if (teamIndex == null) {
+            // ответ от команды, которая не участвует в отчёте
+            return;
+        }
+
+        final int cellIndex = teamIndex * questionsAmount + (answer.getQuestionNumber() - minQuestionNumber);
+        if (cells[cellIndex] == null) {
+            cells[cellIndex] = answer;
+            answersCount++;
+        }
+    }
+
+    /**
+     * Отдаёт самый последний ответ команды на задание.
+     * @param teamId уникальный идентификатор команды.
+     * @param questionNumber номер задания.
+     * @return самый последний ответ, либо null, если ответа нет.
+     */
+    public Answer getMostRecentAnswer(long teamId, int questionNumber) {
+        final Integer teamIndex = teamIndexes.get(teamId);
+        final int questionOffset = questionNumber - minQuestionNumber;
+        if (teamIndex == null || questionOffset < 0 || questionOffset >= questionsAmount) {
+            return null;
+        }
+
+        return cells[teamIndex * questionsAmount + questionOffset];
+    }
+
+    /**
+     * Отдаёт список всех самых последних ответов, упорядоченный по номеру задания.
+     * @return список всех самых последних ответов.
+     */
+    public List<Answer> getAllMostRecentAnswers() {
+        final List<Answer> answers = new ArrayList<>(answersCount);
+        final int teamsCount = teamIndexes.size();
+        for (int questionOffset = 0; questionOffset < questionsAmount; questionOffset++) {
+            for (int teamIndex = 0; teamIndex < teamsCount; teamIndex++) {
+                final Answer answer = cells[teamIndex * questionsAmount + questionOffset];
+                if (answer != null) {
+                    answers.add(answer);
+                }
+            }
+        }
+
+        return answers;
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Выводит закодированное содержимое подготовленного отчёта.
+ * Все данные отчёта загружаются из базы данных до создания объекта,
+ * так что вывод может выполняться вне транзакции, в том числе в другом потоке.
+ */
+@FunctionalInterface
+public interface ReportRenderer {
+
+    /**
+     * Выводит закодированное содержимое отчёта.
+     * @param out поток, в который выводится содержимое отчёта.
+     * @throws IOException если вывод содержимого завершился ошибкой.
+     */
+    void render(OutputStream out) throws IOException;
+}
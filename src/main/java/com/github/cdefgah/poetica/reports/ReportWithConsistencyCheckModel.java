@@ -5,12 +5,14 @@
 
 package com.github.cdefgah.poetica.reports;
 
+import com.github.cdefgah.poetica.metrics.ReportPhase;
+import com.github.cdefgah.poetica.metrics.RequestMetricsContext;
 import com.github.cdefgah.poetica.model.Answer;
 import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
 import com.github.cdefgah.poetica.reports.collection.model.comparators.QuestionNumberAndAnswerBodyComparator;
 
 import javax.persistence.EntityManager;
-import javax.persistence.TypedQuery;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -41,30 +43,38 @@ public abstract class ReportWithConsistencyCheckModel extends AbstractReportMode
     /**
      * Конструктор класса.
      * @param entityManager менеджер сущностей для работы с базой данных.
+     * @param questionNumberIndex индекс для поиска задания по номеру.
      */
-    public ReportWithConsistencyCheckModel(EntityManager entityManager) {
-        super(entityManager);
+    public ReportWithConsistencyCheckModel(EntityManager entityManager, QuestionNumberIndex questionNumberIndex) {
+        super(entityManager, questionNumberIndex);
     }
 
     /**
      * Формирует отчёт.
      */
     public void generateReport() {
+        final long loadingStartTime = System.nanoTime();
+
         // преобразуем список команд-участников в map
         participatedTeamsMap = getParticipatedTeams().stream().collect(Collectors.toMap(Team::getId, team -> team));
 
         populateAnswersList();
+        RequestMetricsContext.recordReportPhase(ReportPhase.LoadingData, loadingStartTime);
 
         if (this.allRecentAnswersList.isEmpty()) {
             return;
         }
 
         // проверяем корректность исходных данных
+        final long consistencyCheckStartTime = System.nanoTime();
         buildConsistencyReport();
+        RequestMetricsContext.recordReportPhase(ReportPhase.ConsistencyCheck, consistencyCheckStartTime);
 
         if (this.isReportModelConsistent()) {
             // если в отчёте нет ошибок - строим отчёт
+            final long mainReportStartTime = System.nanoTime();
             buildMainReport();
+            RequestMetricsContext.recordReportPhase(ReportPhase.MainReport, mainReportStartTime);
         }
     }
 
@@ -122,40 +132,13 @@ public abstract class ReportWithConsistencyCheckModel extends AbstractReportMode
 
     /**
      * Заполняет список ответов.
+     * Все самые последние ответы команд загружаются за один проход по базе данных.
      */
     private void populateAnswersList() {
-        for (int questionNumber = this.minQuestionNumber; questionNumber <= this.maxQuestionNumber; questionNumber++) {
-            for (Team team : participatedTeamsMap.values()) {
-                final Answer answer = getMostRecentAnswer(team.getId(), questionNumber);
-                if (answer != null) {
-                    // добавляем ответ в общий список ответов
-                    allRecentAnswersList.add(answer);
-                }
-            }
-        }
-    }
+        final MostRecentAnswersTable mostRecentAnswersTable = MostRecentAnswersTable.load(entityManager,
+                                participatedTeamsMap.keySet(), this.minQuestionNumber, this.maxQuestionNumber);
 
-    /**
-     * Ищет самый поздний ответ команды на вопрос.
-     * @param teamId уникальный идентификатор команды.
-     * @param questionNumber номер вопроса (задания).
-     * @return найденный ответ.
-     */
-    private Answer getMostRecentAnswer(long teamId, int questionNumber) {
-        TypedQuery<Answer> query =
-                entityManager.createQuery("select answer from Answer answer where" +
-                        " answer.teamId=:teamId and" +
-                        " answer.questionNumber=:questionNumber" +
-                        " order by answer.emailSentOn desc", Answer.class);
-
-        query.setParameter("teamId", teamId);
-        query.setParameter("questionNumber", questionNumber);
-        List<Answer> foundAnswers = query.getResultList();
-        if (foundAnswers.size() > 0) {
-            return foundAnswers.get(0);
-        } else {
-            return null;
-        }
+        allRecentAnswersList.addAll(mostRecentAnswersTable.getAllMostRecentAnswers());
     }
 
     // ===============================================================================================================
@@ -7,6 +7,7 @@ package com.github.cdefgah.poetica.reports;
 
 import com.github.cdefgah.poetica.model.Team;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -23,27 +24,26 @@ public abstract class ReportWithConsistencyCheckView extends AbstractReportView
     }
 
     /**
-     * Формирует и отдаёт текст отчёта.
-     * @return текст отчёта.
+     * Выводит текст отчёта.
+     * @param out куда выводить текст отчёта.
+     * @throws IOException если вывод текста завершился ошибкой.
      */
-    public String getReportText() {
+    @Override
+    public void renderReport(Appendable out) throws IOException {
         ReportWithConsistencyCheckModel reportWithConsistencyCheckModel = (ReportWithConsistencyCheckModel)reportModel;
-        StringBuilder sb = new StringBuilder();
-        sb.append("Московское время генерации отчёта: ").append(reportModel.getReportGeneratedOnMSKTime()).
+        out.append("Московское время генерации отчёта: ").append(reportModel.getReportGeneratedOnMSKTime()).
                 append("\n\n");
 
         if (reportWithConsistencyCheckModel.isReportModelConsistent()) {
             final String notGradedQuestionsMessage = getNotGradedQuestionsMessage();
             if (!notGradedQuestionsMessage.isEmpty()) {
-                sb.append(notGradedQuestionsMessage).append("\n\n");
+                out.append(notGradedQuestionsMessage).append("\n\n");
             }
 
-            sb.append(getMainReportText());
+            renderMainReport(out);
         } else {
-            sb.append(getConsistencyReportText());
+            renderConsistencyReport(out);
         }
-
-        return sb.toString();
     }
 
     /**
@@ -53,43 +53,45 @@ public abstract class ReportWithConsistencyCheckView extends AbstractReportView
     protected abstract String getReportTitleForConsistencyReportHeader();
 
     /**
-     * Возвращает текст основного отчёта.
-     * @return текст основного отчёта.
+     * Выводит текст основного отчёта.
+     * @param out куда выводить текст отчёта.
+     * @throws IOException если вывод текста завершился ошибкой.
      */
-    protected abstract String getMainReportText();
+    protected abstract void renderMainReport(Appendable out) throws IOException;
 
     /**
-     * Возвращает текст для отчёта о непротиворечивости данных.
-     * @return текст для отчёта о непротиворечивости данных.
+     * Выводит текст для отчёта о непротиворечивости данных.
+     * @param out куда выводить текст отчёта.
+     * @throws IOException если вывод текста завершился ошибкой.
      */
-    protected String getConsistencyReportText() {
+    protected void renderConsistencyReport(Appendable out) throws IOException {
         ReportWithConsistencyCheckModel collectionReportModel = (ReportWithConsistencyCheckModel)reportModel;
 
-        final StringBuilder sb = new StringBuilder();
-        sb.append("ВНИМАНИЕ!\nОценки за идентичные ответы на одни и те-же задания для разных команд разнятся.\n");
-        sb.append("Ниже дана информация об этом. Пожалуйста скорректируйте оценки, чтобы подобного не было.\n");
-        sb.append("В противном случае отчёт '").append(getReportTitleForConsistencyReportHeader()).
+        out.append("ВНИМАНИЕ!\nОценки за идентичные ответы на одни и те-же задания для разных команд разнятся.\n");
+        out.append("Ниже дана информация об этом. Пожалуйста скорректируйте оценки, чтобы подобного не было.\n");
+        out.append("В противном случае отчёт '").append(getReportTitleForConsistencyReportHeader()).
                 append("' не может быть корректно построен.\n\n\n");
 
         List<ReportWithConsistencyCheckModel.ConsistencyReportRow> consistencyReportRows =
                 collectionReportModel.getConsistencyReportRows();
 
+        final FixedWidthLineWriter line = new FixedWidthLineWriter(out);
         for (ReportWithConsistencyCheckModel.ConsistencyReportRow row : consistencyReportRows) {
-            sb.append("Вопрос №").append(row.getQuestionNumber()).append("\n");
-            sb.append("Ответ: ").append(row.getAnswerBody()).append("\n");
-            sb.append("Зачтён для команд:\n");
+            line.append("Вопрос №").append(row.getQuestionNumber()).endLine();
+            line.append("Ответ: ").append(row.getAnswerBody()).endLine();
+            line.append("Зачтён для команд:").endLine();
             for (Team team: row.getAnswerAcceptedFor()) {
-                sb.append("+ ").append(team.getTitle()).append(" (").append(team.getNumber()).append(")\n");
+                line.append("+ ").append(team.getTitle()).append(" (").append(team.getNumber()).append(')').endLine();
             }
-            sb.append("\n\n");
-            sb.append("Не зачтён для команд:\n");
+            line.endLine();
+            line.endLine();
+            line.append("Не зачтён для команд:").endLine();
             for (Team team: row.getAnswerDeclinedFor()) {
-                sb.append("- ").append(team.getTitle()).append(" (").append(team.getNumber()).append(")\n");
+                line.append("- ").append(team.getTitle()).append(" (").append(team.getNumber()).append(')').endLine();
             }
-            sb.append("\n");
-            sb.append("----------------------------------------------------------------------------------\n\n");
+            line.endLine();
+            line.append("----------------------------------------------------------------------------------").endLine();
+            line.endLine();
         }
-
-        return sb.toString();
     }
 }
@@ -0,0 +1,340 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports;
+
+import com.github.cdefgah.poetica.utils.AfterCommitBuffer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш сформированных отчётов.
+ * Хранит уже закодированное содержимое отчётов с ключом (тип отчёта, формат, тур, кодировка).
+ * Каждое изменение данных увеличивает номер версии данных, отчёты, сформированные для предыдущих версий,
+ * больше не отдаются. Одновременные запросы одного и того-же отчёта приводят к одному формированию отчёта.
+ * Отчёт, которого нет в кэше, выводится клиенту по мере формирования, а его копия одновременно
+ * сохраняется в кэше, так что ждать окончания формирования приходится только остальным запросам.
+ */
+@Component
+public class ReportsCache {
+
+    /**
+     * Максимальное количество отчётов в кэше.
+     */
+    private final int maxEntries;
+
+    /**
+     * Номер версии данных, увеличивается после каждой транзакции, изменяющей данные.
+     */
+    private final AtomicLong dataVersion = new AtomicLong();
+
+    /**
+     * Отмечает транзакции, изменяющие данные, номер версии данных увеличивается после их фиксации.
+     */
+    private final AfterCommitBuffer<Void> changesBuffer =
+                                                new AfterCommitBuffer<>(() -> null, changes -> incrementDataVersion());
+
+    /**
+     * Количество запросов, для которых отчёт был найден в кэше.
+     */
+    private final AtomicLong hitsCount = new AtomicLong();
+
+    /**
+     * Количество запросов, для которых отчёт пришлось формировать.
+     */
+    private final AtomicLong missesCount = new AtomicLong();
+
+    /**
+     * Отчёты в порядке последнего обращения, доступ только внутри synchronized блоков.
+     */
+    private final Map<String, CacheEntry> entries;
+
+    /**
+     * Конструктор класса.
+     * @param maxEntries максимальное количество отчётов в кэше.
+     */
+    public ReportsCache(@Value("${poetica.reports.cache.max-entries:32}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > ReportsCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Формирует ключ отчёта в кэше.
+     * @param reportType тип отчёта.
+     * @param reportFormat формат отчёта, либо пустая строка, если у отчёта один формат.
+     * @param roundNumber номер тура (раунда), либо 0, если отчёт не зависит от тура.
+     * @param encodingName системное имя кодировки символов.
+     * @return ключ отчёта в кэше.
+     */
+    public static String composeKey(String reportType, String reportFormat, int roundNumber, String encodingName) {
+        return reportType + '/' + reportFormat + '/' + roundNumber + '/' + encodingName;
+    }
+
+    /**
+     * Отдаёт объект, выводящий закодированное содержимое отчёта из кэша, либо готовит отчёт к формированию,
+     * если в кэше его нет или он сформирован для предыдущей версии данных.
+     * Подготовка отчёта (загрузка данных) выполняется сразу, в текущей транзакции,
+     * а формирование - при выводе, причём выведенное содержимое сохраняется в кэше.
+     * Если отчёт уже формируется в другом потоке, при выводе ждёт окончания формирования и выводит его результат.
+     * @param key ключ отчёта в кэше.
+     * @param reportPreparer загружает данные отчёта и отдаёт объект, который его формирует.
+     * @return объект, выводящий закодированное содержимое отчёта.
+     */
+    public ReportRenderer getReport(String key, Supplier<ReportRenderer> reportPreparer) {
+        // версию данных читаем до формирования отчёта, так что отчёт никогда не окажется новее своей версии
+        final long currentDataVersion = dataVersion.get();
+        final CompletableFuture<byte[]> reportContent;
+        final boolean isBuildRequired;
+
+        synchronized (this) {
+            final CacheEntry cacheEntry = entries.get(key);
+            if (cacheEntry != null && cacheEntry.dataVersion == currentDataVersion) {
+                reportContent = cacheEntry.reportContent;
+                isBuildRequired = false;
+            } else {
+                reportContent = new CompletableFuture<>();
+                if (maxEntries > 0) {
+                    entries.put(key, new CacheEntry(currentDataVersion, reportContent));
+                }
+                isBuildRequired = true;
+            }
+        }
+
+        if (!isBuildRequired) {
+            hitsCount.incrementAndGet();
+            return out -> out.write(awaitReportContent(key, reportContent));
+        }
+
+        missesCount.incrementAndGet();
+        final ReportRenderer reportRenderer;
+        try {
+            reportRenderer = reportPreparer.get();
+        } catch (RuntimeException exception) {
+            reportContent.completeExceptionally(exception);
+            removeEntry(key, reportContent);
+            throw exception;
+        }
+
+        if (maxEntries == 0) {
+            // отчёт в кэше не сохраняется, так что и копировать его содержимое незачем
+            return reportRenderer;
+        }
+
+        return out -> renderAndStore(key, reportContent, reportRenderer, out);
+    }
+
+    /**
+     * Сообщает об изменении данных.
+     * Номер версии данных увеличивается после фиксации текущей транзакции, либо сразу, если транзакции нет.
+     */
+    public void bumpDataVersion() {
+        changesBuffer.record();
+    }
+
+    /**
+     * Отдаёт текущий номер версии данных.
+     * @return текущий номер версии данных.
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Отдаёт статистику работы кэша.
+     * @return статистика работы кэша.
+     */
+    public synchronized ReportsCacheStatistics getStatistics() {
+        return new ReportsCacheStatistics(hitsCount.get(), missesCount.get(), entries.size(), maxEntries,
+                                                                                                dataVersion.get());
+    }
+
+    /**
+     * Увеличивает номер версии данных и удаляет из кэша отчёты, сформированные для предыдущих версий.
+     */
+    private synchronized void incrementDataVersion() {
+        dataVersion.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Формирует отчёт, выводит его клиенту и сохраняет копию содержимого для кэша.
+     * Если клиент отключился, отчёт всё равно формируется до конца, чтобы его дождались остальные запросы.
+     * @param key ключ отчёта в кэше.
+     * @param reportContent содержимое отчёта в кэше.
+     * @param reportRenderer объект, формирующий отчёт.
+     * @param out поток, в который выводится содержимое отчёта.
+     * @throws IOException если вывод содержимого завершился ошибкой.
+     */
+    private void renderAndStore(String key, CompletableFuture<byte[]> reportContent, ReportRenderer reportRenderer,
+                                                                            OutputStream out) throws IOException {
+
+        final ByteArrayOutputStream reportCopy = new ByteArrayOutputStream();
+        final TeeOutputStream teeOutputStream = new TeeOutputStream(out, reportCopy);
+        try {
+            reportRenderer.render(teeOutputStream);
+            teeOutputStream.flush();
+        } catch (IOException | RuntimeException exception) {
+            reportContent.completeExceptionally(exception);
+            removeEntry(key, reportContent);
+            throw exception;
+        }
+
+        reportContent.complete(reportCopy.toByteArray());
+        teeOutputStream.rethrowClientException();
+    }
+
+    /**
+     * Ждёт окончания формирования отчёта и отдаёт его содержимое.
+     * @param key ключ отчёта в кэше.
+     * @param reportContent содержимое отчёта в кэше.
+     * @return закодированное содержимое отчёта.
+     * @throws IOException если формирование отчёта завершилось ошибкой вывода.
+     */
+    private static byte[] awaitReportContent(String key, CompletableFuture<byte[]> reportContent) throws IOException {
+        try {
+            return reportContent.get();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for report: " + key, interruptedException);
+        } catch (ExecutionException executionException) {
+            final Throwable cause = executionException.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            throw new IllegalStateException("Unable to build report: " + key, cause);
+        }
+    }
+
+    /**
+     * Удаляет отчёт из кэша, если в кэше находится именно он.
+     * @param key ключ отчёта в кэше.
+     * @param reportContent содержимое отчёта в кэше.
+     */
+    private synchronized void removeEntry(String key, CompletableFuture<byte[]> reportContent) {
+        final CacheEntry cacheEntry = entries.get(key);
+        if (cacheEntry != null && cacheEntry.reportContent == reportContent) {
+            entries.remove(key);
+        }
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Отчёт в кэше.
+     */
+    private static final class CacheEntry {
+
+        /**
+         * Номер версии данных, для которой сформирован отчёт.
+         */
+        private final long dataVersion;
+
+        /**
+         * Закодированное содержимое отчёта, доступно по окончании формирования.
+         */
+        private final CompletableFuture<byte[]> reportContent;
+
+        /**
+         * Конструктор класса.
+         * @param dataVersion номер версии данных.
+         * @param reportContent закодированное содержимое отчёта.
+         */
+        CacheEntry(long dataVersion, CompletableFuture<byte[]> reportContent) {
+            this.dataVersion = dataVersion;
+            this.reportContent = reportContent;
+        }
+    }
+
+    /**
+     * Выводит данные одновременно клиенту и в копию для кэша.
+     * Ошибка вывода клиенту запоминается, после неё данные выводятся только в копию.
+     */
+    private static final class TeeOutputStream extends OutputStream {
+
+        /**
+         * Поток вывода клиенту.
+         */
+        private final OutputStream clientOutputStream;
+
+        /**
+         * Копия выведенных данных.
+         */
+        private final ByteArrayOutputStream copyOutputStream;
+
+        /**
+         * Ошибка вывода клиенту, либо null, если ошибок не было.
+         */
+        private IOException clientException;
+
+        /**
+         * Конструктор класса.
+         * @param clientOutputStream поток вывода клиенту.
+         * @param copyOutputStream копия выведенных данных.
+         */
+        TeeOutputStream(OutputStream clientOutputStream, ByteArrayOutputStream copyOutputStream) {
+            this.clientOutputStream = clientOutputStream;
+            this.copyOutputStream = copyOutputStream;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            copyOutputStream.write(b, off, len);
+            if (clientException == null) {
+                try {
+                    clientOutputStream.write(b, off, len);
+                } catch (IOException ioException) {
+                    clientException = ioException;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (clientException == null) {
+                try {
+                    clientOutputStream.flush();
+                } catch (IOException ioException) {
+                    clientException = ioException;
+                }
+            }
+        }
+
+        /**
+         * Выбрасывает запомненную ошибку вывода клиенту, если она была.
+         * @throws IOException ошибка вывода клиенту.
+         */
+        void rethrowClientException() throws IOException {
+            if (clientException != null) {
+                throw clientException;
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports;
+
+/**
+ * Статистика работы кэша отчётов.
+ */
+public final class ReportsCacheStatistics {
+
+    /**
+     * Количество запросов, для которых отчёт был найден в кэше.
+     */
+    private final long hitsCount;
+
+    /**
+     * Количество запросов, для которых отчёт пришлось формировать.
+     */
+    private final long missesCount;
+
+    /**
+     * Количество отчётов в кэше.
+     */
+    private final int entriesCount;
+
+    /**
+     * Максимальное количество отчётов в кэше.
+     */
+    private final int maxEntries;
+
+    /**
+     * Текущий номер версии данных.
+     */
+    private final long dataVersion;
+
+    /**
+     * Конструктор класса.
+     * @param hitsCount количество запросов, для которых отчёт был найден в кэше.
+     * @param missesCount количество запросов, для которых отчёт пришлось формировать.
+     * @param entriesCount количество отчётов в кэше.
+     * @param maxEntries максимальное количество отчётов в кэше.
+     * @param dataVersion текущий номер версии данных.
+     */
+    public ReportsCacheStatistics(long hitsCount, long missesCount, int entriesCount, int maxEntries,
+                                                                                                long dataVersion) {
+        this.hitsCount = hitsCount;
+        this.missesCount = missesCount;
+        this.entriesCount = entriesCount;
+        this.maxEntries = maxEntries;
+        this.dataVersion = dataVersion;
+    }
+
+    /**
+     * Отдаёт количество запросов, для которых отчёт был найден в кэше.
+     * @return количество запросов, для которых отчёт был найден в кэше.
+     */
+    public long getHitsCount() {
+        return hitsCount;
+    }
+
+    /**
+     * Отдаёт количество запросов, для которых отчёт пришлось формировать.
+     * @return количество запросов, для которых отчёт пришлось формировать.
+     */
+    public long getMissesCount() {
+        return missesCount;
+    }
+
+    /**
+     * Отдаёт количество отчётов в кэше.
+     * @return количество отчётов в кэше.
+     */
+    public int getEntriesCount() {
+        return entriesCount;
+    }
+
+    /**
+     * Отдаёт максимальное количество отчётов в кэше.
+     * @return максимальное количество отчётов в кэше.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Отдаёт текущий номер версии данных.
+     * @return текущий номер версии данных.
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+}
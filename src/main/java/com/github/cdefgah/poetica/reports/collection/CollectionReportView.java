@@ -8,6 +8,7 @@ package com.github.cdefgah.poetica.reports.collection;
 import com.github.cdefgah.poetica.reports.ReportWithConsistencyCheckView;
 import com.github.cdefgah.poetica.reports.collection.model.CollectionReportModel;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -33,34 +34,32 @@ public final class CollectionReportView extends ReportWithConsistencyCheckView {
     }
 
     /**
-     * Отдаёт содержимое отчёта.
-     * @return содержимое отчёта.
+     * Выводит содержимое отчёта.
+     * @param out куда выводить текст отчёта.
+     * @throws IOException если вывод текста завершился ошибкой.
      */
     @Override
-    protected String getMainReportText() {
+    protected void renderMainReport(Appendable out) throws IOException {
         CollectionReportModel collectionReportModel = (CollectionReportModel)reportModel;
 
-        final StringBuilder sb = new StringBuilder();
         final List<CollectionReportModel.AnswerSummaryBlock> answerSummaryBlocks =
                                                                     collectionReportModel.getAnswerSummaryBlocks();
 
         for (CollectionReportModel.AnswerSummaryBlock block : answerSummaryBlocks) {
-            sb.append("ВОПРОС ").append(block.getQuestionNumber()).append(":\n\n");
-            sb.append("ЗАСЧИТАНО:\n");
+            out.append("ВОПРОС ").append(String.valueOf(block.getQuestionNumber())).append(":\n\n");
+            out.append("ЗАСЧИТАНО:\n");
             for (CollectionReportModel.AnswerSummaryBlock.AnswerSummaryRow row: block.getAcceptedAnswers()) {
-                sb.append("+ ").append(row.toString()).append("\n");
+                out.append("+ ").append(row.toString()).append("\n");
             }
 
-            sb.append("\n\n");
+            out.append("\n\n");
 
-            sb.append("НЕ ЗАСЧИТАНО:\n");
+            out.append("НЕ ЗАСЧИТАНО:\n");
             for (CollectionReportModel.AnswerSummaryBlock.AnswerSummaryRow row: block.getDeclinedAnswers()) {
-                sb.append("- ").append(row.toString()).append("\n");
+                out.append("- ").append(row.toString()).append("\n");
             }
 
-            sb.append("\n\n\n");
+            out.append("\n\n\n");
         }
-
-        return sb.toString();
     }
 }
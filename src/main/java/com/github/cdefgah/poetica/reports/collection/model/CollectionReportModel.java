@@ -6,6 +6,7 @@
 package com.github.cdefgah.poetica.reports.collection.model;
 
 import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
 import com.github.cdefgah.poetica.reports.ReportWithConsistencyCheckModel;
 import com.github.cdefgah.poetica.reports.collection.model.comparators.QuestionNumberAnswerBodyAndCommentComparator;
 
@@ -27,9 +28,10 @@ public final class CollectionReportModel extends ReportWithConsistencyCheckModel
     /**
      * Конструктор класса.
      * @param entityManager менеджер сущностей для работы с базой данных.
+     * @param questionNumberIndex индекс для поиска задания по номеру.
      */
-    public CollectionReportModel(EntityManager entityManager) {
-        super(entityManager);
+    public CollectionReportModel(EntityManager entityManager, QuestionNumberIndex questionNumberIndex) {
+        super(entityManager, questionNumberIndex);
     }
 
     /**
@@ -0,0 +1,229 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.jobs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Задача формирования отчёта: этап выполнения, ход формирования и, по окончании, закодированное содержимое отчёта.
+ * Состояние задачи меняет только поток, который её выполняет, остальные потоки его только читают.
+ */
+public final class ReportJob {
+
+    /**
+     * Уникальный идентификатор задачи.
+     */
+    private final long jobId;
+
+    /**
+     * Ключ отчёта в кэше отчётов, одинаковые запросы отчёта имеют одинаковый ключ.
+     */
+    private final String reportKey;
+
+    /**
+     * Номер версии данных, для которой формируется отчёт.
+     */
+    private final long dataVersion;
+
+    /**
+     * Имя файла с отчётом.
+     */
+    private final String fileName;
+
+    /**
+     * Время создания задачи в миллисекундах.
+     */
+    private final long createdOn;
+
+    /**
+     * Время начала выполнения задачи в миллисекундах, 0 если задача ещё в очереди.
+     */
+    private volatile long startedOn;
+
+    /**
+     * Время окончания выполнения задачи в миллисекундах, 0 если задача ещё не завершена.
+     */
+    private volatile long finishedOn;
+
+    /**
+     * Этап выполнения задачи.
+     */
+    private volatile ReportJobPhase phase = ReportJobPhase.Queued;
+
+    /**
+     * Количество уже сформированных байт закодированного отчёта.
+     */
+    private final AtomicLong renderedBytes = new AtomicLong();
+
+    /**
+     * Закодированное содержимое отчёта, доступно по окончании формирования.
+     */
+    private volatile byte[] result;
+
+    /**
+     * Сообщение об ошибке, если формирование отчёта завершилось ошибкой.
+     */
+    private volatile String errorMessage;
+
+    /**
+     * Конструктор класса.
+     * @param jobId уникальный идентификатор задачи.
+     * @param reportKey ключ отчёта в кэше отчётов.
+     * @param dataVersion номер версии данных, для которой формируется отчёт.
+     * @param fileName имя файла с отчётом.
+     */
+    ReportJob(long jobId, String reportKey, long dataVersion, String fileName) {
+        this.jobId = jobId;
+        this.reportKey = reportKey;
+        this.dataVersion = dataVersion;
+        this.fileName = fileName;
+        this.createdOn = System.currentTimeMillis();
+    }
+
+    /**
+     * Отмечает начало выполнения задачи.
+     */
+    void markStarted() {
+        startedOn = System.currentTimeMillis();
+        phase = ReportJobPhase.LoadingData;
+    }
+
+    /**
+     * Отмечает окончание загрузки данных и начало формирования текста отчёта.
+     */
+    void markRendering() {
+        phase = ReportJobPhase.Rendering;
+    }
+
+    /**
+     * Учитывает очередную порцию сформированных байт отчёта.
+     * @param bytesCount количество байт.
+     */
+    void addRenderedBytes(int bytesCount) {
+        renderedBytes.addAndGet(bytesCount);
+    }
+
+    /**
+     * Отмечает успешное окончание задачи.
+     * @param result закодированное содержимое отчёта.
+     */
+    void markCompleted(byte[] result) {
+        this.result = result;
+        finishedOn = System.currentTimeMillis();
+        phase = ReportJobPhase.Completed;
+    }
+
+    /**
+     * Отмечает окончание задачи с ошибкой.
+     * @param errorMessage сообщение об ошибке.
+     */
+    void markFailed(String errorMessage) {
+        this.errorMessage = errorMessage;
+        finishedOn = System.currentTimeMillis();
+        phase = ReportJobPhase.Failed;
+    }
+
+    /**
+     * Проверяет, завершена-ли задача, успешно или с ошибкой.
+     * @return true, если задача завершена.
+     */
+    @JsonIgnore
+    public boolean isFinished() {
+        final ReportJobPhase currentPhase = phase;
+        return currentPhase == ReportJobPhase.Completed || currentPhase == ReportJobPhase.Failed;
+    }
+
+    /**
+     * Отдаёт уникальный идентификатор задачи.
+     * @return уникальный идентификатор задачи.
+     */
+    public long getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Отдаёт ключ отчёта в кэше отчётов.
+     * @return ключ отчёта в кэше отчётов.
+     */
+    public String getReportKey() {
+        return reportKey;
+    }
+
+    /**
+     * Отдаёт номер версии данных, для которой формируется отчёт.
+     * @return номер версии данных.
+     */
+    public long getDataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * Отдаёт имя файла с отчётом.
+     * @return имя файла с отчётом.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Отдаёт время создания задачи.
+     * @return время создания задачи в миллисекундах.
+     */
+    public long getCreatedOn() {
+        return createdOn;
+    }
+
+    /**
+     * Отдаёт время начала выполнения задачи.
+     * @return время начала выполнения задачи в миллисекундах, 0 если задача ещё в очереди.
+     */
+    public long getStartedOn() {
+        return startedOn;
+    }
+
+    /**
+     * Отдаёт время окончания выполнения задачи.
+     * @return время окончания выполнения задачи в миллисекундах, 0 если задача ещё не завершена.
+     */
+    public long getFinishedOn() {
+        return finishedOn;
+    }
+
+    /**
+     * Отдаёт этап выполнения задачи.
+     * @return этап выполнения задачи.
+     */
+    public ReportJobPhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Отдаёт количество уже сформированных байт закодированного отчёта.
+     * @return количество сформированных байт.
+     */
+    public long getRenderedBytes() {
+        return renderedBytes.get();
+    }
+
+    /**
+     * Отдаёт сообщение об ошибке.
+     * @return сообщение об ошибке, либо null, если ошибки не было.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Отдаёт закодированное содержимое отчёта.
+     * @return закодированное содержимое отчёта, либо null, если отчёт ещё не сформирован.
+     */
+    @JsonIgnore
+    public byte[] getResult() {
+        return result;
+    }
+}
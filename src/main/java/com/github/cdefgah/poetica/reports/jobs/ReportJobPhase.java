@@ -0,0 +1,17 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.jobs;
+
+/**
+ * Этап выполнения задачи формирования отчёта.
+ */
+public enum ReportJobPhase {
+    Queued, // задача ждёт свободного потока
+    LoadingData, // загружаются данные отчёта
+    Rendering, // формируется и кодируется текст отчёта
+    Completed, // отчёт сформирован, его можно скачать
+    Failed // формирование отчёта завершилось ошибкой
+}
@@ -0,0 +1,257 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.jobs;
+
+import com.github.cdefgah.poetica.metrics.RequestMetricsContext;
+import com.github.cdefgah.poetica.metrics.RequestMetricsRegistry;
+import com.github.cdefgah.poetica.reports.ReportRenderer;
+import com.github.cdefgah.poetica.reports.ReportsCache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет задачи формирования отчётов в фоновых потоках.
+ * Количество одновременно формируемых отчётов и длина очереди задач ограничены, так что формирование
+ * больших отчётов не занимает потоки обработки HTTP запросов и не мешает работе с ответами.
+ * Повторный запрос отчёта, который уже формируется или сформирован для текущей версии данных,
+ * отдаёт уже существующую задачу.
+ */
+@Component
+public class ReportJobsManager {
+
+    /**
+     * Кэш отчётов, через него формируются отчёты задач.
+     */
+    private final ReportsCache reportsCache;
+
+    /**
+     * Выполняет загрузку данных отчёта в транзакции только для чтения.
+     */
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    /**
+     * Потоки для выполнения задач.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Максимальное количество хранимых завершённых задач, вместе с их результатами.
+     */
+    private final int maxFinishedJobs;
+
+    /**
+     * Статистика запросов, в неё попадают и задачи, чтобы SQL-запросы отчётов учитывались так же,
+     * как и запросы к контроллерам. Может отсутствовать, если менеджер создан вне контекста приложения.
+     */
+    @Autowired(required = false)
+    RequestMetricsRegistry requestMetricsRegistry;
+
+    /**
+     * Задачи в порядке создания. Доступ только внутри synchronized блоков.
+     */
+    private final Map<Long, ReportJob> jobs = new LinkedHashMap<>();
+
+    /**
+     * Последняя задача для каждого ключа отчёта. Доступ только внутри synchronized блоков.
+     */
+    private final Map<String, ReportJob> jobsByReportKey = new HashMap<>();
+
+    /**
+     * Уникальный идентификатор последней созданной задачи.
+     */
+    private long lastJobId;
+
+    /**
+     * Конструктор класса.
+     * @param reportsCache кэш отчётов.
+     * @param transactionManager менеджер транзакций.
+     * @param concurrency количество одновременно формируемых отчётов.
+     * @param queueCapacity максимальное количество задач, ожидающих свободного потока.
+     * @param maxFinishedJobs максимальное количество хранимых завершённых задач.
+     */
+    public ReportJobsManager(ReportsCache reportsCache, PlatformTransactionManager transactionManager,
+                             @Value("${poetica.reports.jobs.concurrency:1}") int concurrency,
+                             @Value("${poetica.reports.jobs.queue-capacity:16}") int queueCapacity,
+                             @Value("${poetica.reports.jobs.max-finished:16}") int maxFinishedJobs) {
+        this.reportsCache = reportsCache;
+        this.maxFinishedJobs = maxFinishedJobs;
+
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+
+        final AtomicInteger threadsCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    final Thread thread = new Thread(runnable, "report-job-" + threadsCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Ставит в очередь задачу формирования отчёта.
+     * Если такой отчёт уже формируется или сформирован для текущей версии данных, отдаёт существующую задачу.
+     * @param reportKey ключ отчёта в кэше отчётов.
+     * @param fileName имя файла с отчётом.
+     * @param reportPreparer загружает данные отчёта и отдаёт объект, который его формирует.
+     * @return задача формирования отчёта.
+     * @throws RejectedExecutionException если очередь задач заполнена.
+     */
+    public synchronized ReportJob submit(String reportKey, String fileName, Supplier<ReportRenderer> reportPreparer) {
+        final long currentDataVersion = reportsCache.getDataVersion();
+        final ReportJob existingJob = jobsByReportKey.get(reportKey);
+        if (existingJob != null && existingJob.getDataVersion() == currentDataVersion
+                                                            && existingJob.getPhase() != ReportJobPhase.Failed) {
+            return existingJob;
+        }
+
+        final ReportJob job = new ReportJob(++lastJobId, reportKey, currentDataVersion, fileName);
+        executor.execute(() -> runJob(job, reportPreparer));
+
+        jobs.put(job.getJobId(), job);
+        jobsByReportKey.put(reportKey, job);
+        evictFinishedJobs();
+        return job;
+    }
+
+    /**
+     * Отдаёт задачу по её уникальному идентификатору.
+     * @param jobId уникальный идентификатор задачи.
+     * @return задача, либо null, если задачи нет или она уже удалена.
+     */
+    public synchronized ReportJob getJob(long jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * Останавливает потоки при остановке приложения.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Выполняет задачу: загружает данные отчёта в транзакции только для чтения,
+     * затем формирует отчёт вне транзакции.
+     * @param job задача.
+     * @param reportPreparer загружает данные отчёта и отдаёт объект, который его формирует.
+     */
+    private void runJob(ReportJob job, Supplier<ReportRenderer> reportPreparer) {
+        final RequestMetricsRegistry metricsRegistry = this.requestMetricsRegistry;
+        final RequestMetricsContext metricsContext = metricsRegistry != null ? metricsRegistry.createContext() : null;
+        RequestMetricsContext.bind(metricsContext);
+        final long startTime = System.nanoTime();
+        boolean isFailed = false;
+
+        job.markStarted();
+        try {
+            final ReportRenderer reportRenderer = readOnlyTransactionTemplate.execute(
+                                                    status -> reportsCache.getReport(job.getReportKey(), reportPreparer));
+
+            job.markRendering();
+            final ByteArrayOutputStream reportContent = new ByteArrayOutputStream();
+            reportRenderer.render(new ProgressOutputStream(reportContent, job));
+            job.markCompleted(reportContent.toByteArray());
+        } catch (IOException | RuntimeException exception) {
+            job.markFailed(exception.toString());
+            isFailed = true;
+        } finally {
+            RequestMetricsContext.unbind();
+        }
+
+        if (metricsContext != null) {
+            metricsRegistry.record("JOB " + job.getReportKey(), System.nanoTime() - startTime, isFailed,
+                                                                                                    metricsContext);
+        }
+
+        synchronized (this) {
+            evictFinishedJobs();
+        }
+    }
+
+    /**
+     * Удаляет самые старые завершённые задачи, если их больше, чем разрешено хранить.
+     * Вызывается только внутри synchronized блоков.
+     */
+    private void evictFinishedJobs() {
+        int finishedJobsCount = 0;
+        for (ReportJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finishedJobsCount++;
+            }
+        }
+
+        final Iterator<ReportJob> jobsIterator = jobs.values().iterator();
+        while (finishedJobsCount > maxFinishedJobs && jobsIterator.hasNext()) {
+            final ReportJob job = jobsIterator.next();
+            if (job.isFinished()) {
+                jobsIterator.remove();
+                jobsByReportKey.remove(job.getReportKey(), job);
+                finishedJobsCount--;
+            }
+        }
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Выводит содержимое отчёта и учитывает количество выведенных байт в ходе выполнения задачи.
+     */
+    private static final class ProgressOutputStream extends OutputStream {
+
+        /**
+         * Поток, в который выводится содержимое отчёта.
+         */
+        private final OutputStream out;
+
+        /**
+         * Задача, в ходе выполнения которой формируется отчёт.
+         */
+        private final ReportJob job;
+
+        /**
+         * Конструктор класса.
+         * @param out поток, в который выводится содержимое отчёта.
+         * @param job задача, в ходе выполнения которой формируется отчёт.
+         */
+        ProgressOutputStream(OutputStream out, ReportJob job) {
+            this.out = out;
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            job.addRenderedBytes(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            job.addRenderedBytes(len);
+        }
+    }
+}
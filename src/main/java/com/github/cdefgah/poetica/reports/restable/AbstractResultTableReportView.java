@@ -6,15 +6,19 @@
 package com.github.cdefgah.poetica.reports.restable;
 
 import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.reports.FixedWidthLineWriter;
 import com.github.cdefgah.poetica.reports.ReportWithConsistencyCheckView;
+import com.github.cdefgah.poetica.reports.restable.model.QuestionNumberIndexedInts;
 import com.github.cdefgah.poetica.reports.restable.model.ResultTableReportModel;
 
 import javax.persistence.TypedQuery;
+import java.io.IOException;
 import java.util.Collection;
-import java.util.Collections;
 
 /**
  * Абстрактный класс представления для отчёта "Таблица результатов".
+ * Ширина колонок рассчитывается один раз при создании представления, строки таблицы собираются
+ * в {@link FixedWidthLineWriter} без промежуточных строк для каждой ячейки.
  */
 abstract class AbstractResultTableReportView extends ReportWithConsistencyCheckView {
 
@@ -88,22 +92,25 @@ abstract class AbstractResultTableReportView extends ReportWithConsistencyCheckV
     }
 
     /**
-     * Отдаёт текст с телом отчёта.
-     * @return текст с телом отчёта.
+     * Выводит текст с телом отчёта.
+     * @param out куда выводить текст отчёта.
+     * @throws IOException если вывод текста завершился ошибкой.
      */
     @Override
-    public String getMainReportText() {
-        return getRoundBlockText(false) +
-                "\n" +
-                getRoundBlockText(true);
+    protected void renderMainReport(Appendable out) throws IOException {
+        final FixedWidthLineWriter line = new FixedWidthLineWriter(out);
+        renderRoundBlock(line, false);
+        line.endLine();
+        renderRoundBlock(line, true);
     }
 
     /**
-     * Возвращает текст для части отчёта за указанный раунд (тур).
+     * Выводит текст для части отчёта за указанный раунд (тур).
+     * @param line куда выводить строки отчёта.
      * @param isMainRound true, если нужны данные для основного раунда (тура).
-     * @return текст для части отчёта за указанный раунд (тур).
+     * @throws IOException если вывод текста завершился ошибкой.
      */
-    protected abstract String getRoundBlockText(boolean isMainRound);
+    protected abstract void renderRoundBlock(FixedWidthLineWriter line, boolean isMainRound) throws IOException;
 
     /**
      * Возвращает максимальную длину строки с рейтингом команды.
@@ -115,33 +122,88 @@ abstract class AbstractResultTableReportView extends ReportWithConsistencyCheckV
     }
 
     /**
-     * Формирует и отдаёт выровненный по правому краю текст.
-     * @param placeHolderLength длина поля в символах, в котором будет располагаться текст.
-     * @param text текст, который должен быть выровнен по правому краю пробелами.
-     * @return выровненный по правому краю пробелами текст.
+     * Добавляет к строке символ оценки: + если ответ на задание зачтён, - если нет.
+     * @param line строка отчёта.
+     * @param reportRow строка модели отчёта.
+     * @param questionNumber номер задания.
      */
-    protected String getRightAlignedText(int placeHolderLength, String text) {
-        return getRightAlignedText(placeHolderLength, text, ' ');
+    protected static void appendGradeSymbol(FixedWidthLineWriter line, ResultTableReportModel.ReportRowModel reportRow,
+                                                                                                int questionNumber) {
+        line.append(reportRow.isAnswerTaken(questionNumber) ? '+' : '-');
     }
 
-    protected String getRightAlignedNumber(int placeHolderLength, int number) {
-        return getRightAlignedText(placeHolderLength, String.valueOf(number), '0');
+    /**
+     * Добавляет к строке начало строки команды: номер команды и отступ перед оценками.
+     * @param line строка отчёта.
+     * @param reportRow строка модели отчёта.
+     */
+    protected void appendTeamRowStart(FixedWidthLineWriter line, ResultTableReportModel.ReportRowModel reportRow) {
+        line.appendRightAligned(reportRow.getTeamNumber(), maxTeamNumberLength).append("  ");
     }
 
     /**
-     * Возвращает текст, выравненный по правому краю колонки.
-     * @param placeHolderLength размер колонки, в которую должно поместиться число.
-     * @param text текст, который надо поместить в колонку.
-     * @param spacerSymbol символ для заполнения пустого пространства.
-     * @return строка с выровненным по правому краю текстом.
+     * Завершает строку команды: количество взятых в текущем и предыдущем турах заданий, рейтинг и название команды.
+     * @param line строка отчёта.
+     * @param reportRow строка модели отчёта.
+     * @param isMainRound true, если речь идёт о блоке данных для основного раунда (тура).
+     * @throws IOException если вывод текста завершился ошибкой.
      */
-    private String getRightAlignedText(int placeHolderLength, String text, char spacerSymbol) {
-        final int lengthDelta = placeHolderLength - text.length();
-        if (lengthDelta > 0) {
-            return String.join("", Collections.nCopies(lengthDelta, String.valueOf(spacerSymbol))) + text;
-        } else {
-            return text;
+    protected void endTeamRow(FixedWidthLineWriter line, ResultTableReportModel.ReportRowModel reportRow,
+                                                                        boolean isMainRound) throws IOException {
+        // выводим информацию о количестве взятых в предыдущем и текущем турах вопросах
+        line.appendZeroPadded(reportRow.getAmountOfCorrectAnswersInThisRound(), maxQuestionNumberLength).append('.');
+        line.appendZeroPadded(reportRow.getAmountOfCorrectAnswersInPreviousRound(), maxQuestionNumberLength);
+        line.append(' ').appendRightAligned(reportRow.getTeamRating(), getMaxTeamRatingLength(isMainRound));
+        line.append(' ').append(reportRow.getTeamTitle());
+        line.endLine();
+    }
+
+    /**
+     * Завершает строку заголовка таблицы: заголовки колонок с количеством взятых заданий, рейтингом и командой.
+     * @param line строка отчёта.
+     * @param isMainRound true, если речь идёт о блоке данных для основного раунда (тура).
+     * @throws IOException если вывод текста завершился ошибкой.
+     */
+    protected void endHeaderRow(FixedWidthLineWriter line, boolean isMainRound) throws IOException {
+        line.appendRightAligned("О", maxTakenAnswersDigestLength).append(' ');
+        line.appendRightAligned("Р", getMaxTeamRatingLength(isMainRound)).append(' ');
+        line.append("КОМАНДА");
+        line.endLine();
+    }
+
+    /**
+     * Добавляет к строке рейтинг каждого задания в колонке своего задания.
+     * @param line строка отчёта.
+     * @param isMainRound true, если речь идёт о блоке данных для основного раунда (тура).
+     */
+    protected void appendQuestionsRating(FixedWidthLineWriter line, boolean isMainRound) {
+        final QuestionNumberIndexedInts questionsRating =
+                                            ((ResultTableReportModel) reportModel).getQuestionsRating(isMainRound);
+        for (int questionNumber = reportModel.getMinQuestionNumber();
+                                    questionNumber <= reportModel.getMaxQuestionNumber(); questionNumber++) {
+            line.appendRightAligned(questionsRating.get(questionNumber), blockBodyColumnLength).append(' ');
+        }
+    }
+
+    /**
+     * Выводит рейтинг заданий отдельной таблицей: строка с номерами заданий и строка с их рейтингом.
+     * @param line куда выводить строки отчёта.
+     * @param isMainRound true, если речь идёт о блоке данных для основного раунда (тура).
+     * @throws IOException если вывод текста завершился ошибкой.
+     */
+    protected void renderQuestionsRatingTable(FixedWidthLineWriter line, boolean isMainRound) throws IOException {
+        line.append("Рейтинг").endLine();
+
+        // номера вопросов сперва выписываем в строку
+        for (int questionNumber = reportModel.getMinQuestionNumber();
+                                    questionNumber <= reportModel.getMaxQuestionNumber(); questionNumber++) {
+            line.appendRightAligned(questionNumber, blockBodyColumnLength).append(' ');
         }
+        line.endLine();
+
+        // на новой строке - рейтинг вопросов
+        appendQuestionsRating(line, isMainRound);
+        line.endLine();
     }
 
     /**
@@ -179,7 +241,7 @@ abstract class AbstractResultTableReportView extends ReportWithConsistencyCheckV
         final int maxTeamRating = reportRows.stream().
                                         mapToInt(ResultTableReportModel.ReportRowModel::getTeamRating).
                                                                     filter(oneRow -> oneRow >= 0).max().orElse(0);
-        return String.valueOf(maxTeamRating).length();
+        return FixedWidthLineWriter.getDecimalLength(maxTeamRating);
     }
 
     /**
@@ -187,11 +249,7 @@ abstract class AbstractResultTableReportView extends ReportWithConsistencyCheckV
      * @return максимальная длина в символах номера вопроса (задания).
      */
     private int getMaxQuestionNumberLength() {
-        final String queryString = "select max(question.highestInternalNumber) FROM Question question";
-        final TypedQuery<Integer> query = entityManager.createQuery(queryString, Integer.class);
-        final Integer maxValueObject = query.getSingleResult();
-        final int maxValueObjectNumber = maxValueObject != null ? maxValueObject : 0;
-        return String.valueOf(maxValueObjectNumber).length();
+        return FixedWidthLineWriter.getDecimalLength(reportModel.getQuestionNumberIndex().getHighestQuestionNumber());
     }
 
     /**
@@ -204,6 +262,6 @@ abstract class AbstractResultTableReportView extends ReportWithConsistencyCheckV
         final TypedQuery<Long> query = entityManager.createQuery(queryString, Long.class);
         final long totalTeamsQty = query.getSingleResult();
 
-        return String.valueOf(1 + totalTeamsQty).length();
+        return FixedWidthLineWriter.getDecimalLength(1 + totalTeamsQty);
     }
 }
@@ -5,10 +5,10 @@
 
 package com.github.cdefgah.poetica.reports.restable;
 
+import com.github.cdefgah.poetica.reports.FixedWidthLineWriter;
 import com.github.cdefgah.poetica.reports.restable.model.ResultTableReportModel;
 
-import java.util.Collection;
-import java.util.Map;
+import java.io.IOException;
 
 /**
  * Представление для полного формата отчёта "Таблица результатов."
@@ -24,77 +24,43 @@ public final class FullResultTableReportView extends AbstractResultTableReportVi
     }
 
     /**
-     * Формирует блок данных отчёта для того или иного раунда игры.
+     * Выводит блок данных отчёта для того или иного раунда игры.
+     * @param line куда выводить строки отчёта.
      * @param isMainRound true, если нужны данные для основного раунда (тура).
-     * @return блок данных отчёта для того или иного раунда игры.
+     * @throws IOException если вывод текста завершился ошибкой.
      */
     @Override
-    protected String getRoundBlockText(boolean isMainRound) {
-        final String oneSpace = " ";
-        final String twoSpaces = oneSpace + oneSpace;
-        final StringBuilder sb = new StringBuilder();
+    protected void renderRoundBlock(FixedWidthLineWriter line, boolean isMainRound) throws IOException {
+        final int minQuestionNumber = reportModel.getMinQuestionNumber();
+        final int maxQuestionNumber = reportModel.getMaxQuestionNumber();
 
         // заголовок блока
-        sb.append(getBlockTitle(isMainRound)).append("\n");
+        line.append(getBlockTitle(isMainRound)).endLine();
 
         // первая строка тела блока
-        sb.append(getRightAlignedText(maxTeamNumberLength, "N")).append(twoSpaces);
-        for (int questionNumber = reportModel.getMinQuestionNumber();
-                                             questionNumber <= reportModel.getMaxQuestionNumber(); questionNumber++) {
-
-            sb.append(getRightAlignedText(blockBodyColumnLength, String.valueOf(questionNumber))).append(oneSpace);
+        line.appendRightAligned("N", maxTeamNumberLength).append("  ");
+        for (int questionNumber = minQuestionNumber; questionNumber <= maxQuestionNumber; questionNumber++) {
+            line.appendRightAligned(questionNumber, blockBodyColumnLength).append(' ');
         }
-
-        sb.append(getRightAlignedText(maxTakenAnswersDigestLength, "О"));
-        sb.append(oneSpace);
-        sb.append(getRightAlignedText(getMaxTeamRatingLength(isMainRound), "Р"));
-        sb.append(oneSpace);
-        sb.append("КОМАНДА");
-        sb.append("\n");
+        endHeaderRow(line, isMainRound);
 
         // формируем тело блока
-        Collection<ResultTableReportModel.ReportRowModel>  reportModelRows = getReportModelRows(isMainRound);
-        for (ResultTableReportModel.ReportRowModel oneModelRow: reportModelRows) {
-            sb.append(getRightAlignedText(maxTeamNumberLength, String.valueOf(oneModelRow.getTeamNumber())));
-            sb.append(twoSpaces);
+        for (ResultTableReportModel.ReportRowModel oneModelRow: getReportModelRows(isMainRound)) {
+            appendTeamRowStart(line, oneModelRow);
 
             // выводим + и - в зависимости от того, взят-ли вопрос
-            final boolean[] answerFlags = oneModelRow.getAnswerFlags();
-            for (boolean answerFlag: answerFlags) {
-                String gradeSymbol = answerFlag ? "+" : "-";
-                sb.append(getRightAlignedText(blockBodyColumnLength, gradeSymbol));
-                sb.append(oneSpace);
+            for (int questionNumber = minQuestionNumber; questionNumber <= maxQuestionNumber; questionNumber++) {
+                line.appendRepeated(' ', blockBodyColumnLength - 1);
+                appendGradeSymbol(line, oneModelRow, questionNumber);
+                line.append(' ');
             }
 
-            // выводим информацию о количестве взятых в предыдущем и текущем турах вопросах
-            sb.append(getRightAlignedNumber(maxQuestionNumberLength, oneModelRow.getAmountOfCorrectAnswersInThisRound()));
-            sb.append(".");
-            sb.append(getRightAlignedNumber(maxQuestionNumberLength,
-                                                                 oneModelRow.getAmountOfCorrectAnswersInPreviousRound()));
-            sb.append(oneSpace);
-            sb.append(getRightAlignedText(getMaxTeamRatingLength(isMainRound),
-                                                                          String.valueOf(oneModelRow.getTeamRating())));
-
-            sb.append(oneSpace);
-            sb.append(oneModelRow.getTeamTitle());
-            sb.append("\n");
+            endTeamRow(line, oneModelRow, isMainRound);
         }
 
         // строка с рейтингом вопросов
-        sb.append(getRightAlignedText(maxTeamNumberLength, "Р")).append(twoSpaces);
-
-        final ResultTableReportModel resultTableReportModel = (ResultTableReportModel)reportModel;
-
-        final Map<Integer, Integer> questionsRatingMap = resultTableReportModel.getQuestionsRatingMap(isMainRound);
-        for (int questionNumber = reportModel.getMinQuestionNumber();
-                                    questionNumber <= reportModel.getMaxQuestionNumber(); questionNumber++) {
-
-            final int questionRating = questionsRatingMap.get(questionNumber);
-            sb.append(getRightAlignedText(blockBodyColumnLength, String.valueOf(questionRating)));
-            sb.append(oneSpace);
-        }
-
-        sb.append("\n");
-        return sb.toString();
+        line.appendRightAligned("Р", maxTeamNumberLength).append("  ");
+        appendQuestionsRating(line, isMainRound);
+        line.endLine();
     }
 }
@@ -5,12 +5,11 @@
 
 package com.github.cdefgah.poetica.reports.restable;
 
+import com.github.cdefgah.poetica.reports.FixedWidthLineWriter;
 import com.github.cdefgah.poetica.reports.restable.model.ResultTableReportModel;
 
-import java.util.Collection;
-import java.util.Map;
+import java.io.IOException;
 
-// TODO код в отчётах повторяется, вынести за скобки повторящийся код
 public final class ShortResultTableReportView  extends AbstractResultTableReportView {
 
     /**
@@ -22,93 +21,47 @@ public final class ShortResultTableReportView  extends AbstractResultTableReport
     }
 
     /**
-     * Формирует блок данных отчёта для того или иного раунда игры.
+     * Выводит блок данных отчёта для того или иного раунда игры.
+     * @param line куда выводить строки отчёта.
      * @param isMainRound true, если нужны данные для основного раунда (тура).
-     * @return блок данных отчёта для того или иного раунда игры.
+     * @throws IOException если вывод текста завершился ошибкой.
      */
     @Override
-    protected String getRoundBlockText(boolean isMainRound) {
-        final String oneSpace = " ";
-        final String twoSpaces = oneSpace + oneSpace;
-        final StringBuilder sb = new StringBuilder();
+    protected void renderRoundBlock(FixedWidthLineWriter line, boolean isMainRound) throws IOException {
+        final int minQuestionNumber = reportModel.getMinQuestionNumber();
+        final int maxQuestionNumber = reportModel.getMaxQuestionNumber();
 
         // заголовок блока
-        sb.append(getBlockTitle(isMainRound)).append("\n");
+        line.append(getBlockTitle(isMainRound)).endLine();
 
         // первая строка тела блока
-        sb.append(getRightAlignedText(maxTeamNumberLength, "N")).append(twoSpaces);
-
+        line.appendRightAligned("N", maxTeamNumberLength).append("  ");
         int shorthandForQuestionNumber = 0;
-        for (int questionNumber = reportModel.getMinQuestionNumber();
-             questionNumber <= reportModel.getMaxQuestionNumber(); questionNumber++) {
+        for (int questionNumber = minQuestionNumber; questionNumber <= maxQuestionNumber; questionNumber++) {
             shorthandForQuestionNumber++;
             if (shorthandForQuestionNumber > 9) {
                 shorthandForQuestionNumber = 0;
             }
 
-            sb.append(shorthandForQuestionNumber);
+            line.append((char) ('0' + shorthandForQuestionNumber));
         }
-        sb.append(oneSpace);
-
-        sb.append(getRightAlignedText(maxTakenAnswersDigestLength, "О"));
-        sb.append(oneSpace);
-        sb.append(getRightAlignedText(getMaxTeamRatingLength(isMainRound), "Р"));
-        sb.append(oneSpace);
-        sb.append("КОМАНДА");
-        sb.append("\n");
+        line.append(' ');
+        endHeaderRow(line, isMainRound);
 
         // формируем тело блока
-        Collection<ResultTableReportModel.ReportRowModel> reportModelRows = getReportModelRows(isMainRound);
-        for (ResultTableReportModel.ReportRowModel oneModelRow: reportModelRows) {
-            sb.append(getRightAlignedText(maxTeamNumberLength, String.valueOf(oneModelRow.getTeamNumber())));
-            sb.append(twoSpaces);
+        for (ResultTableReportModel.ReportRowModel oneModelRow: getReportModelRows(isMainRound)) {
+            appendTeamRowStart(line, oneModelRow);
 
             // выводим + и - в зависимости от того, взят-ли вопрос
-            final boolean[] answerFlags = oneModelRow.getAnswerFlags();
-            for (boolean answerFlag: answerFlags) {
-                String gradeSymbol = answerFlag ? "+" : "-";
-                sb.append(gradeSymbol);
+            for (int questionNumber = minQuestionNumber; questionNumber <= maxQuestionNumber; questionNumber++) {
+                appendGradeSymbol(line, oneModelRow, questionNumber);
             }
+            line.append(' ');
 
-            sb.append(oneSpace);
-            
-            // выводим информацию о количестве взятых в предыдущем и текущем турах вопросах
-            sb.append(getRightAlignedNumber(maxQuestionNumberLength, oneModelRow.getAmountOfCorrectAnswersInThisRound()));
-            sb.append(".");
-            sb.append(getRightAlignedNumber(maxQuestionNumberLength,
-                    oneModelRow.getAmountOfCorrectAnswersInPreviousRound()));
-            sb.append(oneSpace);
-            sb.append(getRightAlignedText(getMaxTeamRatingLength(isMainRound),
-                    String.valueOf(oneModelRow.getTeamRating())));
-
-            sb.append(oneSpace);
-            sb.append(oneModelRow.getTeamTitle());
-            sb.append("\n");
+            endTeamRow(line, oneModelRow, isMainRound);
         }
 
         // строка с рейтингом вопросов
-        sb.append("Рейтинг\n");
-        // номера вопросов сперва выписываем в строку
-        for (int questionNumber = reportModel.getMinQuestionNumber();
-             questionNumber <= reportModel.getMaxQuestionNumber(); questionNumber++) {
-
-            sb.append(getRightAlignedText(blockBodyColumnLength, String.valueOf(questionNumber))).append(oneSpace);
-        }
-        sb.append("\n");
-
-        final ResultTableReportModel resultTableReportModel = (ResultTableReportModel)reportModel;
-
-        // на новой строке - рейтинг вопросов
-        final Map<Integer, Integer> questionsRatingMap = resultTableReportModel.getQuestionsRatingMap(isMainRound);
-        for (int questionNumber = reportModel.getMinQuestionNumber();
-             questionNumber <= reportModel.getMaxQuestionNumber(); questionNumber++) {
-
-            final int questionRating = questionsRatingMap.get(questionNumber);
-            sb.append(getRightAlignedText(blockBodyColumnLength, String.valueOf(questionRating)));
-            sb.append(oneSpace);
-        }
-
-        sb.append("\n");
-        return sb.toString();
+        renderQuestionsRatingTable(line, isMainRound);
     }
 }
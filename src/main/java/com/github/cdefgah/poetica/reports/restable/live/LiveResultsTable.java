@@ -0,0 +1,314 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.live;
+
+import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.reports.restable.model.QuestionNumberIndexedFlags;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблица результатов, которая хранится в памяти и обновляется по мере изменения оценок ответов.
+ * Правила подсчёта совпадают с отчётом "Таблица результатов":
+ * рейтинг задания равен единице плюс количество команд, не взявших задание,
+ * рейтинг команды равен сумме рейтингов взятых ею зачётных заданий,
+ * в основном туре взятыми считаются и задания, взятые в предварительном туре.
+ * При изменении оценки пересчитывается только одна колонка (задание) и строки команд, взявших это задание.
+ */
+public final class LiveResultsTable {
+
+    /**
+     * Количество туров (раундов) в игре.
+     */
+    private static final int ROUNDS_AMOUNT = 2;
+
+    /**
+     * Минимальный номер задания.
+     */
+    private final int minQuestionNumber;
+
+    /**
+     * Количество номеров заданий в диапазоне от минимального до максимального.
+     */
+    private final int questionsAmount;
+
+    /**
+     * Номер задания - зачётное или внезачётное задание.
+     */
+    private final QuestionNumberIndexedFlags questionGrades;
+
+    /**
+     * Уникальный идентификатор команды - индекс строки таблицы.
+     */
+    private final Map<Long, Integer> teamIndexes = new HashMap<>();
+
+    /**
+     * Номера команд, индекс массива = индекс строки таблицы.
+     */
+    private final int[] teamNumbers;
+
+    /**
+     * Названия команд, индекс массива = индекс строки таблицы.
+     */
+    private final String[] teamTitles;
+
+    /**
+     * Количество зачтённых ответов для каждой команды и задания, по турам (раундам).
+     * Индекс ячейки = индекс команды * количество заданий + смещение номера задания.
+     */
+    private final int[][] acceptedAnswersCounts;
+
+    /**
+     * Рейтинги заданий по турам (раундам), индекс элемента = смещение номера задания.
+     */
+    private final int[][] questionRatings;
+
+    /**
+     * Количество взятых зачётных заданий для каждой команды, по турам (раундам).
+     */
+    private final int[][] takenAnswersAmounts;
+
+    /**
+     * Рейтинги команд по турам (раундам).
+     */
+    private final int[][] teamRatings;
+
+    /**
+     * Конструктор класса.
+     * @param teams команды, участвующие в игре.
+     * @param minQuestionNumber минимальный номер задания.
+     * @param maxQuestionNumber максимальный номер задания.
+     * @param questionGrades признаки "зачётное/внезачётное" для номеров заданий.
+     */
+    public LiveResultsTable(Collection<Team> teams, int minQuestionNumber, int maxQuestionNumber,
+                            QuestionNumberIndexedFlags questionGrades) {
+
+        this.minQuestionNumber = minQuestionNumber;
+        this.questionsAmount = Math.max(maxQuestionNumber - minQuestionNumber + 1, 0);
+        this.questionGrades = questionGrades;
+
+        teamNumbers = new int[teams.size()];
+        teamTitles = new String[teams.size()];
+        for (Team team : teams) {
+            final int teamIndex = teamIndexes.size();
+            teamIndexes.put(team.getId(), teamIndex);
+            teamNumbers[teamIndex] = team.getNumber();
+            teamTitles[teamIndex] = team.getTitle();
+        }
+
+        acceptedAnswersCounts = new int[ROUNDS_AMOUNT][teamNumbers.length * questionsAmount];
+        questionRatings = new int[ROUNDS_AMOUNT][questionsAmount];
+        takenAnswersAmounts = new int[ROUNDS_AMOUNT][teamNumbers.length];
+        teamRatings = new int[ROUNDS_AMOUNT][teamNumbers.length];
+
+        recalculate();
+    }
+
+    /**
+     * Заносит в таблицу количество зачтённых ответов команды на задание при первоначальном заполнении.
+     * После заполнения таблицы нужно вызвать {@link #recalculate()}.
+     * @param teamId уникальный идентификатор команды.
+     * @param questionNumber номер задания.
+     * @param roundNumber номер тура (раунда).
+     * @param acceptedAnswersCount количество зачтённых ответов.
+     */
+    void registerAcceptedAnswers(long teamId, int questionNumber, int roundNumber, int acceptedAnswersCount) {
+        final int cellIndex = getCellIndex(teamId, questionNumber, roundNumber);
+        if (cellIndex >= 0) {
+            acceptedAnswersCounts[roundNumber - 1][cellIndex] += acceptedAnswersCount;
+        }
+    }
+
+    /**
+     * Полностью пересчитывает рейтинги заданий и команд по количеству зачтённых ответов.
+     */
+    void recalculate() {
+        final int teamsAmount = teamNumbers.length;
+        for (int roundIndex = 0; roundIndex < ROUNDS_AMOUNT; roundIndex++) {
+            final int[] ratings = questionRatings[roundIndex];
+            final int[] takenAmounts = takenAnswersAmounts[roundIndex];
+            final int[] ratingsOfTeams = teamRatings[roundIndex];
+
+            for (int questionOffset = 0; questionOffset < questionsAmount; questionOffset++) {
+                ratings[questionOffset] = 1;
+                for (int teamIndex = 0; teamIndex < teamsAmount; teamIndex++) {
+                    if (!isTaken(roundIndex, teamIndex, questionOffset)) {
+                        ratings[questionOffset]++;
+                    }
+                }
+            }
+
+            for (int teamIndex = 0; teamIndex < teamsAmount; teamIndex++) {
+                takenAmounts[teamIndex] = 0;
+                ratingsOfTeams[teamIndex] = 0;
+                for (int questionOffset = 0; questionOffset < questionsAmount; questionOffset++) {
+                    if (isTaken(roundIndex, teamIndex, questionOffset) && isGraded(questionOffset)) {
+                        takenAmounts[teamIndex]++;
+                        ratingsOfTeams[teamIndex] += ratings[questionOffset];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Применяет изменение количества зачтённых ответов команды на задание.
+     * Ответы от команд, которых нет в таблице, и ответы на задания вне диапазона игнорируются.
+     * @param teamId уникальный идентификатор команды.
+     * @param questionNumber номер задания.
+     * @param roundNumber номер тура (раунда).
+     * @param acceptedAnswersDelta изменение количества зачтённых ответов, +1 если ответ зачтён, -1 если зачёт снят.
+     */
+    public void applyAcceptanceDelta(long teamId, int questionNumber, int roundNumber, int acceptedAnswersDelta) {
+        final int cellIndex = getCellIndex(teamId, questionNumber, roundNumber);
+        if (cellIndex < 0 || acceptedAnswersDelta == 0) {
+            return;
+        }
+
+        final int teamIndex = teamIndexes.get(teamId);
+        final int questionOffset = questionNumber - minQuestionNumber;
+
+        final boolean[] wasTaken = new boolean[ROUNDS_AMOUNT];
+        for (int roundIndex = 0; roundIndex < ROUNDS_AMOUNT; roundIndex++) {
+            wasTaken[roundIndex] = isTaken(roundIndex, teamIndex, questionOffset);
+        }
+
+        final int[] counts = acceptedAnswersCounts[roundNumber - 1];
+        counts[cellIndex] = Math.max(counts[cellIndex] + acceptedAnswersDelta, 0);
+
+        for (int roundIndex = 0; roundIndex < ROUNDS_AMOUNT; roundIndex++) {
+            final boolean isTakenNow = isTaken(roundIndex, teamIndex, questionOffset);
+            if (isTakenNow != wasTaken[roundIndex]) {
+                updateQuestionColumn(roundIndex, teamIndex, questionOffset, isTakenNow);
+            }
+        }
+    }
+
+    /**
+     * Возвращает true, если команда участвует в игре и есть в таблице.
+     * @param teamId уникальный идентификатор команды.
+     * @return true, если команда есть в таблице.
+     */
+    public boolean containsTeam(long teamId) {
+        return teamIndexes.containsKey(teamId);
+    }
+
+    /**
+     * Формирует отсортированную турнирную таблицу за тур (раунд) без обращения к базе данных.
+     * @param roundNumber номер тура (раунда).
+     * @return турнирная таблица за тур (раунд).
+     */
+    public LiveStandings getStandings(int roundNumber) {
+        final int roundIndex = roundNumber - 1;
+        final List<LiveStandings.Row> rows = new ArrayList<>(teamNumbers.length);
+        for (int teamIndex = 0; teamIndex < teamNumbers.length; teamIndex++) {
+            final int takenInPreviousRound = roundIndex > 0 ? takenAnswersAmounts[roundIndex - 1][teamIndex] : 0;
+            rows.add(new LiveStandings.Row(teamNumbers[teamIndex], teamTitles[teamIndex],
+                    takenAnswersAmounts[roundIndex][teamIndex], takenInPreviousRound, teamRatings[roundIndex][teamIndex]));
+        }
+
+        Collections.sort(rows);
+        return new LiveStandings(roundNumber, minQuestionNumber, questionRatings[roundIndex].clone(), rows);
+    }
+
+    /**
+     * Обновляет колонку задания после того, как команда взяла задание или потеряла его.
+     * Затрагивает рейтинг задания, строку этой команды и рейтинги команд, взявших это задание.
+     * @param roundIndex индекс тура (раунда).
+     * @param teamIndex индекс команды.
+     * @param questionOffset смещение номера задания.
+     * @param isTakenNow true, если задание теперь взято командой.
+     */
+    private void updateQuestionColumn(int roundIndex, int teamIndex, int questionOffset, boolean isTakenNow) {
+        final int[] ratings = questionRatings[roundIndex];
+        final boolean isGraded = isGraded(questionOffset);
+
+        if (isTakenNow) {
+            // команд, не взявших задание, стало меньше - рейтинг задания уменьшается
+            ratings[questionOffset]--;
+            if (isGraded) {
+                updateOtherTeamsRatings(roundIndex, teamIndex, questionOffset, -1);
+                takenAnswersAmounts[roundIndex][teamIndex]++;
+                teamRatings[roundIndex][teamIndex] += ratings[questionOffset];
+            }
+        } else {
+            if (isGraded) {
+                takenAnswersAmounts[roundIndex][teamIndex]--;
+                teamRatings[roundIndex][teamIndex] -= ratings[questionOffset];
+                updateOtherTeamsRatings(roundIndex, teamIndex, questionOffset, 1);
+            }
+
+            ratings[questionOffset]++;
+        }
+    }
+
+    /**
+     * Изменяет рейтинги всех команд, кроме указанной, взявших задание.
+     * @param roundIndex индекс тура (раунда).
+     * @param exceptTeamIndex индекс команды, рейтинг которой не меняется.
+     * @param questionOffset смещение номера задания.
+     * @param ratingDelta изменение рейтинга.
+     */
+    private void updateOtherTeamsRatings(int roundIndex, int exceptTeamIndex, int questionOffset, int ratingDelta) {
+        final int[] ratingsOfTeams = teamRatings[roundIndex];
+        for (int teamIndex = 0; teamIndex < teamNumbers.length; teamIndex++) {
+            if (teamIndex != exceptTeamIndex && isTaken(roundIndex, teamIndex, questionOffset)) {
+                ratingsOfTeams[teamIndex] += ratingDelta;
+            }
+        }
+    }
+
+    /**
+     * Возвращает true, если задание взято командой в туре (раунде).
+     * В основном туре взятым считается и задание, взятое в предварительном туре.
+     * @param roundIndex индекс тура (раунда).
+     * @param teamIndex индекс команды.
+     * @param questionOffset смещение номера задания.
+     * @return true, если задание взято.
+     */
+    private boolean isTaken(int roundIndex, int teamIndex, int questionOffset) {
+        final int cellIndex = teamIndex * questionsAmount + questionOffset;
+        for (int previousRoundIndex = 0; previousRoundIndex <= roundIndex; previousRoundIndex++) {
+            if (acceptedAnswersCounts[previousRoundIndex][cellIndex] > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Возвращает true, если задание зачётное.
+     * @param questionOffset смещение номера задания.
+     * @return true, если задание зачётное.
+     */
+    private boolean isGraded(int questionOffset) {
+        return questionGrades.get(minQuestionNumber + questionOffset);
+    }
+
+    /**
+     * Вычисляет индекс ячейки таблицы.
+     * @param teamId уникальный идентификатор команды.
+     * @param questionNumber номер задания.
+     * @param roundNumber номер тура (раунда).
+     * @return индекс ячейки, либо -1, если команды нет в таблице, или номер задания или тура вне диапазона.
+     */
+    private int getCellIndex(long teamId, int questionNumber, int roundNumber) {
+        final Integer teamIndex = teamIndexes.get(teamId);
+        final int questionOffset = questionNumber - minQuestionNumber;
+        if (teamIndex == null || questionOffset < 0 || questionOffset >= questionsAmount ||
+                                                                    roundNumber < 1 || roundNumber > ROUNDS_AMOUNT) {
+            return -1;
+        }
+
+        return teamIndex * questionsAmount + questionOffset;
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.live;
+
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndexHolder;
+import com.github.cdefgah.poetica.reports.restable.model.QuestionNumberIndexedFlags;
+import com.github.cdefgah.poetica.utils.AfterCommitBuffer;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
+import com.github.cdefgah.poetica.utils.StaleGuard;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Хранит таблицу результатов в памяти и поддерживает её в актуальном состоянии.
+ * Контроллеры сообщают об изменениях оценок ответов, изменения применяются к таблице после фиксации транзакции.
+ * Изменения в составе команд, заданий или писем помечают таблицу как устаревшую,
+ * в этом случае она заново строится из базы данных при следующем обращении.
+ */
+@Component
+public class LiveResultsTableManager {
+
+    /**
+     * Для связи с базой данных.
+     */
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Индекс для поиска задания по номеру.
+     */
+    @Autowired
+    QuestionNumberIndexHolder questionNumberIndexHolder;
+
+    /**
+     * Таблица результатов, доступ только внутри synchronized блоков.
+     */
+    private LiveResultsTable liveResultsTable;
+
+    /**
+     * true, если таблицу нужно заново построить из базы данных.
+     */
+    private boolean isStale = true;
+
+    /**
+     * Определяет, не разошлись-ли загруженные из базы данные с параллельно фиксируемыми изменениями.
+     */
+    private final StaleGuard staleGuard = new StaleGuard();
+
+    /**
+     * Накапливает изменения в рамках транзакции и применяет их к таблице после её фиксации.
+     */
+    private final AfterCommitBuffer<PendingChanges> pendingChangesBuffer =
+                            new AfterCommitBuffer<>(PendingChanges::new, this::applyCommittedChanges, staleGuard);
+
+    /**
+     * Отдаёт отсортированную турнирную таблицу за тур (раунд).
+     * Если таблица устарела, она строится заново из базы данных.
+     * @param roundNumber номер тура (раунда).
+     * @return турнирная таблица за тур (раунд).
+     */
+    public synchronized LiveStandings getStandings(int roundNumber) {
+        if (isStale || liveResultsTable == null) {
+            rebuild();
+        }
+
+        return liveResultsTable.getStandings(roundNumber);
+    }
+
+    /**
+     * Возвращает true, если команда уже участвует в игре по данным таблицы результатов.
+     * Если таблица устарела, возвращает false.
+     * @param teamId уникальный идентификатор команды.
+     * @return true, если команда уже есть в таблице результатов.
+     */
+    public synchronized boolean isTeamParticipating(long teamId) {
+        return !isStale && liveResultsTable != null && liveResultsTable.containsTeam(teamId);
+    }
+
+    /**
+     * Сообщает об изменении оценки ответа.
+     * Изменение будет применено к таблице после фиксации текущей транзакции.
+     * @param teamId уникальный идентификатор команды.
+     * @param questionNumber номер задания.
+     * @param roundNumber номер тура (раунда).
+     * @param previousGrade оценка ответа до изменения, null если ответ новый.
+     * @param newGrade оценка ответа после изменения, null если ответ удалён.
+     */
+    public void publishGradeChange(long teamId, int questionNumber, int roundNumber,
+                                                                                Grade previousGrade, Grade newGrade) {
+
+        final int acceptedAnswersDelta = getAcceptedValue(newGrade) - getAcceptedValue(previousGrade);
+        if (acceptedAnswersDelta != 0) {
+            pendingChangesBuffer.record(pendingChanges -> pendingChanges.deltas.add(
+                                    new AcceptanceDelta(teamId, questionNumber, roundNumber, acceptedAnswersDelta)));
+        }
+    }
+
+    /**
+     * Помечает таблицу как устаревшую после фиксации текущей транзакции.
+     * Используется при изменениях, которые затрагивают всю таблицу: состав команд, заданий и т.п.
+     */
+    public void invalidate() {
+        pendingChangesBuffer.record(pendingChanges -> pendingChanges.invalidate = true);
+    }
+
+    /**
+     * Строит таблицу результатов заново из базы данных.
+     */
+    private void rebuild() {
+        final long loadStamp = staleGuard.beginLoad();
+
+        liveResultsTable = loadLiveResultsTable();
+
+        // если во время чтения данных какая-то транзакция фиксировала изменения, неизвестно,
+        // попали ли они в прочитанные данные, поэтому таблица остаётся помеченной как устаревшая
+        isStale = staleGuard.isStale(loadStamp);
+    }
+
+    /**
+     * Загружает таблицу результатов из базы данных.
+     * @return заполненная таблица результатов.
+     */
+    private LiveResultsTable loadLiveResultsTable() {
+        final QuestionNumberIndex questionNumberIndex = questionNumberIndexHolder.getIndex();
+        final QuestionNumberIndexedFlags questionGrades = QuestionNumberIndexedFlags.ofQuestionGrades(
+                                                                                                questionNumberIndex);
+
+        final List<Team> participatedTeams = ReadOnlyQueries.readOnly(
+                            entityManager.createNamedQuery(Team.FIND_PARTICIPATED_QUERY, Team.class)).getResultList();
+
+        final LiveResultsTable table = new LiveResultsTable(participatedTeams,
+                questionNumberIndex.getMinQuestionNumber(), questionNumberIndex.getMaxQuestionNumber(), questionGrades);
+
+        final TypedQuery<Object[]> query =
+                entityManager.createQuery("select answer.teamId, answer.questionNumber, answer.roundNumber, " +
+                        "count(answer.id) from Answer answer where answer.grade=:grade " +
+                        "group by answer.teamId, answer.questionNumber, answer.roundNumber", Object[].class);
+        query.setParameter("grade", Grade.Accepted);
+
+        for (Object[] row : query.getResultList()) {
+            table.registerAcceptedAnswers((Long) row[0], (Integer) row[1], (Integer) row[2],
+                                                                                        ((Long) row[3]).intValue());
+        }
+
+        table.recalculate();
+        return table;
+    }
+
+    /**
+     * Применяет зафиксированные изменения к таблице.
+     * @param pendingChanges изменения из зафиксированной транзакции.
+     */
+    private synchronized void applyCommittedChanges(PendingChanges pendingChanges) {
+        if (pendingChanges.invalidate) {
+            isStale = true;
+        }
+
+        if (isStale || liveResultsTable == null) {
+            // таблица будет построена заново при следующем обращении
+            return;
+        }
+
+        for (AcceptanceDelta delta : pendingChanges.deltas) {
+            liveResultsTable.applyAcceptanceDelta(delta.teamId, delta.questionNumber,
+                                                                        delta.roundNumber, delta.acceptedAnswersDelta);
+        }
+    }
+
+    /**
+     * Возвращает 1 для зачтённого ответа и 0 для всех остальных.
+     * @param grade оценка ответа.
+     * @return 1 для зачтённого ответа и 0 для всех остальных.
+     */
+    private static int getAcceptedValue(Grade grade) {
+        return grade == Grade.Accepted ? 1 : 0;
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Изменение количества зачтённых ответов команды на задание.
+     */
+    private static final class AcceptanceDelta {
+
+        /**
+         * Уникальный идентификатор команды.
+         */
+        private final long teamId;
+
+        /**
+         * Номер задания.
+         */
+        private final int questionNumber;
+
+        /**
+         * Номер тура (раунда).
+         */
+        private final int roundNumber;
+
+        /**
+         * Изменение количества зачтённых ответов.
+         */
+        private final int acceptedAnswersDelta;
+
+        /**
+         * Конструктор класса.
+         * @param teamId уникальный идентификатор команды.
+         * @param questionNumber номер задания.
+         * @param roundNumber номер тура (раунда).
+         * @param acceptedAnswersDelta изменение количества зачтённых ответов.
+         */
+        AcceptanceDelta(long teamId, int questionNumber, int roundNumber, int acceptedAnswersDelta) {
+            this.teamId = teamId;
+            this.questionNumber = questionNumber;
+            this.roundNumber = roundNumber;
+            this.acceptedAnswersDelta = acceptedAnswersDelta;
+        }
+    }
+
+    /**
+     * Изменения одной транзакции, применяются к таблице после её фиксации.
+     */
+    private static final class PendingChanges {
+
+        /**
+         * Изменения количества зачтённых ответов.
+         */
+        final List<AcceptanceDelta> deltas = new ArrayList<>();
+
+        /**
+         * true, если таблицу нужно пометить как устаревшую.
+         */
+        boolean invalidate;
+    }
+}
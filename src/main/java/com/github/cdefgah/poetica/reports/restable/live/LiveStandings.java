@@ -0,0 +1,198 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.live;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Турнирная таблица за тур (раунд), сформированная по таблице результатов в памяти.
+ */
+public final class LiveStandings {
+
+    /**
+     * Номер тура (раунда).
+     */
+    private final int roundNumber;
+
+    /**
+     * Минимальный номер задания, соответствует первому элементу массива рейтингов заданий.
+     */
+    private final int minQuestionNumber;
+
+    /**
+     * Рейтинги заданий, индекс элемента = номер задания - минимальный номер задания.
+     */
+    private final int[] questionRatings;
+
+    /**
+     * Строки турнирной таблицы, отсортированные по месту команды.
+     */
+    private final List<Row> rows;
+
+    /**
+     * Конструктор класса.
+     * @param roundNumber номер тура (раунда).
+     * @param minQuestionNumber минимальный номер задания.
+     * @param questionRatings рейтинги заданий.
+     * @param rows отсортированные строки турнирной таблицы.
+     */
+    LiveStandings(int roundNumber, int minQuestionNumber, int[] questionRatings, List<Row> rows) {
+        this.roundNumber = roundNumber;
+        this.minQuestionNumber = minQuestionNumber;
+        this.questionRatings = questionRatings;
+        this.rows = rows;
+    }
+
+    /**
+     * Отдаёт номер тура (раунда).
+     * @return номер тура (раунда).
+     */
+    public int getRoundNumber() {
+        return roundNumber;
+    }
+
+    /**
+     * Отдаёт минимальный номер задания.
+     * @return минимальный номер задания.
+     */
+    public int getMinQuestionNumber() {
+        return minQuestionNumber;
+    }
+
+    /**
+     * Отдаёт рейтинги заданий.
+     * @return рейтинги заданий, индекс элемента = номер задания - минимальный номер задания.
+     */
+    public int[] getQuestionRatings() {
+        return questionRatings.clone();
+    }
+
+    /**
+     * Отдаёт неизменяемый список строк турнирной таблицы.
+     * @return неизменяемый список строк турнирной таблицы, отсортированный по месту команды.
+     */
+    public List<Row> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Строка турнирной таблицы.
+     */
+    public static final class Row implements Comparable<Row> {
+
+        /**
+         * Номер команды.
+         */
+        private final int teamNumber;
+
+        /**
+         * Название команды.
+         */
+        private final String teamTitle;
+
+        /**
+         * Количество зачтённых ответов в текущем туре (раунде).
+         */
+        private final int amountOfCorrectAnswersInThisRound;
+
+        /**
+         * Количество зачтённых ответов в предыдущем туре (раунде).
+         */
+        private final int amountOfCorrectAnswersInPreviousRound;
+
+        /**
+         * Рейтинг команды.
+         */
+        private final int teamRating;
+
+        /**
+         * Конструктор класса.
+         * @param teamNumber номер команды.
+         * @param teamTitle название команды.
+         * @param amountOfCorrectAnswersInThisRound количество зачтённых ответов в текущем туре (раунде).
+         * @param amountOfCorrectAnswersInPreviousRound количество зачтённых ответов в предыдущем туре (раунде).
+         * @param teamRating рейтинг команды.
+         */
+        Row(int teamNumber, String teamTitle, int amountOfCorrectAnswersInThisRound,
+            int amountOfCorrectAnswersInPreviousRound, int teamRating) {
+
+            this.teamNumber = teamNumber;
+            this.teamTitle = teamTitle;
+            this.amountOfCorrectAnswersInThisRound = amountOfCorrectAnswersInThisRound;
+            this.amountOfCorrectAnswersInPreviousRound = amountOfCorrectAnswersInPreviousRound;
+            this.teamRating = teamRating;
+        }
+
+        /**
+         * Возвращает номер команды.
+         * @return номер команды.
+         */
+        public int getTeamNumber() {
+            return teamNumber;
+        }
+
+        /**
+         * Возвращает название команды.
+         * @return название команды.
+         */
+        public String getTeamTitle() {
+            return teamTitle;
+        }
+
+        /**
+         * Возвращает количество зачтённых ответов в текущем туре (раунде).
+         * @return количество зачтённых ответов в текущем туре (раунде).
+         */
+        public int getAmountOfCorrectAnswersInThisRound() {
+            return amountOfCorrectAnswersInThisRound;
+        }
+
+        /**
+         * Возвращает количество зачтённых ответов в предыдущем туре (раунде).
+         * @return количество зачтённых ответов в предыдущем туре (раунде).
+         */
+        public int getAmountOfCorrectAnswersInPreviousRound() {
+            return amountOfCorrectAnswersInPreviousRound;
+        }
+
+        /**
+         * Возвращает рейтинг команды.
+         * @return рейтинг команды.
+         */
+        public int getTeamRating() {
+            return teamRating;
+        }
+
+        /**
+         * Выполняет сравнение двух строк турнирной таблицы в том-же порядке, что и отчёт "Таблица результатов":
+         * по количеству ответов в текущем туре, затем в предыдущем туре, затем по рейтингу (всё по убыванию),
+         * затем по названию команды.
+         * @param anotherRow другая строка для сравнения с текущей.
+         * @return результат сравнения.
+         */
+        @Override
+        public int compareTo(Row anotherRow) {
+            if (this.amountOfCorrectAnswersInThisRound != anotherRow.amountOfCorrectAnswersInThisRound) {
+                return -1 * Integer.compare(this.amountOfCorrectAnswersInThisRound,
+                                                                        anotherRow.amountOfCorrectAnswersInThisRound);
+            }
+
+            if (this.amountOfCorrectAnswersInPreviousRound != anotherRow.amountOfCorrectAnswersInPreviousRound) {
+                return -1 * Integer.compare(this.amountOfCorrectAnswersInPreviousRound,
+                                                                    anotherRow.amountOfCorrectAnswersInPreviousRound);
+            }
+
+            if (this.teamRating != anotherRow.teamRating) {
+                return -1 * Integer.compare(this.teamRating, anotherRow.teamRating);
+            }
+
+            return this.teamTitle.compareTo(anotherRow.teamTitle);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.model;
+
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Матрица зачтённых ответов.
+ * Для каждого тура (раунда) хранит битовую карту, где строка соответствует команде,
+ * а бит в строке - номеру задания (смещённому относительно минимального номера задания).
+ * Бит выставлен, если у команды есть зачтённый ответ на задание в этом туре.
+ */
+public final class AcceptanceMatrix {
+
+    /**
+     * Количество туров (раундов) в игре.
+     */
+    static final int ROUNDS_AMOUNT = 2;
+
+    /**
+     * Минимальный номер задания.
+     */
+    private final int minQuestionNumber;
+
+    /**
+     * Количество номеров заданий в диапазоне от минимального до максимального.
+     */
+    private final int questionsAmount;
+
+    /**
+     * Количество 64-битных слов в одной строке матрицы.
+     */
+    private final int wordsPerRow;
+
+    /**
+     * Уникальный идентификатор команды - индекс строки матрицы.
+     */
+    private final Map<Long, Integer> teamIndexes = new HashMap<>();
+
+    /**
+     * Битовые карты для каждого тура (раунда), индекс массива = номер тура - 1.
+     */
+    private final long[][] roundBits;
+
+    /**
+     * Конструктор класса.
+     * @param teamIds уникальные идентификаторы команд, для которых строится матрица.
+     * @param minQuestionNumber минимальный номер задания.
+     * @param maxQuestionNumber максимальный номер задания.
+     */
+    AcceptanceMatrix(Collection<Long> teamIds, int minQuestionNumber, int maxQuestionNumber) {
+        this.minQuestionNumber = minQuestionNumber;
+        this.questionsAmount = Math.max(maxQuestionNumber - minQuestionNumber + 1, 0);
+        this.wordsPerRow = getWordsAmount(questionsAmount);
+
+        for (Long teamId : teamIds) {
+            teamIndexes.put(teamId, teamIndexes.size());
+        }
+
+        roundBits = new long[ROUNDS_AMOUNT][teamIndexes.size() * wordsPerRow];
+    }
+
+    /**
+     * Строит матрицу зачтённых ответов одним группирующим запросом.
+     * @param entityManager менеджер сущностей для работы с базой данных.
+     * @param teamIds уникальные идентификаторы команд, для которых строится матрица.
+     * @param minQuestionNumber минимальный номер задания.
+     * @param maxQuestionNumber максимальный номер задания.
+     * @return матрица зачтённых ответов.
+     */
+    public static AcceptanceMatrix load(EntityManager entityManager, Collection<Long> teamIds,
+                                        int minQuestionNumber, int maxQuestionNumber) {
+
+        final AcceptanceMatrix matrix = new AcceptanceMatrix(teamIds, minQuestionNumber, maxQuestionNumber);
+
+        final TypedQuery<Object[]> query =
+                entityManager.createQuery("select answer.teamId, answer.questionNumber, answer.roundNumber " +
+                        "from Answer answer where answer.grade=:grade " +
+                        "and answer.questionNumber>=:minQuestionNumber " +
+                        "and answer.questionNumber<=:maxQuestionNumber " +
+                        "group by answer.teamId, answer.questionNumber, answer.roundNumber", Object[].class);
+
+        query.setParameter("grade", Grade.Accepted);
+        query.setParameter("minQuestionNumber", minQuestionNumber);
+        query.setParameter("maxQuestionNumber", maxQuestionNumber);
+
+        final List<Object[]> resultList = ReadOnlyQueries.readOnly(query).getResultList();
+        for (Object[] row : resultList) {
+            matrix.markAccepted((Long) row[0], (Integer) row[1], (Integer) row[2]);
+        }
+
+        return matrix;
+    }
+
+    /**
+     * Отмечает ответ команды на задание в указанном туре (раунде) как зачтённый.
+     * @param teamId уникальный идентификатор команды.
+     * @param questionNumber номер задания.
+     * @param roundNumber номер тура (раунда).
+     */
+    void markAccepted(long teamId, int questionNumber, int roundNumber) {
+        final Integer teamIndex = teamIndexes.get(teamId);
+        final int questionOffset = questionNumber - minQuestionNumber;
+        if (teamIndex == null || questionOffset < 0 || questionOffset >= questionsAmount ||
+                                                                    roundNumber < 1 || roundNumber > ROUNDS_AMOUNT) {
+            return;
+        }
+
+        setBit(roundBits[roundNumber - 1], teamIndex * wordsPerRow, questionOffset);
+    }
+
+    /**
+     * Возвращает true, если у команды есть зачтённый ответ на задание в указанном туре (раунде).
+     * @param teamId уникальный идентификатор команды.
+     * @param questionNumber номер задания.
+     * @param roundNumber номер тура (раунда).
+     * @return true, если у команды есть зачтённый ответ на задание в указанном туре (раунде).
+     */
+    public boolean isAnswerAccepted(long teamId, int questionNumber, int roundNumber) {
+        final Integer teamIndex = teamIndexes.get(teamId);
+        final int questionOffset = questionNumber - minQuestionNumber;
+        if (teamIndex == null || questionOffset < 0 || questionOffset >= questionsAmount ||
+                                                                    roundNumber < 1 || roundNumber > ROUNDS_AMOUNT) {
+            return false;
+        }
+
+        return isBitSet(roundBits[roundNumber - 1], teamIndex * wordsPerRow, questionOffset);
+    }
+
+    /**
+     * Отдаёт копию строки матрицы для команды в указанном туре (раунде).
+     * @param teamId уникальный идентификатор команды.
+     * @param roundNumber номер тура (раунда).
+     * @return копия строки матрицы, бит с индексом (номер задания - минимальный номер задания)
+     * выставлен, если ответ зачтён. Для неизвестной команды или тура (раунда) отдаётся пустая строка.
+     */
+    long[] copyRow(long teamId, int roundNumber) {
+        final Integer teamIndex = teamIndexes.get(teamId);
+        if (teamIndex == null || roundNumber < 1 || roundNumber > ROUNDS_AMOUNT) {
+            return new long[wordsPerRow];
+        }
+
+        final int rowStart = teamIndex * wordsPerRow;
+        return Arrays.copyOfRange(roundBits[roundNumber - 1], rowStart, rowStart + wordsPerRow);
+    }
+
+    /**
+     * Возвращает количество 64-битных слов, необходимое для хранения указанного количества бит.
+     * @param bitsAmount количество бит.
+     * @return количество 64-битных слов.
+     */
+    static int getWordsAmount(int bitsAmount) {
+        return (bitsAmount + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Возвращает true, если бит выставлен.
+     * @param bits битовая карта.
+     * @param rowStart индекс первого слова строки в битовой карте.
+     * @param bitIndex индекс бита внутри строки.
+     * @return true, если бит выставлен.
+     */
+    static boolean isBitSet(long[] bits, int rowStart, int bitIndex) {
+        return (bits[rowStart + (bitIndex >>> 6)] & (1L << bitIndex)) != 0;
+    }
+
+    /**
+     * Выставляет бит.
+     * @param bits битовая карта.
+     * @param rowStart индекс первого слова строки в битовой карте.
+     * @param bitIndex индекс бита внутри строки.
+     */
+    static void setBit(long[] bits, int rowStart, int bitIndex) {
+        bits[rowStart + (bitIndex >>> 6)] |= (1L << bitIndex);
+    }
+}
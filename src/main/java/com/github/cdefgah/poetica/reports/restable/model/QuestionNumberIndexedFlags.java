@@ -0,0 +1,213 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.model;
+
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Логические признаки, проиндексированные номером задания.
+ * Хранятся в виде битовой карты со смещением на минимальный номер задания,
+ * так что бит с индексом i соответствует номеру задания (минимальный номер + i).
+ * Отдельная битовая карта хранит информацию о том, для каких номеров признак задан.
+ */
+public final class QuestionNumberIndexedFlags {
+
+    /**
+     * Минимальный номер задания, соответствует нулевому биту.
+     */
+    private final int baseQuestionNumber;
+
+    /**
+     * Количество номеров заданий в диапазоне.
+     */
+    private final int questionsAmount;
+
+    /**
+     * Значения признаков.
+     */
+    private final long[] flagBits;
+
+    /**
+     * Отметки о том, что признак для номера задания задан.
+     */
+    private final long[] definedBits;
+
+    /**
+     * Количество номеров заданий, для которых задан признак.
+     */
+    private int definedCount;
+
+    /**
+     * Конструктор класса.
+     * @param minQuestionNumber минимальный номер задания.
+     * @param maxQuestionNumber максимальный номер задания.
+     */
+    public QuestionNumberIndexedFlags(int minQuestionNumber, int maxQuestionNumber) {
+        this.baseQuestionNumber = minQuestionNumber;
+        this.questionsAmount = Math.max(maxQuestionNumber - minQuestionNumber + 1, 0);
+
+        final int wordsAmount = AcceptanceMatrix.getWordsAmount(questionsAmount);
+        this.flagBits = new long[wordsAmount];
+        this.definedBits = new long[wordsAmount];
+    }
+
+    /**
+     * Формирует признаки "зачётное задание" для всех номеров заданий из индекса.
+     * @param questionNumberIndex индекс для поиска задания по номеру.
+     * @return признаки "зачётное задание", проиндексированные номером задания.
+     */
+    public static QuestionNumberIndexedFlags ofQuestionGrades(QuestionNumberIndex questionNumberIndex) {
+        final QuestionNumberIndexedFlags questionGrades = new QuestionNumberIndexedFlags(
+                questionNumberIndex.getMinQuestionNumber(), questionNumberIndex.getHighestQuestionNumber());
+
+        for (int questionNumber = questionNumberIndex.getMinQuestionNumber();
+                        questionNumber <= questionNumberIndex.getHighestQuestionNumber(); questionNumber++) {
+            if (questionNumberIndex.contains(questionNumber)) {
+                questionGrades.set(questionNumber, questionNumberIndex.isGraded(questionNumber));
+            }
+        }
+
+        return questionGrades;
+    }
+
+    /**
+     * Задаёт признак для номера задания.
+     * @param questionNumber номер задания.
+     * @param flag значение признака.
+     */
+    public void set(int questionNumber, boolean flag) {
+        final int questionOffset = questionNumber - baseQuestionNumber;
+        if (!AcceptanceMatrix.isBitSet(definedBits, 0, questionOffset)) {
+            AcceptanceMatrix.setBit(definedBits, 0, questionOffset);
+            definedCount++;
+        }
+
+        if (flag) {
+            AcceptanceMatrix.setBit(flagBits, 0, questionOffset);
+        } else {
+            flagBits[questionOffset >>> 6] &= ~(1L << questionOffset);
+        }
+    }
+
+    /**
+     * Отдаёт значение признака для номера задания.
+     * @param questionNumber номер задания.
+     * @return значение признака, false - если признак не задан или номер вне диапазона.
+     */
+    public boolean get(int questionNumber) {
+        final int questionOffset = questionNumber - baseQuestionNumber;
+        return questionOffset >= 0 && questionOffset < questionsAmount &&
+                                                          AcceptanceMatrix.isBitSet(flagBits, 0, questionOffset);
+    }
+
+    /**
+     * Отдаёт 64-битное слово битовой карты признаков.
+     * Используется для поразрядных операций с битовыми картами, выровненными по тому-же минимальному номеру задания.
+     * @param wordIndex индекс слова.
+     * @return слово битовой карты признаков, либо 0, если индекс вне диапазона.
+     */
+    long getWord(int wordIndex) {
+        return wordIndex < flagBits.length ? flagBits[wordIndex] : 0L;
+    }
+
+    /**
+     * Отдаёт неизменяемое представление признаков в виде таблицы "номер задания - признак".
+     * В таблицу попадают только номера, для которых признак задан.
+     * @return неизменяемое представление признаков.
+     */
+    public Map<Integer, Boolean> asMap() {
+        return new ReadOnlyMapView();
+    }
+
+    /**
+     * Возвращает true, если признак для номера задания задан.
+     * @param questionNumber номер задания.
+     * @return true, если признак для номера задания задан.
+     */
+    private boolean isDefined(int questionNumber) {
+        final int questionOffset = questionNumber - baseQuestionNumber;
+        return questionOffset >= 0 && questionOffset < questionsAmount &&
+                                                        AcceptanceMatrix.isBitSet(definedBits, 0, questionOffset);
+    }
+
+    // =========================================================================================================
+
+    /**
+     * Неизменяемое представление признаков в виде таблицы, без копирования данных.
+     */
+    private final class ReadOnlyMapView extends AbstractMap<Integer, Boolean> {
+
+        @Override
+        public int size() {
+            return definedCount;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && isDefined((Integer) key);
+        }
+
+        @Override
+        public Boolean get(Object key) {
+            return containsKey(key) ? QuestionNumberIndexedFlags.this.get((Integer) key) : null;
+        }
+
+        @Override
+        public Set<Entry<Integer, Boolean>> entrySet() {
+            return new AbstractSet<Entry<Integer, Boolean>>() {
+                @Override
+                public Iterator<Entry<Integer, Boolean>> iterator() {
+                    return new Iterator<Entry<Integer, Boolean>>() {
+                        private int questionOffset = nextDefinedOffset(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return questionOffset < questionsAmount;
+                        }
+
+                        @Override
+                        public Entry<Integer, Boolean> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            final int questionNumber = baseQuestionNumber + questionOffset;
+                            questionOffset = nextDefinedOffset(questionOffset + 1);
+                            return new SimpleImmutableEntry<>(questionNumber,
+                                                                QuestionNumberIndexedFlags.this.get(questionNumber));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return definedCount;
+                }
+            };
+        }
+
+        /**
+         * Ищет ближайшее смещение номера задания, для которого задан признак.
+         * @param fromOffset смещение, с которого начинается поиск.
+         * @return найденное смещение, либо количество номеров заданий, если ничего не найдено.
+         */
+        private int nextDefinedOffset(int fromOffset) {
+            int questionOffset = fromOffset;
+            while (questionOffset < questionsAmount && !AcceptanceMatrix.isBitSet(definedBits, 0, questionOffset)) {
+                questionOffset++;
+            }
+
+            return questionOffset;
+        }
+    }
+}
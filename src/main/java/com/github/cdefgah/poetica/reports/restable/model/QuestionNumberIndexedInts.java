@@ -0,0 +1,156 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Целочисленные значения, проиндексированные номером задания.
+ * Номера заданий идут подряд, поэтому значения хранятся в массиве со смещением на минимальный номер задания.
+ */
+public final class QuestionNumberIndexedInts {
+
+    /**
+     * Минимальный номер задания, соответствует нулевому элементу массива.
+     */
+    private final int baseQuestionNumber;
+
+    /**
+     * Значения.
+     */
+    private final int[] values;
+
+    /**
+     * Конструктор класса.
+     * @param minQuestionNumber минимальный номер задания.
+     * @param maxQuestionNumber максимальный номер задания.
+     * @param initialValue начальное значение для всех заданий.
+     */
+    public QuestionNumberIndexedInts(int minQuestionNumber, int maxQuestionNumber, int initialValue) {
+        this.baseQuestionNumber = minQuestionNumber;
+        this.values = new int[Math.max(maxQuestionNumber - minQuestionNumber + 1, 0)];
+        Arrays.fill(values, initialValue);
+    }
+
+    /**
+     * Отдаёт значение для задания.
+     * @param questionNumber номер задания.
+     * @return значение для задания.
+     */
+    public int get(int questionNumber) {
+        return values[questionNumber - baseQuestionNumber];
+    }
+
+    /**
+     * Увеличивает значение для задания на единицу.
+     * @param questionNumber номер задания.
+     */
+    public void increment(int questionNumber) {
+        values[questionNumber - baseQuestionNumber]++;
+    }
+
+    /**
+     * Отдаёт значение по смещению относительно минимального номера задания.
+     * @param questionOffset смещение номера задания относительно минимального номера задания.
+     * @return значение для задания.
+     */
+    int getByOffset(int questionOffset) {
+        return values[questionOffset];
+    }
+
+    /**
+     * Увеличивает на единицу значение по смещению относительно минимального номера задания.
+     * @param questionOffset смещение номера задания относительно минимального номера задания.
+     */
+    void incrementByOffset(int questionOffset) {
+        values[questionOffset]++;
+    }
+
+    /**
+     * Возвращает количество хранимых значений.
+     * @return количество хранимых значений.
+     */
+    int size() {
+        return values.length;
+    }
+
+    /**
+     * Отдаёт неизменяемое представление значений в виде таблицы "номер задания - значение".
+     * @return неизменяемое представление значений.
+     */
+    public Map<Integer, Integer> asMap() {
+        return new ReadOnlyMapView();
+    }
+
+    // =========================================================================================================
+
+    /**
+     * Неизменяемое представление значений в виде таблицы, без копирования данных.
+     */
+    private final class ReadOnlyMapView extends AbstractMap<Integer, Integer> {
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof Integer)) {
+                return false;
+            }
+
+            final int questionOffset = (Integer) key - baseQuestionNumber;
+            return questionOffset >= 0 && questionOffset < values.length;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            return containsKey(key) ? values[(Integer) key - baseQuestionNumber] : null;
+        }
+
+        @Override
+        public Set<Entry<Integer, Integer>> entrySet() {
+            return new AbstractSet<Entry<Integer, Integer>>() {
+                @Override
+                public Iterator<Entry<Integer, Integer>> iterator() {
+                    return new Iterator<Entry<Integer, Integer>>() {
+                        private int questionOffset = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return questionOffset < values.length;
+                        }
+
+                        @Override
+                        public Entry<Integer, Integer> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+
+                            final Entry<Integer, Integer> entry =
+                                    new SimpleImmutableEntry<>(baseQuestionNumber + questionOffset,
+                                                                                          values[questionOffset]);
+                            questionOffset++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
+}
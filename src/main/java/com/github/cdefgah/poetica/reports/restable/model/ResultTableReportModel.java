@@ -5,17 +5,14 @@
 
 package com.github.cdefgah.poetica.reports.restable.model;
 
-import com.github.cdefgah.poetica.model.Grade;
-import com.github.cdefgah.poetica.model.Question;
 import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
 import com.github.cdefgah.poetica.reports.ReportWithConsistencyCheckModel;
 
 import javax.persistence.EntityManager;
-import javax.persistence.TypedQuery;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,45 +34,54 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
     /**
      * Рейтинг вопросов за предварительный тур.
      */
-    private final Map<Integer, Integer> preliminaryRoundQuestionsRatingMap = new HashMap<>();
+    private QuestionNumberIndexedInts preliminaryRoundQuestionsRating;
 
     /**
      * Номер вопроса - зачётный или внезачётный вопрос.
      */
-    private final Map<Integer, Boolean> allQuestionGradesMap = new HashMap<>();
+    private QuestionNumberIndexedFlags allQuestionGrades;
 
     /**
      * Рейтинг вопросов за основной тур.
      */
-    private final Map<Integer, Integer> mainRoundQuestionsRatingMap = new HashMap<>();
+    private QuestionNumberIndexedInts mainRoundQuestionsRating;
 
     /**
      * Конструктор класса.
      * @param entityManager менеджер сущностей для взаимодействия с базой данных.
+     * @param questionNumberIndex индекс для поиска задания по номеру.
      */
-    public ResultTableReportModel(EntityManager entityManager) {
-        super(entityManager);
+    public ResultTableReportModel(EntityManager entityManager, QuestionNumberIndex questionNumberIndex) {
+        super(entityManager, questionNumberIndex);
     }
 
     /**
      * Строит отчёт.
      */
     protected void buildMainReport() {
-        initializeQuestionsRatingMaps(minQuestionNumber, maxQuestionNumber);
-        initQuestionsGradesMap();
+        initializeQuestionsRatings(minQuestionNumber, maxQuestionNumber);
+        initQuestionsGrades();
 
         final List<Team> teamsList = getParticipatedTeams();
+        final List<Long> teamIds = new ArrayList<>(teamsList.size());
+        for (Team team : teamsList) {
+            teamIds.add(team.getId());
+        }
+
+        // оценки всех ответов всех команд загружаем одним запросом
+        final AcceptanceMatrix acceptanceMatrix = AcceptanceMatrix.load(entityManager, teamIds,
+                                                                                minQuestionNumber, maxQuestionNumber);
 
         // первый проход, проставляем отметки о взятых вопросах и обновляем рейтинг вопросов
         for (Team team : teamsList) {
             // TODO - передавать null в параметрах нехорошо, переделать
             ReportRowModel preliminaryRoundBlockReportRow =
                     new ReportRowModel(minQuestionNumber,
-                            maxQuestionNumber, team, null);
+                            maxQuestionNumber, team, acceptanceMatrix, null);
             preliminaryRoundBlockReportRows.add(preliminaryRoundBlockReportRow);
 
             mainRoundBlockReportRows.add(new ReportRowModel(minQuestionNumber, maxQuestionNumber,
-                    team, preliminaryRoundBlockReportRow));
+                    team, acceptanceMatrix, preliminaryRoundBlockReportRow));
         }
 
         // считаем рейтинг команд согласно итоговым рейтингам вопросов
@@ -108,25 +114,10 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
     }
 
     /**
-     * Формирует таблицу для быстрого получения оценки ответа по номеру задания.
+     * Формирует битовую карту для быстрого получения оценки ответа по номеру задания.
      */
-    private  void initQuestionsGradesMap() {
-        final TypedQuery<Question> query = entityManager.createQuery("select question from Question question",
-                                                                                                        Question.class);
-        final List<Question> allQuestions = query.getResultList();
-        for (Question question: allQuestions) {
-            if (question.isSingleNumberQuestion()) {
-                // если у задания один номер, ставим в соответствие этому номеру признак "зачётный/внезачётный"
-                allQuestionGradesMap.put(question.getLowestInternalNumber(), question.isGraded());
-            } else {
-                // если нет - то заполняем карту номерами для быстрой проверки при формировании отчёта
-                // строго говоря можно было бы оставить только этот цикл, без проверки на isSingleNumberQuestion
-                // но код бы стал менее читабельным.
-                for (int i = question.getLowestInternalNumber(); i <= question.getHighestInternalNumber(); i++) {
-                    allQuestionGradesMap.put(i, question.isGraded());
-                }
-            }
-        }
+    private  void initQuestionsGrades() {
+        allQuestionGrades = QuestionNumberIndexedFlags.ofQuestionGrades(questionNumberIndex);
     }
 
     /**
@@ -135,11 +126,18 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
      * @param minQuestionNumber минимальный номер вопроса в системе.
      * @param maxQuestionNumber максимальный номер вопроса в системе.
      */
-    private void initializeQuestionsRatingMaps(int minQuestionNumber, int maxQuestionNumber) {
-        for (int questionNumber = minQuestionNumber; questionNumber <= maxQuestionNumber; questionNumber++) {
-            preliminaryRoundQuestionsRatingMap.put(questionNumber, 1);
-            mainRoundQuestionsRatingMap.put(questionNumber, 1);
-        }
+    private void initializeQuestionsRatings(int minQuestionNumber, int maxQuestionNumber) {
+        preliminaryRoundQuestionsRating = new QuestionNumberIndexedInts(minQuestionNumber, maxQuestionNumber, 1);
+        mainRoundQuestionsRating = new QuestionNumberIndexedInts(minQuestionNumber, maxQuestionNumber, 1);
+    }
+
+    /**
+     * Отдаёт рейтинги заданий.
+     * @param isMainRound true, если нужны рейтинги заданий за основной тур игры.
+     * @return рейтинги заданий, проиндексированные номером задания.
+     */
+    public QuestionNumberIndexedInts getQuestionsRating(boolean isMainRound) {
+        return isMainRound ? this.mainRoundQuestionsRating : this.preliminaryRoundQuestionsRating;
     }
 
     /**
@@ -148,8 +146,7 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
      * @return неизменяемая таблица с рейтингами заданий.
      */
     public Map<Integer, Integer> getQuestionsRatingMap(boolean isMainRound) {
-        return Collections.unmodifiableMap(isMainRound ?
-                this.mainRoundQuestionsRatingMap : this.preliminaryRoundQuestionsRatingMap);
+        return getQuestionsRating(isMainRound).asMap();
     }
 
     /**
@@ -157,7 +154,16 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
      * @return неизменяемая таблица с информацией об оценках заданий.
      */
     public Map<Integer, Boolean> getAllQuestionGradesMap() {
-        return Collections.unmodifiableMap(allQuestionGradesMap);
+        return allQuestionGrades.asMap();
+    }
+
+    /**
+     * Возвращает маску для слова битовой карты, в которой выставлены биты, соответствующие номерам заданий из диапазона.
+     * @param bitsLeft количество номеров заданий, оставшихся до конца диапазона, начиная с первого бита слова.
+     * @return маска для слова битовой карты.
+     */
+    private static long getRangeMask(int bitsLeft) {
+        return bitsLeft >= Long.SIZE ? -1L : (1L << bitsLeft) - 1;
     }
 
     // ===========================================================================================================
@@ -173,9 +179,10 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
         private final int teamNumber;
 
         /**
-         * Оценки ответов команды (true - зачтён).
+         * Оценки ответов команды в виде битовой карты,
+         * бит с индексом (номер задания - минимальный номер задания) выставлен, если ответ зачтён.
          */
-        private final boolean[] answerFlags;
+        private final long[] answerBits;
 
         /**
          * Количество зачтённых ответов в текущем туре (раунде).
@@ -208,9 +215,11 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
          * @param minQuestionNumber     минимальный номер вопроса.
          * @param maxQuestionNumber     максимальный номер вопроса.
          * @param team                  объект команды.
+         * @param acceptanceMatrix      матрица зачтённых ответов.
          * @param previousRoundRowModel строка отчёта для этой команды, но из предыдущего раунда.
          */
-        ReportRowModel(int minQuestionNumber, int maxQuestionNumber, Team team, ReportRowModel previousRoundRowModel) {
+        ReportRowModel(int minQuestionNumber, int maxQuestionNumber, Team team, AcceptanceMatrix acceptanceMatrix,
+                       ReportRowModel previousRoundRowModel) {
 
             this.isMainRound = previousRoundRowModel != null;
 
@@ -218,57 +227,31 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
             this.teamNumber = team.getNumber();
             this.teamTitle = team.getTitle();
 
-            final int questionsAmount = maxQuestionNumber - minQuestionNumber + 1;
-            answerFlags = new boolean[questionsAmount];
+            answerBits = acceptanceMatrix.copyRow(team.getId(), roundNumber);
 
-            int answerFlagIndex = 0;
+            final QuestionNumberIndexedInts questionsRating = getQuestionsRating(isMainRound);
+            final int questionsAmount = maxQuestionNumber - minQuestionNumber + 1;
             int takenAnswersAmount = 0;
-            final Map<Integer, Integer> questionsRatingMap = isMainRound ? mainRoundQuestionsRatingMap :
-                    preliminaryRoundQuestionsRatingMap;
-
-            for (int questionNumber = minQuestionNumber; questionNumber <= maxQuestionNumber; questionNumber++) {
-                final boolean isAnswerAccepted = isAnswerAccepted(questionNumber, team.getId(), roundNumber);
-                answerFlags[answerFlagIndex] = isAnswerAccepted;
-
-                if (isAnswerAccepted) {
-                    // если вопрос взят, увеличиваем счётчик взятых вопросов
-                    // но только, если вопрос был зачётным
-                    if (allQuestionGradesMap.get(questionNumber)) {
-                        takenAnswersAmount++;
-                    }
-                } else {
-                    // иначе - если это основной раунд, проверяем, взят-ли этот вопрос в предыдущем раунде
-                    // если взят, учитываем его. Иначе - обновляем рейтинг вопроса.
-                    boolean questionIsNotAnswered = true;
-
-                    if (previousRoundRowModel != null) {
-                        final boolean[] preliminaryRoundAnswerFlags = previousRoundRowModel.getAnswerFlags();
-                        if (preliminaryRoundAnswerFlags[answerFlagIndex]) {
-                            // вопрос был взят в предыдущем раунде
-
-                            // увеличиваем счётчик взятых вопросов, несмотря на то, что вопрос взят в предыдущем раунде
-                            if (allQuestionGradesMap.get(questionNumber)) {
-                                // но только для зачётных заданий
-                                takenAnswersAmount++;
-                            }
-
-                            // помечаем его как взятый в этом раунде тоже
-                            answerFlags[answerFlagIndex] = true;
-
-                            // ставим отметку, что вопрос взят
-                            questionIsNotAnswered = false;
-                        }
-                    }
 
-                    if (questionIsNotAnswered) {
-                        // иначе - обновляем рейтинг вопроса
-                        // если вопрос не взят, его рейтинг увеличивается на единицу
-                        final int currentQuestionRating = questionsRatingMap.get(questionNumber);
-                        questionsRatingMap.put(questionNumber, currentQuestionRating + 1);
-                    }
+            // обходим битовую карту по 64 задания за раз
+            for (int wordIndex = 0; wordIndex < answerBits.length; wordIndex++) {
+                if (previousRoundRowModel != null) {
+                    // в основном раунде вопрос, взятый в предварительном раунде, считается взятым и в этом раунде
+                    answerBits[wordIndex] |= previousRoundRowModel.answerBits[wordIndex];
                 }
 
-                answerFlagIndex++;
+                final long takenBits = answerBits[wordIndex];
+
+                // счётчик взятых вопросов увеличиваем только для зачётных заданий
+                takenAnswersAmount += Long.bitCount(takenBits & allQuestionGrades.getWord(wordIndex));
+
+                // если вопрос не взят, его рейтинг увеличивается на единицу
+                final int firstQuestionOffset = wordIndex * Long.SIZE;
+                long notTakenBits = ~takenBits & getRangeMask(questionsAmount - firstQuestionOffset);
+                while (notTakenBits != 0) {
+                    questionsRating.incrementByOffset(firstQuestionOffset + Long.numberOfTrailingZeros(notTakenBits));
+                    notTakenBits &= notTakenBits - 1;
+                }
             }
 
             amountOfTakenAnswersInThisRound = takenAnswersAmount;
@@ -278,43 +261,21 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
             }
         }
 
-        /**
-         * Возвращает true, если ответ был зачтён.
-         * @param questionNumber номер задания.
-         * @param teamId уникальный идентификатор команды.
-         * @param roundNumber номер тура (раунда).
-         * @return true, если ответ был зачтён.
-         */
-        private boolean isAnswerAccepted(int questionNumber, long teamId, int roundNumber) {
-            TypedQuery<Long> query =
-                    entityManager.createQuery("select count(*) from Answer answer " +
-                                    "where answer.teamId=:teamId and answer.questionNumber=:questionNumber " +
-                                    "and answer.roundNumber=:roundNumber and answer.grade=:grade",
-                            Long.class);
-
-            query.setParameter("teamId", teamId);
-            query.setParameter("questionNumber", questionNumber);
-            query.setParameter("roundNumber", roundNumber);
-            query.setParameter("grade", Grade.Accepted);
-
-            return query.getSingleResult() > 0;
-        }
-
         /**
          * Обновляет рейтинг команды.
          */
         private void recalculateTeamRating() {
-            final Map<Integer, Integer> actualRatingMap = isMainRound ? mainRoundQuestionsRatingMap :
-                    preliminaryRoundQuestionsRatingMap;
+            final QuestionNumberIndexedInts actualRating = getQuestionsRating(isMainRound);
             teamRating = 0;
-            int questionNumber = minQuestionNumber;
-            for (boolean answerFlag : answerFlags) {
-                if (answerFlag && allQuestionGradesMap.get(questionNumber)) {
-                    // если ответ взят и задание является зачётным, то рейтин задания учитывается
-                    // в рейтинге команды
-                    teamRating = teamRating + actualRatingMap.get(questionNumber);
+            for (int wordIndex = 0; wordIndex < answerBits.length; wordIndex++) {
+                // если ответ взят и задание является зачётным, то рейтинг задания учитывается
+                // в рейтинге команды
+                long ratedBits = answerBits[wordIndex] & allQuestionGrades.getWord(wordIndex);
+                final int firstQuestionOffset = wordIndex * Long.SIZE;
+                while (ratedBits != 0) {
+                    teamRating += actualRating.getByOffset(firstQuestionOffset + Long.numberOfTrailingZeros(ratedBits));
+                    ratedBits &= ratedBits - 1;
                 }
-                questionNumber++;
             }
         }
 
@@ -327,11 +288,13 @@ public final class ResultTableReportModel extends ReportWithConsistencyCheckMode
         }
 
         /**
-         * Отдаёт массив флагов с оценками ответов.
-         * @return массив флагов с оценками ответов.
+         * Возвращает true, если ответ команды на задание засчитан в этом туре (раунде).
+         * Для основного тура засчитанными считаются и ответы, взятые в предварительном туре.
+         * @param questionNumber номер задания.
+         * @return true, если ответ команды на задание засчитан.
          */
-        public boolean[] getAnswerFlags() {
-            return answerFlags;
+        public boolean isAnswerTaken(int questionNumber) {
+            return AcceptanceMatrix.isBitSet(answerBits, 0, questionNumber - minQuestionNumber);
         }
 
         /**
@@ -6,8 +6,11 @@
 package com.github.cdefgah.poetica.reports.summary;
 
 import com.github.cdefgah.poetica.reports.AbstractReportView;
+import com.github.cdefgah.poetica.reports.FixedWidthLineWriter;
 import com.github.cdefgah.poetica.reports.summary.model.SummaryReportModel;
 
+import java.io.IOException;
+
 /**
  * Представление отчёта "Сводка".
  */
@@ -22,34 +25,33 @@ public final class SummaryReportView extends AbstractReportView {
     }
 
     /**
-     * Формирует текст с телом отчёта.
-     * @return текст с телом отчёта.
+     * Выводит текст с телом отчёта.
+     * @param out куда выводить текст отчёта.
+     * @throws IOException если вывод текста завершился ошибкой.
      */
-    public String getReportText() {
-        final StringBuilder sb = new StringBuilder();
-
+    @Override
+    public void renderReport(Appendable out) throws IOException {
         final String notGradedQuestionsMessage = getNotGradedQuestionsMessage();
         if (!notGradedQuestionsMessage.isEmpty()) {
-            sb.append(notGradedQuestionsMessage).append("\n\n");
+            out.append(notGradedQuestionsMessage).append("\n\n");
         }
 
         final SummaryReportModel summaryReportModel = (SummaryReportModel)reportModel;
 
         final String roundName =summaryReportModel.getRoundNumber() == 1 ? "'Предварительный'" : "'Основной'";
 
-        sb.append("Уважаемые знатоки!\n\n");
-        sb.append("С вами говорит робот дежурной команды.\n\n");
-        sb.append("На момент: ").append(reportModel.getReportGeneratedOnMSKTime()).append(" MSK в зачёте ");
-        sb.append(roundName).append(" сданы ответы от команд:\n\n");
+        out.append("Уважаемые знатоки!\n\n");
+        out.append("С вами говорит робот дежурной команды.\n\n");
+        out.append("На момент: ").append(reportModel.getReportGeneratedOnMSKTime()).append(" MSK в зачёте ");
+        out.append(roundName).append(" сданы ответы от команд:\n\n");
 
+        final FixedWidthLineWriter line = new FixedWidthLineWriter(out);
         for (SummaryReportModel.SummaryReportRow row: summaryReportModel.getSummaryReportRows()) {
-            sb.append(row.toString()).append("\n");
+            line.append(row.getTeamTitle()).append("  [").append(row.getEmailsCount()).append(']').endLine();
         }
-        sb.append("\n------------------\n");
-        sb.append("Всего команд: ").append(summaryReportModel.getTotalTeamsCount()).append("\n");
-        sb.append("Всего писем: ").append(summaryReportModel.getTotalEmailsCount()).append("\n");
-        sb.append("\n\n--\n\nGood luck\n\n-Robot\n\n\n-----------------------------------------------");
-
-        return sb.toString();
+        out.append("\n------------------\n");
+        out.append("Всего команд: ").append(String.valueOf(summaryReportModel.getTotalTeamsCount())).append("\n");
+        out.append("Всего писем: ").append(String.valueOf(summaryReportModel.getTotalEmailsCount())).append("\n");
+        out.append("\n\n--\n\nGood luck\n\n-Robot\n\n\n-----------------------------------------------");
     }
 }
@@ -5,9 +5,11 @@
 
 package com.github.cdefgah.poetica.reports.summary.model;
 
-import com.github.cdefgah.poetica.model.Email;
-import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.metrics.ReportPhase;
+import com.github.cdefgah.poetica.metrics.RequestMetricsContext;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
 import com.github.cdefgah.poetica.reports.AbstractReportModel;
+import com.github.cdefgah.poetica.utils.ReadOnlyQueries;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
@@ -19,9 +21,9 @@ import java.util.*;
 public final class SummaryReportModel extends AbstractReportModel {
 
     /**
-     * Таблица для быстрого доступа к команде по её номеру.
+     * Таблица для быстрого доступа к названию команды по её уникальному идентификатору.
      */
-    private final Map<Long, Team> teamMap = new HashMap<>();
+    private final Map<Long, String> teamTitles = new HashMap<>();
 
     /**
      * Номер тура (раунда).
@@ -46,14 +48,20 @@ public final class SummaryReportModel extends AbstractReportModel {
     /**
      * Конструктор класса.
      * @param entityManager менеджер сущностей для работы с базой данных.
+     * @param questionNumberIndex индекс для поиска задания по номеру.
      * @param roundNumber номер раунда (тура).
      */
-    public SummaryReportModel(EntityManager entityManager, int roundNumber) {
-        super(entityManager);
+    public SummaryReportModel(EntityManager entityManager, QuestionNumberIndex questionNumberIndex, int roundNumber) {
+        super(entityManager, questionNumberIndex);
         this.roundNumber = roundNumber;
 
+        final long loadingStartTime = System.nanoTime();
         initializeTeamMap();
+        RequestMetricsContext.recordReportPhase(ReportPhase.LoadingData, loadingStartTime);
+
+        final long mainReportStartTime = System.nanoTime();
         generateReportRows();
+        RequestMetricsContext.recordReportPhase(ReportPhase.MainReport, mainReportStartTime);
     }
 
     /**
@@ -65,50 +73,36 @@ public final class SummaryReportModel extends AbstractReportModel {
     }
 
     /**
-     * Инициализирует таблицу для быстрого доступа к информации о команде по её номеру.
+     * Инициализирует таблицу для быстрого доступа к названию команды по её уникальному идентификатору.
      */
     private void initializeTeamMap() {
-        final TypedQuery<Team> query =
-                                  entityManager.createQuery("select team from Team team", Team.class);
-        final List<Team> teamList = query.getResultList();
-        teamList.forEach(team -> teamMap.put(team.getId(), team));
+        final TypedQuery<Object[]> query = ReadOnlyQueries.readOnly(
+                          entityManager.createQuery("select team.id, team.title from Team team", Object[].class));
+        for (Object[] row : query.getResultList()) {
+            teamTitles.put((Long) row[0], (String) row[1]);
+        }
     }
 
     /**
      * Формирует список строк отчёта.
+     * Письма не загружаются, их количество для каждой команды считает база данных.
      */
     private void generateReportRows() {
-        final TypedQuery<Email> query =
-                           entityManager.createQuery("select email from Email email " +
-                                           "where email.roundNumber=:roundNumber order by email.teamId", Email.class);
+        final TypedQuery<Object[]> query = ReadOnlyQueries.readOnly(
+                           entityManager.createQuery("select email.teamId, count(email.id) from Email email " +
+                                           "where email.roundNumber=:roundNumber group by email.teamId " +
+                                           "order by email.teamId", Object[].class));
 
         query.setParameter("roundNumber", this.roundNumber);
 
-        final List<Email> emailList = query.getResultList();
-        if (emailList.isEmpty()) {
-            return;
-        }
+        for (Object[] row : query.getResultList()) {
+            final int teamEmailsCount = ((Long) row[1]).intValue();
+            summaryReportRows.add(new SummaryReportRow(teamTitles.get((Long) row[0]), teamEmailsCount));
 
-        long processingTeamId = emailList.get(0).getTeamId();
-        this.totalTeamsCount = 1;
-        int teamEmailsCount = 0;
-        for (Email email: emailList) {
-            if (email.getTeamId() == processingTeamId) {
-                teamEmailsCount++;
-            } else {
-                summaryReportRows.add(new SummaryReportRow(teamMap.get(processingTeamId).getTitle(), teamEmailsCount));
-
-                this.totalTeamsCount++;
-                processingTeamId = email.getTeamId();
-                teamEmailsCount = 1;
-            }
+            this.totalTeamsCount++;
+            this.totalEmailsCount += teamEmailsCount;
         }
 
-        // добавляем последнюю команду
-        summaryReportRows.add(new SummaryReportRow(teamMap.get(processingTeamId).getTitle(), teamEmailsCount));
-
-        this.totalEmailsCount = emailList.size();
-
         // сортируем по названию команды
         Collections.sort(summaryReportRows);
     }
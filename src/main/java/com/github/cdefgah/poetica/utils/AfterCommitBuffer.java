@@ -0,0 +1,135 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Накапливает изменения в рамках транзакции и передаёт их обработчику после её фиксации.
+ * Изменения отменённой транзакции отбрасываются, изменения вне транзакции передаются обработчику сразу.
+ * Используется компонентами, которые держат в памяти данные из базы и должны увидеть изменения
+ * только после того, как они станут видны и в базе.
+ * @param <T> тип накопителя изменений одной транзакции.
+ */
+public final class AfterCommitBuffer<T> {
+
+    /**
+     * Создаёт новый накопитель изменений.
+     */
+    private final Supplier<T> changesFactory;
+
+    /**
+     * Обработчик изменений зафиксированной транзакции.
+     */
+    private final Consumer<T> committedChangesHandler;
+
+    /**
+     * Отмечает фиксацию транзакций для проверки загруженных данных, либо null, если это не нужно.
+     */
+    private final StaleGuard staleGuard;
+
+    /**
+     * Конструктор класса.
+     * @param changesFactory создаёт новый накопитель изменений.
+     * @param committedChangesHandler обработчик изменений зафиксированной транзакции.
+     */
+    public AfterCommitBuffer(Supplier<T> changesFactory, Consumer<T> committedChangesHandler) {
+        this(changesFactory, committedChangesHandler, null);
+    }
+
+    /**
+     * Конструктор класса.
+     * @param changesFactory создаёт новый накопитель изменений.
+     * @param committedChangesHandler обработчик изменений зафиксированной транзакции.
+     * @param staleGuard отмечает фиксацию транзакций, от начала фиксации и до окончания работы обработчика.
+     */
+    public AfterCommitBuffer(Supplier<T> changesFactory, Consumer<T> committedChangesHandler,
+                                                                                            StaleGuard staleGuard) {
+        this.changesFactory = changesFactory;
+        this.committedChangesHandler = committedChangesHandler;
+        this.staleGuard = staleGuard;
+    }
+
+    /**
+     * Добавляет изменение в накопитель текущей транзакции.
+     * Если транзакции нет, изменение добавляется в новый накопитель, который сразу передаётся обработчику.
+     * @param change добавляет изменение в накопитель.
+     */
+    public void record(Consumer<T> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            final T changes = changesFactory.get();
+            change.accept(changes);
+            committedChangesHandler.accept(changes);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        TransactionChanges transactionChanges =
+                                    (TransactionChanges) TransactionSynchronizationManager.getResource(this);
+        if (transactionChanges == null) {
+            transactionChanges = new TransactionChanges();
+            TransactionSynchronizationManager.bindResource(this, transactionChanges);
+            TransactionSynchronizationManager.registerSynchronization(transactionChanges);
+        }
+
+        change.accept(transactionChanges.changes);
+    }
+
+    /**
+     * Отмечает, что в текущей транзакции были изменения, когда сами изменения обработчику не нужны.
+     */
+    public void record() {
+        record(changes -> { });
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Накопитель изменений одной транзакции.
+     */
+    private final class TransactionChanges extends TransactionSynchronizationAdapter {
+
+        /**
+         * Изменения транзакции.
+         */
+        final T changes = changesFactory.get();
+
+        /**
+         * true, если транзакция начала фиксацию и отмечена в staleGuard.
+         */
+        private boolean isCommitStarted;
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (staleGuard != null) {
+                isCommitStarted = true;
+                staleGuard.commitStarted();
+            }
+        }
+
+        @Override
+        public void beforeCompletion() {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AfterCommitBuffer.this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (status == STATUS_COMMITTED) {
+                    committedChangesHandler.accept(changes);
+                }
+            } finally {
+                if (isCommitStarted) {
+                    staleGuard.commitFinished();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Создаёт индексы для самых частых запросов к ответам и письмам в базе, созданной в предыдущей версии приложения.
+ * Индексы те-же, что объявлены в аннотациях @Table сущностей Answer и Email,
+ * уже существующие индексы не пересоздаются.
+ */
+@Component
+public class DatabaseIndexesMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseIndexesMigration.class);
+
+    /**
+     * Запросы для создания индексов.
+     */
+    public static final List<String> CREATE_INDEX_STATEMENTS = Collections.unmodifiableList(Arrays.asList(
+            "create index if not exists idx_answers_team_question_sent_on " +
+                                                            "on answers (team_id, question_number, email_sent_on)",
+            "create index if not exists idx_answers_team_question_round_grade " +
+                                                    "on answers (team_id, question_number, round_number, grade)",
+            "create index if not exists idx_answers_question_body_hash on answers (question_id, answer_body_hash)",
+            "create index if not exists idx_answers_team_sent_on on answers (team_id, email_sent_on)",
+            "create index if not exists idx_emails_team_round on emails (team_id, round_number)",
+            "create index if not exists idx_emails_team_sent_on on emails (team_id, sent_on)"
+    ));
+
+    /**
+     * Для выполнения запросов.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Конструктор класса.
+     * @param jdbcTemplate для выполнения запросов.
+     */
+    public DatabaseIndexesMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Создаёт недостающие индексы.
+     */
+    public void createMissingIndexes() {
+        logger.info("Creating missing database indexes...");
+        for (String createIndexStatement : CREATE_INDEX_STATEMENTS) {
+            jdbcTemplate.execute(createIndexStatement);
+        }
+        logger.info("Creating missing database indexes... done");
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import com.github.cdefgah.poetica.grading.AutoGradingIndexManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Досчитывает hash-коды авторских ответов и ответов команд в базе, созданной в предыдущей версии приложения,
+ * либо после смены алгоритма формирования hash-кодов.
+ * Записи обрабатываются порциями по возрастанию идентификатора, hash-коды порции считаются параллельно,
+ * записываются пакетным JDBC запросом, и каждая порция фиксируется в своей транзакции,
+ * так что между порциями соединение с базой доступно для обработки запросов.
+ * Поэтому пересчёт нельзя запускать внутри другой транзакции: порции присоединились бы к ней
+ * и были бы зафиксированы только вместе с ней, а новую транзакцию открыть нельзя,
+ * так как соединение для записи в базу одно, и его держит внешняя транзакция.
+ */
+@Component
+public class HashBackfiller {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashBackfiller.class);
+
+    /**
+     * Для чтения и пакетной записи hash-кодов.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Для фиксации каждой порции в отдельной транзакции.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Для построения индекса оценённых ответов через читающее соединение.
+     */
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    /**
+     * Индекс оценённых ответов в памяти, строится заново после пересчёта hash-кодов ответов.
+     */
+    private final AutoGradingIndexManager autoGradingIndexManager;
+
+    /**
+     * Количество записей в одной порции.
+     */
+    private final int chunkSize;
+
+    /**
+     * Конструктор класса.
+     * @param jdbcTemplate для чтения и пакетной записи hash-кодов.
+     * @param transactionManager менеджер транзакций.
+     * @param autoGradingIndexManager индекс оценённых ответов в памяти.
+     * @param chunkSize количество записей в одной порции.
+     */
+    public HashBackfiller(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                          AutoGradingIndexManager autoGradingIndexManager,
+                          @Value("${poetica.hash-backfill.chunk-size:1000}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Hash backfill chunk size must be positive: " + chunkSize);
+        }
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.autoGradingIndexManager = autoGradingIndexManager;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Досчитывает hash-коды авторских ответов в заданиях.
+     * Заданий немного, а их hash-коды нужны для автоматической оценки ответов, поэтому вызывается синхронно.
+     * Вызывается вне транзакции.
+     */
+    public void backfillQuestions() {
+        backfill("questions", "authors_answer", "authors_answer_hash");
+    }
+
+    /**
+     * Запускает в фоновом потоке пересчёт hash-кодов ответов.
+     * Пока пересчёт идёт, ответы без hash-кодов просто не участвуют в автоматической оценке,
+     * после его завершения индекс оценённых ответов строится заново.
+     */
+    public void startAnswersBackfill() {
+        final Thread backfillThread = new Thread(() -> {
+            try {
+                backfill("answers", "body", "answer_body_hash");
+            } catch (RuntimeException e) {
+                // уже записанные порции остаются, остальные ответы будут пересчитаны при следующем запуске
+                logger.error("Answers hash backfill failed", e);
+            } finally {
+                // пересчитанные hash-коды записаны в обход индекса
+                autoGradingIndexManager.invalidate();
+            }
+
+            // индекс строится в транзакции только для чтения: без транзакции поток занял бы соединение для записи,
+            // удерживая блокировку индекса, которую ждёт транзакция импорта ответов, уже занявшая это соединение
+            try {
+                readOnlyTransactionTemplate.execute(status -> {
+                    autoGradingIndexManager.warmUp();
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // индекс будет построен при первом обращении
+                logger.error("Auto grading index warm up failed", e);
+            }
+        }, "answers-hash-backfill");
+
+        backfillThread.setDaemon(true);
+        backfillThread.start();
+    }
+
+    /**
+     * Досчитывает hash-коды в таблице порциями.
+     * @param tableName имя таблицы.
+     * @param textColumnName имя столбца с текстом.
+     * @param hashColumnName имя столбца с hash-кодом текста.
+     */
+    private void backfill(String tableName, String textColumnName, String hashColumnName) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Hash backfill must run outside of a transaction, " +
+                                                        "otherwise chunks are not committed separately");
+        }
+
+        final int hashLength = TextHasher.getAlgorithm().getHashLength();
+        final String missingHashCondition = "(" + hashColumnName + " is null or length(" + hashColumnName + ")<>?)";
+
+        final long totalCount = jdbcTemplate.queryForObject("select count(*) from " + tableName +
+                                                        " where " + missingHashCondition, Long.class, hashLength);
+        if (totalCount == 0) {
+            return;
+        }
+
+        logger.info("Updating {} in {}: {} rows...", hashColumnName, tableName, totalCount);
+        final String selectChunkSql = "select id, " + textColumnName + " from " + tableName + " where id>? and " +
+                                                                missingHashCondition + " order by id limit " + chunkSize;
+        final String updateSql = "update " + tableName + " set " + hashColumnName + "=? where id=?";
+
+        long lastProcessedId = Long.MIN_VALUE;
+        long processedCount = 0;
+        while (true) {
+            final List<HashedRow> chunk = jdbcTemplate.query(selectChunkSql,
+                    (resultSet, rowNumber) -> new HashedRow(resultSet.getLong(1), resultSet.getString(2)),
+                    lastProcessedId, hashLength);
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            // hash-коды порции считаются в общем fork-join пуле
+            chunk.parallelStream().forEach(HashedRow::calculateHash);
+
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(updateSql, chunk, chunk.size(),
+                    (preparedStatement, row) -> {
+                        preparedStatement.setString(1, row.hash);
+                        preparedStatement.setLong(2, row.id);
+                    }));
+
+            lastProcessedId = chunk.get(chunk.size() - 1).id;
+            processedCount += chunk.size();
+            logger.info("Updating {} in {}: {} of {} rows done", hashColumnName, tableName, processedCount, totalCount);
+        }
+
+        logger.info("Updating {} in {}... done", hashColumnName, tableName);
+    }
+
+    // ===========================================================================================================
+
+    /**
+     * Запись, для которой нужно посчитать hash-код.
+     */
+    private static final class HashedRow {
+
+        /**
+         * Уникальный идентификатор записи.
+         */
+        private final long id;
+
+        /**
+         * Текст для хэширования.
+         */
+        private final String text;
+
+        /**
+         * Рассчитанный hash-код.
+         */
+        private String hash;
+
+        /**
+         * Конструктор класса.
+         * @param id уникальный идентификатор записи.
+         * @param text текст для хэширования.
+         */
+        HashedRow(long id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+
+        /**
+         * Рассчитывает hash-код текста.
+         */
+        void calculateHash() {
+            hash = TextHasher.getHashForRawText(text != null ? text : "");
+        }
+    }
+}
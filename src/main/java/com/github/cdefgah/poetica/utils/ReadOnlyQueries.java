@@ -0,0 +1,40 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import org.hibernate.annotations.QueryHints;
+
+import javax.persistence.TypedQuery;
+
+/**
+ * Настраивает запросы, результаты которых только читаются.
+ */
+public final class ReadOnlyQueries {
+
+    /**
+     * Количество строк, которые драйвер забирает из базы за одно обращение.
+     */
+    public static final int FETCH_SIZE = 500;
+
+    /**
+     * Закрытый конструктор, экземпляры не нужны.
+     */
+    private ReadOnlyQueries() {
+    }
+
+    /**
+     * Помечает запрос как только для чтения: загруженные сущности не проверяются на изменения при flush
+     * и Hibernate не хранит для них снимки состояния. Также задаёт размер порции выборки.
+     * @param query запрос.
+     * @param <T> тип результата запроса.
+     * @return тот-же запрос.
+     */
+    public static <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        query.setHint(QueryHints.READ_ONLY, true);
+        query.setHint(QueryHints.FETCH_SIZE, FETCH_SIZE);
+        return query;
+    }
+}
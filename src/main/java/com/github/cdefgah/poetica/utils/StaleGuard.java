@@ -0,0 +1,69 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Определяет, могли-ли данные, загруженные из базы в память, разойтись с изменениями,
+ * которые параллельно фиксировали другие транзакции.
+ * Фиксацию транзакций отмечает {@link AfterCommitBuffer}, загрузка данных выглядит так:
+ * <pre>
+ *     final long loadStamp = staleGuard.beginLoad();
+ *     data = load();
+ *     isStale = staleGuard.isStale(loadStamp);
+ * </pre>
+ * Если во время загрузки какая-то транзакция фиксировала изменения, неизвестно, попали-ли они
+ * в прочитанные данные, поэтому данные считаются устаревшими и загружаются заново при следующем обращении.
+ */
+public final class StaleGuard {
+
+    /**
+     * Количество транзакций с изменениями, которые начали фиксацию, но ещё не применили изменения.
+     */
+    private final AtomicInteger committingTransactionsCount = new AtomicInteger();
+
+    /**
+     * Общее количество транзакций с изменениями, которые начали фиксацию.
+     */
+    private final AtomicLong startedCommitsCount = new AtomicLong();
+
+    /**
+     * Вызывается перед загрузкой данных из базы.
+     * @return отметка начала загрузки, передаётся в {@link #isStale(long)}.
+     */
+    public long beginLoad() {
+        // общее количество читаем первым: фиксация, начавшаяся после этого, изменит его,
+        // а начавшаяся раньше и ещё не завершённая видна по количеству фиксируемых транзакций
+        final long startedCommitsBeforeLoad = startedCommitsCount.get();
+        return committingTransactionsCount.get() > 0 ? -1 : startedCommitsBeforeLoad;
+    }
+
+    /**
+     * Вызывается после загрузки данных из базы.
+     * @param loadStamp отметка начала загрузки, полученная из {@link #beginLoad()}.
+     * @return true, если во время загрузки какая-то транзакция фиксировала изменения.
+     */
+    public boolean isStale(long loadStamp) {
+        return loadStamp < 0 || startedCommitsCount.get() != loadStamp;
+    }
+
+    /**
+     * Отмечает, что транзакция с изменениями начала фиксацию.
+     */
+    void commitStarted() {
+        committingTransactionsCount.incrementAndGet();
+        startedCommitsCount.incrementAndGet();
+    }
+
+    /**
+     * Отмечает, что транзакция с изменениями завершилась и её изменения применены.
+     */
+    void commitFinished() {
+        committingTransactionsCount.decrementAndGet();
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Формирует hash-коды нормализованного текста ответов для поиска одинаковых ответов.
+ * Алгоритм задаётся при запуске приложения, по умолчанию используется SHA-512,
+ * hash-коды которого хранятся в базах, созданных в предыдущих версиях приложения.
+ */
+public final class TextHasher {
+
+    /**
+     * Алгоритмы формирования hash-кодов.
+     */
+    public enum Algorithm {
+
+        /**
+         * SHA-512, hash-код из 128 шестнадцатеричных символов.
+         */
+        SHA512(128),
+
+        /**
+         * MurmurHash3 x64 128-бит, некриптографический, заметно быстрее SHA-512.
+         * Hash-код из 32 шестнадцатеричных символов.
+         */
+        MURMUR3_128(32);
+
+        /**
+         * Длина hash-кода в символах.
+         */
+        private final int hashLength;
+
+        /**
+         * Конструктор.
+         * @param hashLength длина hash-кода в символах.
+         */
+        Algorithm(int hashLength) {
+            this.hashLength = hashLength;
+        }
+
+        /**
+         * Отдаёт длину hash-кода в символах.
+         * @return длина hash-кода в символах.
+         */
+        public int getHashLength() {
+            return hashLength;
+        }
+    }
+
+    /**
+     * Шестнадцатеричные цифры для формирования строки hash-кода.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Экземпляры SHA-512 для каждого потока, MessageDigest не потокобезопасный, а создавать его на каждый вызов дорого.
+     */
+    private static final ThreadLocal<MessageDigest> SHA512_DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-512");
+        } catch (NoSuchAlgorithmException ex) {
+            // выполнение сюда не должно попадать
+            throw new RuntimeException(ex);
+        }
+    });
+
+    /**
+     * Текущий алгоритм формирования hash-кодов.
+     */
+    private static volatile Algorithm algorithm = Algorithm.SHA512;
+
+    /**
+     * Закрытый конструктор, экземпляры не нужны.
+     */
+    private TextHasher() {
+    }
+
+    /**
+     * Отдаёт текущий алгоритм формирования hash-кодов.
+     * @return текущий алгоритм формирования hash-кодов.
+     */
+    public static Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Задаёт алгоритм формирования hash-кодов.
+     * Hash-коды, сформированные другим алгоритмом, нужно пересчитать.
+     * @param newAlgorithm алгоритм формирования hash-кодов.
+     */
+    public static void setAlgorithm(Algorithm newAlgorithm) {
+        algorithm = newAlgorithm;
+    }
+
+    /**
+     * Формирует hash-код из ненормализованного текста текущим алгоритмом.
+     * @param textToHash текст, который нужно хэшировать.
+     * @return строка с hash-кодом для переданного текста.
+     */
+    public static String getHashForRawText(String textToHash) {
+        final byte[] bytes = normalizeText(textToHash).getBytes(StandardCharsets.UTF_8);
+        return algorithm == Algorithm.MURMUR3_128 ? toHexString(murmur3Hash128(bytes)) :
+                                                                        toHexString(SHA512_DIGESTS.get().digest(bytes));
+    }
+
+    /**
+     * Убирает все пробелы, табуляции и переводы строк между словами, и проставляет по одному пробелу между ними.
+     * Результат тот-же, что и у последовательности replaceAll("[\\t\\n\\r]+", " "), replaceAll(" +", " ")
+     * и trim(), но текст обходится один раз, а уже нормализованный текст возвращается без копирования.
+     * @param textToNormalize текст для нормализации.
+     * @return нормализованный текст.
+     */
+    public static String normalizeText(String textToNormalize) {
+        // как и trim(), отбрасываем по краям все символы с кодами до пробела включительно,
+        // внутри текста они остаются на месте, схлопываются только пробелы, табуляции и переводы строк
+        int start = 0;
+        int end = textToNormalize.length();
+        while (start < end && textToNormalize.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && textToNormalize.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        StringBuilder normalizedText = null;
+        boolean previousIsBlank = false;
+        for (int i = start; i < end; i++) {
+            final char currentChar = textToNormalize.charAt(i);
+            final boolean isBlank = currentChar == ' ' || currentChar == '\t' ||
+                                                                    currentChar == '\n' || currentChar == '\r';
+
+            if (normalizedText == null && isBlank && (currentChar != ' ' || previousIsBlank)) {
+                // текст придётся менять, копируем уже пройденную часть
+                normalizedText = new StringBuilder(end - start);
+                normalizedText.append(textToNormalize, start, previousIsBlank ? i - 1 : i);
+                if (previousIsBlank) {
+                    normalizedText.append(' ');
+                }
+            }
+
+            if (normalizedText != null) {
+                if (!isBlank) {
+                    normalizedText.append(currentChar);
+                } else if (!previousIsBlank) {
+                    normalizedText.append(' ');
+                }
+            }
+
+            previousIsBlank = isBlank;
+        }
+
+        if (normalizedText != null) {
+            return normalizedText.toString();
+        }
+
+        return start == 0 && end == textToNormalize.length() ? textToNormalize :
+                                                                        textToNormalize.substring(start, end);
+    }
+
+    /**
+     * Формирует строку из шестнадцатеричных цифр.
+     * @param bytes массив байтов.
+     * @return строка из шестнадцатеричных цифр в нижнем регистре.
+     */
+    private static String toHexString(byte[] bytes) {
+        final char[] hexChars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hexChars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            hexChars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+
+        return new String(hexChars);
+    }
+
+    /**
+     * Формирует 128-битный hash-код MurmurHash3 (вариант x64) с нулевым начальным значением.
+     * @param data данные для хэширования.
+     * @return hash-код, 16 байт.
+     */
+    static byte[] murmur3Hash128(byte[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+
+        long h1 = 0;
+        long h2 = 0;
+
+        final int blocksCount = data.length / 16;
+        for (int i = 0; i < blocksCount; i++) {
+            long k1 = getLittleEndianLong(data, i * 16);
+            long k2 = getLittleEndianLong(data, i * 16 + 8);
+
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        // хвост, не кратный 16 байтам
+        final int tailStart = blocksCount * 16;
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = data.length - tailStart - 1; i >= 0; i--) {
+            final long tailByte = data[tailStart + i] & 0xffL;
+            if (i >= 8) {
+                k2 ^= tailByte << ((i - 8) * 8);
+            } else {
+                k1 ^= tailByte << (i * 8);
+            }
+        }
+
+        if (k2 != 0) {
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+        }
+
+        if (k1 != 0) {
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+        }
+
+        h1 ^= data.length;
+        h2 ^= data.length;
+
+        h1 += h2;
+        h2 += h1;
+
+        h1 = finalizationMix(h1);
+        h2 = finalizationMix(h2);
+
+        h1 += h2;
+        h2 += h1;
+
+        final byte[] hash = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            hash[i] = (byte) (h1 >>> (i * 8));
+            hash[i + 8] = (byte) (h2 >>> (i * 8));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Читает 8 байт как long в порядке little-endian.
+     * @param data массив байтов.
+     * @param offset смещение первого байта.
+     * @return прочитанное значение.
+     */
+    private static long getLittleEndianLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xffL);
+        }
+
+        return value;
+    }
+
+    /**
+     * Финальное перемешивание битов MurmurHash3.
+     * @param value исходное значение.
+     * @return перемешанное значение.
+     */
+    private static long finalizationMix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
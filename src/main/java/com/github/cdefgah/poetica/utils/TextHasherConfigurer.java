@@ -0,0 +1,25 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Задаёт алгоритм формирования hash-кодов ответов из настроек приложения.
+ * Hash-коды, сформированные другим алгоритмом, пересчитываются при запуске приложения в {@link HashBackfiller}.
+ */
+@Component
+public class TextHasherConfigurer {
+
+    /**
+     * Конструктор класса.
+     * @param algorithm алгоритм формирования hash-кодов.
+     */
+    public TextHasherConfigurer(@Value("${poetica.answers.hash-algorithm:SHA512}") TextHasher.Algorithm algorithm) {
+        TextHasher.setAlgorithm(algorithm);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks;
+
+import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.model.Question;
+import com.github.cdefgah.poetica.testsupport.SyntheticDataset;
+import com.github.cdefgah.poetica.utils.TextHasher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеряет время формирования hash-кодов текстов ответов и авторских ответов,
+ * которые рассчитываются при установке текста в объекты ответа и задания.
+ * База данных не нужна.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnswerHashingBenchmark {
+
+    /**
+     * Количество различных текстов, которые хэшируются по кругу.
+     */
+    private static final int TEXTS_COUNT = 1024;
+
+    /**
+     * Алгоритм формирования hash-кодов.
+     */
+    @Param({"SHA512", "MURMUR3_128"})
+    public String algorithm;
+
+    /**
+     * Тексты ответов, в том числе с лишними пробелами и переводами строк, которые убираются при нормализации.
+     */
+    private final String[] texts = new String[TEXTS_COUNT];
+
+    /**
+     * Индекс следующего текста.
+     */
+    private int nextTextIndex;
+
+    /**
+     * Ответ, в который устанавливается текст.
+     */
+    private final Answer answer = new Answer();
+
+    /**
+     * Задание, в которое устанавливается авторский ответ.
+     */
+    private final Question question = new Question();
+
+    /**
+     * Выбирает алгоритм и формирует тексты.
+     */
+    @Setup(Level.Trial)
+    public void prepareTexts() {
+        TextHasher.setAlgorithm(TextHasher.Algorithm.valueOf(algorithm));
+
+        final SyntheticDataset dataset = new SyntheticDataset(1, TEXTS_COUNT, 0, 0, "1:1:1", 42);
+        for (int i = 0; i < TEXTS_COUNT; i++) {
+            final String body = dataset.getAnswerBody(i + 1, i % SyntheticDataset.ANSWER_VARIANTS_PER_QUESTION_NUMBER);
+            texts[i] = i % 4 == 0 ? "  " + body.replace(" ", "  \t") + "\n" : body;
+        }
+    }
+
+    /**
+     * Устанавливает текст ответа, вместе с ним рассчитывается hash-код.
+     * @return hash-код текста ответа.
+     */
+    @Benchmark
+    public String hashAnswerBody() {
+        answer.setBody(getNextText());
+        return answer.getAnswerBodyHash();
+    }
+
+    /**
+     * Устанавливает авторский ответ задания, вместе с ним рассчитывается hash-код.
+     * @return hash-код авторского ответа.
+     */
+    @Benchmark
+    public String hashAuthorsAnswer() {
+        question.setAuthorsAnswer(getNextText());
+        return question.getAuthorsAnswerHash();
+    }
+
+    /**
+     * Отдаёт следующий текст по кругу.
+     * @return текст ответа.
+     */
+    private String getNextText() {
+        final String text = texts[nextTextIndex];
+        nextTextIndex = (nextTextIndex + 1) % TEXTS_COUNT;
+        return text;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks;
+
+import com.github.cdefgah.poetica.controllers.AnswersController;
+import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.testsupport.SyntheticDataset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеряет время импорта ответов из одного письма через контроллер, вместе с автоматической оценкой ответов.
+ * Перед каждым импортом в базу добавляется новое письмо, после импорта оно удаляется вместе с ответами,
+ * так что база данных не растёт от замера к замеру.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnswersImportBenchmark {
+
+    /**
+     * Номер тура (раунда), на который импортируются ответы.
+     */
+    private static final int ROUND_NUMBER = 2;
+
+    /**
+     * Количество ответов в письме.
+     */
+    @Param("500")
+    public int answersCount;
+
+    /**
+     * Приложение с синтетическим набором данных.
+     */
+    private PoeticaContextState state;
+
+    /**
+     * Контроллер, через который импортируются ответы.
+     */
+    private AnswersController answersController;
+
+    /**
+     * Для выполнения запросов.
+     */
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Уникальный идентификатор команды, от которой импортируются ответы.
+     */
+    private long teamId;
+
+    /**
+     * Время отправки последнего добавленного письма.
+     */
+    private long emailSentOn;
+
+    /**
+     * Генератор случайных чисел для ответов.
+     */
+    private final Random random = new Random(7);
+
+    /**
+     * Уникальный идентификатор письма для очередного импорта.
+     */
+    private long emailId;
+
+    /**
+     * Ответы для очередного импорта.
+     */
+    private Answer[] answersToImport;
+
+    /**
+     * Выбирает команду и время отправки писем, которое позже всех писем в наборе данных.
+     * @param state приложение с синтетическим набором данных.
+     */
+    @Setup(Level.Trial)
+    public void chooseTeam(PoeticaContextState state) {
+        this.state = state;
+        answersController = state.getBean(AnswersController.class);
+        jdbcTemplate = state.getBean(JdbcTemplate.class);
+
+        teamId = jdbcTemplate.queryForObject("select min(id) from teams", Long.class);
+        emailSentOn = jdbcTemplate.queryForObject("select max(sent_on) from emails", Long.class);
+    }
+
+    /**
+     * Добавляет письмо и формирует ответы для импорта.
+     */
+    @Setup(Level.Invocation)
+    public void prepareEmail() {
+        emailSentOn += 1000;
+        emailId = state.executeInTransaction(() -> SyntheticDataset.insertEmail(jdbcTemplate, teamId, ROUND_NUMBER,
+                                        emailSentOn, "1-" + state.getDataset().getMaxQuestionNumber()));
+
+        answersToImport = state.getDataset().createAnswersToImport(teamId, emailId, ROUND_NUMBER, emailSentOn,
+                                                                                            answersCount, random);
+    }
+
+    /**
+     * Удаляет письмо вместе с импортированными ответами.
+     * Удаление идёт в обход приложения, чтобы не сбрасывать индексы в памяти,
+     * оценки удалённых ответов в них уже были и не изменились.
+     */
+    @TearDown(Level.Invocation)
+    public void deleteEmail() {
+        state.executeInTransaction(() -> {
+            jdbcTemplate.update("delete from answers where email_id=?", emailId);
+            return jdbcTemplate.update("delete from emails where id=?", emailId);
+        });
+    }
+
+    /**
+     * Импортирует ответы через контроллер, в его транзакции.
+     * @return ответ контроллера.
+     */
+    @Benchmark
+    public ResponseEntity<String> importAnswers() {
+        final ResponseEntity<String> response = answersController.importAnswers(answersToImport);
+        if (response.getStatusCode() != HttpStatus.OK) {
+            throw new IllegalStateException("Answers import failed: " + response.getBody());
+        }
+
+        return response;
+    }
+}
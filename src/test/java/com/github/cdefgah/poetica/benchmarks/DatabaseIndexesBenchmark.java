@@ -0,0 +1,221 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks;
+
+import com.github.cdefgah.poetica.utils.DatabaseIndexesMigration;
+import com.github.cdefgah.poetica.utils.TextHasher;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Замеряет время самых частых запросов к ответам и письмам до и после создания индексов
+ * на синтетической базе SQLite со 100 000 ответов.
+ * Запускается вручную, в составе тестов не выполняется:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.github.cdefgah.poetica.benchmarks.DatabaseIndexesBenchmark
+ */
+public final class DatabaseIndexesBenchmark {
+
+    private static final int ANSWERS_COUNT = 100_000;
+    private static final int TEAMS_COUNT = 500;
+    private static final int QUESTIONS_COUNT = 100;
+    private static final int ROUNDS_COUNT = 2;
+    private static final int DISTINCT_BODIES_PER_QUESTION = 50;
+    private static final int ITERATIONS = 200;
+
+    private static final String[] GRADES = {"None", "Accepted", "NotAccepted"};
+
+    /**
+     * Запросы, время которых замеряется.
+     */
+    private static final Map<String, BenchmarkQuery> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("answers by team, question, ordered by sent on", new BenchmarkQuery(
+                "select id, body from answers where team_id=? and question_number=? order by email_sent_on",
+                (statement, random) -> {
+                    statement.setLong(1, random.nextInt(TEAMS_COUNT) + 1);
+                    statement.setInt(2, random.nextInt(QUESTIONS_COUNT) + 1);
+                }));
+        QUERIES.put("answers count by team, question, round, grade", new BenchmarkQuery(
+                "select count(*) from answers where team_id=? and question_number=? and round_number=? and grade=?",
+                (statement, random) -> {
+                    statement.setLong(1, random.nextInt(TEAMS_COUNT) + 1);
+                    statement.setInt(2, random.nextInt(QUESTIONS_COUNT) + 1);
+                    statement.setInt(3, random.nextInt(ROUNDS_COUNT) + 1);
+                    statement.setString(4, GRADES[random.nextInt(GRADES.length)]);
+                }));
+        QUERIES.put("graded answer by question and body hash", new BenchmarkQuery(
+                "select grade from answers where question_id=? and answer_body_hash=? and grade<>'None' limit 1",
+                (statement, random) -> {
+                    final int questionNumber = random.nextInt(QUESTIONS_COUNT) + 1;
+                    statement.setLong(1, questionNumber);
+                    statement.setString(2, TextHasher.getHashForRawText(getAnswerBody(questionNumber,
+                                                                    random.nextInt(DISTINCT_BODIES_PER_QUESTION))));
+                }));
+        QUERIES.put("emails by team and round", new BenchmarkQuery(
+                "select * from emails where team_id=? and round_number=?",
+                (statement, random) -> {
+                    statement.setLong(1, random.nextInt(TEAMS_COUNT) + 1);
+                    statement.setInt(2, random.nextInt(ROUNDS_COUNT) + 1);
+                }));
+        QUERIES.put("emails by round, ordered by team", new BenchmarkQuery(
+                "select * from emails where round_number=? order by team_id",
+                (statement, random) -> statement.setInt(1, random.nextInt(ROUNDS_COUNT) + 1)));
+    }
+
+    private DatabaseIndexesBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final File databaseFile = File.createTempFile("poetica-indexes-benchmark", ".sqlite");
+        databaseFile.deleteOnExit();
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath())) {
+            createSchema(connection);
+            fillSyntheticData(connection);
+
+            final Map<String, Double> latenciesBefore = measureQueries(connection);
+
+            try (Statement statement = connection.createStatement()) {
+                for (String createIndexStatement : DatabaseIndexesMigration.CREATE_INDEX_STATEMENTS) {
+                    statement.execute(createIndexStatement);
+                }
+                statement.execute("analyze");
+            }
+
+            final Map<String, Double> latenciesAfter = measureQueries(connection);
+
+            System.out.println(String.format("%-50s %14s %14s %10s", "query", "before, us", "after, us", "speedup"));
+            for (String queryName : QUERIES.keySet()) {
+                final double before = latenciesBefore.get(queryName);
+                final double after = latenciesAfter.get(queryName);
+                System.out.println(String.format("%-50s %14.1f %14.1f %9.1fx", queryName, before, after,
+                                                                                                before / after));
+            }
+        }
+    }
+
+    private static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table answers (id integer primary key, answer_body_hash varchar(255), " +
+                    "body varchar(1024) not null, comment varchar(256), email_id bigint not null, " +
+                    "email_sent_on bigint not null, grade varchar(255) not null, question_id bigint not null, " +
+                    "question_number integer not null, round_number integer not null, team_id bigint not null)");
+            statement.execute("create table emails (id integer primary key, body varchar(32768) not null, " +
+                    "imported_on bigint not null, question_numbers_sequence varchar(2048) not null, " +
+                    "round_number integer not null, sent_on bigint not null, subject varchar(256), " +
+                    "team_id bigint not null)");
+        }
+    }
+
+    private static void fillSyntheticData(Connection connection) throws SQLException {
+        final Random random = new Random(42);
+        connection.setAutoCommit(false);
+
+        final int emailsPerTeam = 4;
+        try (PreparedStatement insertEmail = connection.prepareStatement("insert into emails (id, body, " +
+                "imported_on, question_numbers_sequence, round_number, sent_on, subject, team_id) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int teamId = 1; teamId <= TEAMS_COUNT; teamId++) {
+                for (int i = 0; i < emailsPerTeam; i++) {
+                    insertEmail.setLong(1, (long) (teamId - 1) * emailsPerTeam + i + 1);
+                    insertEmail.setString(2, "письмо");
+                    insertEmail.setLong(3, i);
+                    insertEmail.setString(4, "1-" + QUESTIONS_COUNT);
+                    insertEmail.setInt(5, i % ROUNDS_COUNT + 1);
+                    insertEmail.setLong(6, i);
+                    insertEmail.setString(7, "тема");
+                    insertEmail.setLong(8, teamId);
+                    insertEmail.addBatch();
+                }
+            }
+            insertEmail.executeBatch();
+        }
+
+        try (PreparedStatement insertAnswer = connection.prepareStatement("insert into answers (answer_body_hash, " +
+                "body, email_id, email_sent_on, grade, question_id, question_number, round_number, team_id) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ANSWERS_COUNT; i++) {
+                final int teamId = random.nextInt(TEAMS_COUNT) + 1;
+                final int questionNumber = random.nextInt(QUESTIONS_COUNT) + 1;
+                final int emailIndex = random.nextInt(emailsPerTeam);
+                final String body = getAnswerBody(questionNumber, random.nextInt(DISTINCT_BODIES_PER_QUESTION));
+
+                insertAnswer.setString(1, TextHasher.getHashForRawText(body));
+                insertAnswer.setString(2, body);
+                insertAnswer.setLong(3, (long) (teamId - 1) * emailsPerTeam + emailIndex + 1);
+                insertAnswer.setLong(4, emailIndex);
+                insertAnswer.setString(5, GRADES[random.nextInt(GRADES.length)]);
+                insertAnswer.setLong(6, questionNumber);
+                insertAnswer.setInt(7, questionNumber);
+                insertAnswer.setInt(8, emailIndex % ROUNDS_COUNT + 1);
+                insertAnswer.setLong(9, teamId);
+                insertAnswer.addBatch();
+            }
+            insertAnswer.executeBatch();
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private static Map<String, Double> measureQueries(Connection connection) throws SQLException {
+        final Map<String, Double> latencies = new LinkedHashMap<>();
+        for (Map.Entry<String, BenchmarkQuery> query : QUERIES.entrySet()) {
+            try (PreparedStatement statement = connection.prepareStatement(query.getValue().sql)) {
+                // прогрев
+                runQuery(statement, query.getValue().parametersBinder, new Random(1), ITERATIONS / 10);
+
+                final long startTime = System.nanoTime();
+                runQuery(statement, query.getValue().parametersBinder, new Random(7), ITERATIONS);
+                latencies.put(query.getKey(), (System.nanoTime() - startTime) / 1000.0 / ITERATIONS);
+            }
+        }
+
+        return latencies;
+    }
+
+    private static void runQuery(PreparedStatement statement, ParametersBinder parametersBinder, Random random,
+                                                                            int iterations) throws SQLException {
+        for (int i = 0; i < iterations; i++) {
+            parametersBinder.bind(statement, random);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    resultSet.getObject(1);
+                }
+            }
+        }
+    }
+
+    private static String getAnswerBody(int questionNumber, int variant) {
+        return "ответ " + variant + " на задание " + questionNumber;
+    }
+
+    @FunctionalInterface
+    private interface ParametersBinder {
+        void bind(PreparedStatement statement, Random random) throws SQLException;
+    }
+
+    private static final class BenchmarkQuery {
+        private final String sql;
+        private final ParametersBinder parametersBinder;
+
+        BenchmarkQuery(String sql, ParametersBinder parametersBinder) {
+            this.sql = sql;
+            this.parametersBinder = parametersBinder;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks;
+
+import com.github.cdefgah.poetica.PoeticaApplication;
+import com.github.cdefgah.poetica.emails.EmailsCountRegistry;
+import com.github.cdefgah.poetica.grading.AutoGradingIndexManager;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndex;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndexHolder;
+import com.github.cdefgah.poetica.reports.ReportsCache;
+import com.github.cdefgah.poetica.reports.restable.live.LiveResultsTableManager;
+import com.github.cdefgah.poetica.testsupport.SyntheticDataset;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Приложение без веб-сервера, запущенное на базе данных с синтетическим набором данных.
+ * База данных - H2 в памяти, либо SQLite во временном файле с теми-же настройками, что и в рабочей конфигурации.
+ * Приложение запускается один раз на весь бенчмарк, для каждого сочетания параметров - в отдельном процессе.
+ */
+@State(Scope.Benchmark)
+public class PoeticaContextState {
+
+    /**
+     * База данных H2 в памяти.
+     */
+    public static final String H2_DATABASE = "h2";
+
+    /**
+     * База данных SQLite во временном файле.
+     */
+    public static final String SQLITE_DATABASE = "sqlite";
+
+    /**
+     * Рабочая конфигурация приложения, в дистрибутиве она лежит в каталоге config рядом с приложением,
+     * а в classpath не попадает. Путь задан относительно каталога проекта, из которого запускаются бенчмарки.
+     */
+    private static final String CONFIG_LOCATION = "file:src/main/resources/application.properties";
+
+    /**
+     * Начальное значение генератора случайных чисел для набора данных.
+     */
+    private static final long DATASET_SEED = 42;
+
+    /**
+     * Тип базы данных.
+     */
+    @Param({H2_DATABASE, SQLITE_DATABASE})
+    public String database;
+
+    /**
+     * Количество команд.
+     */
+    @Param("200")
+    public int teamsCount;
+
+    /**
+     * Количество заданий.
+     */
+    @Param("60")
+    public int questionsCount;
+
+    /**
+     * Сколько из заданий имеют два внутренних номера.
+     */
+    @Param("6")
+    public int multiNumberQuestionsCount;
+
+    /**
+     * Количество ответов каждой команды.
+     */
+    @Param("80")
+    public int answersPerTeam;
+
+    /**
+     * Соотношение оценок ответов в виде "зачтено:не зачтено:без оценки".
+     */
+    @Param("70:25:5")
+    public String gradeMix;
+
+    /**
+     * Файл базы данных SQLite, либо null для базы данных в памяти.
+     */
+    private File databaseFile;
+
+    /**
+     * Запущенное приложение.
+     */
+    private ConfigurableApplicationContext applicationContext;
+
+    /**
+     * Синтетический набор данных, которым заполнена база данных.
+     */
+    private SyntheticDataset dataset;
+
+    /**
+     * Менеджер сущностей, привязанный к текущей транзакции.
+     */
+    private EntityManager entityManager;
+
+    /**
+     * Для выполнения кода в транзакции.
+     */
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Для выполнения кода в транзакции только для чтения.
+     */
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    /**
+     * Запускает приложение и заполняет базу данных.
+     * @throws IOException если не удалось создать файл базы данных.
+     */
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        // журнал в файл не пишем, пустое значение можно задать только системным свойством
+        System.setProperty("logging.file.name", "");
+
+        final List<String> arguments = new ArrayList<>(Arrays.asList(
+                "--spring.config.location=" + CONFIG_LOCATION,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+
+        switch (database) {
+            case H2_DATABASE:
+                arguments.add("--spring.datasource.url=jdbc:h2:mem:poetica-benchmark;DB_CLOSE_DELAY=-1");
+                arguments.add("--spring.datasource.driver-class-name=org.h2.Driver");
+                arguments.add("--poetica.datasource.read-write-split=false");
+                break;
+
+            case SQLITE_DATABASE:
+                // SQLite не считает пустой файл базой данных, файл создаст само приложение
+                databaseFile = File.createTempFile("poetica-benchmark", ".sqlite");
+                Files.delete(databaseFile.toPath());
+                arguments.add("--spring.datasource.url=jdbc:sqlite:" + databaseFile.getAbsolutePath());
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unsupported database: " + database);
+        }
+
+        applicationContext = new SpringApplicationBuilder(PoeticaApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(arguments.toArray(new String[0]));
+
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                                                                    getBean(EntityManagerFactory.class));
+        final PlatformTransactionManager transactionManager = getBean(PlatformTransactionManager.class);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+
+        dataset = new SyntheticDataset(teamsCount, questionsCount, multiNumberQuestionsCount, answersPerTeam,
+                                                                                            gradeMix, DATASET_SEED);
+        final JdbcTemplate jdbcTemplate = getBean(JdbcTemplate.class);
+        transactionTemplate.execute(status -> {
+            dataset.fill(jdbcTemplate);
+            return null;
+        });
+
+        // данные вставлены в обход приложения, всё, что оно успело загрузить в память при запуске, устарело
+        getBean(QuestionNumberIndexHolder.class).invalidate();
+        getBean(AutoGradingIndexManager.class).invalidate();
+        getBean(EmailsCountRegistry.class).invalidate();
+        getBean(LiveResultsTableManager.class).invalidate();
+        getBean(ReportsCache.class).bumpDataVersion();
+    }
+
+    /**
+     * Останавливает приложение и удаляет файл базы данных.
+     */
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        if (applicationContext != null) {
+            applicationContext.close();
+        }
+
+        if (databaseFile != null) {
+            for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                new File(databaseFile.getAbsolutePath() + suffix).delete();
+            }
+        }
+    }
+
+    /**
+     * Отдаёт компонент приложения.
+     * @param beanClass класс компонента.
+     * @param <T> тип компонента.
+     * @return компонент приложения.
+     */
+    public <T> T getBean(Class<T> beanClass) {
+        return applicationContext.getBean(beanClass);
+    }
+
+    /**
+     * Отдаёт синтетический набор данных, которым заполнена база данных.
+     * @return синтетический набор данных.
+     */
+    public SyntheticDataset getDataset() {
+        return dataset;
+    }
+
+    /**
+     * Отдаёт менеджер сущностей, привязанный к текущей транзакции.
+     * @return менеджер сущностей.
+     */
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    /**
+     * Отдаёт индекс для поиска задания по номеру, вызывать нужно в транзакции.
+     * @return индекс для поиска задания по номеру.
+     */
+    public QuestionNumberIndex getQuestionNumberIndex() {
+        return getBean(QuestionNumberIndexHolder.class).getIndex();
+    }
+
+    /**
+     * Выполняет код в транзакции.
+     * @param action выполняемый код.
+     * @param <T> тип результата.
+     * @return результат выполнения кода.
+     */
+    public <T> T executeInTransaction(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    /**
+     * Выполняет код в транзакции только для чтения, как это делают контроллеры при формировании отчётов.
+     * @param action выполняемый код.
+     * @param <T> тип результата.
+     * @return результат выполнения кода.
+     */
+    public <T> T executeReadOnly(Supplier<T> action) {
+        return readOnlyTransactionTemplate.execute(status -> action.get());
+    }
+}
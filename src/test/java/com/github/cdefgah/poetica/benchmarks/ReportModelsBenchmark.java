@@ -0,0 +1,93 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks;
+
+import com.github.cdefgah.poetica.reports.collection.model.CollectionReportModel;
+import com.github.cdefgah.poetica.reports.restable.model.ResultTableReportModel;
+import com.github.cdefgah.poetica.reports.summary.model.SummaryReportModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеряет время построения моделей отчётов, включая загрузку данных из базы,
+ * каждая модель строится в своей транзакции только для чтения, как при запросе отчёта.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportModelsBenchmark {
+
+    /**
+     * Строит модель отчёта "Таблица результатов".
+     * @param state приложение с синтетическим набором данных.
+     * @return построенная модель отчёта.
+     */
+    @Benchmark
+    public ResultTableReportModel generateResultTableReport(PoeticaContextState state) {
+        return state.executeReadOnly(() -> {
+            final ResultTableReportModel reportModel = new ResultTableReportModel(state.getEntityManager(),
+                                                                                    state.getQuestionNumberIndex());
+            reportModel.generateReport();
+            return reportModel;
+        });
+    }
+
+    /**
+     * Строит модель отчёта "Собрание сочинений".
+     * @param state приложение с синтетическим набором данных.
+     * @return построенная модель отчёта.
+     */
+    @Benchmark
+    public CollectionReportModel generateCollectionReport(PoeticaContextState state) {
+        return state.executeReadOnly(() -> {
+            final CollectionReportModel reportModel = new CollectionReportModel(state.getEntityManager(),
+                                                                                    state.getQuestionNumberIndex());
+            reportModel.generateReport();
+            return reportModel;
+        });
+    }
+
+    /**
+     * Строит модель отчёта "Сводка" за предварительный тур.
+     * @param state приложение с синтетическим набором данных.
+     * @return построенная модель отчёта.
+     */
+    @Benchmark
+    public SummaryReportModel generatePreliminaryRoundSummaryReport(PoeticaContextState state) {
+        return generateSummaryReport(state, 1);
+    }
+
+    /**
+     * Строит модель отчёта "Сводка" за основной тур.
+     * @param state приложение с синтетическим набором данных.
+     * @return построенная модель отчёта.
+     */
+    @Benchmark
+    public SummaryReportModel generateMainRoundSummaryReport(PoeticaContextState state) {
+        return generateSummaryReport(state, 2);
+    }
+
+    /**
+     * Строит модель отчёта "Сводка", модель загружает данные в конструкторе.
+     * @param state приложение с синтетическим набором данных.
+     * @param roundNumber номер тура (раунда).
+     * @return построенная модель отчёта.
+     */
+    private static SummaryReportModel generateSummaryReport(PoeticaContextState state, int roundNumber) {
+        return state.executeReadOnly(() -> new SummaryReportModel(state.getEntityManager(),
+                                                                    state.getQuestionNumberIndex(), roundNumber));
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks;
+
+import com.github.cdefgah.poetica.reports.restable.FullResultTableReportView;
+import com.github.cdefgah.poetica.reports.restable.MediumResultTableReportView;
+import com.github.cdefgah.poetica.reports.restable.ShortResultTableReportView;
+import com.github.cdefgah.poetica.reports.restable.model.ResultTableReportModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Замеряет время формирования текста отчёта "Таблица результатов" во всех форматах по уже построенной модели,
+ * без обращения к базе данных.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultTableViewsBenchmark {
+
+    /**
+     * Модель отчёта, построенная один раз на весь бенчмарк.
+     */
+    private ResultTableReportModel reportModel;
+
+    /**
+     * Строит модель отчёта.
+     * @param state приложение с синтетическим набором данных.
+     */
+    @Setup(Level.Trial)
+    public void generateReportModel(PoeticaContextState state) {
+        reportModel = state.executeReadOnly(() -> {
+            final ResultTableReportModel generatedReportModel = new ResultTableReportModel(
+                                                        state.getEntityManager(), state.getQuestionNumberIndex());
+            generatedReportModel.generateReport();
+            return generatedReportModel;
+        });
+
+        if (!reportModel.isReportModelConsistent()) {
+            // вместо таблицы результатов выводился бы отчёт о противоречиях в оценках
+            throw new IllegalStateException("Synthetic dataset is not consistent");
+        }
+    }
+
+    /**
+     * Формирует текст отчёта в полном формате.
+     * @return текст отчёта.
+     */
+    @Benchmark
+    public String renderFullResultTable() {
+        return new FullResultTableReportView(reportModel).getReportText();
+    }
+
+    /**
+     * Формирует текст отчёта в среднем формате.
+     * @return текст отчёта.
+     */
+    @Benchmark
+    public String renderMediumResultTable() {
+        return new MediumResultTableReportView(reportModel).getReportText();
+    }
+
+    /**
+     * Формирует текст отчёта в кратком формате.
+     * @return текст отчёта.
+     */
+    @Benchmark
+    public String renderShortResultTable() {
+        return new ShortResultTableReportView(reportModel).getReportText();
+    }
+}
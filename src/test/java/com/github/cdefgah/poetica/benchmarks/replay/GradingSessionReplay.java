@@ -0,0 +1,436 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks.replay;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Воспроизводит проверку ответов синтетического турнира через REST API запущенного приложения
+ * и выводит перцентили времени выполнения запросов по каждому адресу.
+ * Сначала импортируются команды из сформированного файла TeamsToImport.txt и задания, затем письма команд
+ * в порядке их отправки. После импорта каждого письма жюри оценивает ответы, которые приложение не оценило
+ * автоматически, а через заданное количество писем скачиваются отчёты, так-же, как это делают во время турнира.
+ * Приложение должно быть запущено на пустой базе данных.
+ * Запускается вручную, в составе тестов не выполняется:
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.github.cdefgah.poetica.benchmarks.replay.GradingSessionReplay
+ * -Dexec.args="--url=http://127.0.0.1:7777 --teams=200 --rate=50"
+ * Параметры:
+ * --url адрес приложения;
+ * --teams, --questions, --multi-number-questions, --emails-per-round, --seed размер и вид турнира;
+ * --rate сколько запросов в секунду отправлять, 0 - без ограничения;
+ * --reports-every через сколько писем скачивать отчёты, 0 - не скачивать;
+ * --output-dir куда сохранить сформированный файл TeamsToImport.txt;
+ * --generate-only только сформировать файл со списком команд, без обращения к приложению.
+ */
+public final class GradingSessionReplay {
+
+    /**
+     * Значения параметров по умолчанию.
+     */
+    private static final Map<String, String> DEFAULT_OPTIONS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_OPTIONS.put("url", "http://127.0.0.1:7777");
+        DEFAULT_OPTIONS.put("teams", "200");
+        DEFAULT_OPTIONS.put("questions", "60");
+        DEFAULT_OPTIONS.put("multi-number-questions", "6");
+        DEFAULT_OPTIONS.put("emails-per-round", "2");
+        DEFAULT_OPTIONS.put("seed", "42");
+        DEFAULT_OPTIONS.put("rate", "0");
+        DEFAULT_OPTIONS.put("reports-every", "100");
+        DEFAULT_OPTIONS.put("output-dir", "target/replay");
+        DEFAULT_OPTIONS.put("generate-only", "false");
+    }
+
+    /**
+     * Кодировка, в которой скачиваются отчёты.
+     */
+    private static final String REPORT_ENCODING = "UTF8";
+
+    /**
+     * Тип ответов на запросы, которые отдают списки объектов.
+     */
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> JSON_LIST_TYPE =
+                                                        new ParameterizedTypeReference<List<Map<String, Object>>>() { };
+
+    /**
+     * Адрес приложения.
+     */
+    private final String baseUrl;
+
+    /**
+     * Синтетический турнир.
+     */
+    private final SyntheticTournament tournament;
+
+    /**
+     * Через сколько писем скачивать отчёты.
+     */
+    private final int reportsEvery;
+
+    /**
+     * Интервал между запросами в наносекундах, 0 - без ограничения.
+     */
+    private final long requestIntervalNanos;
+
+    /**
+     * Время, раньше которого нельзя отправлять следующий запрос.
+     */
+    private long nextRequestSlot;
+
+    /**
+     * Для выполнения запросов.
+     */
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    /**
+     * Время выполнения запросов.
+     */
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+
+    /**
+     * Ответы, которые жюри уже оценило, в виде ключей из синтетического турнира.
+     */
+    private final Set<String> gradedAnswerKeys = new HashSet<>();
+
+    /**
+     * Количество импортированных ответов.
+     */
+    private int importedAnswersCount;
+
+    /**
+     * Количество различных ответов, которые приложение оценило при импорте без участия жюри.
+     */
+    private int autoGradedAnswersCount;
+
+    /**
+     * Количество оценок, выставленных жюри.
+     */
+    private int juryGradesCount;
+
+    /**
+     * Конструктор класса.
+     * @param baseUrl адрес приложения.
+     * @param tournament синтетический турнир.
+     * @param rate сколько запросов в секунду отправлять, 0 - без ограничения.
+     * @param reportsEvery через сколько писем скачивать отчёты, 0 - не скачивать.
+     */
+    private GradingSessionReplay(String baseUrl, SyntheticTournament tournament, double rate, int reportsEvery) {
+        this.baseUrl = baseUrl;
+        this.tournament = tournament;
+        this.reportsEvery = reportsEvery;
+        this.requestIntervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+    }
+
+    /**
+     * Точка входа.
+     * @param args параметры в виде --имя=значение.
+     * @throws IOException если не удалось сохранить файл со списком команд.
+     */
+    public static void main(String[] args) throws IOException {
+        // без настроек logback выводит каждый запрос RestTemplate с уровнем DEBUG
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        final Map<String, String> options = parseOptions(args);
+        final SyntheticTournament tournament = new SyntheticTournament(Integer.parseInt(options.get("teams")),
+                Integer.parseInt(options.get("questions")), Integer.parseInt(options.get("multi-number-questions")),
+                Integer.parseInt(options.get("emails-per-round")), Long.parseLong(options.get("seed")));
+
+        final Path outputDirectory = Paths.get(options.get("output-dir"));
+        Files.createDirectories(outputDirectory);
+        final Path teamsFile = outputDirectory.resolve("TeamsToImport.txt");
+        Files.write(teamsFile, tournament.getTeamsToImportText().getBytes(StandardCharsets.UTF_8));
+        System.out.println("Teams: " + teamsFile.toAbsolutePath() + ", emails: " + tournament.getEmails().size());
+
+        if (Boolean.parseBoolean(options.get("generate-only"))) {
+            return;
+        }
+
+        final GradingSessionReplay replay = new GradingSessionReplay(options.get("url"), tournament,
+                    Double.parseDouble(options.get("rate")), Integer.parseInt(options.get("reports-every")));
+        final String teamsToImportText = new String(Files.readAllBytes(teamsFile), StandardCharsets.UTF_8);
+        final long startTime = System.nanoTime();
+        replay.run(teamsToImportText);
+
+        replay.latencyRecorder.printReport(System.out, System.nanoTime() - startTime);
+        System.out.println(String.format(
+                "%d answers imported, %d distinct answers graded on import, %d grades set by jury",
+                replay.importedAnswersCount, replay.autoGradedAnswersCount, replay.juryGradesCount));
+        if (replay.latencyRecorder.getErrorsCount() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Разбирает параметры командной строки.
+     * @param args параметры в виде --имя=значение.
+     * @return значения всех параметров, с учётом значений по умолчанию.
+     * @throws IllegalArgumentException если параметр неизвестен или задан неверно.
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        final Map<String, String> options = new LinkedHashMap<>(DEFAULT_OPTIONS);
+        for (String arg : args) {
+            final int separatorIndex = arg.indexOf('=');
+            final String name = arg.startsWith("--") ? arg.substring(2, separatorIndex < 0 ? arg.length() :
+                                                                                            separatorIndex) : "";
+            if (!options.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option: " + arg + ", supported options: " +
+                                                                                        DEFAULT_OPTIONS.keySet());
+            }
+
+            // флаг без значения означает true
+            options.put(name, separatorIndex < 0 ? "true" : arg.substring(separatorIndex + 1));
+        }
+
+        return options;
+    }
+
+    /**
+     * Разбирает файл со списком команд в том формате, в котором его импортирует клиентская часть приложения.
+     * @param teamsToImportText содержимое файла, по одной команде в строке, номер и название через запятую.
+     * @return команды для импорта.
+     * @throws IllegalArgumentException если строка файла задана неверно.
+     */
+    static List<Map<String, Object>> parseTeamsToImport(String teamsToImportText) {
+        final List<Map<String, Object>> teamsToImport = new ArrayList<>();
+        for (String line : teamsToImportText.split("\n")) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+
+            final int commaIndex = line.indexOf(',');
+            if (commaIndex < 0) {
+                throw new IllegalArgumentException("Invalid team line: " + line);
+            }
+
+            final Map<String, Object> team = new LinkedHashMap<>();
+            team.put("number", Integer.parseInt(line.substring(0, commaIndex).trim()));
+            team.put("title", line.substring(commaIndex + 1).trim());
+            teamsToImport.add(team);
+        }
+
+        return teamsToImport;
+    }
+
+    /**
+     * Воспроизводит весь турнир.
+     * @param teamsToImportText содержимое файла со списком команд.
+     */
+    private void run(String teamsToImportText) {
+        execute("POST /teams/import", () -> restTemplate.postForObject(baseUrl + "/teams/import",
+                                                            parseTeamsToImport(teamsToImportText), String.class));
+        execute("POST /questions/import", () -> restTemplate.postForObject(baseUrl + "/questions/import",
+                                                            tournament.getQuestionsToImport(), String.class));
+
+        final List<Map<String, Object>> teams = execute("GET /teams/all", () -> restTemplate.exchange(
+                                    baseUrl + "/teams/all", HttpMethod.GET, null, JSON_LIST_TYPE).getBody());
+        if (teams == null) {
+            throw new IllegalStateException("Unable to load imported teams");
+        }
+
+        final Map<Integer, Long> teamIds = new HashMap<>();
+        for (Map<String, Object> team : teams) {
+            teamIds.put(((Number) team.get("number")).intValue(), ((Number) team.get("id")).longValue());
+        }
+
+        int emailsCount = 0;
+        for (SyntheticTournament.EmailRecord email : tournament.getEmails()) {
+            final Long teamId = teamIds.get(email.getTeamNumber());
+            if (teamId == null) {
+                throw new IllegalStateException("Team is not imported: " + email.getTeamNumber());
+            }
+
+            if (importEmail(teamId, email)) {
+                gradeAnswers(teamId, email.getRoundNumber());
+            }
+
+            emailsCount++;
+            if (reportsEvery > 0 && emailsCount % reportsEvery == 0) {
+                downloadReports();
+            }
+        }
+
+        downloadReports();
+    }
+
+    /**
+     * Импортирует письмо и ответы из него, так-же, как это делает клиентская часть приложения.
+     * @param teamId уникальный идентификатор команды.
+     * @param email письмо команды.
+     * @return true, если письмо и ответы импортированы.
+     */
+    private boolean importEmail(long teamId, SyntheticTournament.EmailRecord email) {
+        final Map<String, Object> emailToImport = new LinkedHashMap<>();
+        emailToImport.put("teamId", teamId);
+        emailToImport.put("roundNumber", email.getRoundNumber());
+        emailToImport.put("body", email.getBody());
+        emailToImport.put("questionNumbersSequence", email.getQuestionNumbersSequence());
+        emailToImport.put("sentOn", email.getSentOn());
+        emailToImport.put("importedOn", System.currentTimeMillis());
+
+        final String emailId = execute("POST /emails/import", () -> restTemplate.postForObject(
+                                                        baseUrl + "/emails/import", emailToImport, String.class));
+        if (emailId == null) {
+            return false;
+        }
+
+        final List<Map<String, Object>> answersToImport = new ArrayList<>();
+        for (SyntheticTournament.AnswerRecord answer : email.getAnswers()) {
+            final Map<String, Object> answerToImport = new LinkedHashMap<>();
+            answerToImport.put("teamId", teamId);
+            answerToImport.put("questionNumber", answer.getQuestionNumber());
+            answerToImport.put("emailId", Long.parseLong(emailId.trim()));
+            answerToImport.put("roundNumber", email.getRoundNumber());
+            answerToImport.put("body", answer.getBody());
+            answerToImport.put("comment", answer.getComment());
+            answerToImport.put("emailSentOn", email.getSentOn());
+            answersToImport.add(answerToImport);
+        }
+
+        final String result = execute("POST /answers/import", () -> {
+            restTemplate.postForObject(baseUrl + "/answers/import", answersToImport, String.class);
+            return "";
+        });
+        if (result == null) {
+            return false;
+        }
+
+        importedAnswersCount += answersToImport.size();
+        return true;
+    }
+
+    /**
+     * Загружает ответы команды на тур и оценивает те, что приложение не оценило автоматически.
+     * Одинаковым ответам приложение выставляет оценку само, поэтому на каждый ответ жюри отправляет одну оценку.
+     * @param teamId уникальный идентификатор команды.
+     * @param roundNumber номер тура (раунда).
+     */
+    private void gradeAnswers(long teamId, int roundNumber) {
+        final List<Map<String, Object>> answers = execute("GET /answers/{teamId}/{round}", () ->
+                restTemplate.exchange(baseUrl + "/answers/" + teamId + "/" + roundNumber, HttpMethod.GET, null,
+                                                                                JSON_LIST_TYPE).getBody());
+        if (answers == null) {
+            return;
+        }
+
+        final Set<String> keysGradedNow = new HashSet<>();
+        for (Map<String, Object> answer : answers) {
+            final int questionNumber = ((Number) answer.get("questionNumber")).intValue();
+            final String body = (String) answer.get("body");
+            final String gradingKey = tournament.getGradingKey(questionNumber, body);
+
+            if (!"None".equals(answer.get("grade"))) {
+                if (!gradedAnswerKeys.contains(gradingKey)) {
+                    // авторский ответ, приложение засчитало его само
+                    autoGradedAnswersCount++;
+                    gradedAnswerKeys.add(gradingKey);
+                }
+                continue;
+            }
+
+            if (!keysGradedNow.add(gradingKey)) {
+                // такой-же ответ из этого списка уже оценён, оценка к этому ответу применена приложением
+                continue;
+            }
+
+            final String action = tournament.isCorrectAnswer(questionNumber, body) ? "accept" : "decline";
+            final long answerId = ((Number) answer.get("id")).longValue();
+            final String result = execute("PUT /answers/" + action, () -> {
+                restTemplate.put(baseUrl + "/answers/" + action + "?answerId=" + answerId, null);
+                return "";
+            });
+            if (result != null) {
+                juryGradesCount++;
+                gradedAnswerKeys.add(gradingKey);
+            }
+        }
+    }
+
+    /**
+     * Скачивает отчёты, которые чаще всего формируют во время проверки.
+     */
+    private void downloadReports() {
+        downloadReport("GET /reports/results-table/Full", "/reports/results-table/Full/" + REPORT_ENCODING);
+        downloadReport("GET /reports/collection", "/reports/collection/" + REPORT_ENCODING);
+        downloadReport("GET /reports/summary/1", "/reports/summary/1/" + REPORT_ENCODING);
+        downloadReport("GET /reports/summary/2", "/reports/summary/2/" + REPORT_ENCODING);
+    }
+
+    /**
+     * Скачивает отчёт целиком.
+     * @param endpoint имя адреса для статистики.
+     * @param path путь к отчёту.
+     */
+    private void downloadReport(String endpoint, String path) {
+        execute(endpoint, () -> restTemplate.getForObject(baseUrl + path, byte[].class));
+    }
+
+    /**
+     * Выполняет запрос, соблюдая заданную частоту запросов, и запоминает время его выполнения.
+     * @param endpoint имя адреса для статистики.
+     * @param request запрос.
+     * @param <T> тип результата запроса.
+     * @return результат запроса, либо null, если запрос завершился ошибкой.
+     */
+    private <T> T execute(String endpoint, Supplier<T> request) {
+        waitForRequestSlot();
+
+        final long startTime = System.nanoTime();
+        try {
+            final T result = request.get();
+            latencyRecorder.recordSuccess(endpoint, System.nanoTime() - startTime);
+            return result;
+        } catch (RestClientException exception) {
+            latencyRecorder.recordError(endpoint);
+            System.err.println(endpoint + ": " + exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Ждёт, пока можно будет отправить следующий запрос.
+     * Если запросы выполнялись дольше интервала, пропущенное время не наверстывается.
+     */
+    private void waitForRequestSlot() {
+        if (requestIntervalNanos == 0) {
+            return;
+        }
+
+        final long now = System.nanoTime();
+        if (nextRequestSlot > now) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nextRequestSlot - now);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Replay interrupted", exception);
+            }
+        }
+
+        nextRequestSlot = Math.max(nextRequestSlot, now) + requestIntervalNanos;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks.replay;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Накапливает время выполнения запросов по каждому адресу и выводит перцентили.
+ */
+final class LatencyRecorder {
+
+    /**
+     * Время выполнения успешных запросов в наносекундах, по имени адреса в порядке первого обращения.
+     */
+    private final Map<String, List<Long>> latencies = new LinkedHashMap<>();
+
+    /**
+     * Количество неуспешных запросов по имени адреса.
+     */
+    private final Map<String, Integer> errors = new LinkedHashMap<>();
+
+    /**
+     * Запоминает время выполнения успешного запроса.
+     * @param endpoint имя адреса.
+     * @param nanos время выполнения запроса в наносекундах.
+     */
+    void recordSuccess(String endpoint, long nanos) {
+        latencies.computeIfAbsent(endpoint, key -> new ArrayList<>()).add(nanos);
+        errors.putIfAbsent(endpoint, 0);
+    }
+
+    /**
+     * Запоминает неуспешный запрос.
+     * @param endpoint имя адреса.
+     */
+    void recordError(String endpoint) {
+        latencies.computeIfAbsent(endpoint, key -> new ArrayList<>());
+        errors.merge(endpoint, 1, Integer::sum);
+    }
+
+    /**
+     * Отдаёт общее количество неуспешных запросов.
+     * @return количество неуспешных запросов.
+     */
+    int getErrorsCount() {
+        int errorsCount = 0;
+        for (int endpointErrorsCount : errors.values()) {
+            errorsCount += endpointErrorsCount;
+        }
+
+        return errorsCount;
+    }
+
+    /**
+     * Выводит таблицу с количеством запросов, ошибок и перцентилями времени выполнения в миллисекундах.
+     * @param out куда выводить таблицу.
+     * @param elapsedNanos общее время воспроизведения в наносекундах, для расчёта достигнутой частоты запросов.
+     */
+    void printReport(PrintStream out, long elapsedNanos) {
+        out.println(String.format("%-36s %7s %6s %9s %9s %9s %9s %9s", "endpoint", "count", "errors",
+                                                            "p50, ms", "p90, ms", "p95, ms", "p99, ms", "max, ms"));
+
+        int requestsCount = 0;
+        for (Map.Entry<String, List<Long>> entry : latencies.entrySet()) {
+            final List<Long> sorted = new ArrayList<>(entry.getValue());
+            Collections.sort(sorted);
+            final int endpointErrorsCount = errors.get(entry.getKey());
+            requestsCount += sorted.size() + endpointErrorsCount;
+
+            out.println(String.format("%-36s %7d %6d %9.2f %9.2f %9.2f %9.2f %9.2f", entry.getKey(),
+                    sorted.size(), endpointErrorsCount, percentile(sorted, 50), percentile(sorted, 90),
+                    percentile(sorted, 95), percentile(sorted, 99), percentile(sorted, 100)));
+        }
+
+        final double elapsedSeconds = elapsedNanos / 1e9;
+        out.println(String.format("%d requests in %.1f s, %.1f requests/s", requestsCount, elapsedSeconds,
+                                                                                requestsCount / elapsedSeconds));
+    }
+
+    /**
+     * Рассчитывает перцентиль по методу ближайшего ранга.
+     * @param sorted отсортированное по возрастанию время выполнения запросов в наносекундах.
+     * @param percent перцентиль, от 1 до 100.
+     * @return значение перцентиля в миллисекундах, либо 0, если запросов не было.
+     */
+    private static double percentile(List<Long> sorted, int percent) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+
+        final int rank = (int) Math.ceil(percent / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1) / 1e6;
+    }
+}
@@ -0,0 +1,611 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.benchmarks.replay;
+
+import com.github.cdefgah.poetica.utils.TextHasher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Синтетический турнир: команды, задания, письма команд на оба тура с ответами.
+ * Ответы распределены так, как это бывает на настоящих турнирах: большинство команд присылает несколько
+ * популярных вариантов ответа, авторский ответ часто пишут с другими пробелами или регистром букв,
+ * и лишь небольшая часть ответов уникальна. Поэтому одинаковые ответы повторяются, и автоматическая оценка
+ * при импорте и проставление той-же оценки одинаковым ответам срабатывают так-же часто, как на турнире.
+ * Турнир полностью определяется параметрами и начальным значением генератора случайных чисел.
+ */
+public final class SyntheticTournament {
+
+    /**
+     * Каждое задание с таким шагом внезачётное.
+     */
+    private static final int NON_GRADED_QUESTIONS_PERIOD = 10;
+
+    /**
+     * Количество различных неверных ответов на задание, их популярность убывает по закону Ципфа.
+     */
+    private static final int WRONG_ANSWERS_PER_QUESTION = 12;
+
+    /**
+     * Вероятность того, что команда пришлёт уникальный ответ, который больше никто не присылал.
+     */
+    private static final double UNIQUE_ANSWER_PROBABILITY = 0.05;
+
+    /**
+     * Вероятность того, что команда ответит на номер задания в письме.
+     */
+    private static final double ANSWER_PRESENCE_PROBABILITY = 0.85;
+
+    /**
+     * Вероятность комментария к ответу.
+     */
+    private static final double COMMENT_PROBABILITY = 0.15;
+
+    /**
+     * Время начала предварительного тура.
+     */
+    private static final long FIRST_ROUND_START = 1_600_000_000_000L;
+
+    /**
+     * Длительность каждого тура.
+     */
+    private static final long ROUND_DURATION = 3L * 24 * 60 * 60 * 1000;
+
+    /**
+     * Слова для авторских, неверных и уникальных ответов.
+     */
+    private static final String[] WORDS = {"солнце", "ветер", "берёза", "окно", "зеркало", "мост", "камень",
+            "огонь", "река", "письмо", "ключ", "птица", "снег", "дорога", "лампа", "часы", "корабль", "песок",
+            "облако", "колокол", "тень", "маяк", "сад", "перо", "гроза", "роса", "парус", "свеча", "звезда", "поле"};
+
+    /**
+     * Части названий команд.
+     */
+    private static final String[] TEAM_TITLE_ADJECTIVES = {"Синий", "Малый", "Весёлый", "Северный", "Тихий",
+            "Быстрый", "Старый", "Новый", "Ясный", "Дальний"};
+
+    /**
+     * Части названий команд.
+     */
+    private static final String[] TEAM_TITLE_NOUNS = {"лев", "маяк", "шлем", "ветер", "механизм", "зоопарк",
+            "парус", "остров", "фонарь", "клуб"};
+
+    /**
+     * Номера команд в порядке их следования в файле импорта.
+     */
+    private final List<Integer> teamNumbers = new ArrayList<>();
+
+    /**
+     * Названия команд по номеру команды.
+     */
+    private final Map<Integer, String> teamTitles = new LinkedHashMap<>();
+
+    /**
+     * Задания в порядке возрастания внутренних номеров.
+     */
+    private final List<QuestionRecord> questions = new ArrayList<>();
+
+    /**
+     * Задания по внутреннему номеру, индекс 0 не используется.
+     */
+    private final QuestionRecord[] questionsByNumber;
+
+    /**
+     * Письма всех команд в порядке их отправки.
+     */
+    private final List<EmailRecord> emails = new ArrayList<>();
+
+    /**
+     * Конструктор класса.
+     * @param teamsCount количество команд.
+     * @param questionsCount количество заданий.
+     * @param multiNumberQuestionsCount сколько из заданий имеют два внутренних номера.
+     * @param emailsPerRound сколько писем каждая команда присылает на каждый тур, последнее письмо заменяет
+     *                       ответы из предыдущих.
+     * @param seed начальное значение генератора случайных чисел.
+     * @throws IllegalArgumentException если параметры заданы неверно.
+     */
+    public SyntheticTournament(int teamsCount, int questionsCount, int multiNumberQuestionsCount, int emailsPerRound,
+                                                                                                        long seed) {
+        if (teamsCount <= 0 || questionsCount <= 0 || emailsPerRound <= 0 || multiNumberQuestionsCount < 0 ||
+                                                                    multiNumberQuestionsCount > questionsCount) {
+            throw new IllegalArgumentException("Invalid tournament size");
+        }
+
+        final Random random = new Random(seed);
+        generateTeams(teamsCount, random);
+
+        int internalNumber = 1;
+        for (int i = 0; i < questionsCount; i++) {
+            // задания с двумя номерами распределяем равномерно
+            final boolean isMultiNumberQuestion = (long) i * multiNumberQuestionsCount / questionsCount !=
+                                                            (long) (i + 1) * multiNumberQuestionsCount / questionsCount;
+            final QuestionRecord question = new QuestionRecord(questions.size(), internalNumber,
+                    isMultiNumberQuestion ? internalNumber + 1 : internalNumber,
+                    (i + 1) % NON_GRADED_QUESTIONS_PERIOD != 0, random);
+            questions.add(question);
+            internalNumber = question.highestInternalNumber + 1;
+        }
+
+        questionsByNumber = new QuestionRecord[internalNumber];
+        for (QuestionRecord question : questions) {
+            for (int number = question.lowestInternalNumber; number <= question.highestInternalNumber; number++) {
+                questionsByNumber[number] = question;
+            }
+        }
+
+        generateEmails(emailsPerRound, random);
+    }
+
+    /**
+     * Формирует номера и названия команд.
+     * @param teamsCount количество команд.
+     * @param random генератор случайных чисел.
+     */
+    private void generateTeams(int teamsCount, Random random) {
+        final Set<Integer> usedNumbers = new HashSet<>();
+        for (int i = 0; i < teamsCount; i++) {
+            // номера команд на турнирах идут с пропусками
+            int teamNumber;
+            do {
+                teamNumber = random.nextInt(teamsCount * 3);
+            } while (!usedNumbers.add(teamNumber));
+
+            final int titlesCount = TEAM_TITLE_ADJECTIVES.length * TEAM_TITLE_NOUNS.length;
+            String teamTitle = TEAM_TITLE_ADJECTIVES[i % TEAM_TITLE_ADJECTIVES.length] + ' ' +
+                                        TEAM_TITLE_NOUNS[(i / TEAM_TITLE_ADJECTIVES.length) % TEAM_TITLE_NOUNS.length];
+            if (i >= titlesCount) {
+                teamTitle = teamTitle + ' ' + (i / titlesCount + 1);
+            }
+
+            teamNumbers.add(teamNumber);
+            teamTitles.put(teamNumber, teamTitle);
+        }
+    }
+
+    /**
+     * Формирует письма команд на оба тура.
+     * @param emailsPerRound сколько писем каждая команда присылает на каждый тур.
+     * @param random генератор случайных чисел.
+     */
+    private void generateEmails(int emailsPerRound, Random random) {
+        final int maxQuestionNumber = getMaxQuestionNumber();
+        for (int teamNumber : teamNumbers) {
+            // сильные команды отвечают верно чаще слабых
+            final double teamStrength = 0.5 + random.nextDouble();
+
+            for (int roundNumber = 1; roundNumber <= 2; roundNumber++) {
+                for (int i = 0; i < emailsPerRound; i++) {
+                    final long sentOn = FIRST_ROUND_START + (roundNumber - 1) * ROUND_DURATION +
+                                                                    (long) (random.nextDouble() * ROUND_DURATION);
+
+                    final List<AnswerRecord> answers = new ArrayList<>();
+                    for (int questionNumber = 1; questionNumber <= maxQuestionNumber; questionNumber++) {
+                        if (random.nextDouble() < ANSWER_PRESENCE_PROBABILITY) {
+                            answers.add(new AnswerRecord(questionNumber,
+                                    questionsByNumber[questionNumber].chooseAnswer(teamNumber, teamStrength, random),
+                                    random.nextDouble() < COMMENT_PROBABILITY ? "мы уверены" : ""));
+                        }
+                    }
+
+                    emails.add(new EmailRecord(teamNumber, roundNumber, sentOn, answers));
+                }
+            }
+        }
+
+        emails.sort(Comparator.comparingLong(EmailRecord::getSentOn));
+    }
+
+    /**
+     * Отдаёт список команд в формате файла TeamsToImport.txt: по одной команде в строке, номер и название
+     * через запятую.
+     * @return содержимое файла со списком команд.
+     */
+    public String getTeamsToImportText() {
+        final StringBuilder text = new StringBuilder();
+        for (int teamNumber : teamNumbers) {
+            text.append(teamNumber).append(',').append(teamTitles.get(teamNumber)).append('\n');
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Отдаёт название команды.
+     * @param teamNumber номер команды.
+     * @return название команды.
+     */
+    public String getTeamTitle(int teamNumber) {
+        return teamTitles.get(teamNumber);
+    }
+
+    /**
+     * Отдаёт задания в том виде, в котором их передаёт на импорт клиентская часть приложения.
+     * @return задания для импорта.
+     */
+    public List<Map<String, Object>> getQuestionsToImport() {
+        final List<Map<String, Object>> questionsToImport = new ArrayList<>();
+        for (QuestionRecord question : questions) {
+            final Map<String, Object> questionToImport = new LinkedHashMap<>();
+            questionToImport.put("externalNumber", question.externalNumber);
+            questionToImport.put("lowestInternalNumber", question.lowestInternalNumber);
+            questionToImport.put("highestInternalNumber", question.highestInternalNumber);
+            questionToImport.put("title", "Задание " + question.externalNumber);
+            questionToImport.put("body", "Текст задания " + question.externalNumber);
+            questionToImport.put("authorsAnswer", question.authorsAnswer);
+            questionToImport.put("source", "Источник");
+            questionToImport.put("comment", "");
+            questionToImport.put("graded", question.isGraded);
+            questionToImport.put("authorInfo", "Автор");
+            questionsToImport.add(questionToImport);
+        }
+
+        return questionsToImport;
+    }
+
+    /**
+     * Отдаёт максимальный внутренний номер задания.
+     * @return максимальный внутренний номер задания.
+     */
+    public int getMaxQuestionNumber() {
+        return questionsByNumber.length - 1;
+    }
+
+    /**
+     * Отдаёт письма всех команд в порядке их отправки.
+     * @return письма команд.
+     */
+    public List<EmailRecord> getEmails() {
+        return Collections.unmodifiableList(emails);
+    }
+
+    /**
+     * Проверяет, верный-ли ответ.
+     * @param questionNumber внутренний номер задания.
+     * @param answerBody тело ответа.
+     * @return true, если ответ нужно засчитать.
+     */
+    public boolean isCorrectAnswer(int questionNumber, String answerBody) {
+        return questionsByNumber[questionNumber].correctAnswers.contains(TextHasher.normalizeText(answerBody));
+    }
+
+    /**
+     * Формирует ключ, одинаковый для ответов, которым приложение проставляет одну и ту-же оценку:
+     * ответов на одно и то-же задание, тела которых совпадают после нормализации.
+     * @param questionNumber внутренний номер задания.
+     * @param answerBody тело ответа.
+     * @return ключ ответа.
+     */
+    public String getGradingKey(int questionNumber, String answerBody) {
+        return questionsByNumber[questionNumber].questionIndex + ":" + TextHasher.normalizeText(answerBody);
+    }
+
+    /**
+     * Составляет ответ из случайных слов.
+     * @param random генератор случайных чисел.
+     * @return текст ответа.
+     */
+    private static String composeWords(Random random) {
+        final int wordsCount = 1 + random.nextInt(3);
+        final StringBuilder words = new StringBuilder();
+        for (int i = 0; i < wordsCount; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            words.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+
+        return words.toString();
+    }
+
+    // ===============================================================================================================
+
+    /**
+     * Задание турнира вместе с вариантами ответов на него.
+     */
+    private static final class QuestionRecord {
+
+        /**
+         * Порядковый номер задания, начиная с нуля.
+         */
+        private final int questionIndex;
+
+        /**
+         * Минимальный внутренний номер задания.
+         */
+        private final int lowestInternalNumber;
+
+        /**
+         * Максимальный внутренний номер задания.
+         */
+        private final int highestInternalNumber;
+
+        /**
+         * Внешний номер задания.
+         */
+        private final String externalNumber;
+
+        /**
+         * true, если задание зачётное.
+         */
+        private final boolean isGraded;
+
+        /**
+         * Авторский ответ.
+         */
+        private final String authorsAnswer;
+
+        /**
+         * Вероятность того, что команда средней силы ответит верно.
+         */
+        private final double correctAnswerProbability;
+
+        /**
+         * Варианты написания верного ответа, первый - авторский ответ с другими пробелами, который приложение
+         * засчитывает автоматически, остальные жюри засчитывает вручную.
+         */
+        private final List<String> correctAnswerSpellings;
+
+        /**
+         * Нормализованные тексты верных ответов.
+         */
+        private final Set<String> correctAnswers = new HashSet<>();
+
+        /**
+         * Неверные ответы в порядке убывания популярности.
+         */
+        private final List<String> wrongAnswers = new ArrayList<>();
+
+        /**
+         * Накопленные веса популярности неверных ответов.
+         */
+        private final double[] wrongAnswersCumulativeWeights = new double[WRONG_ANSWERS_PER_QUESTION];
+
+        /**
+         * Конструктор класса.
+         * @param questionIndex порядковый номер задания, начиная с нуля.
+         * @param lowestInternalNumber минимальный внутренний номер задания.
+         * @param highestInternalNumber максимальный внутренний номер задания.
+         * @param isGraded true, если задание зачётное.
+         * @param random генератор случайных чисел.
+         */
+        QuestionRecord(int questionIndex, int lowestInternalNumber, int highestInternalNumber, boolean isGraded,
+                                                                                                    Random random) {
+            this.questionIndex = questionIndex;
+            this.lowestInternalNumber = lowestInternalNumber;
+            this.highestInternalNumber = highestInternalNumber;
+            this.externalNumber = lowestInternalNumber == highestInternalNumber ?
+                            String.valueOf(lowestInternalNumber) : lowestInternalNumber + "-" + highestInternalNumber;
+            this.isGraded = isGraded;
+            this.authorsAnswer = composeWords(random) + " " + WORDS[questionIndex % WORDS.length] + questionIndex;
+            this.correctAnswerProbability = 0.1 + random.nextDouble() * 0.6;
+
+            this.correctAnswerSpellings = Arrays.asList(" " + authorsAnswer.replace(" ", "  "),
+                    authorsAnswer.toUpperCase(), authorsAnswer + ".");
+            for (String spelling : correctAnswerSpellings) {
+                correctAnswers.add(TextHasher.normalizeText(spelling));
+            }
+            correctAnswers.add(authorsAnswer);
+
+            double cumulativeWeight = 0;
+            for (int i = 0; i < WRONG_ANSWERS_PER_QUESTION; i++) {
+                String wrongAnswer;
+                do {
+                    wrongAnswer = composeWords(random);
+                } while (correctAnswers.contains(wrongAnswer) || wrongAnswers.contains(wrongAnswer));
+
+                wrongAnswers.add(wrongAnswer);
+                cumulativeWeight += 1.0 / (i + 1);
+                wrongAnswersCumulativeWeights[i] = cumulativeWeight;
+            }
+        }
+
+        /**
+         * Выбирает ответ команды на задание.
+         * @param teamNumber номер команды.
+         * @param teamStrength сила команды, множитель вероятности верного ответа.
+         * @param random генератор случайных чисел.
+         * @return тело ответа.
+         */
+        String chooseAnswer(int teamNumber, double teamStrength, Random random) {
+            if (random.nextDouble() < correctAnswerProbability * teamStrength) {
+                // авторский ответ с точностью до пробелов присылают чаще других вариантов
+                final double spellingChoice = random.nextDouble();
+                if (spellingChoice < 0.6) {
+                    return authorsAnswer;
+                }
+
+                return correctAnswerSpellings.get(spellingChoice < 0.75 ? 0 : spellingChoice < 0.9 ? 1 : 2);
+            }
+
+            if (random.nextDouble() < UNIQUE_ANSWER_PROBABILITY) {
+                return composeWords(random) + " от команды " + teamNumber + " " + random.nextInt(1000);
+            }
+
+            final double weight = random.nextDouble() * wrongAnswersCumulativeWeights[WRONG_ANSWERS_PER_QUESTION - 1];
+            int index = 0;
+            while (wrongAnswersCumulativeWeights[index] < weight) {
+                index++;
+            }
+
+            return wrongAnswers.get(index);
+        }
+    }
+
+    /**
+     * Ответ на задание в письме команды.
+     */
+    public static final class AnswerRecord {
+
+        /**
+         * Внутренний номер задания.
+         */
+        private final int questionNumber;
+
+        /**
+         * Тело ответа.
+         */
+        private final String body;
+
+        /**
+         * Комментарий к ответу.
+         */
+        private final String comment;
+
+        /**
+         * Конструктор класса.
+         * @param questionNumber внутренний номер задания.
+         * @param body тело ответа.
+         * @param comment комментарий к ответу.
+         */
+        AnswerRecord(int questionNumber, String body, String comment) {
+            this.questionNumber = questionNumber;
+            this.body = body;
+            this.comment = comment;
+        }
+
+        /**
+         * Отдаёт внутренний номер задания.
+         * @return внутренний номер задания.
+         */
+        public int getQuestionNumber() {
+            return questionNumber;
+        }
+
+        /**
+         * Отдаёт тело ответа.
+         * @return тело ответа.
+         */
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * Отдаёт комментарий к ответу.
+         * @return комментарий к ответу.
+         */
+        public String getComment() {
+            return comment;
+        }
+    }
+
+    /**
+     * Письмо команды с ответами на тур.
+     */
+    public final class EmailRecord {
+
+        /**
+         * Номер команды.
+         */
+        private final int teamNumber;
+
+        /**
+         * Номер тура (раунда).
+         */
+        private final int roundNumber;
+
+        /**
+         * Время отправки письма.
+         */
+        private final long sentOn;
+
+        /**
+         * Ответы в порядке возрастания номеров заданий.
+         */
+        private final List<AnswerRecord> answers;
+
+        /**
+         * Конструктор класса.
+         * @param teamNumber номер команды.
+         * @param roundNumber номер тура (раунда).
+         * @param sentOn время отправки письма.
+         * @param answers ответы в порядке возрастания номеров заданий.
+         */
+        EmailRecord(int teamNumber, int roundNumber, long sentOn, List<AnswerRecord> answers) {
+            this.teamNumber = teamNumber;
+            this.roundNumber = roundNumber;
+            this.sentOn = sentOn;
+            this.answers = answers;
+        }
+
+        /**
+         * Отдаёт номер команды.
+         * @return номер команды.
+         */
+        public int getTeamNumber() {
+            return teamNumber;
+        }
+
+        /**
+         * Отдаёт номер тура (раунда).
+         * @return номер тура (раунда).
+         */
+        public int getRoundNumber() {
+            return roundNumber;
+        }
+
+        /**
+         * Отдаёт время отправки письма.
+         * @return время отправки письма.
+         */
+        public long getSentOn() {
+            return sentOn;
+        }
+
+        /**
+         * Отдаёт ответы из письма.
+         * @return ответы в порядке возрастания номеров заданий.
+         */
+        public List<AnswerRecord> getAnswers() {
+            return Collections.unmodifiableList(answers);
+        }
+
+        /**
+         * Формирует перечень номеров заданий, на которые даны ответы, так-же, как клиентская часть приложения.
+         * @return номера заданий через запятую.
+         */
+        public String getQuestionNumbersSequence() {
+            final StringBuilder sequence = new StringBuilder();
+            for (AnswerRecord answer : answers) {
+                if (sequence.length() > 0) {
+                    sequence.append(", ");
+                }
+                sequence.append(answer.questionNumber);
+            }
+
+            return sequence.toString();
+        }
+
+        /**
+         * Формирует текст письма в формате, который разбирает клиентская часть приложения:
+         * блок ответов начинается и заканчивается тремя звёздочками, ответ начинается с символа # и номера
+         * задания с точкой, комментарий отделяется символом %.
+         * @return текст письма.
+         */
+        public String getBody() {
+            final StringBuilder body = new StringBuilder("Добрый день!\n\n*** ");
+            body.append(getTeamTitle(teamNumber)).append(", ").append(teamNumber).append('\n');
+            for (AnswerRecord answer : answers) {
+                body.append('#').append(answer.questionNumber).append(". ").append(answer.body);
+                if (!answer.comment.isEmpty()) {
+                    body.append(" % ").append(answer.comment);
+                }
+                body.append('\n');
+            }
+
+            return body.append("***\n").toString();
+        }
+    }
+}
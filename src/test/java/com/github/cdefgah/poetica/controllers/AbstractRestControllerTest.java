@@ -5,12 +5,27 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Режим LEGACY нужен, чтобы H2 принимал вставку null в identity-колонку, как это делает Hibernate.
+ */
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties =
+        "spring.datasource.url=jdbc:h2:mem:poetica-test;MODE=LEGACY;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
 abstract class AbstractRestControllerTest {
 
     protected final String localAddressPrefix = "http://127.0.0.1:";
@@ -20,4 +35,44 @@ abstract class AbstractRestControllerTest {
 
     @Autowired
     protected TestRestTemplate restTemplate;
+
+    /**
+     * Проходит все страницы списка и проверяет, что позиция следующей страницы есть у всех страниц, кроме последней.
+     */
+    protected List<JsonNode> walkListingPages(String path, String fields, int limit, int expectedPagesCount) {
+        final List<JsonNode> rows = new ArrayList<>();
+        String cursor = null;
+        for (int page = 1; page <= expectedPagesCount; page++) {
+            final String pageUrl = localAddressPrefix + port + path + "?fields=" + fields + "&limit=" + limit +
+                                                                            (cursor != null ? "&after=" + cursor : "");
+            final ResponseEntity<JsonNode> response = restTemplate.getForEntity(pageUrl, JsonNode.class);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+            final JsonNode pageRows = response.getBody().get("rows");
+            pageRows.forEach(rows::add);
+            final JsonNode nextCursor = response.getBody().get("nextCursor");
+            if (page < expectedPagesCount) {
+                assertThat(pageRows.size()).isEqualTo(limit);
+                assertThat(nextCursor.isNull()).as("nextCursor of page " + page).isFalse();
+                cursor = nextCursor.asText();
+            } else {
+                assertThat(pageRows.size()).isBetween(1, limit);
+                assertThat(nextCursor.isNull()).as("nextCursor of the last page").isTrue();
+            }
+        }
+
+        return rows;
+    }
+
+    protected static List<String> getFieldNames(JsonNode row) {
+        final List<String> fieldNames = new ArrayList<>();
+        row.fieldNames().forEachRemaining(fieldNames::add);
+        return fieldNames;
+    }
+
+    protected static String repeat(char symbol, int count) {
+        final char[] symbols = new char[count];
+        Arrays.fill(symbols, symbol);
+        return new String(symbols);
+    }
 }
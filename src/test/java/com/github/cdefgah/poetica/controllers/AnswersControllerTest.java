@@ -5,12 +5,33 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.utils.TextHasher;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
 
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertAnswer;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class AnswersControllerTest extends AbstractRestControllerTest {
 
+    private static final long PAGED_TEAM_ID = 902;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void deleteSeededAnswers() {
+        // ответы без команды ломают отчёты в остальных тестах
+        jdbcTemplate.update("delete from answers where team_id = ?", PAGED_TEAM_ID);
+    }
+
     @Test
     public void testModelConstraintsRequest() throws Exception {
         final String endpointAddress = "/answers/model-constraints";
@@ -20,4 +41,30 @@ public class AnswersControllerTest extends AbstractRestControllerTest {
 
         assertThat(this.restTemplate.getForObject(url, String.class)).isEqualTo(expectedString);
     }
+
+    @Test
+    public void testAnswersPagesFollowEmailSentOnAndIdOrder() throws Exception {
+        final long teamId = PAGED_TEAM_ID;
+        final long[] emailSentOnValues = {300, 300, 100, 200, 100, 300, 100};
+        final long[] answerIds = new long[emailSentOnValues.length];
+        for (int i = 0; i < emailSentOnValues.length; i++) {
+            final String body = i == 2 ? repeat('о', 150) : "ответ " + i;
+            answerIds[i] = insertAnswer(jdbcTemplate, teamId, 1, 2, emailSentOnValues[i], 1, 1, body, Grade.None);
+        }
+        // ответ на другой тур в список по второму туру не попадает
+        insertAnswer(jdbcTemplate, teamId, 1, 1, 150, 1, 1, "ответ на первый тур", Grade.None);
+
+        final List<JsonNode> rows = walkListingPages("/answers/page/" + teamId + "/2", "id,hashPrefix,body", 3, 3);
+
+        // при одинаковом времени отправки порядок определяет идентификатор, в том числе на границе страниц
+        assertThat(rows).extracting(row -> row.get("id").asLong()).containsExactly(answerIds[2], answerIds[4],
+                                answerIds[6], answerIds[3], answerIds[0], answerIds[1], answerIds[5]);
+        for (JsonNode row : rows) {
+            assertThat(getFieldNames(row)).containsExactly("id", "hashPrefix", "body");
+        }
+        assertThat(rows.get(0).get("body").asText()).isEqualTo(repeat('о', 100));
+        assertThat(rows.get(0).get("hashPrefix").asText())
+                                            .isEqualTo(TextHasher.getHashForRawText(repeat('о', 150)).substring(0, 16));
+        assertThat(rows.get(1).get("body").asText()).isEqualTo("ответ 4");
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.controllers;
+
+import com.github.cdefgah.poetica.grading.AutoGradingIndexManager;
+import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndexHolder;
+import com.github.cdefgah.poetica.reports.restable.live.LiveResultsTableManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertEmail;
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertQuestion;
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertTeam;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Импорт ответов через контроллер, с пакетами по два ответа, чтобы проверить переходы между пакетами.
+ * Отдельная база данных, чтобы импортированные ответы не мешали остальным тестам.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:answers-import;MODE=LEGACY;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "poetica.answers.import.batch-size=2"})
+public class AnswersImportControllerTest extends AbstractRestControllerTest {
+
+    private static final String AUTHORS_ANSWER = "авторский ответ";
+
+    private static final long EMAIL_SENT_ON = 1_600_000_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QuestionNumberIndexHolder questionNumberIndexHolder;
+
+    @Autowired
+    private AutoGradingIndexManager autoGradingIndexManager;
+
+    @Autowired
+    private LiveResultsTableManager liveResultsTableManager;
+
+    private long firstTeamId;
+
+    private long secondTeamId;
+
+    @BeforeEach
+    public void seedTeamsAndQuestions() {
+        jdbcTemplate.update("delete from answers");
+        jdbcTemplate.update("delete from emails");
+        jdbcTemplate.update("delete from teams");
+        jdbcTemplate.update("delete from questions");
+
+        for (int questionNumber = 1; questionNumber <= 2; questionNumber++) {
+            insertQuestion(jdbcTemplate, questionNumber, AUTHORS_ANSWER, true);
+        }
+
+        firstTeamId = insertTeamWithEmail(1);
+        secondTeamId = insertTeamWithEmail(2);
+
+        // данные вставлены в обход приложения
+        questionNumberIndexHolder.invalidate();
+        autoGradingIndexManager.invalidate();
+        liveResultsTableManager.invalidate();
+    }
+
+    @Test
+    public void testAuthorsAnswerIsAccepted() {
+        final ResponseEntity<String> response = importAnswers(answer(firstTeamId, 1, AUTHORS_ANSWER),
+                                                                answer(firstTeamId, 2, "другой ответ"));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(getGrade(firstTeamId, 1)).isEqualTo(Grade.Accepted.name());
+        assertThat(getGrade(firstTeamId, 2)).isEqualTo(Grade.None.name());
+    }
+
+    @Test
+    public void testDuplicatesInheritGradeAcrossBatchBoundary() {
+        final Answer gradedAnswer = answer(firstTeamId, 1, "ответ с оценкой");
+        gradedAnswer.setGrade(Grade.NotAccepted);
+
+        // первый пакет - ответы первой команды, второй пакет - ответы второй команды
+        final ResponseEntity<String> response = importAnswers(gradedAnswer,
+                                                              answer(firstTeamId, 2, "ответ без оценки"),
+                                                              answer(secondTeamId, 1, "ответ с оценкой"),
+                                                              answer(secondTeamId, 2, "ответ без оценки"));
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(getGrade(secondTeamId, 1)).isEqualTo(Grade.NotAccepted.name());
+        assertThat(getGrade(secondTeamId, 2)).isEqualTo(Grade.None.name());
+    }
+
+    @Test
+    public void testAnswersAreGradedFromPreviouslyGradedAnswers() {
+        assertThat(importAnswers(answer(firstTeamId, 1, "ответ первой команды"),
+                                 answer(firstTeamId, 2, "ещё один ответ")).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        final long answerId = jdbcTemplate.queryForObject("select id from answers where team_id = ? and " +
+                                                            "question_number = 1", Long.class, firstTeamId);
+        this.restTemplate.put(localAddressPrefix + port + "/answers/decline?answerId=" + answerId, null);
+        assertThat(getGrade(firstTeamId, 1)).isEqualTo(Grade.NotAccepted.name());
+
+        assertThat(importAnswers(answer(secondTeamId, 1, "ответ первой команды"),
+                                 answer(secondTeamId, 2, "ещё один ответ")).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(getGrade(secondTeamId, 1)).isEqualTo(Grade.NotAccepted.name());
+        assertThat(getGrade(secondTeamId, 2)).isEqualTo(Grade.None.name());
+    }
+
+    @Test
+    public void testUnknownQuestionNumberRejectsWholeImport() {
+        final ResponseEntity<String> response = importAnswers(answer(firstTeamId, 1, AUTHORS_ANSWER),
+                                                                answer(firstTeamId, 2, "ответ"),
+                                                                answer(firstTeamId, 99, "ответ"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).contains("В базе данных не удалось найти вопрос с номером: 99");
+        assertThat(getAnswersCount()).isZero();
+    }
+
+    @Test
+    public void testTooLongBodyAndCommentRejectWholeImport() {
+        final char[] longBody = new char[Answer.getMaxBodyLength() + 1];
+        Arrays.fill(longBody, 'а');
+        final ResponseEntity<String> bodyResponse = importAnswers(answer(firstTeamId, 1, AUTHORS_ANSWER),
+                                                                    answer(firstTeamId, 2, new String(longBody)));
+
+        assertThat(bodyResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(bodyResponse.getBody()).contains("Ответ на задание с номером 2 длиннее " +
+                                                                            Answer.getMaxBodyLength() + " символов");
+
+        final char[] longComment = new char[Answer.getMaxCommentLength() + 1];
+        Arrays.fill(longComment, 'к');
+        final Answer answerWithLongComment = answer(firstTeamId, 2, "ответ");
+        answerWithLongComment.setComment(new String(longComment));
+        final ResponseEntity<String> commentResponse = importAnswers(answer(firstTeamId, 1, AUTHORS_ANSWER),
+                                                                                        answerWithLongComment);
+
+        assertThat(commentResponse.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(commentResponse.getBody()).contains("Комментарий к ответу на задание с номером 2 длиннее " +
+                                                                        Answer.getMaxCommentLength() + " символов");
+        assertThat(getAnswersCount()).isZero();
+    }
+
+    private long insertTeamWithEmail(int teamNumber) {
+        final long teamId = insertTeam(jdbcTemplate, teamNumber);
+        insertEmail(jdbcTemplate, teamId, 1, EMAIL_SENT_ON, "1-2");
+        return teamId;
+    }
+
+    private Answer answer(long teamId, int questionNumber, String body) {
+        final Answer answer = new Answer();
+        answer.setTeamId(teamId);
+        answer.setEmailId(jdbcTemplate.queryForObject("select id from emails where team_id = ?", Long.class, teamId));
+        answer.setEmailSentOn(EMAIL_SENT_ON);
+        answer.setQuestionNumber(questionNumber);
+        answer.setRoundNumber(1);
+        answer.setBody(body);
+        return answer;
+    }
+
+    private ResponseEntity<String> importAnswers(Answer... answers) {
+        return this.restTemplate.postForEntity(localAddressPrefix + port + "/answers/import", answers, String.class);
+    }
+
+    private String getGrade(long teamId, int questionNumber) {
+        return jdbcTemplate.queryForObject("select grade from answers where team_id = ? and question_number = ?",
+                                                                            String.class, teamId, questionNumber);
+    }
+
+    private long getAnswersCount() {
+        return jdbcTemplate.queryForObject("select count(*) from answers", Long.class);
+    }
+}
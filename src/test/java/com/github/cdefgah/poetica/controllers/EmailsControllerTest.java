@@ -5,12 +5,45 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.cdefgah.poetica.model.Email;
+
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
 
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertEmail;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class EmailsControllerTest extends AbstractRestControllerTest {
 
+    private static final long PAGED_TEAM_ID = 901;
+
+    @Autowired
+    private EmailsController emailsController;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void deleteSeededEmails() {
+        // письма без команды ломают отчёты в остальных тестах
+        jdbcTemplate.update("delete from emails where team_id in (?, ?)", PAGED_TEAM_ID, PAGED_TEAM_ID + 1);
+    }
+
     @Test
     public void testModelConstraintsRequest() throws Exception {
         final String endpointAddress = "/emails/model-constraints";
@@ -19,4 +52,106 @@ public class EmailsControllerTest extends AbstractRestControllerTest {
 
         assertThat(this.restTemplate.getForObject(url, String.class)).isEqualTo(expectedString);
     }
+
+    @Test
+    public void testEmailsPageRequest() throws Exception {
+        final String url = localAddressPrefix + port + "/emails/page/1/0?fields=id,sentOn";
+
+        final ResponseEntity<String> response = this.restTemplate.getForEntity(url, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo("{\"rows\":[],\"nextCursor\":null}");
+
+        final String eTag = response.getHeaders().getETag();
+        assertThat(eTag).isNotNull();
+
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(eTag);
+        final ResponseEntity<String> notModifiedResponse = this.restTemplate.exchange(url, HttpMethod.GET,
+                                                                            new HttpEntity<>(headers), String.class);
+        assertThat(notModifiedResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(notModifiedResponse.getBody()).isNull();
+    }
+
+    @Test
+    public void testEmailsPagesFollowSentOnAndIdOrder() throws Exception {
+        final long teamId = PAGED_TEAM_ID;
+        final long[] sentOnValues = {200, 100, 200, 100, 100};
+        final long[] emailIds = new long[sentOnValues.length];
+        for (int i = 0; i < sentOnValues.length; i++) {
+            final String body = i == 0 ? repeat('п', 150) : "письмо " + i;
+            emailIds[i] = insertEmail(jdbcTemplate, teamId, 1, sentOnValues[i], "1", body);
+        }
+        // письмо другой команды в список не попадает
+        insertEmail(jdbcTemplate, teamId + 1, 1, 150, "1", "чужое");
+
+        final List<JsonNode> rows = walkListingPages("/emails/page/" + teamId + "/0", "id,body", 2, 3);
+
+        // при одинаковом времени отправки порядок определяет идентификатор, в том числе на границе страниц
+        assertThat(rows).extracting(row -> row.get("id").asLong())
+                .containsExactly(emailIds[1], emailIds[3], emailIds[4], emailIds[0], emailIds[2]);
+        for (JsonNode row : rows) {
+            assertThat(getFieldNames(row)).containsExactly("id", "body");
+        }
+        assertThat(rows.get(3).get("body").asText()).isEqualTo(repeat('п', 100));
+        assertThat(rows.get(0).get("body").asText()).isEqualTo("письмо 1");
+    }
+
+    @Test
+    public void testEmailsPageRequestWithWrongParameters() throws Exception {
+        final String urlPrefix = localAddressPrefix + port + "/emails/page/1/0";
+
+        assertThat(this.restTemplate.getForEntity(urlPrefix + "?fields=unknown", String.class).getStatusCode())
+                                                                                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(this.restTemplate.getForEntity(urlPrefix + "?after=abc", String.class).getStatusCode())
+                                                                                .isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(this.restTemplate.getForEntity(urlPrefix + "?limit=0", String.class).getStatusCode())
+                                                                                .isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void testEmailsDigestFollowsImportAndDeletion() throws Exception {
+        final String urlPrefix = localAddressPrefix + port;
+        final long teamId = 777;
+
+        assertThat(this.restTemplate.getForObject(urlPrefix + "/emails/digest/" + teamId, String.class))
+                .isEqualTo("{\"emailsQtyForTheFirstRound\":0,\"emailsQtyForTheSecondRound\":0}");
+
+        final ResponseEntity<String> importResponse = this.restTemplate.postForEntity(urlPrefix + "/emails/import",
+                                                                    composeEmail(teamId, 2, 1000), String.class);
+        assertThat(importResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        final long emailId = Long.parseLong(importResponse.getBody());
+
+        assertThat(this.restTemplate.getForObject(urlPrefix + "/emails/digest/all", String.class))
+                .contains("\"" + teamId + "\":{\"emailsQtyForTheFirstRound\":0,\"emailsQtyForTheSecondRound\":1}");
+        assertThat(this.restTemplate.getForObject(urlPrefix + "/emails/digest/" + teamId, String.class))
+                .isEqualTo("{\"emailsQtyForTheFirstRound\":0,\"emailsQtyForTheSecondRound\":1}");
+
+        // импорт в отменённой транзакции счётчики не меняет
+        new TransactionTemplate(transactionManager).execute(status -> {
+            emailsController.importAnswers(composeEmail(teamId, 1, 2000));
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(this.restTemplate.getForObject(urlPrefix + "/emails/digest/" + teamId, String.class))
+                .isEqualTo("{\"emailsQtyForTheFirstRound\":0,\"emailsQtyForTheSecondRound\":1}");
+
+        final ResponseEntity<String> deleteResponse = this.restTemplate.exchange(urlPrefix + "/emails/delete/" +
+                                                                    emailId, HttpMethod.DELETE, null, String.class);
+        assertThat(deleteResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+        assertThat(this.restTemplate.getForObject(urlPrefix + "/emails/digest/all", String.class))
+                                                                            .doesNotContain("\"" + teamId + "\":");
+    }
+
+    private static Email composeEmail(long teamId, int roundNumber, long sentOn) {
+        final Email email = new Email();
+        email.setTeamId(teamId);
+        email.setRoundNumber(roundNumber);
+        email.setBody("текст письма");
+        email.setQuestionNumbersSequence("1");
+        email.setSentOn(sentOn);
+        email.setImportedOn(sentOn);
+        return email;
+    }
 }
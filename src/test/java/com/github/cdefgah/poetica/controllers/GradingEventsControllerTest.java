@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.cdefgah.poetica.events.GradingEvent;
+import com.github.cdefgah.poetica.events.GradingEventsHub;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GradingEventsControllerTest extends AbstractRestControllerTest {
+
+    @Autowired
+    private GradingEventsHub gradingEventsHub;
+
+    @Test
+    public void testGradingEventsAfterRequest() throws Exception {
+        final String urlPrefix = localAddressPrefix + port + "/events/grading/after/";
+
+        final ResponseEntity<String> unknownEventResponse =
+                                            this.restTemplate.getForEntity(urlPrefix + Long.MAX_VALUE, String.class);
+        assertThat(unknownEventResponse.getStatusCode()).isEqualTo(HttpStatus.GONE);
+    }
+
+    @Test
+    public void testEventsOfAnotherBootRequireResync() throws Exception {
+        final String urlPrefix = localAddressPrefix + port + "/events/grading/after/";
+
+        final String lastReceivedEventId = gradingEventsHub.getLastEventId();
+        for (int i = 0; i < 3; i++) {
+            gradingEventsHub.publish(GradingEvent.emailImported(i, 1, 1));
+        }
+
+        final ResponseEntity<JsonNode> missedEventsResponse =
+                                        this.restTemplate.getForEntity(urlPrefix + lastReceivedEventId, JsonNode.class);
+        assertThat(missedEventsResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(missedEventsResponse.getBody().size()).isEqualTo(3);
+        final String lastMissedEventId = missedEventsResponse.getBody().get(2).get("eventId").asText();
+        assertThat(lastMissedEventId).isEqualTo(gradingEventsHub.getLastEventId());
+
+        // тот-же порядковый номер, полученный клиентом до перезапуска сервера
+        final String sequenceNumber = lastReceivedEventId.substring(lastReceivedEventId.indexOf('-') + 1);
+        final ResponseEntity<String> previousBootResponse =
+                                        this.restTemplate.getForEntity(urlPrefix + "1-" + sequenceNumber, String.class);
+        assertThat(previousBootResponse.getStatusCode()).isEqualTo(HttpStatus.GONE);
+    }
+}
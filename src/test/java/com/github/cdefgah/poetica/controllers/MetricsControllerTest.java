@@ -0,0 +1,47 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsControllerTest extends AbstractRestControllerTest {
+
+    @Test
+    public void testReportRequestIsMeasuredWithPhases() throws Exception {
+        final String reportUrl = localAddressPrefix + port + "/reports/summary/1/UTF8";
+        final ResponseEntity<byte[]> reportResponse = this.restTemplate.getForEntity(reportUrl, byte[].class);
+        assertThat(reportResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        final String metricsUrl = localAddressPrefix + port + "/metrics";
+        final JsonNode metrics = new ObjectMapper().readTree(this.restTemplate.getForObject(metricsUrl, String.class));
+
+        JsonNode reportEndpoint = null;
+        for (JsonNode endpoint : metrics.get("endpoints")) {
+            assertThat(endpoint.get("endpoint").asText()).doesNotStartWith("GET /metrics");
+            if ("GET /reports/summary/{roundNumber}/{encodingName}".equals(endpoint.get("endpoint").asText())) {
+                reportEndpoint = endpoint;
+            }
+        }
+
+        assertThat(reportEndpoint).isNotNull();
+        assertThat(reportEndpoint.get("requestsCount").asLong()).isGreaterThanOrEqualTo(1);
+        assertThat(reportEndpoint.get("statementsCount").asLong()).isGreaterThanOrEqualTo(2);
+        assertThat(reportEndpoint.get("latency").get("maxMillis").asDouble()).isGreaterThan(0);
+
+        final JsonNode reportPhases = reportEndpoint.get("reportPhases");
+        assertThat(reportPhases.has("LoadingData")).isTrue();
+        assertThat(reportPhases.has("MainReport")).isTrue();
+        assertThat(reportPhases.has("Rendering")).isTrue();
+        assertThat(reportPhases.has("Encoding")).isTrue();
+        assertThat(reportPhases.has("Writing")).isTrue();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.controllers;
+
+import com.github.cdefgah.poetica.emails.EmailsCountRegistry;
+import com.github.cdefgah.poetica.grading.AutoGradingIndexManager;
+import com.github.cdefgah.poetica.metrics.RequestMetricsRegistry;
+import com.github.cdefgah.poetica.metrics.StatementCountLimits;
+import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndexHolder;
+import com.github.cdefgah.poetica.reports.ReportsCache;
+import com.github.cdefgah.poetica.reports.restable.live.LiveResultsTableManager;
+import com.github.cdefgah.poetica.testsupport.SyntheticDataset;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Количество SQL-запросов за один запрос не должно зависеть от количества команд и ответов.
+ * Считаются и запросы Hibernate, и запросы, выполненные через JdbcTemplate, как при импорте ответов.
+ * Отдельная база данных, чтобы набор данных не мешал остальным тестам.
+ */
+@TestPropertySource(properties =
+        "spring.datasource.url=jdbc:h2:mem:statement-count-limits;MODE=LEGACY;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class StatementCountLimitsTest extends AbstractRestControllerTest {
+
+    private static final int TEAMS_COUNT = 30;
+
+    /**
+     * Ответы импортируются одним пакетом, количество SQL-запросов при импорте растёт только с количеством пакетов.
+     */
+    private static final int IMPORTED_ANSWERS_COUNT = 40;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RequestMetricsRegistry requestMetricsRegistry;
+
+    @Autowired
+    private QuestionNumberIndexHolder questionNumberIndexHolder;
+
+    @Autowired
+    private AutoGradingIndexManager autoGradingIndexManager;
+
+    @Autowired
+    private EmailsCountRegistry emailsCountRegistry;
+
+    @Autowired
+    private LiveResultsTableManager liveResultsTableManager;
+
+    @Autowired
+    private ReportsCache reportsCache;
+
+    @Test
+    public void testStatementsCountDoesNotGrowWithTeamsCount() throws Exception {
+        final SyntheticDataset dataset = new SyntheticDataset(TEAMS_COUNT, 20, 2, 40, "70:25:5", 42);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            dataset.fill(jdbcTemplate);
+            return null;
+        });
+
+        // данные вставлены в обход приложения
+        questionNumberIndexHolder.invalidate();
+        autoGradingIndexManager.invalidate();
+        emailsCountRegistry.invalidate();
+        liveResultsTableManager.invalidate();
+        reportsCache.bumpDataVersion();
+
+        final long teamId = jdbcTemplate.queryForObject("select min(id) from teams", Long.class);
+        final long answerId = jdbcTemplate.queryForObject("select min(id) from answers", Long.class);
+        final Map<String, Object> email = jdbcTemplate.queryForMap("select id, round_number, sent_on from emails " +
+                                                                "where team_id = ? order by id limit 1", teamId);
+        final Answer[] answersToImport = dataset.createAnswersToImport(teamId, ((Number) email.get("id")).longValue(),
+                ((Number) email.get("round_number")).intValue(), ((Number) email.get("sent_on")).longValue(),
+                IMPORTED_ANSWERS_COUNT, new Random(42));
+
+        requestMetricsRegistry.reset();
+        get("/teams/all");
+        get("/teams/stats");
+        get("/teams/only-with-not-graded-answers");
+        get("/answers/" + teamId + "/0");
+        get("/emails/" + teamId + "/0");
+        get("/emails/digest/all");
+        get("/questions/all");
+        get("/reports/results-table/Full/UTF8");
+        get("/reports/collection/UTF8");
+        get("/reports/summary/2/UTF8");
+        this.restTemplate.put(localAddressPrefix + port + "/answers/accept?answerId=" + answerId, null);
+        final ResponseEntity<String> importResponse = this.restTemplate.postForEntity(localAddressPrefix + port +
+                                                                "/answers/import", answersToImport, String.class);
+        assertThat(importResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        new StatementCountLimits()
+                .limit("GET /teams/all", 1)
+                .limit("GET /teams/stats", 3)
+                .limit("GET /teams/only-with-not-graded-answers", 1)
+                .limit("GET /answers/{teamId}/{roundOption}", 1)
+                .limit("GET /emails/{teamId}/{roundOption}", 1)
+                .limit("GET /emails/digest/all", 0)
+                .limit("GET /questions/all", 1)
+                .limit("GET /reports/results-table/{reportFormat}/{encodingName}", 6)
+                .limit("GET /reports/collection/{encodingName}", 2)
+                .limit("GET /reports/summary/{roundNumber}/{encodingName}", 2)
+                .limit("PUT /answers/accept", 3)
+                .limit("POST /answers/import", 2)
+                .assertSatisfied(requestMetricsRegistry, 5000);
+    }
+
+    private void get(String path) {
+        final ResponseEntity<byte[]> response = this.restTemplate.getForEntity(localAddressPrefix + port + path,
+                                                                                                    byte[].class);
+        assertThat(response.getStatusCode()).as(path).isEqualTo(HttpStatus.OK);
+    }
+}
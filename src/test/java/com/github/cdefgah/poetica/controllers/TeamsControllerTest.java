@@ -5,12 +5,45 @@
 
 package com.github.cdefgah.poetica.controllers;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.cdefgah.poetica.emails.EmailsCountRegistry;
+import com.github.cdefgah.poetica.model.Grade;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertAnswer;
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertEmail;
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertTeam;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class TeamsControllerTest  extends AbstractRestControllerTest {
 
+    private static final int STATS_TEAM_NUMBER = 9101;
+
+    private static final long EMAIL_SENT_ON = 1_600_000_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EmailsCountRegistry emailsCountRegistry;
+
+    @AfterEach
+    public void deleteSeededTeams() {
+        jdbcTemplate.update("delete from answers where team_id in (select id from teams where number in (?, ?))",
+                                                                        STATS_TEAM_NUMBER, STATS_TEAM_NUMBER + 1);
+        jdbcTemplate.update("delete from emails where team_id in (select id from teams where number in (?, ?))",
+                                                                        STATS_TEAM_NUMBER, STATS_TEAM_NUMBER + 1);
+        jdbcTemplate.update("delete from teams where number in (?, ?)", STATS_TEAM_NUMBER, STATS_TEAM_NUMBER + 1);
+
+        // данные удалены в обход приложения
+        emailsCountRegistry.invalidate();
+    }
+
     @Test
     public void testModelConstraintsRequest() throws Exception {
         final String endpointAddress = "/teams/model-constraints";
@@ -20,4 +53,54 @@ public class TeamsControllerTest  extends AbstractRestControllerTest {
 
         assertThat(this.restTemplate.getForObject(url, String.class)).isEqualTo(expectedString);
     }
+
+    @Test
+    public void testTeamsStatisticsCountAnswersByRoundAndGrade() throws Exception {
+        final long notGradedTeamId = insertTeam(jdbcTemplate, STATS_TEAM_NUMBER);
+        final long firstEmailId = insertEmail(jdbcTemplate, notGradedTeamId, 1, EMAIL_SENT_ON, "1-3");
+        insertEmail(jdbcTemplate, notGradedTeamId, 1, EMAIL_SENT_ON + 1, "1-3");
+        final long roundTwoEmailId = insertEmail(jdbcTemplate, notGradedTeamId, 2, EMAIL_SENT_ON + 2, "1-3");
+        insertAnswer(jdbcTemplate, notGradedTeamId, firstEmailId, 1, EMAIL_SENT_ON, 1, 1, "ответ", Grade.Accepted);
+        insertAnswer(jdbcTemplate, notGradedTeamId, firstEmailId, 1, EMAIL_SENT_ON, 2, 2, "ответ", Grade.Accepted);
+        insertAnswer(jdbcTemplate, notGradedTeamId, firstEmailId, 1, EMAIL_SENT_ON, 3, 3, "ответ", Grade.NotAccepted);
+        insertAnswer(jdbcTemplate, notGradedTeamId, roundTwoEmailId, 2, EMAIL_SENT_ON, 1, 1, "ответ", Grade.Accepted);
+        insertAnswer(jdbcTemplate, notGradedTeamId, roundTwoEmailId, 2, EMAIL_SENT_ON, 2, 2, "ответ", Grade.None);
+        insertAnswer(jdbcTemplate, notGradedTeamId, roundTwoEmailId, 2, EMAIL_SENT_ON, 3, 3, "ответ", Grade.None);
+
+        final long gradedTeamId = insertTeam(jdbcTemplate, STATS_TEAM_NUMBER + 1);
+        final long gradedTeamEmailId = insertEmail(jdbcTemplate, gradedTeamId, 1, EMAIL_SENT_ON, "1-3");
+        insertAnswer(jdbcTemplate, gradedTeamId, gradedTeamEmailId, 1, EMAIL_SENT_ON, 1, 1, "ответ", Grade.NotAccepted);
+
+        // данные вставлены в обход приложения
+        emailsCountRegistry.invalidate();
+
+        final ResponseEntity<JsonNode> response = this.restTemplate.getForEntity(localAddressPrefix + port +
+                                                                                    "/teams/stats", JsonNode.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        final JsonNode teamStatistics = response.getBody().get(String.valueOf(notGradedTeamId));
+        assertEmailsCount(teamStatistics, 2, 1);
+        assertAnswersCount(teamStatistics.get("answersForTheFirstRound"), 2, 1, 0);
+        assertAnswersCount(teamStatistics.get("answersForTheSecondRound"), 1, 0, 2);
+        assertThat(teamStatistics.get("notGradedAnswersPresent").asBoolean()).isTrue();
+
+        final JsonNode gradedTeamStatistics = response.getBody().get(String.valueOf(gradedTeamId));
+        assertEmailsCount(gradedTeamStatistics, 1, 0);
+        assertAnswersCount(gradedTeamStatistics.get("answersForTheFirstRound"), 0, 1, 0);
+        assertAnswersCount(gradedTeamStatistics.get("answersForTheSecondRound"), 0, 0, 0);
+        assertThat(gradedTeamStatistics.get("notGradedAnswersPresent").asBoolean()).isFalse();
+    }
+
+    private static void assertEmailsCount(JsonNode teamStatistics, long firstRoundQty, long secondRoundQty) {
+        final JsonNode emailsCountDigest = teamStatistics.get("emailsCountDigest");
+        assertThat(emailsCountDigest.get("emailsQtyForTheFirstRound").asLong()).isEqualTo(firstRoundQty);
+        assertThat(emailsCountDigest.get("emailsQtyForTheSecondRound").asLong()).isEqualTo(secondRoundQty);
+    }
+
+    private static void assertAnswersCount(JsonNode answersCountDigest, long acceptedQty, long notAcceptedQty,
+                                                                                            long notGradedQty) {
+        assertThat(answersCountDigest.get("acceptedAnswersQty").asLong()).isEqualTo(acceptedQty);
+        assertThat(answersCountDigest.get("notAcceptedAnswersQty").asLong()).isEqualTo(notAcceptedQty);
+        assertThat(answersCountDigest.get("notGradedAnswersQty").asLong()).isEqualTo(notGradedQty);
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadWriteRoutingDataSourceTest {
+
+    @AfterEach
+    void resetTransactionState() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void testRouting() throws Exception {
+        final DataSource writerDataSource = mock(DataSource.class);
+        final DataSource readerDataSource = mock(DataSource.class);
+        final Connection writerConnection = mock(Connection.class);
+        final Connection readerConnection = mock(Connection.class);
+        when(writerDataSource.getConnection()).thenReturn(writerConnection);
+        when(readerDataSource.getConnection()).thenReturn(readerConnection);
+
+        final ReadWriteRoutingDataSource routingDataSource =
+                                                new ReadWriteRoutingDataSource(writerDataSource, readerDataSource);
+
+        assertSame(writerConnection, routingDataSource.getConnection());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertSame(readerConnection, routingDataSource.getConnection());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.events;
+
+import com.github.cdefgah.poetica.model.Grade;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GradingEventsHubTest {
+
+    private static final long BOOT_EPOCH = 1_600_000_000_000L;
+
+    @Test
+    public void eventsAreNumberedAndReplayedAfterLastReceivedTest() {
+        GradingEventsHub hub = new GradingEventsHub(BOOT_EPOCH);
+        hub.publish(GradingEvent.emailImported(10, 1, 2));
+        hub.publish(GradingEvent.answerGraded(20, 1, 3, 2, Grade.Accepted));
+        hub.publish(GradingEvent.questionGradedStateChanged(3, false));
+
+        assertThat(hub.getLastEventId()).isEqualTo(BOOT_EPOCH + "-3");
+
+        List<GradingEvent> events = hub.getEventsAfter(BOOT_EPOCH + "-1");
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0).getEventId()).isEqualTo(BOOT_EPOCH + "-2");
+        assertThat(events.get(0).getType()).isEqualTo(GradingEventType.AnswerGraded);
+        assertThat(events.get(0).getGrade()).isEqualTo(Grade.Accepted);
+        assertThat(events.get(1).getEventId()).isEqualTo(BOOT_EPOCH + "-3");
+        assertThat(events.get(1).getGraded()).isFalse();
+
+        assertThat(hub.getEventsAfter(hub.getLastEventId())).isEmpty();
+        assertThat(hub.getEventsToReplay(BOOT_EPOCH + "-1")).isEqualTo(events);
+    }
+
+    @Test
+    public void unknownOrEvictedEventsRequireResyncTest() {
+        GradingEventsHub hub = new GradingEventsHub(BOOT_EPOCH);
+        for (int i = 0; i < GradingEventsHub.EVENTS_BUFFER_CAPACITY + 5; i++) {
+            hub.publish(GradingEvent.emailDeleted(i, 1, 1));
+        }
+
+        // события после первых четырёх уже вытеснены из буфера
+        assertThat(hub.getEventsAfter(BOOT_EPOCH + "-4")).isNull();
+        assertThat(hub.getEventsAfter(BOOT_EPOCH + "-5")).hasSize(GradingEventsHub.EVENTS_BUFFER_CAPACITY);
+        assertThat(hub.getEventsAfter(BOOT_EPOCH + "-5").get(0).getEventId()).isEqualTo(BOOT_EPOCH + "-6");
+
+        // номер из будущего и некорректные номера
+        assertThat(hub.getEventsAfter(BOOT_EPOCH + "-" + (GradingEventsHub.EVENTS_BUFFER_CAPACITY + 6))).isNull();
+        assertThat(hub.getEventsAfter(BOOT_EPOCH + "--1")).isNull();
+        assertThat(hub.getEventsAfter(BOOT_EPOCH + "-x")).isNull();
+        assertThat(hub.getEventsAfter("5")).isNull();
+    }
+
+    @Test
+    public void clientReconnectingAfterRestartRequiresResyncTest() {
+        GradingEventsHub hubBeforeRestart = new GradingEventsHub(BOOT_EPOCH);
+        for (int i = 0; i < 3; i++) {
+            hubBeforeRestart.publish(GradingEvent.emailImported(i, 1, 1));
+        }
+        final String lastReceivedEventId = hubBeforeRestart.getLastEventId();
+
+        // после перезапуска сервер разослал больше событий, чем клиент получил до него
+        GradingEventsHub hubAfterRestart = new GradingEventsHub(BOOT_EPOCH + 60_000L);
+        for (int i = 0; i < 5; i++) {
+            hubAfterRestart.publish(GradingEvent.emailImported(i, 1, 1));
+        }
+
+        assertThat(hubAfterRestart.getEventsAfter(lastReceivedEventId)).isNull();
+
+        final List<GradingEvent> eventsToReplay = hubAfterRestart.getEventsToReplay(lastReceivedEventId);
+        assertThat(eventsToReplay).hasSize(1);
+        assertThat(eventsToReplay.get(0).getType()).isEqualTo(GradingEventType.ResyncRequired);
+        assertThat(eventsToReplay.get(0).getEventId()).isEqualTo(hubAfterRestart.getLastEventId());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.grading;
+
+import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.model.Grade;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutoGradingIndexTest {
+
+    @Test
+    void testPutAndGet() {
+        final AutoGradingIndex index = new AutoGradingIndex();
+        final String acceptedHash = getAnswerBodyHash("ответ 1");
+        final String declinedHash = getAnswerBodyHash("ответ 2");
+
+        index.put(1, acceptedHash, Grade.Accepted, false);
+        index.put(1, declinedHash, Grade.NotAccepted, false);
+
+        assertEquals(Grade.Accepted, index.get(1, acceptedHash));
+        assertEquals(Grade.NotAccepted, index.get(1, declinedHash));
+        assertNull(index.get(2, acceptedHash));
+
+        index.put(1, acceptedHash, Grade.NotAccepted, false);
+        assertEquals(Grade.Accepted, index.get(1, acceptedHash));
+
+        index.put(1, acceptedHash, Grade.NotAccepted, true);
+        assertEquals(Grade.NotAccepted, index.get(1, acceptedHash));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void testGrowth() {
+        final AutoGradingIndex index = new AutoGradingIndex();
+        final int answersCount = 50_000;
+        for (int i = 0; i < answersCount; i++) {
+            index.put(i % 100, getAnswerBodyHash("ответ " + i), i % 2 == 0 ? Grade.Accepted : Grade.NotAccepted, false);
+        }
+
+        assertEquals(answersCount, index.size());
+        for (int i = 0; i < answersCount; i++) {
+            assertEquals(i % 2 == 0 ? Grade.Accepted : Grade.NotAccepted,
+                                                            index.get(i % 100, getAnswerBodyHash("ответ " + i)));
+        }
+    }
+
+    @Test
+    void testHashPrefix() {
+        assertEquals(0x0123456789abcdefL, AutoGradingIndex.getHashPrefix("0123456789ABCDEF0000"));
+        assertEquals(-1L, AutoGradingIndex.getHashPrefix("ffffffffffffffff"));
+        assertNotEquals(AutoGradingIndex.getHashPrefix("not a hex"), AutoGradingIndex.getHashPrefix("not a hex!"));
+    }
+
+    private static String getAnswerBodyHash(String answerBody) {
+        final Answer answer = new Answer();
+        answer.setBody(answerBody);
+        return answer.getAnswerBodyHash();
+    }
+}
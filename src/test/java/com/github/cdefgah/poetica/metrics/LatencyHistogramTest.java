@@ -0,0 +1,54 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketBoundsDoubleFromOneMicrosecond() {
+        assertEquals(0, LatencyHistogram.getBucketIndex(0));
+        assertEquals(0, LatencyHistogram.getBucketIndex(1_000));
+        assertEquals(1, LatencyHistogram.getBucketIndex(1_001));
+        assertEquals(10, LatencyHistogram.getBucketIndex(1_024_000));
+        assertEquals(11, LatencyHistogram.getBucketIndex(1_024_001));
+        assertEquals(LatencyHistogram.BUCKETS_COUNT - 1, LatencyHistogram.getBucketIndex(Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    void testPercentilesAreEstimatedByBucketUpperBound() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(900_000); // 0.9 мс, интервал до 1.024 мс
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(3_000_000); // 3 мс, интервал до 4.096 мс
+        }
+
+        final LatencyStatistics statistics = histogram.getStatistics();
+        assertEquals(100, statistics.getCount());
+        assertEquals(111.0, statistics.getTotalMillis(), 1e-9);
+        assertEquals(1.024, statistics.getP50Millis(), 1e-9);
+        assertEquals(1.024, statistics.getP90Millis(), 1e-9);
+        // верхняя граница интервала больше максимального значения, отдаётся максимальное значение
+        assertEquals(3.0, statistics.getP99Millis(), 1e-9);
+        assertEquals(3.0, statistics.getMaxMillis(), 1e-9);
+        assertEquals(Long.valueOf(90), statistics.getHistogram().get("1.024"));
+        assertEquals(Long.valueOf(10), statistics.getHistogram().get("4.096"));
+    }
+
+    @Test
+    void testEmptyHistogram() {
+        final LatencyStatistics statistics = new LatencyHistogram().getStatistics();
+        assertEquals(0, statistics.getCount());
+        assertEquals(0, statistics.getP99Millis());
+        assertEquals(0, statistics.getMeanMillis());
+        assertTrue(statistics.getHistogram().isEmpty());
+    }
+}
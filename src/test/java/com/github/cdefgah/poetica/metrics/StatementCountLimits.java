@@ -0,0 +1,105 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ограничения количества SQL-запросов за один запрос к адресам контроллеров, для тестов.
+ * Ограничение задаётся константой и не должно зависеть от объёма данных: если количество SQL-запросов
+ * растёт вместе с количеством команд или ответов, тест с достаточно большим набором данных упадёт.
+ * Статистика запроса сохраняется после вывода ответа, для отчётов это может произойти уже после того,
+ * как клиент получил ответ, поэтому проверка ждёт, пока по всем адресам появится статистика.
+ */
+public final class StatementCountLimits {
+
+    /**
+     * Как часто перечитывать статистику, пока по каким-то адресам её нет, в миллисекундах.
+     */
+    private static final long POLLING_INTERVAL_MILLIS = 20;
+
+    /**
+     * Наибольшее количество SQL-запросов за один запрос по адресам контроллеров.
+     */
+    private final Map<String, Long> limits = new LinkedHashMap<>();
+
+    /**
+     * Задаёт ограничение для адреса контроллера.
+     * @param endpoint адрес контроллера: HTTP-метод и шаблон пути, например "GET /teams/all".
+     * @param maxStatementsCount наибольшее допустимое количество SQL-запросов за один запрос.
+     * @return этот-же объект.
+     */
+    public StatementCountLimits limit(String endpoint, long maxStatementsCount) {
+        limits.put(endpoint, maxStatementsCount);
+        return this;
+    }
+
+    /**
+     * Проверяет, что по каждому адресу с ограничением был хотя бы один запрос и ни один из запросов
+     * не превысил ограничение. Все нарушения собираются в одну ошибку.
+     * @param snapshot статистика запросов.
+     * @throws AssertionError если ограничения нарушены.
+     */
+    public void assertSatisfied(MetricsSnapshot snapshot) {
+        final Map<String, EndpointStatistics> endpoints = new HashMap<>();
+        for (EndpointStatistics endpointStatistics : snapshot.getEndpoints()) {
+            endpoints.put(endpointStatistics.getEndpoint(), endpointStatistics);
+        }
+
+        final List<String> violations = new ArrayList<>();
+        for (Map.Entry<String, Long> limit : limits.entrySet()) {
+            final EndpointStatistics endpointStatistics = endpoints.get(limit.getKey());
+            if (endpointStatistics == null) {
+                violations.add(limit.getKey() + ": no requests recorded");
+            } else if (endpointStatistics.getMaxStatementsCount() > limit.getValue()) {
+                violations.add(limit.getKey() + ": " + endpointStatistics.getMaxStatementsCount() +
+                                                        " SQL statements per request, limit is " + limit.getValue());
+            }
+        }
+
+        if (!violations.isEmpty()) {
+            throw new AssertionError("SQL statements limits exceeded:\n" + String.join("\n", violations));
+        }
+    }
+
+    /**
+     * Ждёт, пока по всем адресам с ограничением появится статистика, и проверяет ограничения.
+     * @param registry статистика запросов.
+     * @param timeoutMillis сколько ждать появления статистики, в миллисекундах.
+     * @throws AssertionError если ограничения нарушены.
+     * @throws InterruptedException если ожидание прервано.
+     */
+    public void assertSatisfied(RequestMetricsRegistry registry, long timeoutMillis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        MetricsSnapshot snapshot = registry.getSnapshot();
+        while (!isRecordedForAllEndpoints(snapshot) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLLING_INTERVAL_MILLIS);
+            snapshot = registry.getSnapshot();
+        }
+
+        assertSatisfied(snapshot);
+    }
+
+    /**
+     * Проверяет, есть-ли статистика по всем адресам с ограничением.
+     * @param snapshot статистика запросов.
+     * @return true, если статистика есть по всем адресам.
+     */
+    private boolean isRecordedForAllEndpoints(MetricsSnapshot snapshot) {
+        int recordedCount = 0;
+        for (EndpointStatistics endpointStatistics : snapshot.getEndpoints()) {
+            if (limits.containsKey(endpointStatistics.getEndpoint())) {
+                recordedCount++;
+            }
+        }
+
+        return recordedCount == limits.size();
+    }
+}
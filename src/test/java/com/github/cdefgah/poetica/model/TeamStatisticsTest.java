@@ -0,0 +1,38 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TeamStatisticsTest {
+    @Test
+    public void addAnswersByRoundAndGradeTest() {
+        TeamStatistics teamStatistics = new TeamStatistics(new EmailsCountDigest(1, 2));
+        teamStatistics.addAnswers(1, Grade.Accepted, 3);
+        teamStatistics.addAnswers(1, Grade.NotAccepted, 4);
+        teamStatistics.addAnswers(2, Grade.Accepted, 5);
+        teamStatistics.addAnswers(2, Grade.None, 6);
+
+        assertThat(teamStatistics.getEmailsCountDigest().getEmailsQtyForTheSecondRound()).isEqualTo(2);
+        assertThat(teamStatistics.getAnswersForTheFirstRound().getAcceptedAnswersQty()).isEqualTo(3);
+        assertThat(teamStatistics.getAnswersForTheFirstRound().getNotAcceptedAnswersQty()).isEqualTo(4);
+        assertThat(teamStatistics.getAnswersForTheFirstRound().getNotGradedAnswersQty()).isEqualTo(0);
+        assertThat(teamStatistics.getAnswersForTheSecondRound().getAcceptedAnswersQty()).isEqualTo(5);
+        assertThat(teamStatistics.getAnswersForTheSecondRound().getNotGradedAnswersQty()).isEqualTo(6);
+        assertThat(teamStatistics.isNotGradedAnswersPresent()).isTrue();
+    }
+
+    @Test
+    public void noNotGradedAnswersTest() {
+        TeamStatistics teamStatistics = new TeamStatistics(new EmailsCountDigest(0, 0));
+        teamStatistics.addAnswers(1, Grade.Accepted, 1);
+        teamStatistics.addAnswers(2, Grade.NotAccepted, 1);
+
+        assertThat(teamStatistics.isNotGradedAnswersPresent()).isFalse();
+    }
+}
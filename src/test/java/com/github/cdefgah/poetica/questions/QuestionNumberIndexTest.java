@@ -0,0 +1,104 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.questions;
+
+import com.github.cdefgah.poetica.model.Question;
+import com.github.cdefgah.poetica.utils.TextHasher;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionNumberIndexTest {
+
+    @Test
+    void testCompactRangeLookup() {
+        final List<Question> questions = new ArrayList<>();
+        questions.add(createQuestion(4, 6, false, "ответ 2"));
+        questions.add(createQuestion(1, 3, true, "ответ 1"));
+        questions.add(createQuestion(8, 8, true, "ответ 3"));
+
+        assertIndexLookups(QuestionNumberIndex.of(questions), 1, 8);
+    }
+
+    @Test
+    void testSparseRangeLookup() {
+        final List<Question> questions = new ArrayList<>();
+        questions.add(createQuestion(100_004, 100_006, false, "ответ 2"));
+        questions.add(createQuestion(1, 3, true, "ответ 1"));
+        questions.add(createQuestion(100_008, 100_008, true, "ответ 3"));
+
+        final QuestionNumberIndex index = QuestionNumberIndex.of(questions);
+        assertTrue(index.contains(2));
+        assertFalse(index.contains(4));
+        assertFalse(index.contains(100_003));
+        assertTrue(index.contains(100_005));
+        assertFalse(index.isGraded(100_005));
+        assertTrue(index.isGraded(100_008));
+        assertEquals(100_008, index.getMaxQuestionNumber());
+        assertEquals(Arrays.asList(100_004, 100_005, 100_006), index.getNotGradedQuestionNumbers());
+    }
+
+    @Test
+    void testEmptyIndex() {
+        final QuestionNumberIndex index = QuestionNumberIndex.of(Collections.emptyList());
+        assertTrue(index.isEmpty());
+        assertEquals(0, index.getMinQuestionNumber());
+        assertEquals(0, index.getMaxQuestionNumber());
+        assertEquals(0, index.getHighestQuestionNumber());
+        assertEquals(-1, index.getQuestionId(1));
+        assertNull(index.getAuthorsAnswerHash(1));
+    }
+
+    private static void assertIndexLookups(QuestionNumberIndex index, int minQuestionNumber, int maxQuestionNumber) {
+        assertEquals(minQuestionNumber, index.getMinQuestionNumber());
+        assertEquals(maxQuestionNumber, index.getMaxQuestionNumber());
+        assertEquals(maxQuestionNumber, index.getHighestQuestionNumber());
+
+        assertFalse(index.contains(0));
+        assertTrue(index.contains(3));
+        assertTrue(index.contains(4));
+        assertFalse(index.contains(7));
+        assertFalse(index.contains(9));
+
+        assertTrue(index.isGraded(2));
+        assertFalse(index.isGraded(5));
+        assertFalse(index.isGraded(7));
+
+        assertEquals(createQuestion(4, 6, false, "ответ 2").getAuthorsAnswerHash(), index.getAuthorsAnswerHash(6));
+        assertEquals(-1, index.getQuestionId(7));
+        assertEquals(Arrays.asList(4, 5, 6), index.getNotGradedQuestionNumbers());
+    }
+
+    @Test
+    void testMissingAndWrongLengthHashesAreComputedWithoutChangingQuestions() {
+        final Question withoutHash = createQuestion(1, 1, true, "море");
+        ReflectionTestUtils.setField(withoutHash, "authorsAnswerHash", null);
+        final Question withWrongLengthHash = createQuestion(2, 2, true, "лес");
+        ReflectionTestUtils.setField(withWrongLengthHash, "authorsAnswerHash", "0123456789");
+
+        final QuestionNumberIndex index = QuestionNumberIndex.of(Arrays.asList(withoutHash, withWrongLengthHash));
+
+        assertEquals(TextHasher.getHashForRawText("море"), index.getAuthorsAnswerHash(1));
+        assertEquals(TextHasher.getHashForRawText("лес"), index.getAuthorsAnswerHash(2));
+        assertNull(withoutHash.getAuthorsAnswerHash());
+        assertEquals("0123456789", withWrongLengthHash.getAuthorsAnswerHash());
+    }
+
+    private static Question createQuestion(int lowestNumber, int highestNumber, boolean graded, String authorsAnswer) {
+        final Question question = new Question();
+        question.setLowestInternalNumber(lowestNumber);
+        question.setHighestInternalNumber(highestNumber);
+        question.setGraded(graded);
+        question.setAuthorsAnswer(authorsAnswer);
+        return question;
+    }
+}
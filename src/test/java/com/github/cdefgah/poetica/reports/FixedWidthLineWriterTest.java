@@ -0,0 +1,78 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedWidthLineWriterTest {
+
+    @Test
+    void testDecimalLengthMatchesStringRepresentation() {
+        final long[] numbers = {0, 7, 9, 10, 99, 100, 12345, -1, -10, -999, Integer.MAX_VALUE,
+                                                                                    Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long number : numbers) {
+            assertEquals(String.valueOf(number).length(), FixedWidthLineWriter.getDecimalLength(number));
+        }
+    }
+
+    @Test
+    void testColumnsArePaddedLikeStringAlignment() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        final FixedWidthLineWriter line = new FixedWidthLineWriter(sb);
+        line.appendRightAligned(7, 3).append(' ').appendZeroPadded(5, 2).append('.').appendZeroPadded(12, 2);
+        line.append(' ').appendRightAligned("Р", 3).append(' ').appendRightAligned(-4, 3).endLine();
+        // значение длиннее колонки выводится целиком
+        line.appendRightAligned(12345, 2).append(' ').appendRightAligned("КОМАНДА", 3).endLine();
+        line.append(Long.MIN_VALUE).append(' ').append(0).append(' ').append((CharSequence) null);
+        line.flush();
+
+        assertEquals("  7 05.12   Р  -4\n12345 КОМАНДА\n" + Long.MIN_VALUE + " 0 null", sb.toString());
+    }
+
+    @Test
+    void testZeroPaddingMatchesStringFormat() throws IOException {
+        final long[] numbers = {0, 5, -5, 42, -42, 12345, -12345, Long.MIN_VALUE};
+        for (long number : numbers) {
+            for (int columnWidth = 0; columnWidth <= 6; columnWidth++) {
+                final StringBuilder sb = new StringBuilder();
+                final FixedWidthLineWriter line = new FixedWidthLineWriter(sb);
+                line.appendZeroPadded(number, columnWidth).append('|').appendRightAligned(number, columnWidth);
+                line.flush();
+
+                final String format = columnWidth > 0 ? "%0" + columnWidth + "d|%" + columnWidth + "d" : "%d|%d";
+                assertEquals(String.format(format, number, number), sb.toString());
+            }
+        }
+    }
+
+    @Test
+    void testLongLinesAreWrittenWholeToAnyAppendable() throws IOException {
+        final StringWriter writer = new StringWriter();
+        final CharBuffer charBuffer = CharBuffer.allocate(4096);
+        final FixedWidthLineWriter toWriter = new FixedWidthLineWriter(writer);
+        final FixedWidthLineWriter toCharBuffer = new FixedWidthLineWriter(charBuffer);
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            toWriter.appendRightAligned(i, 4);
+            toCharBuffer.appendRightAligned(i, 4);
+            expected.append(String.format("%4d", i));
+        }
+        toWriter.endLine();
+        toCharBuffer.endLine();
+        expected.append('\n');
+
+        assertEquals(expected.toString(), writer.toString());
+        charBuffer.flip();
+        assertEquals(expected.toString(), charBuffer.toString());
+    }
+}
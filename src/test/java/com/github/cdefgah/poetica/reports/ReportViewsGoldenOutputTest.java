@@ -0,0 +1,199 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports;
+
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.questions.QuestionNumberIndexHolder;
+import com.github.cdefgah.poetica.reports.collection.CollectionReportView;
+import com.github.cdefgah.poetica.reports.collection.model.CollectionReportModel;
+import com.github.cdefgah.poetica.reports.restable.FullResultTableReportView;
+import com.github.cdefgah.poetica.reports.restable.MediumResultTableReportView;
+import com.github.cdefgah.poetica.reports.restable.ShortResultTableReportView;
+import com.github.cdefgah.poetica.reports.restable.model.ResultTableReportModel;
+import com.github.cdefgah.poetica.reports.summary.SummaryReportView;
+import com.github.cdefgah.poetica.reports.summary.model.SummaryReportModel;
+import com.github.cdefgah.poetica.testsupport.SyntheticDataset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertEmail;
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertQuestion;
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertTeam;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнивает текст отчётов, построенных по небольшому фиксированному набору данных, с эталонным текстом
+ * из каталога golden ресурсов теста. Время формирования отчёта в тексте заменяется на постоянную строку.
+ * Отдельная база данных, чтобы данные других тестов не попали в отчёты.
+ */
+@SpringBootTest
+@TestPropertySource(properties =
+        "spring.datasource.url=jdbc:h2:mem:report-views;MODE=LEGACY;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+public class ReportViewsGoldenOutputTest {
+
+    private static final String REPORT_TIME_PLACEHOLDER = "<время формирования отчёта>";
+
+    /**
+     * 14.11.2020 12:00 по Москве.
+     */
+    private static final long FIRST_ROUND_SENT_ON = 1_605_344_400_000L;
+
+    private static final long SECOND_ROUND_SENT_ON = FIRST_ROUND_SENT_ON + 24 * 60 * 60 * 1000L;
+
+    /**
+     * Идентификаторы заданий по номеру задания, индекс 0 не используется.
+     */
+    private final long[] questionIds = new long[5];
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private QuestionNumberIndexHolder questionNumberIndexHolder;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void seedGame() {
+        jdbcTemplate.update("delete from answers");
+        jdbcTemplate.update("delete from emails");
+        jdbcTemplate.update("delete from teams");
+        jdbcTemplate.update("delete from questions");
+
+        questionIds[1] = insertQuestion(jdbcTemplate, 1, "море", true);
+        questionIds[2] = insertQuestion(jdbcTemplate, 2, "лес", true);
+        questionIds[3] = insertQuestion(jdbcTemplate, 3, "камень", true);
+        questionIds[4] = insertQuestion(jdbcTemplate, 4, "звезда", false);
+
+        final long alphaId = insertTeam(jdbcTemplate, 1, "Альфа");
+        final long betaId = insertTeam(jdbcTemplate, 2, "Бета");
+        final long gammaId = insertTeam(jdbcTemplate, 3, "Гамма");
+        insertTeam(jdbcTemplate, 4, "Дельта");
+
+        final long alphaFirstEmailId = insertEmail(jdbcTemplate, alphaId, 1, FIRST_ROUND_SENT_ON, "1-2");
+        insertAnswer(alphaId, alphaFirstEmailId, 1, FIRST_ROUND_SENT_ON, 1, "море", Grade.Accepted);
+        insertAnswer(alphaId, alphaFirstEmailId, 1, FIRST_ROUND_SENT_ON, 2, "поле", Grade.NotAccepted);
+        final long alphaSecondEmailId = insertEmail(jdbcTemplate, alphaId, 2, SECOND_ROUND_SENT_ON, "3-4");
+        insertAnswer(alphaId, alphaSecondEmailId, 2, SECOND_ROUND_SENT_ON, 3, "камень", Grade.Accepted);
+        insertAnswer(alphaId, alphaSecondEmailId, 2, SECOND_ROUND_SENT_ON, 4, "звезда", Grade.Accepted);
+
+        final long betaEmailId = insertEmail(jdbcTemplate, betaId, 1, FIRST_ROUND_SENT_ON + 60_000L, "1-3");
+        insertAnswer(betaId, betaEmailId, 1, FIRST_ROUND_SENT_ON + 60_000L, 1, "море", Grade.Accepted);
+        insertAnswer(betaId, betaEmailId, 1, FIRST_ROUND_SENT_ON + 60_000L, 2, "лес", Grade.Accepted);
+        insertAnswer(betaId, betaEmailId, 1, FIRST_ROUND_SENT_ON + 60_000L, 3, "гора", Grade.NotAccepted);
+
+        // второе письмо команды заменяет ответ на третье задание из первого
+        final long gammaFirstEmailId = insertEmail(jdbcTemplate, gammaId, 2, SECOND_ROUND_SENT_ON, "1,3");
+        insertAnswer(gammaId, gammaFirstEmailId, 2, SECOND_ROUND_SENT_ON, 1, "река", Grade.NotAccepted);
+        insertAnswer(gammaId, gammaFirstEmailId, 2, SECOND_ROUND_SENT_ON, 3, "гора", Grade.NotAccepted);
+        final long gammaSecondEmailId = insertEmail(jdbcTemplate, gammaId, 2, SECOND_ROUND_SENT_ON + 60_000L, "3");
+        insertAnswer(gammaId, gammaSecondEmailId, 2, SECOND_ROUND_SENT_ON + 60_000L, 3, "камень", Grade.Accepted);
+
+        // данные вставлены в обход приложения
+        questionNumberIndexHolder.invalidate();
+    }
+
+    @Test
+    public void testResultTableViews() {
+        final ResultTableReportModel reportModel = inReadOnlyTransaction(() -> {
+            final ResultTableReportModel model = new ResultTableReportModel(entityManager,
+                                                                            questionNumberIndexHolder.getIndex());
+            model.generateReport();
+            return model;
+        });
+
+        assertMatchesGoldenText("full-result-table.txt", new FullResultTableReportView(reportModel));
+        assertMatchesGoldenText("medium-result-table.txt", new MediumResultTableReportView(reportModel));
+        assertMatchesGoldenText("short-result-table.txt", new ShortResultTableReportView(reportModel));
+    }
+
+    @Test
+    public void testCollectionView() {
+        assertMatchesGoldenText("collection.txt", new CollectionReportView(generateCollectionReportModel()));
+    }
+
+    @Test
+    public void testSummaryViews() {
+        for (int roundNumber = 1; roundNumber <= 2; roundNumber++) {
+            final int summaryRoundNumber = roundNumber;
+            final SummaryReportModel reportModel = inReadOnlyTransaction(() -> new SummaryReportModel(entityManager,
+                                                    questionNumberIndexHolder.getIndex(), summaryRoundNumber));
+
+            assertMatchesGoldenText("summary-round-" + roundNumber + ".txt", new SummaryReportView(reportModel));
+        }
+    }
+
+    @Test
+    public void testConsistencyReportView() {
+        // тот же ответ на первое задание, что и у команды "Альфа", но без зачёта
+        jdbcTemplate.update("update answers set grade = ? where body = ? and team_id = (select id from teams " +
+                                                        "where number = 2)", Grade.NotAccepted.name(), "море");
+
+        final CollectionReportModel reportModel = generateCollectionReportModel();
+        assertFalse(reportModel.isReportModelConsistent());
+        assertMatchesGoldenText("consistency-check.txt", new CollectionReportView(reportModel));
+    }
+
+    private CollectionReportModel generateCollectionReportModel() {
+        return inReadOnlyTransaction(() -> {
+            final CollectionReportModel model = new CollectionReportModel(entityManager,
+                                                                            questionNumberIndexHolder.getIndex());
+            model.generateReport();
+            return model;
+        });
+    }
+
+    private <T extends AbstractReportModel> T inReadOnlyTransaction(Supplier<T> modelSupplier) {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate.execute(status -> modelSupplier.get());
+    }
+
+    private void assertMatchesGoldenText(String goldenFileName, AbstractReportView reportView) {
+        final String reportTime = reportView.reportModel.getReportGeneratedOnMSKTime();
+        final String reportText = reportView.getReportText().replace(reportTime, REPORT_TIME_PLACEHOLDER);
+        assertEquals(readGoldenText(goldenFileName), reportText, goldenFileName);
+    }
+
+    private String readGoldenText(String goldenFileName) {
+        try (InputStream in = getClass().getResourceAsStream("golden/" + goldenFileName)) {
+            assertNotNull(in, "golden/" + goldenFileName);
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int readCount;
+            while ((readCount = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, readCount);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new AssertionError(goldenFileName, e);
+        }
+    }
+
+    private void insertAnswer(long teamId, long emailId, int roundNumber, long emailSentOn, int questionNumber,
+                              String body, Grade grade) {
+        SyntheticDataset.insertAnswer(jdbcTemplate, teamId, emailId, roundNumber, emailSentOn,
+                                                        questionIds[questionNumber], questionNumber, body, grade);
+    }
+}
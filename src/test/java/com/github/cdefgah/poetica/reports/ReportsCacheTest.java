@@ -0,0 +1,176 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportsCacheTest {
+
+    @Test
+    void testReportIsBuiltAgainOnlyAfterDataChange() {
+        final ReportsCache reportsCache = new ReportsCache(8);
+        final AtomicInteger buildsCount = new AtomicInteger();
+        final String key = ReportsCache.composeKey("summary", "", 1, "UTF8");
+
+        getReportBytes(reportsCache, key, () -> bytes(buildsCount.incrementAndGet()));
+        final byte[] cachedReport = getReportBytes(reportsCache, key, () -> bytes(buildsCount.incrementAndGet()));
+        assertArrayEquals(new byte[] {1}, cachedReport);
+
+        reportsCache.bumpDataVersion();
+        final byte[] rebuiltReport = getReportBytes(reportsCache, key, () -> bytes(buildsCount.incrementAndGet()));
+        assertArrayEquals(new byte[] {2}, rebuiltReport);
+
+        final ReportsCacheStatistics statistics = reportsCache.getStatistics();
+        assertEquals(1, statistics.getHitsCount());
+        assertEquals(2, statistics.getMissesCount());
+        assertEquals(1, statistics.getDataVersion());
+    }
+
+    @Test
+    void testLeastRecentlyUsedReportIsEvicted() {
+        final ReportsCache reportsCache = new ReportsCache(2);
+        getReportBytes(reportsCache, "a", () -> bytes(1));
+        getReportBytes(reportsCache, "b", () -> bytes(2));
+        getReportBytes(reportsCache, "a", () -> bytes(1));
+        getReportBytes(reportsCache, "c", () -> bytes(3));
+
+        // "b" использовался раньше всех и был вытеснен
+        assertArrayEquals(new byte[] {20}, getReportBytes(reportsCache, "b", () -> bytes(20)));
+        assertArrayEquals(new byte[] {3}, getReportBytes(reportsCache, "c", () -> bytes(30)));
+        assertEquals(2, reportsCache.getStatistics().getEntriesCount());
+    }
+
+    @Test
+    void testFailedBuildIsNotCached() {
+        final ReportsCache reportsCache = new ReportsCache(2);
+        assertThrows(IllegalStateException.class, () -> getReportBytes(reportsCache, "a", () -> {
+            throw new IllegalStateException("test");
+        }));
+
+        assertArrayEquals(new byte[] {1}, getReportBytes(reportsCache, "a", () -> bytes(1)));
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneBuild() throws Exception {
+        final ReportsCache reportsCache = new ReportsCache(2);
+        final AtomicInteger buildsCount = new AtomicInteger();
+        final CountDownLatch buildStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBuild = new CountDownLatch(1);
+        final int requestsAmount = 10;
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(requestsAmount);
+        try {
+            final List<Future<byte[]>> results = new ArrayList<>();
+            results.add(executorService.submit(() -> getReportBytes(reportsCache, "a", () -> {
+                buildsCount.incrementAndGet();
+                buildStarted.countDown();
+                awaitQuietly(releaseBuild);
+                return bytes(1);
+            })));
+
+            assertTrue(buildStarted.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < requestsAmount; i++) {
+                results.add(executorService.submit(() -> getReportBytes(reportsCache, "a", () -> {
+                    buildsCount.incrementAndGet();
+                    return bytes(2);
+                })));
+            }
+
+            // ждём, пока все остальные запросы дойдут до кэша
+            final long deadline = System.currentTimeMillis() + 10_000;
+            while (reportsCache.getStatistics().getHitsCount() < requestsAmount - 1 &&
+                                                                            System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            releaseBuild.countDown();
+            for (Future<byte[]> result : results) {
+                assertArrayEquals(new byte[] {1}, result.get(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, buildsCount.get());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void testReportIsStreamedToClientAndStoredForOthers() throws Exception {
+        final ReportsCache reportsCache = new ReportsCache(2);
+        final ByteArrayOutputStream clientOutputStream = new ByteArrayOutputStream();
+
+        final ReportRenderer reportRenderer = reportsCache.getReport("a", () -> out -> {
+            out.write(1);
+            // к этому моменту первая часть отчёта уже у клиента
+            assertEquals(1, clientOutputStream.size());
+            out.write(2);
+        });
+        reportRenderer.render(clientOutputStream);
+
+        assertArrayEquals(new byte[] {1, 2}, clientOutputStream.toByteArray());
+        assertArrayEquals(new byte[] {1, 2}, getReportBytes(reportsCache, "a", () -> bytes(3)));
+    }
+
+    @Test
+    void testReportIsStoredWhenClientDisconnects() {
+        final ReportsCache reportsCache = new ReportsCache(2);
+        final OutputStream brokenOutputStream = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("client disconnected");
+            }
+        };
+
+        final ReportRenderer reportRenderer = reportsCache.getReport("a", () -> out -> out.write(new byte[] {1}));
+        assertThrows(IOException.class, () -> reportRenderer.render(brokenOutputStream));
+
+        assertArrayEquals(new byte[] {1}, getReportBytes(reportsCache, "a", () -> bytes(2)));
+    }
+
+    private static byte[] getReportBytes(ReportsCache reportsCache, String key, Supplier<byte[]> reportBuilder) {
+        final ReportRenderer reportRenderer = reportsCache.getReport(key, () -> {
+            final byte[] reportBytes = reportBuilder.get();
+            return out -> out.write(reportBytes);
+        });
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            reportRenderer.render(out);
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int value) {
+        return new byte[] {(byte) value};
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.jobs;
+
+import com.github.cdefgah.poetica.reports.ReportRenderer;
+import com.github.cdefgah.poetica.reports.ReportsCache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportJobsManagerTest {
+
+    @Test
+    void testIdenticalInFlightRequestsShareOneJob() throws Exception {
+        final ReportsCache reportsCache = new ReportsCache(8);
+        final ReportJobsManager jobsManager = new ReportJobsManager(reportsCache, new NoOpTransactionManager(),
+                                                                                                    1, 4, 4);
+        final CountDownLatch renderingAllowed = new CountDownLatch(1);
+        final AtomicInteger buildsCount = new AtomicInteger();
+        final Supplier<ReportRenderer> reportPreparer = () -> {
+            buildsCount.incrementAndGet();
+            return out -> {
+                await(renderingAllowed);
+                out.write(new byte[] {1, 2, 3});
+            };
+        };
+
+        final ReportJob firstJob = jobsManager.submit("summary/1", "summary.txt", reportPreparer);
+        final ReportJob secondJob = jobsManager.submit("summary/1", "summary.txt", reportPreparer);
+        assertSame(firstJob, secondJob);
+        assertFalse(firstJob.isFinished());
+
+        renderingAllowed.countDown();
+        awaitFinished(firstJob);
+        assertEquals(ReportJobPhase.Completed, firstJob.getPhase());
+        assertArrayEquals(new byte[] {1, 2, 3}, firstJob.getResult());
+        assertEquals(3, firstJob.getRenderedBytes());
+        assertSame(firstJob, jobsManager.getJob(firstJob.getJobId()));
+
+        // отчёт уже сформирован для текущей версии данных
+        assertSame(firstJob, jobsManager.submit("summary/1", "summary.txt", reportPreparer));
+
+        // после изменения данных отчёт формируется заново
+        reportsCache.bumpDataVersion();
+        final ReportJob rebuiltJob = jobsManager.submit("summary/1", "summary.txt", reportPreparer);
+        assertNotSame(firstJob, rebuiltJob);
+        awaitFinished(rebuiltJob);
+        assertEquals(2, buildsCount.get());
+        jobsManager.shutdown();
+    }
+
+    @Test
+    void testFullQueueRejectsNewJobs() throws Exception {
+        final ReportJobsManager jobsManager = new ReportJobsManager(new ReportsCache(8),
+                                                                        new NoOpTransactionManager(), 1, 1, 4);
+        final CountDownLatch renderingAllowed = new CountDownLatch(1);
+        final Supplier<ReportRenderer> blockingPreparer = () -> out -> await(renderingAllowed);
+
+        final ReportJob runningJob = jobsManager.submit("a", "a.txt", blockingPreparer);
+        final ReportJob queuedJob = jobsManager.submit("b", "b.txt", blockingPreparer);
+        assertThrows(RejectedExecutionException.class, () -> jobsManager.submit("c", "c.txt", blockingPreparer));
+
+        renderingAllowed.countDown();
+        awaitFinished(runningJob);
+        awaitFinished(queuedJob);
+        jobsManager.shutdown();
+    }
+
+    @Test
+    void testFailedJobIsNotReused() throws Exception {
+        final ReportJobsManager jobsManager = new ReportJobsManager(new ReportsCache(8),
+                                                                        new NoOpTransactionManager(), 1, 4, 4);
+        final ReportJob failedJob = jobsManager.submit("a", "a.txt", () -> {
+            throw new IllegalStateException("broken report");
+        });
+        awaitFinished(failedJob);
+        assertEquals(ReportJobPhase.Failed, failedJob.getPhase());
+        assertTrue(failedJob.getErrorMessage().contains("broken report"));
+
+        final ReportJob retriedJob = jobsManager.submit("a", "a.txt", () -> out -> out.write(7));
+        assertNotSame(failedJob, retriedJob);
+        awaitFinished(retriedJob);
+        assertArrayEquals(new byte[] {7}, retriedJob.getResult());
+        jobsManager.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitFinished(ReportJob job) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(job.isFinished());
+    }
+
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
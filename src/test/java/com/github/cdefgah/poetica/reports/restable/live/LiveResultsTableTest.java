@@ -0,0 +1,126 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.live;
+
+import com.github.cdefgah.poetica.model.Team;
+import com.github.cdefgah.poetica.reports.restable.model.QuestionNumberIndexedFlags;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveResultsTableTest {
+
+    private static final int MIN_QUESTION_NUMBER = 1;
+
+    private static final int MAX_QUESTION_NUMBER = 12;
+
+    @Test
+    void testRatingsFollowResultTableRules() {
+        final LiveResultsTable table = createTable(3);
+
+        // команда 1 берёт задание 1 в предварительном туре, команда 2 - в основном
+        table.applyAcceptanceDelta(1L, 1, 1, 1);
+        table.applyAcceptanceDelta(2L, 1, 2, 1);
+
+        final LiveStandings preliminaryRound = table.getStandings(1);
+        // задание 1 в предварительном туре не взяли две команды
+        assertEquals(3, preliminaryRound.getQuestionRatings()[0]);
+        assertEquals(1, preliminaryRound.getRows().get(0).getTeamNumber());
+        assertEquals(3, preliminaryRound.getRows().get(0).getTeamRating());
+
+        final LiveStandings mainRound = table.getStandings(2);
+        // в основном туре задание 1 взято командами 1 и 2
+        assertEquals(2, mainRound.getQuestionRatings()[0]);
+        assertEquals(1, mainRound.getRows().get(0).getTeamNumber());
+        assertEquals(1, mainRound.getRows().get(0).getAmountOfCorrectAnswersInPreviousRound());
+        assertEquals(2, mainRound.getRows().get(1).getTeamNumber());
+        assertEquals(2, mainRound.getRows().get(1).getTeamRating());
+    }
+
+    @Test
+    void testNotGradedQuestionChangesOnlyItsRating() {
+        final LiveResultsTable table = createTable(2);
+
+        // задание 12 - внезачётное
+        table.applyAcceptanceDelta(1L, 12, 1, 1);
+
+        final LiveStandings standings = table.getStandings(1);
+        assertEquals(2, standings.getQuestionRatings()[11]);
+        assertEquals(0, standings.getRows().get(0).getAmountOfCorrectAnswersInThisRound());
+        assertEquals(0, standings.getRows().get(0).getTeamRating());
+    }
+
+    @Test
+    void testIncrementalUpdatesMatchFullRecalculation() {
+        final int teamsAmount = 7;
+        final LiveResultsTable table = createTable(teamsAmount);
+        final int[][] acceptedCounts = new int[2][teamsAmount * MAX_QUESTION_NUMBER];
+        final Random random = new Random(12345);
+
+        for (int i = 0; i < 2000; i++) {
+            final int teamIndex = random.nextInt(teamsAmount);
+            final int questionNumber = MIN_QUESTION_NUMBER + random.nextInt(MAX_QUESTION_NUMBER);
+            final int roundNumber = 1 + random.nextInt(2);
+            final int cellIndex = teamIndex * MAX_QUESTION_NUMBER + questionNumber - MIN_QUESTION_NUMBER;
+
+            final int delta = acceptedCounts[roundNumber - 1][cellIndex] > 0 && random.nextBoolean() ? -1 : 1;
+            acceptedCounts[roundNumber - 1][cellIndex] += delta;
+            table.applyAcceptanceDelta(teamIndex + 1, questionNumber, roundNumber, delta);
+        }
+
+        final LiveResultsTable rebuiltTable = createTable(teamsAmount);
+        for (int roundIndex = 0; roundIndex < 2; roundIndex++) {
+            for (int cellIndex = 0; cellIndex < acceptedCounts[roundIndex].length; cellIndex++) {
+                rebuiltTable.registerAcceptedAnswers(cellIndex / MAX_QUESTION_NUMBER + 1,
+                        MIN_QUESTION_NUMBER + cellIndex % MAX_QUESTION_NUMBER, roundIndex + 1,
+                                                                                acceptedCounts[roundIndex][cellIndex]);
+            }
+        }
+        rebuiltTable.recalculate();
+
+        for (int roundNumber = 1; roundNumber <= 2; roundNumber++) {
+            assertStandingsEqual(rebuiltTable.getStandings(roundNumber), table.getStandings(roundNumber));
+        }
+    }
+
+    private static void assertStandingsEqual(LiveStandings expected, LiveStandings actual) {
+        assertArrayEquals(expected.getQuestionRatings(), actual.getQuestionRatings());
+        assertEquals(expected.getRows().size(), actual.getRows().size());
+        for (int i = 0; i < expected.getRows().size(); i++) {
+            final LiveStandings.Row expectedRow = expected.getRows().get(i);
+            final LiveStandings.Row actualRow = actual.getRows().get(i);
+            assertEquals(expectedRow.getTeamNumber(), actualRow.getTeamNumber());
+            assertEquals(expectedRow.getAmountOfCorrectAnswersInThisRound(),
+                                                                    actualRow.getAmountOfCorrectAnswersInThisRound());
+            assertEquals(expectedRow.getAmountOfCorrectAnswersInPreviousRound(),
+                                                                actualRow.getAmountOfCorrectAnswersInPreviousRound());
+            assertEquals(expectedRow.getTeamRating(), actualRow.getTeamRating());
+        }
+    }
+
+    private static LiveResultsTable createTable(int teamsAmount) {
+        final List<Team> teams = new ArrayList<>();
+        for (int i = 1; i <= teamsAmount; i++) {
+            final Team team = new Team();
+            team.setId((long) i);
+            team.setNumber(i);
+            team.setTitle("Команда " + i);
+            teams.add(team);
+        }
+
+        final QuestionNumberIndexedFlags questionGrades = new QuestionNumberIndexedFlags(MIN_QUESTION_NUMBER,
+                                                                                                MAX_QUESTION_NUMBER);
+        for (int questionNumber = MIN_QUESTION_NUMBER; questionNumber <= MAX_QUESTION_NUMBER; questionNumber++) {
+            questionGrades.set(questionNumber, questionNumber != MAX_QUESTION_NUMBER);
+        }
+
+        return new LiveResultsTable(teams, MIN_QUESTION_NUMBER, MAX_QUESTION_NUMBER, questionGrades);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcceptanceMatrixTest {
+
+    @Test
+    void testMarkedAnswersAreAcceptedOnlyInTheirRound() {
+        final AcceptanceMatrix matrix = new AcceptanceMatrix(Arrays.asList(10L, 20L), 1, 100);
+
+        matrix.markAccepted(10L, 1, 1);
+        matrix.markAccepted(10L, 65, 2);
+        matrix.markAccepted(20L, 100, 1);
+
+        assertTrue(matrix.isAnswerAccepted(10L, 1, 1));
+        assertFalse(matrix.isAnswerAccepted(10L, 1, 2));
+        assertTrue(matrix.isAnswerAccepted(10L, 65, 2));
+        assertFalse(matrix.isAnswerAccepted(10L, 65, 1));
+        assertTrue(matrix.isAnswerAccepted(20L, 100, 1));
+        assertFalse(matrix.isAnswerAccepted(20L, 1, 1));
+    }
+
+    @Test
+    void testOutOfRangeAnswersAreIgnored() {
+        final AcceptanceMatrix matrix = new AcceptanceMatrix(Arrays.asList(10L, 20L), 5, 10);
+
+        matrix.markAccepted(10L, 4, 1);
+        matrix.markAccepted(10L, 11, 1);
+        matrix.markAccepted(30L, 5, 1);
+
+        assertFalse(matrix.isAnswerAccepted(10L, 4, 1));
+        assertFalse(matrix.isAnswerAccepted(10L, 11, 1));
+        assertFalse(matrix.isAnswerAccepted(30L, 5, 1));
+    }
+
+    @Test
+    void testOutOfRangeRoundsAreNotAccepted() {
+        final AcceptanceMatrix matrix = new AcceptanceMatrix(Arrays.asList(10L, 20L), 1, 10);
+        matrix.markAccepted(10L, 5, 1);
+        matrix.markAccepted(10L, 5, 2);
+        matrix.markAccepted(10L, 6, 3);
+
+        assertFalse(matrix.isAnswerAccepted(10L, 5, 0));
+        assertFalse(matrix.isAnswerAccepted(10L, 5, 3));
+        assertFalse(matrix.isAnswerAccepted(10L, 6, 2));
+        assertArrayEquals(new long[1], matrix.copyRow(10L, 0));
+        assertArrayEquals(new long[1], matrix.copyRow(10L, 3));
+    }
+
+    @Test
+    void testCopiedRowIsIndependentFromMatrix() {
+        final AcceptanceMatrix matrix = new AcceptanceMatrix(Arrays.asList(10L, 20L), 1, 70);
+        matrix.markAccepted(20L, 70, 1);
+
+        final long[] row = matrix.copyRow(20L, 1);
+        assertEquals(2, row.length);
+        assertTrue(AcceptanceMatrix.isBitSet(row, 0, 69));
+
+        AcceptanceMatrix.setBit(row, 0, 0);
+        assertFalse(matrix.isAnswerAccepted(20L, 1, 1));
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.reports.restable.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionNumberIndexedFlagsTest {
+
+    @Test
+    void testFlagsAreStoredRelativeToMinimalQuestionNumber() {
+        final QuestionNumberIndexedFlags flags = new QuestionNumberIndexedFlags(3, 70);
+        flags.set(3, true);
+        flags.set(66, true);
+        flags.set(67, false);
+        flags.set(66, false);
+        flags.set(70, true);
+
+        assertTrue(flags.get(3));
+        assertFalse(flags.get(66));
+        assertFalse(flags.get(67));
+        assertTrue(flags.get(70));
+        assertFalse(flags.get(2));
+        assertFalse(flags.get(71));
+
+        assertEquals(1L, flags.getWord(0));
+        assertEquals(1L << 3, flags.getWord(1));
+        assertEquals(0L, flags.getWord(2));
+    }
+
+    @Test
+    void testMapViewContainsOnlyDefinedQuestionNumbers() {
+        final QuestionNumberIndexedFlags flags = new QuestionNumberIndexedFlags(1, 10);
+        flags.set(2, true);
+        flags.set(5, false);
+
+        final Map<Integer, Boolean> map = flags.asMap();
+        assertEquals(2, map.size());
+        assertEquals(Boolean.TRUE, map.get(2));
+        assertEquals(Boolean.FALSE, map.get(5));
+        assertNull(map.get(1));
+        assertArrayEquals(new Integer[] {2, 5}, map.keySet().toArray(new Integer[0]));
+        assertThrows(UnsupportedOperationException.class, () -> map.put(1, true));
+    }
+
+    @Test
+    void testIntsMapViewReflectsIncrements() {
+        final QuestionNumberIndexedInts ratings = new QuestionNumberIndexedInts(5, 7, 1);
+        ratings.increment(6);
+        ratings.incrementByOffset(2);
+
+        final Map<Integer, Integer> map = ratings.asMap();
+        assertEquals(3, map.size());
+        assertEquals(1, map.get(5));
+        assertEquals(2, map.get(6));
+        assertEquals(2, map.get(7));
+        assertNull(map.get(8));
+    }
+}
@@ -0,0 +1,475 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.testsupport;
+
+import com.github.cdefgah.poetica.model.Answer;
+import com.github.cdefgah.poetica.model.Grade;
+import com.github.cdefgah.poetica.utils.TextHasher;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Синтетический набор данных для бенчмарков и тестов: команды, задания (в том числе задания с несколькими номерами),
+ * письма команд на оба тура и ответы с заданным соотношением оценок.
+ * Один и тот-же ответ на одно и то-же задание у всех команд получает одну и ту-же оценку,
+ * так что данные непротиворечивы и отчёты строятся полностью, а не выводят отчёт о противоречиях.
+ * Набор полностью определяется параметрами и начальным значением генератора случайных чисел.
+ * Для небольших наборов данных, которые тест составляет сам, есть методы вставки отдельных записей.
+ */
+public final class SyntheticDataset {
+
+    /**
+     * Количество писем каждой команды на каждый тур (раунд).
+     */
+    public static final int EMAILS_PER_ROUND = 2;
+
+    /**
+     * Количество различных вариантов ответа на каждый номер задания, нулевой вариант совпадает с авторским ответом.
+     */
+    public static final int ANSWER_VARIANTS_PER_QUESTION_NUMBER = 8;
+
+    /**
+     * Каждое задание с таким шагом внезачётное.
+     */
+    private static final int NON_GRADED_QUESTIONS_PERIOD = 10;
+
+    /**
+     * Время отправки первого письма.
+     */
+    private static final long FIRST_EMAIL_SENT_ON = 1_600_000_000_000L;
+
+    /**
+     * Количество команд.
+     */
+    private final int teamsCount;
+
+    /**
+     * Количество ответов каждой команды, ответы распределяются по всем письмам команды.
+     */
+    private final int answersPerTeam;
+
+    /**
+     * Начальное значение генератора случайных чисел.
+     */
+    private final long seed;
+
+    /**
+     * Внешние номера заданий в порядке возрастания внутренних номеров.
+     */
+    private final List<String> externalNumbers = new ArrayList<>();
+
+    /**
+     * Минимальные внутренние номера заданий в порядке возрастания.
+     */
+    private final List<Integer> lowestInternalNumbers = new ArrayList<>();
+
+    /**
+     * Максимальные внутренние номера заданий в порядке возрастания минимальных внутренних номеров.
+     */
+    private final List<Integer> highestInternalNumbers = new ArrayList<>();
+
+    /**
+     * Авторские ответы по внутреннему номеру задания, индекс 0 не используется.
+     */
+    private final String[] authorsAnswers;
+
+    /**
+     * Оценки вариантов ответов: внутренний номер задания и номер варианта ответа, индекс 0 по номеру не используется.
+     */
+    private final Grade[][] variantGrades;
+
+    /**
+     * Конструктор класса.
+     * @param teamsCount количество команд.
+     * @param questionsCount количество заданий.
+     * @param multiNumberQuestionsCount сколько из заданий имеют два внутренних номера, они равномерно
+     *                                  распределяются среди остальных заданий.
+     * @param answersPerTeam количество ответов каждой команды.
+     * @param gradeMix соотношение оценок в виде "зачтено:не зачтено:без оценки", например "70:25:5".
+     * @param seed начальное значение генератора случайных чисел.
+     * @throws IllegalArgumentException если параметры заданы неверно.
+     */
+    public SyntheticDataset(int teamsCount, int questionsCount, int multiNumberQuestionsCount, int answersPerTeam,
+                                                                                    String gradeMix, long seed) {
+        if (teamsCount <= 0 || questionsCount <= 0 || answersPerTeam < 0 || multiNumberQuestionsCount < 0 ||
+                                                                    multiNumberQuestionsCount > questionsCount) {
+            throw new IllegalArgumentException("Invalid dataset size");
+        }
+
+        this.teamsCount = teamsCount;
+        this.answersPerTeam = answersPerTeam;
+        this.seed = seed;
+
+        int internalNumber = 1;
+        for (int i = 0; i < questionsCount; i++) {
+            // задания с двумя номерами распределяем равномерно
+            final boolean isMultiNumberQuestion = (long) i * multiNumberQuestionsCount / questionsCount !=
+                                                            (long) (i + 1) * multiNumberQuestionsCount / questionsCount;
+            final int lowestInternalNumber = internalNumber;
+            final int highestInternalNumber = isMultiNumberQuestion ? internalNumber + 1 : internalNumber;
+
+            externalNumbers.add(isMultiNumberQuestion ? lowestInternalNumber + "-" + highestInternalNumber :
+                                                                                String.valueOf(lowestInternalNumber));
+            lowestInternalNumbers.add(lowestInternalNumber);
+            highestInternalNumbers.add(highestInternalNumber);
+            internalNumber = highestInternalNumber + 1;
+        }
+
+        final int maxQuestionNumber = internalNumber - 1;
+        authorsAnswers = new String[maxQuestionNumber + 1];
+        for (int i = 0; i < questionsCount; i++) {
+            for (int number = lowestInternalNumbers.get(i); number <= highestInternalNumbers.get(i); number++) {
+                authorsAnswers[number] = "авторский ответ на задание " + externalNumbers.get(i);
+            }
+        }
+
+        final int[] gradeWeights = parseGradeMix(gradeMix);
+        final int totalWeight = gradeWeights[0] + gradeWeights[1] + gradeWeights[2];
+        final Random random = new Random(seed);
+        variantGrades = new Grade[maxQuestionNumber + 1][ANSWER_VARIANTS_PER_QUESTION_NUMBER];
+        for (int number = 1; number <= maxQuestionNumber; number++) {
+            // авторский ответ засчитывается всегда, так-же, как при автоматической оценке во время импорта
+            variantGrades[number][0] = Grade.Accepted;
+            for (int variant = 1; variant < ANSWER_VARIANTS_PER_QUESTION_NUMBER; variant++) {
+                final int weight = random.nextInt(totalWeight);
+                if (weight < gradeWeights[0]) {
+                    variantGrades[number][variant] = Grade.Accepted;
+                } else if (weight < gradeWeights[0] + gradeWeights[1]) {
+                    variantGrades[number][variant] = Grade.NotAccepted;
+                } else {
+                    variantGrades[number][variant] = Grade.None;
+                }
+            }
+        }
+    }
+
+    /**
+     * Разбирает соотношение оценок.
+     * @param gradeMix соотношение оценок в виде "зачтено:не зачтено:без оценки".
+     * @return веса оценок Accepted, NotAccepted и None.
+     * @throws IllegalArgumentException если строка не является соотношением оценок.
+     */
+    private static int[] parseGradeMix(String gradeMix) {
+        final String[] parts = gradeMix.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid grade mix: " + gradeMix);
+        }
+
+        final int[] gradeWeights = new int[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                gradeWeights[i] = Integer.parseInt(parts[i].trim());
+                if (gradeWeights[i] < 0) {
+                    throw new IllegalArgumentException("Invalid grade mix: " + gradeMix);
+                }
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid grade mix: " + gradeMix, ex);
+        }
+
+        if (gradeWeights[0] + gradeWeights[1] + gradeWeights[2] == 0) {
+            throw new IllegalArgumentException("Invalid grade mix: " + gradeMix);
+        }
+
+        return gradeWeights;
+    }
+
+    /**
+     * Отдаёт максимальный внутренний номер задания.
+     * @return максимальный внутренний номер задания.
+     */
+    public int getMaxQuestionNumber() {
+        return authorsAnswers.length - 1;
+    }
+
+    /**
+     * Отдаёт тело варианта ответа на задание.
+     * @param questionNumber внутренний номер задания.
+     * @param variant номер варианта ответа, нулевой вариант совпадает с авторским ответом.
+     * @return тело ответа.
+     */
+    public String getAnswerBody(int questionNumber, int variant) {
+        return variant == 0 ? authorsAnswers[questionNumber] : "ответ " + variant + " на задание " + questionNumber;
+    }
+
+    /**
+     * Заполняет пустую базу данных, схема которой уже создана приложением.
+     * Записи вставляются пакетами, вызывать нужно в транзакции.
+     * @param jdbcTemplate для выполнения запросов.
+     */
+    public void fill(JdbcTemplate jdbcTemplate) {
+        final List<Object[]> questionRows = new ArrayList<>();
+        for (int i = 0; i < externalNumbers.size(); i++) {
+            final String authorsAnswer = authorsAnswers[lowestInternalNumbers.get(i)];
+            questionRows.add(new Object[] {"автор", authorsAnswer, TextHasher.getHashForRawText(authorsAnswer),
+                    "текст задания " + externalNumbers.get(i), "", externalNumbers.get(i),
+                    (i + 1) % NON_GRADED_QUESTIONS_PERIOD != 0, highestInternalNumbers.get(i),
+                    lowestInternalNumbers.get(i), "источник", "задание " + externalNumbers.get(i)});
+        }
+        jdbcTemplate.batchUpdate("insert into questions (author_info, authors_answer, authors_answer_hash, body, " +
+                "comment, external_number, graded, highest_internal_number, lowest_internal_number, source, title) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", questionRows);
+
+        final Map<Integer, Long> questionIds = new HashMap<>();
+        jdbcTemplate.query("select id, lowest_internal_number, highest_internal_number from questions",
+                resultSet -> {
+                    for (int number = resultSet.getInt(2); number <= resultSet.getInt(3); number++) {
+                        questionIds.put(number, resultSet.getLong(1));
+                    }
+                });
+
+        final List<Object[]> teamRows = new ArrayList<>();
+        for (int teamNumber = 1; teamNumber <= teamsCount; teamNumber++) {
+            teamRows.add(new Object[] {teamNumber, "Команда " + teamNumber, "команда " + teamNumber});
+        }
+        jdbcTemplate.batchUpdate("insert into teams (number, title, title_in_lower_case) values (?, ?, ?)", teamRows);
+        final List<Long> teamIds = jdbcTemplate.queryForList("select id from teams order by number", Long.class);
+
+        // время отправки у каждого письма своё, по нему находим идентификаторы вставленных писем
+        final int emailsPerTeam = EMAILS_PER_ROUND * 2;
+        final List<Object[]> emailRows = new ArrayList<>();
+        for (int i = 0; i < teamIds.size(); i++) {
+            for (int emailIndex = 0; emailIndex < emailsPerTeam; emailIndex++) {
+                final long sentOn = getEmailSentOn(i, emailIndex);
+                emailRows.add(new Object[] {"текст письма", sentOn, "1-" + getMaxQuestionNumber(),
+                                                        getEmailRoundNumber(emailIndex), sentOn, teamIds.get(i)});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into emails (body, imported_on, question_numbers_sequence, round_number, " +
+                                                    "sent_on, team_id) values (?, ?, ?, ?, ?, ?)", emailRows);
+
+        final Map<Long, Long> emailIds = new HashMap<>();
+        jdbcTemplate.query("select id, sent_on from emails",
+                                        resultSet -> { emailIds.put(resultSet.getLong(2), resultSet.getLong(1)); });
+
+        final Random random = new Random(seed);
+        final List<Object[]> answerRows = new ArrayList<>();
+        for (int i = 0; i < teamIds.size(); i++) {
+            for (int answerIndex = 0; answerIndex < answersPerTeam; answerIndex++) {
+                final int emailIndex = answerIndex % emailsPerTeam;
+                final long sentOn = getEmailSentOn(i, emailIndex);
+                final int questionNumber = random.nextInt(getMaxQuestionNumber()) + 1;
+                final int variant = random.nextInt(ANSWER_VARIANTS_PER_QUESTION_NUMBER);
+                final String body = getAnswerBody(questionNumber, variant);
+
+                answerRows.add(new Object[] {TextHasher.getHashForRawText(body), body,
+                        random.nextInt(5) == 0 ? "комментарий" : "", emailIds.get(sentOn), sentOn,
+                        variantGrades[questionNumber][variant].toString(), questionIds.get(questionNumber),
+                        questionNumber, getEmailRoundNumber(emailIndex), teamIds.get(i)});
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into answers (answer_body_hash, body, comment, email_id, email_sent_on, " +
+                "grade, question_id, question_number, round_number, team_id) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", answerRows);
+    }
+
+    /**
+     * Формирует ответы для импорта, так-же, как их формирует разбор запроса на импорт ответов:
+     * hash-код тела ответа рассчитывается при его установке, а оценка не проставлена.
+     * @param teamId уникальный идентификатор команды.
+     * @param emailId уникальный идентификатор письма.
+     * @param roundNumber номер тура (раунда).
+     * @param emailSentOn время отправки письма.
+     * @param answersCount количество ответов.
+     * @param random генератор случайных чисел.
+     * @return ответы для импорта.
+     */
+    public Answer[] createAnswersToImport(long teamId, long emailId, int roundNumber, long emailSentOn,
+                                                                                int answersCount, Random random) {
+        final Answer[] answers = new Answer[answersCount];
+        for (int i = 0; i < answersCount; i++) {
+            final int questionNumber = random.nextInt(getMaxQuestionNumber()) + 1;
+
+            final Answer answer = new Answer();
+            answer.setTeamId(teamId);
+            answer.setEmailId(emailId);
+            answer.setRoundNumber(roundNumber);
+            answer.setEmailSentOn(emailSentOn);
+            answer.setQuestionNumber(questionNumber);
+            answer.setBody(getAnswerBody(questionNumber, random.nextInt(ANSWER_VARIANTS_PER_QUESTION_NUMBER)));
+            answer.setComment("");
+            answers[i] = answer;
+        }
+
+        return answers;
+    }
+
+    /**
+     * Вставляет задание с одним номером, hash-код авторского ответа рассчитывается.
+     * @param jdbcTemplate для выполнения запросов.
+     * @param questionNumber внутренний и внешний номер задания.
+     * @param authorsAnswer авторский ответ.
+     * @param graded true, если задание зачётное.
+     * @return уникальный идентификатор задания.
+     */
+    public static long insertQuestion(JdbcTemplate jdbcTemplate, int questionNumber, String authorsAnswer,
+                                                                                                    boolean graded) {
+        return insertQuestion(jdbcTemplate, questionNumber, authorsAnswer,
+                                                                TextHasher.getHashForRawText(authorsAnswer), graded);
+    }
+
+    /**
+     * Вставляет задание с одним номером и заданным hash-кодом авторского ответа.
+     * @param jdbcTemplate для выполнения запросов.
+     * @param questionNumber внутренний и внешний номер задания.
+     * @param authorsAnswer авторский ответ.
+     * @param authorsAnswerHash hash-код авторского ответа, может быть null.
+     * @param graded true, если задание зачётное.
+     * @return уникальный идентификатор задания.
+     */
+    public static long insertQuestion(JdbcTemplate jdbcTemplate, int questionNumber, String authorsAnswer,
+                                                                        String authorsAnswerHash, boolean graded) {
+        return insertRow(jdbcTemplate, "insert into questions (author_info, authors_answer, authors_answer_hash, " +
+                "body, comment, external_number, graded, highest_internal_number, lowest_internal_number, source, " +
+                "title) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", "автор", authorsAnswer, authorsAnswerHash,
+                "текст задания " + questionNumber, "", String.valueOf(questionNumber), graded, questionNumber,
+                questionNumber, "источник", "задание " + questionNumber);
+    }
+
+    /**
+     * Вставляет команду с названием вида "Команда 1".
+     * @param jdbcTemplate для выполнения запросов.
+     * @param teamNumber номер команды.
+     * @return уникальный идентификатор команды.
+     */
+    public static long insertTeam(JdbcTemplate jdbcTemplate, int teamNumber) {
+        return insertTeam(jdbcTemplate, teamNumber, "Команда " + teamNumber);
+    }
+
+    /**
+     * Вставляет команду.
+     * @param jdbcTemplate для выполнения запросов.
+     * @param teamNumber номер команды.
+     * @param title название команды.
+     * @return уникальный идентификатор команды.
+     */
+    public static long insertTeam(JdbcTemplate jdbcTemplate, int teamNumber, String title) {
+        return insertRow(jdbcTemplate, "insert into teams (number, title, title_in_lower_case) values (?, ?, ?)",
+                                                                            teamNumber, title, title.toLowerCase());
+    }
+
+    /**
+     * Вставляет письмо команды, время импорта совпадает со временем отправки.
+     * @param jdbcTemplate для выполнения запросов.
+     * @param teamId уникальный идентификатор команды.
+     * @param roundNumber номер тура (раунда).
+     * @param sentOn время отправки письма.
+     * @param questionNumbersSequence номера заданий, на которые в письме есть ответы.
+     * @return уникальный идентификатор письма.
+     */
+    public static long insertEmail(JdbcTemplate jdbcTemplate, long teamId, int roundNumber, long sentOn,
+                                                                                    String questionNumbersSequence) {
+        return insertEmail(jdbcTemplate, teamId, roundNumber, sentOn, questionNumbersSequence, "текст письма");
+    }
+
+    /**
+     * Вставляет письмо команды с заданным текстом, время импорта совпадает со временем отправки.
+     * @param jdbcTemplate для выполнения запросов.
+     * @param teamId уникальный идентификатор команды.
+     * @param roundNumber номер тура (раунда).
+     * @param sentOn время отправки письма.
+     * @param questionNumbersSequence номера заданий, на которые в письме есть ответы.
+     * @param body текст письма.
+     * @return уникальный идентификатор письма.
+     */
+    public static long insertEmail(JdbcTemplate jdbcTemplate, long teamId, int roundNumber, long sentOn,
+                                                                    String questionNumbersSequence, String body) {
+        return insertRow(jdbcTemplate, "insert into emails (body, imported_on, question_numbers_sequence, " +
+                "round_number, sent_on, team_id) values (?, ?, ?, ?, ?, ?)", body, sentOn, questionNumbersSequence,
+                roundNumber, sentOn, teamId);
+    }
+
+    /**
+     * Вставляет ответ команды без комментария, hash-код тела ответа рассчитывается.
+     * @param jdbcTemplate для выполнения запросов.
+     * @param teamId уникальный идентификатор команды.
+     * @param emailId уникальный идентификатор письма.
+     * @param roundNumber номер тура (раунда).
+     * @param emailSentOn время отправки письма.
+     * @param questionId уникальный идентификатор задания.
+     * @param questionNumber номер задания.
+     * @param body тело ответа.
+     * @param grade оценка ответа.
+     * @return уникальный идентификатор ответа.
+     */
+    public static long insertAnswer(JdbcTemplate jdbcTemplate, long teamId, long emailId, int roundNumber,
+                        long emailSentOn, long questionId, int questionNumber, String body, Grade grade) {
+        return insertAnswer(jdbcTemplate, teamId, emailId, roundNumber, emailSentOn, questionId, questionNumber, body,
+                                                                            TextHasher.getHashForRawText(body), grade);
+    }
+
+    /**
+     * Вставляет ответ команды без комментария с заданным hash-кодом тела ответа.
+     * @param jdbcTemplate для выполнения запросов.
+     * @param teamId уникальный идентификатор команды.
+     * @param emailId уникальный идентификатор письма.
+     * @param roundNumber номер тура (раунда).
+     * @param emailSentOn время отправки письма.
+     * @param questionId уникальный идентификатор задания.
+     * @param questionNumber номер задания.
+     * @param body тело ответа.
+     * @param answerBodyHash hash-код тела ответа, может быть null.
+     * @param grade оценка ответа.
+     * @return уникальный идентификатор ответа.
+     */
+    public static long insertAnswer(JdbcTemplate jdbcTemplate, long teamId, long emailId, int roundNumber,
+                        long emailSentOn, long questionId, int questionNumber, String body, String answerBodyHash,
+                                                                                                    Grade grade) {
+        return insertRow(jdbcTemplate, "insert into answers (answer_body_hash, body, comment, email_id, " +
+                "email_sent_on, grade, question_id, question_number, round_number, team_id) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", answerBodyHash, body, "", emailId, emailSentOn,
+                grade.name(), questionId, questionNumber, roundNumber, teamId);
+    }
+
+    /**
+     * Вставляет запись и отдаёт сформированный базой данных идентификатор.
+     * @param jdbcTemplate для выполнения запросов.
+     * @param insertSql запрос на вставку записи.
+     * @param args значения параметров запроса.
+     * @return уникальный идентификатор записи.
+     */
+    private static long insertRow(JdbcTemplate jdbcTemplate, String insertSql, Object... args) {
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(insertSql,
+                                                                                    Statement.RETURN_GENERATED_KEYS);
+            new ArgumentPreparedStatementSetter(args).setValues(statement);
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * Отдаёт время отправки письма команды.
+     * @param teamIndex порядковый номер команды, начиная с нуля.
+     * @param emailIndex порядковый номер письма команды, начиная с нуля.
+     * @return время отправки письма.
+     */
+    private long getEmailSentOn(int teamIndex, int emailIndex) {
+        // письма с большим порядковым номером отправлены позже всех писем с меньшим
+        return FIRST_EMAIL_SENT_ON + ((long) emailIndex * teamsCount + teamIndex) * 1000;
+    }
+
+    /**
+     * Отдаёт номер тура (раунда) письма команды: первые письма на предварительный тур, остальные - на основной.
+     * @param emailIndex порядковый номер письма команды, начиная с нуля.
+     * @return номер тура (раунда).
+     */
+    private static int getEmailRoundNumber(int emailIndex) {
+        return emailIndex < EMAILS_PER_ROUND ? 1 : 2;
+    }
+}
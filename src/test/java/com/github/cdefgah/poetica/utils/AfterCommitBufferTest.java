@@ -0,0 +1,108 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AfterCommitBufferTest {
+
+    private final List<List<String>> handledChanges = new ArrayList<>();
+
+    private final StaleGuard staleGuard = new StaleGuard();
+
+    private final AfterCommitBuffer<List<String>> buffer =
+                                            new AfterCommitBuffer<>(ArrayList::new, handledChanges::add, staleGuard);
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(buffer);
+    }
+
+    @Test
+    public void testChangesWithoutTransactionAreHandledImmediately() {
+        buffer.record(changes -> changes.add("a"));
+        buffer.record(changes -> changes.add("b"));
+
+        assertEquals(2, handledChanges.size());
+        assertEquals("a", handledChanges.get(0).get(0));
+        assertEquals("b", handledChanges.get(1).get(0));
+    }
+
+    @Test
+    public void testTransactionChangesAreHandledOnceAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        buffer.record(changes -> changes.add("a"));
+        buffer.record(changes -> changes.add("b"));
+        assertTrue(handledChanges.isEmpty());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(1, handledChanges.size());
+        assertEquals(2, handledChanges.get(0).size());
+        assertFalse(TransactionSynchronizationManager.hasResource(buffer));
+    }
+
+    @Test
+    public void testRolledBackChangesAreDiscarded() {
+        TransactionSynchronizationManager.initSynchronization();
+        buffer.record(changes -> changes.add("a"));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertTrue(handledChanges.isEmpty());
+        assertFalse(TransactionSynchronizationManager.hasResource(buffer));
+    }
+
+    @Test
+    public void testLoadDuringCommitIsStale() {
+        final long loadStampBeforeCommit = staleGuard.beginLoad();
+        assertFalse(staleGuard.isStale(loadStampBeforeCommit));
+
+        TransactionSynchronizationManager.initSynchronization();
+        buffer.record();
+        final List<TransactionSynchronization> synchronizations =
+                                                            TransactionSynchronizationManager.getSynchronizations();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.beforeCommit(false);
+        }
+
+        // фиксация началась во время загрузки
+        assertTrue(staleGuard.isStale(loadStampBeforeCommit));
+        // загрузка началась во время фиксации
+        final long loadStampDuringCommit = staleGuard.beginLoad();
+        assertTrue(staleGuard.isStale(loadStampDuringCommit));
+
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.beforeCompletion();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        assertFalse(staleGuard.isStale(staleGuard.beginLoad()));
+    }
+
+    private static void complete(int status) {
+        final List<TransactionSynchronization> synchronizations =
+                                                            TransactionSynchronizationManager.getSynchronizations();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.beforeCommit(false);
+            }
+            synchronization.beforeCompletion();
+            synchronization.afterCompletion(status);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import com.github.cdefgah.poetica.model.Grade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertAnswer;
+import static com.github.cdefgah.poetica.testsupport.SyntheticDataset.insertQuestion;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Пересчёт hash-кодов порциями по две записи, чтобы записи попали в несколько порций.
+ * Отдельная база данных, чтобы записи без hash-кодов не мешали остальным тестам.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hash-backfill;MODE=LEGACY;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "poetica.hash-backfill.chunk-size=2"})
+public class HashBackfillerTest {
+
+    private static final String[] TEXTS = {"море", "лес", "камень", "звезда", "река"};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private HashBackfiller hashBackfiller;
+
+    @BeforeEach
+    public void clearTables() {
+        jdbcTemplate.update("delete from answers");
+        jdbcTemplate.update("delete from questions");
+    }
+
+    @Test
+    public void testMissingAndWrongLengthQuestionHashesAreRewritten() {
+        for (int i = 0; i < TEXTS.length; i++) {
+            insertQuestion(jdbcTemplate, i + 1, TEXTS[i], getSeededHash(i), true);
+        }
+
+        hashBackfiller.backfillQuestions();
+
+        assertAllHashesAreCorrect("select authors_answer, authors_answer_hash from questions");
+    }
+
+    @Test
+    public void testMissingAndWrongLengthAnswerHashesAreRewrittenInBackground() throws InterruptedException {
+        for (int i = 0; i < TEXTS.length; i++) {
+            insertAnswer(jdbcTemplate, i + 1, 1, 1, 1L, 1, 1, TEXTS[i], getSeededHash(i), Grade.None);
+        }
+
+        hashBackfiller.startAnswersBackfill();
+
+        final long deadline = System.currentTimeMillis() + 10_000L;
+        while (getAnswersWithoutCorrectHashCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertAllHashesAreCorrect("select body, answer_body_hash from answers");
+    }
+
+    @Test
+    public void testBackfillInsideTransactionIsRejected() {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.execute(status -> {
+            hashBackfiller.backfillQuestions();
+            return null;
+        }));
+    }
+
+    /**
+     * Часть записей без hash-кода, часть с hash-кодом другой длины, одна запись с верным hash-кодом.
+     */
+    private static String getSeededHash(int index) {
+        switch (index % 3) {
+            case 0:
+                return null;
+            case 1:
+                return "0123456789";
+            default:
+                return TextHasher.getHashForRawText(TEXTS[index]);
+        }
+    }
+
+    private long getAnswersWithoutCorrectHashCount() {
+        return jdbcTemplate.queryForObject("select count(*) from answers where answer_body_hash is null or " +
+                "length(answer_body_hash)<>?", Long.class, TextHasher.getAlgorithm().getHashLength());
+    }
+
+    private void assertAllHashesAreCorrect(String selectTextAndHashSql) {
+        int rowsCount = 0;
+        for (Map<String, Object> row : jdbcTemplate.queryForList(selectTextAndHashSql)) {
+            final Object[] values = row.values().toArray();
+            assertEquals(TextHasher.getHashForRawText((String) values[0]), values[1], (String) values[0]);
+            rowsCount++;
+        }
+
+        assertEquals(TEXTS.length, rowsCount);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * SPDX-License-Identifier: GPL-3.0-only
+ * Copyright (c) 2020 - 2022 by Rafael Osipov <rafael.osipov@outlook.com>
+ */
+
+package com.github.cdefgah.poetica.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextHasherTest {
+
+    private static final String[] TEXTS_TO_NORMALIZE = {
+            "", " ", "\t\r\n", "ответ", "  ответ  ", "один  два", "один \t два", "один\t\tдва", "один\r\nдва",
+            "один \u0001 два", " \u0001 ответ \u0001 ", "\fответ\u000B", "один два три", "a  b\tc \n d ",
+            "один  два"
+    };
+
+    @Test
+    void testNormalizationMatchesRegexVersion() {
+        for (String text : TEXTS_TO_NORMALIZE) {
+            final String expected = text.replaceAll("[\\t\\n\\r]+", " ").replaceAll(" +", " ").trim();
+            assertEquals(expected, TextHasher.normalizeText(text), "text: [" + text + "]");
+        }
+    }
+
+    @Test
+    void testSha512HashIsCompatibleWithStoredHashes() throws Exception {
+        final String text = "  Некий   ответ\tдля\r\nобъекта answer ";
+        final byte[] digest = MessageDigest.getInstance("SHA-512").digest(
+                "Некий ответ для объекта answer".getBytes(StandardCharsets.UTF_8));
+        final StringBuilder expected = new StringBuilder();
+        for (byte oneByte : digest) {
+            expected.append(Integer.toString((oneByte & 0xff) + 0x100, 16).substring(1));
+        }
+
+        assertEquals(TextHasher.Algorithm.SHA512, TextHasher.getAlgorithm());
+        assertEquals(expected.toString(), TextHasher.getHashForRawText(text));
+    }
+
+    @Test
+    void testMurmur3Hash() {
+        assertArrayEquals(new byte[16], TextHasher.murmur3Hash128(new byte[0]));
+
+        final byte[] hash = TextHasher.murmur3Hash128(
+                "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8));
+        final StringBuilder hexHash = new StringBuilder();
+        for (byte oneByte : hash) {
+            hexHash.append(String.format("%02x", oneByte));
+        }
+
+        assertEquals("6c1b07bc7bbc4be347939ac4a93c437a", hexHash.toString());
+    }
+}